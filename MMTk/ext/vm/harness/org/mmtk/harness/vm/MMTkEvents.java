@@ -31,4 +31,8 @@ public final class MMTkEvents extends MMTk_Events {
   public void tracePageReleased(Space space, Address startAddress, int numPages) {
   }
 
+  @Override
+  public void allocationSampled(Address start, int bytes) {
+  }
+
 }
@@ -13,6 +13,7 @@
 
 package org.jikesrvm.mm.mmtk;
 
+import org.jikesrvm.mm.mminterface.HeapProfiler;
 import org.jikesrvm.scheduler.RVMThread;
 import org.jikesrvm.tuningfork.TraceEngine;
 import org.mmtk.policy.Space;
@@ -66,4 +67,8 @@ public class MMTk_Events extends org.mmtk.vm.MMTk_Events {
   public void heapSizeChanged(Extent heapSize) {
     RVMThread.getCurrentFeedlet().addEvent(heapSizeChanged, heapSize.toInt());
   }
+
+  public void allocationSampled(Address start, int bytes) {
+    HeapProfiler.sampleAllocation(start, bytes);
+  }
 }
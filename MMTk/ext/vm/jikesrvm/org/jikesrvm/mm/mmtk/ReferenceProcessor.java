@@ -20,7 +20,9 @@ import org.vmmagic.pragma.*;
 import org.vmmagic.unboxed.*;
 
 import org.jikesrvm.VM;
+import org.jikesrvm.jni.JNIGlobalRefTable;
 import org.jikesrvm.mm.mminterface.DebugUtil;
+import org.jikesrvm.mm.mminterface.HeapProfiler;
 import org.jikesrvm.mm.mminterface.Selected;
 import org.jikesrvm.runtime.Entrypoints;
 import org.jikesrvm.runtime.Magic;
@@ -293,6 +295,10 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
       ObjectReference newReference = trace.getForwardedReference(reference);
       unforwardedReferences.set(i, newReference.toAddress());
     }
+    if (semantics == Semantics.WEAK) {
+      forwardJNIWeakGlobalRefs(trace);
+      if (HeapProfiler.enabled()) HeapProfiler.forwardSamples(trace);
+    }
     if (TRACE) VM.sysWriteln("Ending ReferenceGlue.forward(",semanticsStr,")");
     unforwardedReferences = null;
   }
@@ -348,11 +354,61 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
     }
     nurseryIndex = maxIndex = toIndex;
 
+    if (semantics == Semantics.WEAK) {
+      scanJNIWeakGlobalRefs(trace);
+      if (HeapProfiler.enabled()) HeapProfiler.scanSamples(trace, nursery);
+    }
+
     /* flush out any remset entries generated during the above activities */
     Selected.Mutator.get().flushRememberedSets();
     if (TRACE) VM.sysWriteln("Ending ReferenceGlue.scan(",semanticsStr,")");
   }
 
+  /**
+   * Process the JNI weak global reference table.  Its slots hold
+   * referents directly rather than Reference objects, so each slot is
+   * cleared if its referent is dead and otherwise forwarded, either now
+   * or in {@link #forward} if the collector forwards after liveness.<p>
+   *
+   * When reference types are disabled this is never called, and
+   * {@link Scanning#computeGlobalRoots} treats the table as strong roots.
+   *
+   * @param trace The trace
+   */
+  private static void scanJNIWeakGlobalRefs(TraceLocal trace) {
+    boolean forwardLater = Selected.Constraints.get().needsForwardAfterLiveness();
+    AddressArray table = JNIGlobalRefTable.JNIWeakGlobalRefs;
+    int cleared = 0;
+    for (int i = 1; i < table.length(); i++) {
+      ObjectReference referent = table.get(i).toObjectReference();
+      if (referent.isNull()) continue;
+      if (!trace.isLive(referent)) {
+        table.set(i, Address.zero());
+        cleared++;
+      } else if (!forwardLater) {
+        table.set(i, trace.getForwardedReferent(referent).toAddress());
+      }
+    }
+    if (Options.verbose.getValue() >= 3) {
+      VM.sysWriteln("JNI weak global references cleared: ",cleared);
+    }
+  }
+
+  /**
+   * Forward the surviving referents of the JNI weak global reference table.
+   *
+   * @param trace The trace
+   */
+  private static void forwardJNIWeakGlobalRefs(TraceLocal trace) {
+    AddressArray table = JNIGlobalRefTable.JNIWeakGlobalRefs;
+    for (int i = 1; i < table.length(); i++) {
+      ObjectReference referent = table.get(i).toObjectReference();
+      if (!referent.isNull()) {
+        table.set(i, trace.getForwardedReferent(referent).toAddress());
+      }
+    }
+  }
+
   /**
    * Put this Reference object on its ReferenceQueue (if it has one)
    * when its referent is no longer sufficiently reachable. The
@@ -190,17 +190,16 @@ public class ScanBootImage implements Constants {
 
   /****************************************************************************
    *
-   * Build-time encoding (assumed to be single-threaded)
+   * Build-time encoding.  Each segment of the reference map is encoded by
+   * its own encoder, so the segments may be encoded in parallel.
    */
-  private static int lastOffset = Integer.MIN_VALUE / 2;  /* bootstrap value */
-  private static int oldIndex = 0;
-  private static int codeIndex = 0;
 
   /* statistics */
   private static int shortRefs = 0;
   private static int runRefs = 0;
   private static int longRefs = 0;
   private static int startRefs = 0;
+  private static int codeBytes = 0;
 
   /**
    * Take a bytemap encoding of all references in the boot image, and
@@ -209,12 +208,34 @@ public class ScanBootImage implements Constants {
    */
   public static int encodeRMap(byte[] bootImageRMap, byte[] referenceMap,
       int referenceMapLimit) {
-    for (int index = 0; index <= referenceMapLimit; index++) {
+    return encodeRMap(bootImageRMap, referenceMap, 0, referenceMapLimit);
+  }
+
+  /**
+   * Encode the references of one segment of the bytemap, those at indices
+   * <code>from</code> to <code>to</code> inclusive, into an encoded byte
+   * array of its own.  The encoding starts a new chunk, so the encodings
+   * of consecutive segments may be concatenated provided that each starts
+   * on a chunk boundary (see {@link #chunkAlign}).  Return the length of
+   * the encoding.
+   */
+  public static int encodeRMap(byte[] bootImageRMap, byte[] referenceMap,
+      int from, int to) {
+    Encoder encoder = new Encoder(bootImageRMap);
+    for (int index = from; index <= to; index++) {
       if (referenceMap[index] == 1) {
-        addOffset(bootImageRMap, index<<LOG_BYTES_IN_ADDRESS);
+        encoder.addOffset(index<<LOG_BYTES_IN_ADDRESS);
       }
     }
-    return codeIndex + 1;
+    encoder.addStats();
+    return encoder.codeIndex + 1;
+  }
+
+  /**
+   * Round the length of an encoded segment up to a chunk boundary.
+   */
+  public static int chunkAlign(int length) {
+    return (length + CHUNK_BYTES - 1) & ~(CHUNK_BYTES - 1);
   }
 
   /**
@@ -228,71 +249,108 @@ public class ScanBootImage implements Constants {
       Log.write("short: "); Log.writeln(shortRefs);
       Log.write("long: "); Log.writeln(longRefs);
       Log.write("run: "); Log.writeln(runRefs);
-      Log.write("size: "); Log.writeln(codeIndex);
+      Log.write("size: "); Log.writeln(codeBytes);
     }
   }
 
   /**
-   * Encode a given offset (distance from the start of the boot image)
-   * into the code array.
-   *
-   * @param code A byte array into which the value should be encoded
-   * @param offset The offset value to be encoded
+   * The state of the encoding of one segment of the reference map.
    */
-  private static void addOffset(byte[] code, int offset) {
-    if ((codeIndex ^ (codeIndex + GUARD_REGION)) >= CHUNK_BYTES) {
-      codeIndex = (codeIndex + GUARD_REGION) & ~(CHUNK_BYTES - 1);
-      oldIndex = codeIndex;
-      codeIndex = encodeLongEncoding(code, codeIndex, offset);
+  private static final class Encoder {
+    private final byte[] code;
+    private int lastOffset = Integer.MIN_VALUE / 2;  /* bootstrap value */
+    private int oldIndex = 0;
+    private int codeIndex = 0;
+
+    /* statistics */
+    private int shortRefs = 0;
+    private int runRefs = 0;
+    private int longRefs = 0;
+    private int startRefs = 0;
+
+    /**
+     * @param code A byte array into which the values should be encoded
+     */
+    Encoder(byte[] code) {
+      this.code = code;
+    }
+
+    /**
+     * Add the statistics of this encoder to the totals.
+     */
+    void addStats() {
       if (DEBUG) {
-        startRefs++;
-        Log.write("[chunk: "); Log.write(codeIndex);
-        Log.write(" offset: "); Log.write(offset);
-        Log.write(" last offset: "); Log.write(lastOffset);
-        Log.writeln("]");
+        synchronized (ScanBootImage.class) {
+          ScanBootImage.shortRefs += shortRefs;
+          ScanBootImage.runRefs += runRefs;
+          ScanBootImage.longRefs += longRefs;
+          ScanBootImage.startRefs += startRefs;
+          ScanBootImage.codeBytes += codeIndex;
+        }
       }
-    } else {
-      int delta = offset - lastOffset;
-      if (VM.VerifyAssertions) VM._assert((delta & 0x3) == 0);
-      if (VM.VerifyAssertions) VM._assert(delta > 0);
-
-      int currentrun = ((int) code[codeIndex]) & 0xff;
-      if ((delta == BYTES_IN_ADDRESS) &&
-          (currentrun < MAX_RUN)) {
-        currentrun++;
-        code[codeIndex] = (byte) (currentrun & 0xff);
-        code[oldIndex] |= RUN_MASK;
-        if (DEBUG) runRefs++;
-      } else {
-        if (currentrun != 0) codeIndex++;
+    }
+
+    /**
+     * Encode a given offset (distance from the start of the boot image)
+     * into the code array.
+     *
+     * @param offset The offset value to be encoded
+     */
+    void addOffset(int offset) {
+      if ((codeIndex ^ (codeIndex + GUARD_REGION)) >= CHUNK_BYTES) {
+        codeIndex = (codeIndex + GUARD_REGION) & ~(CHUNK_BYTES - 1);
         oldIndex = codeIndex;
-        if (delta < 1<<BITS_IN_BYTE) {
-          /* common case: single byte encoding */
-          code[codeIndex++] = (byte) (delta & 0xff);
-          if (DEBUG) shortRefs++;
+        codeIndex = encodeLongEncoding(code, codeIndex, offset);
+        if (DEBUG) {
+          startRefs++;
+          Log.write("[chunk: "); Log.write(codeIndex);
+          Log.write(" offset: "); Log.write(offset);
+          Log.write(" last offset: "); Log.write(lastOffset);
+          Log.writeln("]");
+        }
+      } else {
+        int delta = offset - lastOffset;
+        if (VM.VerifyAssertions) VM._assert((delta & 0x3) == 0);
+        if (VM.VerifyAssertions) VM._assert(delta > 0);
+
+        int currentrun = ((int) code[codeIndex]) & 0xff;
+        if ((delta == BYTES_IN_ADDRESS) &&
+            (currentrun < MAX_RUN)) {
+          currentrun++;
+          code[codeIndex] = (byte) (currentrun & 0xff);
+          code[oldIndex] |= RUN_MASK;
+          if (DEBUG) runRefs++;
         } else {
-          /* else four byte encoding */
-          codeIndex = encodeLongEncoding(code, codeIndex, offset);
-          if (DEBUG) longRefs++;
+          if (currentrun != 0) codeIndex++;
+          oldIndex = codeIndex;
+          if (delta < 1<<BITS_IN_BYTE) {
+            /* common case: single byte encoding */
+            code[codeIndex++] = (byte) (delta & 0xff);
+            if (DEBUG) shortRefs++;
+          } else {
+            /* else four byte encoding */
+            codeIndex = encodeLongEncoding(code, codeIndex, offset);
+            if (DEBUG) longRefs++;
+          }
         }
       }
+      if (offset != getOffset(code, oldIndex, lastOffset)) {
+        Log.write("offset: "); Log.writeln(offset);
+        Log.write("last offset: "); Log.writeln(lastOffset);
+        Log.write("offset: "); Log.writeln(getOffset(code, oldIndex, lastOffset));
+        Log.write("index: "); Log.writeln(oldIndex);
+        Log.write("index: "); Log.writeln(oldIndex & (CHUNK_BYTES - 1));
+        Log.writeln();
+        Log.write("1: "); Log.writeln(code[oldIndex]);
+        Log.write("2: "); Log.writeln(code[oldIndex+1]);
+        Log.write("3: "); Log.writeln(code[oldIndex+2]);
+        Log.write("4: "); Log.writeln(code[oldIndex+3]);
+        Log.write("5: "); Log.writeln(code[oldIndex+4]);
+        if (VM.VerifyAssertions)
+          VM._assert(offset == getOffset(code, oldIndex, lastOffset));
+      }
+      lastOffset = offset;
     }
-    if (offset != getOffset(code, oldIndex, lastOffset)) {
-      Log.write("offset: "); Log.writeln(offset);
-      Log.write("last offset: "); Log.writeln(lastOffset);
-      Log.write("offset: "); Log.writeln(getOffset(code, oldIndex, lastOffset));
-      Log.write("index: "); Log.writeln(oldIndex);
-      Log.write("index: "); Log.writeln(oldIndex & (CHUNK_BYTES - 1));
-      Log.writeln();
-      Log.write("1: "); Log.writeln(code[oldIndex]);
-      Log.write("2: "); Log.writeln(code[oldIndex+1]);
-      Log.write("3: "); Log.writeln(code[oldIndex+2]);
-      Log.write("4: "); Log.writeln(code[oldIndex+3]);
-      Log.write("5: "); Log.writeln(code[oldIndex+4]);
-      if (VM.VerifyAssertions)
-        VM._assert(offset == getOffset(code, oldIndex, lastOffset));
-    }
-    lastOffset = offset;
   }
 
   /****************************************************************************
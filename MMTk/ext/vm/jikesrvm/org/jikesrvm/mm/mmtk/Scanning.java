@@ -16,6 +16,7 @@ import org.mmtk.plan.CollectorContext;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.utility.Constants;
+import org.mmtk.utility.options.Options;
 
 import org.jikesrvm.compilers.common.CompiledMethods;
 import org.jikesrvm.jni.JNIEnvironment;
@@ -162,6 +163,19 @@ public final class Scanning extends org.mmtk.vm.Scanning implements Constants {
     for(int i=start; i < end; i++) {
       trace.processRootEdge(jniGlobalRefs.plus(i << LOG_BYTES_IN_ADDRESS), true);
     }
+
+    /* without reference processing, jni weak global refs are held strongly */
+    if (Options.noReferenceTypes.getValue()) {
+      Address jniWeakGlobalRefs = Magic.objectAsAddress(JNIGlobalRefTable.JNIWeakGlobalRefs);
+      size = JNIGlobalRefTable.JNIWeakGlobalRefs.length();
+      chunkSize = size / threads;
+      start = cc.parallelWorkerOrdinal() * chunkSize;
+      end = (cc.parallelWorkerOrdinal()+1 == threads) ? size : threads * chunkSize;
+
+      for(int i=start; i < end; i++) {
+        trace.processRootEdge(jniWeakGlobalRefs.plus(i << LOG_BYTES_IN_ADDRESS), true);
+      }
+    }
   }
 
   /**
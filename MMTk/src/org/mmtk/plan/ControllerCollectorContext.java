@@ -30,7 +30,7 @@ public class ControllerCollectorContext extends CollectorContext {
   private ParallelCollectorGroup workers;
 
   /** Flag used to control the 'race to request' */
-  private boolean requestFlag;
+  private volatile boolean requestFlag;
 
   /** The current request index */
   private int requestCount;
@@ -123,6 +123,12 @@ public class ControllerCollectorContext extends CollectorContext {
         if (Options.verbose.getValue() >= 5) Log.writeln("[STWController: Triggering concurrent collectors...]");
         Plan.concurrentWorkers.triggerCycle();
       }
+
+      // Use otherwise idle time to sweep blocks left unswept by this collection.
+      if (Options.lazySweep.getValue()) {
+        if (Options.verbose.getValue() >= 5) Log.writeln("[STWController: Sweeping deferred blocks...]");
+        while (!requestFlag && VM.activePlan.global().sweepIncrement()) {}
+      }
     }
   }
 
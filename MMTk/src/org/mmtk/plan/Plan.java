@@ -360,6 +360,17 @@ public abstract class Plan implements Constants {
    */
   public void forceFullHeapCollection() {}
 
+  /**
+   * Perform a unit of sweep work deferred by the last collection.  This is
+   * called by an otherwise idle collector thread while mutators run.
+   *
+   * @return True if sweep work was performed, false if none remains.
+   */
+  public boolean sweepIncrement() {
+    if (nonMovingSpace.sweepDeferredBlock()) return true;
+    return USE_CODE_SPACE && smallCodeSpace.sweepDeferredBlock();
+  }
+
   /**
    * @return Is current GC only collecting objects allocated since last GC.
    */
@@ -937,6 +948,35 @@ public abstract class Plan implements Constants {
     return false;
   }
 
+  /**
+   * Pin an object, so that it will not be moved by any collection until
+   * it is unpinned.  Objects in non-moving spaces are trivially pinned,
+   * and the immix plans override this to pin objects in the immix space.
+   * Objects in copying spaces and nurseries can not be pinned, since their
+   * space is reclaimed whole; callers must then keep them from moving
+   * some other way, as JNI does by disabling collection until the
+   * matching unpin.
+   *
+   * @param object The object to pin
+   * @return True if the object will not move until {@link #unpin} is
+   * called, false if this plan can not pin it.
+   */
+  public boolean pin(ObjectReference object) {
+    return willNeverMove(object);
+  }
+
+  /**
+   * Release a pin taken by {@link #pin}.  This must answer as {@link #pin}
+   * did for the object, so that callers can undo their fallback.
+   *
+   * @param object The object to unpin
+   * @return True if the object had been pinned, false if {@link #pin}
+   * would have failed for it.
+   */
+  public boolean unpin(ObjectReference object) {
+    return willNeverMove(object);
+  }
+
   /****************************************************************************
    * Specialized Methods
    */
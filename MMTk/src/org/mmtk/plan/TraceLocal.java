@@ -42,6 +42,8 @@ public abstract class TraceLocal extends TransitiveClosure implements Constants
   protected final ObjectReferenceDeque values;
   /* delayed root slots */
   protected final AddressDeque rootLocations;
+  /* nesting depth of eager scans (see processNodeEagerly) */
+  private int eagerScanDepth = 0;
 
   /****************************************************************************
    *
@@ -195,10 +197,31 @@ public abstract class TraceLocal extends TransitiveClosure implements Constants
    * @param object The object to be enqueued
    */
   @Inline
-  public final void processNode(ObjectReference object) {
+  public void processNode(ObjectReference object) {
     values.push(object);
   }
 
+  /**
+   * Add a gray object, or scan it immediately if fewer than
+   * <code>limit</code> eager scans are in progress, so that a copying
+   * collector places its children next to it (a hierarchical rather than
+   * breadth-first copy order).  For traces that override
+   * <code>processNode</code> to ask for this order.
+   *
+   * @param object The object to be enqueued or scanned
+   * @param limit The depth to which objects are scanned eagerly
+   */
+  @Inline
+  protected final void processNodeEagerly(ObjectReference object, int limit) {
+    if (eagerScanDepth < limit) {
+      eagerScanDepth++;
+      scanObject(object);
+      eagerScanDepth--;
+    } else {
+      values.push(object);
+    }
+  }
+
   /**
    * Flush the local buffers of all deques.
    */
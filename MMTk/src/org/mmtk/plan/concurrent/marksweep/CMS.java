@@ -96,6 +96,16 @@ public class CMS extends Concurrent {
     return (msSpace.reservedPages() + super.getPagesUsed());
   }
 
+  /**
+   * @see org.mmtk.plan.Plan#sweepIncrement
+   *
+   * @return True if sweep work was performed, false if none remains.
+   */
+  @Override
+  public boolean sweepIncrement() {
+    return msSpace.sweepDeferredBlock() || super.sweepIncrement();
+  }
+
   /**
    * @see org.mmtk.plan.Plan#willNeverMove
    *
@@ -143,6 +143,16 @@ public class CopyMS extends StopTheWorld {
       nurserySpace.reservedPages();
   }
 
+  /**
+   * @see org.mmtk.plan.Plan#sweepIncrement
+   *
+   * @return True if sweep work was performed, false if none remains.
+   */
+  @Override
+  public boolean sweepIncrement() {
+    return msSpace.sweepDeferredBlock() || super.sweepIncrement();
+  }
+
   /**
    * Return the number of pages reserved for collection.
    * For mark sweep this is a fixed fraction of total pages.
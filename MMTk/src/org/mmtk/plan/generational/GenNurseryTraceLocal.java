@@ -16,6 +16,7 @@ import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.Trace;
 import org.mmtk.utility.HeaderByte;
 import org.mmtk.utility.deque.*;
+import org.mmtk.utility.options.Options;
 import org.mmtk.vm.VM;
 
 import org.vmmagic.pragma.*;
@@ -86,6 +87,17 @@ public final class GenNurseryTraceLocal extends TraceLocal {
     return object;
   }
 
+  /**
+   * Scan copied objects eagerly when a hierarchical copy order is requested.
+   *
+   * @param object The object to be enqueued or scanned
+   */
+  @Override
+  @Inline
+  public void processNode(ObjectReference object) {
+    processNodeEagerly(object, Options.hierarchicalCopyDepth.getValue());
+  }
+
   /**
    * Process any remembered set entries.
    */
@@ -17,6 +17,7 @@ import org.mmtk.plan.generational.GenCollector;
 import org.mmtk.plan.generational.GenMatureTraceLocal;
 import org.mmtk.plan.Trace;
 import org.mmtk.policy.Space;
+import org.mmtk.utility.options.Options;
 
 import org.mmtk.vm.VM;
 
@@ -84,6 +85,17 @@ public final class GenCopyMatureTraceLocal extends GenMatureTraceLocal {
    */
 
 
+  /**
+   * Scan copied objects eagerly when a hierarchical copy order is requested.
+   *
+   * @param object The object to be enqueued or scanned
+   */
+  @Override
+  @Inline
+  public void processNode(ObjectReference object) {
+    processNodeEagerly(object, Options.hierarchicalCopyDepth.getValue());
+  }
+
   /**
    * Return true if this object is guaranteed not to move during this
    * collection (i.e. this object is defintely not an unforwarded
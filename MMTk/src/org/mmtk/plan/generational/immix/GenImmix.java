@@ -16,7 +16,6 @@ import org.mmtk.plan.generational.Gen;
 import org.mmtk.plan.Trace;
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.policy.immix.ImmixSpace;
-import org.mmtk.policy.immix.ObjectHeader;
 import org.mmtk.policy.Space;
 import org.mmtk.utility.heap.VMRequest;
 
@@ -190,12 +189,45 @@ public class GenImmix extends Gen {
   @Override
   public boolean willNeverMove(ObjectReference object) {
     if (Space.isInSpace(IMMIX, object)) {
-      ObjectHeader.pinObject(object);
+      immixSpace.pinObjectPermanently(object);
       return true;
     } else
       return super.willNeverMove(object);
   }
 
+  /**
+   * Objects in the immix space are pinned until they are unpinned;
+   * those in other spaces are pinned as the superclass does.
+   *
+   * @see org.mmtk.plan.Plan#pin
+   *
+   * @param object Object to pin
+   * @return true if the object will not move until it is unpinned
+   */
+  @Override
+  public boolean pin(ObjectReference object) {
+    if (Space.isInSpace(IMMIX, object)) {
+      immixSpace.pinObject(object);
+      return true;
+    } else
+      return super.pin(object);
+  }
+
+  /**
+   * @see org.mmtk.plan.Plan#unpin
+   *
+   * @param object Object to unpin
+   * @return true if the object had been pinned
+   */
+  @Override
+  public boolean unpin(ObjectReference object) {
+    if (Space.isInSpace(IMMIX, object)) {
+      immixSpace.unpinObject(object);
+      return true;
+    } else
+      return super.unpin(object);
+  }
+
   /**
    * Register specialized methods.
    */
@@ -117,6 +117,16 @@ public class GenMS extends Gen {
     return msSpace.reservedPages() + super.getPagesUsed();
   }
 
+  /**
+   * @see org.mmtk.plan.Plan#sweepIncrement
+   *
+   * @return True if sweep work was performed, false if none remains.
+   */
+  @Override
+  public boolean sweepIncrement() {
+    return msSpace.sweepDeferredBlock() || super.sweepIncrement();
+  }
+
   /**
    * Return the number of pages available for allocation into the mature
    * space.
@@ -107,6 +107,16 @@ public class MS extends StopTheWorld {
     return (msSpace.reservedPages() + super.getPagesUsed());
   }
 
+  /**
+   * @see org.mmtk.plan.Plan#sweepIncrement
+   *
+   * @return True if sweep work was performed, false if none remains.
+   */
+  @Override
+  public boolean sweepIncrement() {
+    return msSpace.sweepDeferredBlock() || super.sweepIncrement();
+  }
+
   /*****************************************************************************
    * Miscellaneous
    */
@@ -15,6 +15,7 @@ package org.mmtk.plan.semispace;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.Trace;
 import org.mmtk.policy.Space;
+import org.mmtk.utility.options.Options;
 
 import org.vmmagic.pragma.*;
 import org.vmmagic.unboxed.*;
@@ -81,6 +82,17 @@ public class SSTraceLocal extends TraceLocal {
     return super.traceObject(object);
   }
 
+  /**
+   * Scan copied objects eagerly when a hierarchical copy order is requested.
+   *
+   * @param object The object to be enqueued or scanned
+   */
+  @Override
+  @Inline
+  public void processNode(ObjectReference object) {
+    processNodeEagerly(object, Options.hierarchicalCopyDepth.getValue());
+  }
+
   /**
    * Will this object move from this point on, during the current trace ?
    *
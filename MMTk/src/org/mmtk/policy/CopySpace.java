@@ -14,6 +14,7 @@ package org.mmtk.policy;
 
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.utility.heap.*;
+import org.mmtk.utility.options.HierarchicalCopyDepth;
 import org.mmtk.utility.options.Options;
 import org.mmtk.utility.Constants;
 import org.mmtk.utility.ForwardingWord;
@@ -42,6 +43,9 @@ import org.vmmagic.pragma.*;
 
   private static final int META_DATA_PAGES_PER_REGION = CARD_META_PAGES_PER_REGION;
 
+  static {
+    Options.hierarchicalCopyDepth = new HierarchicalCopyDepth();
+  }
 
   /****************************************************************************
    *
@@ -17,6 +17,7 @@ import org.mmtk.utility.heap.*;
 import org.mmtk.utility.options.Options;
 import org.mmtk.utility.options.MarkSweepMarkBits;
 import org.mmtk.utility.options.EagerCompleteSweep;
+import org.mmtk.utility.options.LazySweep;
 import org.mmtk.utility.Constants;
 import org.mmtk.utility.HeaderByte;
 
@@ -85,6 +86,7 @@ public final class MarkSweepSpace extends SegregatedFreeListSpace implements Con
   static {
     Options.markSweepMarkBits = new MarkSweepMarkBits();
     Options.eagerCompleteSweep = new EagerCompleteSweep();
+    Options.lazySweep = new LazySweep();
   }
 
   /**
@@ -182,6 +184,7 @@ public final class MarkSweepSpace extends SegregatedFreeListSpace implements Con
    * @param gcWholeMS True if we are going to collect the whole marksweep space
    */
   public void prepare(boolean gcWholeMS) {
+    completeDeferredSweep();
     if (HEADER_MARK_BITS && Options.eagerCompleteSweep.getValue()) {
       consumeBlocks();
     } else {
@@ -204,10 +207,15 @@ public final class MarkSweepSpace extends SegregatedFreeListSpace implements Con
 
   /**
    * A new collection increment has completed.  For the mark-sweep
-   * collector this means we can perform the sweep phase.
+   * collector this means we can perform the sweep phase, or, when
+   * sweeping lazily, defer it until blocks are needed for allocation.
  */
   public void release() {
-    sweepConsumedBlocks(!EAGER_MARK_CLEAR);
+    if (Options.lazySweep.getValue()) {
+      deferSweepOfConsumedBlocks(!EAGER_MARK_CLEAR);
+    } else {
+      sweepConsumedBlocks(!EAGER_MARK_CLEAR);
+    }
     inMSCollection = false;
   }
 
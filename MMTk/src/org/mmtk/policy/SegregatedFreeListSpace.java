@@ -20,6 +20,7 @@ import org.mmtk.utility.heap.VMRequest;
 import org.mmtk.utility.Constants;
 import org.mmtk.utility.Conversions;
 import org.mmtk.utility.Memory;
+import org.mmtk.utility.statistics.EventCounter;
 
 import org.mmtk.vm.Lock;
 import org.mmtk.vm.VM;
@@ -70,6 +71,11 @@ public abstract class SegregatedFreeListSpace extends Space implements Constants
   private static final int METADATA_OVERHEAD = META_DATA_PAGES_PER_REGION_WITH_BITMAP; // worst case scenario
   public static final float WORST_CASE_FRAGMENTATION = 1 + ((NEW_SIZECLASS_OVERHEAD + METADATA_OVERHEAD)/(float) EmbeddedMetaData.BYTES_IN_REGION);
 
+  /* sweep statistics */
+  public static final EventCounter pauseSweptBlocks = new EventCounter("sweepPause");
+  public static final EventCounter lazySweptBlocks = new EventCounter("sweepLazy");
+  public static final EventCounter backgroundSweptBlocks = new EventCounter("sweepBackground");
+
   /****************************************************************************
    *
    * Instance variables
@@ -78,6 +84,10 @@ public abstract class SegregatedFreeListSpace extends Space implements Constants
   protected final AddressArray consumedBlockHead = AddressArray.create(sizeClassCount());
   protected final AddressArray flushedBlockHead = AddressArray.create(sizeClassCount());
   protected final AddressArray availableBlockHead = AddressArray.create(sizeClassCount());
+  protected final AddressArray unsweptBlockHead = AddressArray.create(sizeClassCount());
+
+  /** Should deferred sweeps clear block marks as they process each block? */
+  private boolean deferredSweepClearMarks;
 
   private final int[] cellSize = new int[sizeClassCount()];
   private final byte[] blockSizeClass = new byte[sizeClassCount()];
@@ -188,6 +198,28 @@ public abstract class SegregatedFreeListSpace extends Space implements Constants
       consumedBlockHead.set(sizeClass, block);
     }
     lock.release();
+
+    /* Sweep blocks left unswept by the last collection */
+    while(!(block = getUnsweptBlock(sizeClass)).isZero()) {
+      lazySweptBlocks.inc();
+      Extent blockSize = Extent.fromIntSignExtend(BlockAllocator.blockSize(blockSizeClass[sizeClass]));
+      if (!containsLiveCell(block, blockSize, deferredSweepClearMarks)) {
+        BlockAllocator.free(this, block);
+        continue;
+      }
+
+      Address cell = advanceToBlock(block, sizeClass);
+      if (!cell.isZero()) {
+        freeList.set(sizeClass, cell);
+        return block;
+      }
+
+      /* Block was full */
+      lock.acquire();
+      BlockAllocator.setNext(block, consumedBlockHead.get(sizeClass));
+      consumedBlockHead.set(sizeClass, block);
+      lock.release();
+    }
     return expandSizeClass(sizeClass, freeList);
   }
 
@@ -510,6 +542,116 @@ public abstract class SegregatedFreeListSpace extends Space implements Constants
     }
   }
 
+  /**
+   * Defer the sweep of all consumed and flushed blocks.  Rather than being
+   * swept within the collection, each block is swept either by a mutator
+   * when it next needs a block of the same size class, by an otherwise idle
+   * collector thread (see <code>sweepDeferredBlock</code>), or, failing
+   * both, at the start of the next collection.<p>
+   *
+   * The mark state used to determine liveness must not change until every
+   * deferred block has been swept.
+   *
+   * @param clearMarks should we clear block mark bits as we process.
+   */
+  protected final void deferSweepOfConsumedBlocks(boolean clearMarks) {
+    deferredSweepClearMarks = clearMarks;
+    for (int sizeClass = 0; sizeClass < sizeClassCount(); sizeClass++) {
+      if (VM.VERIFY_ASSERTIONS) {
+        VM.assertions._assert(unsweptBlockHead.get(sizeClass).isZero());
+        VM.assertions._assert(availableBlockHead.get(sizeClass).isZero());
+      }
+      Address head = consumedBlockHead.get(sizeClass);
+      consumedBlockHead.set(sizeClass, Address.zero());
+      /* Prepend flushed blocks */
+      Address block = flushedBlockHead.get(sizeClass);
+      flushedBlockHead.set(sizeClass, Address.zero());
+      if (!block.isZero()) {
+        Address tail = block;
+        while (!BlockAllocator.getNext(tail).isZero()) {
+          tail = BlockAllocator.getNext(tail);
+        }
+        BlockAllocator.setNext(tail, head);
+        head = block;
+      }
+      unsweptBlockHead.set(sizeClass, head);
+    }
+  }
+
+  /**
+   * Sweep all blocks whose sweep was deferred by the last collection.  This
+   * must be called before the mark state is changed by a new collection.
+   */
+  protected final void completeDeferredSweep() {
+    for (int sizeClass = 0; sizeClass < sizeClassCount(); sizeClass++) {
+      Extent blockSize = Extent.fromIntSignExtend(BlockAllocator.blockSize(blockSizeClass[sizeClass]));
+      Address availableHead = availableBlockHead.get(sizeClass);
+      Address block = unsweptBlockHead.get(sizeClass);
+      unsweptBlockHead.set(sizeClass, Address.zero());
+      while (!block.isZero()) {
+        Address next = BlockAllocator.getNext(block);
+        availableHead = sweepBlock(block, sizeClass, blockSize, availableHead, deferredSweepClearMarks);
+        block = next;
+      }
+      availableBlockHead.set(sizeClass, availableHead);
+    }
+  }
+
+  /**
+   * Sweep a single block whose sweep was deferred by the last collection,
+   * freeing it or making it available for allocation.<p>
+   *
+   * This is designed to be called by an otherwise idle collector thread
+   * while mutators are running.
+   *
+   * @return True if a block was swept, false if no unswept blocks remain.
+   */
+  public final boolean sweepDeferredBlock() {
+    for (int sizeClass = 0; sizeClass < sizeClassCount(); sizeClass++) {
+      Address block = getUnsweptBlock(sizeClass);
+      if (!block.isZero()) {
+        backgroundSweptBlocks.inc();
+        Extent blockSize = Extent.fromIntSignExtend(BlockAllocator.blockSize(blockSizeClass[sizeClass]));
+        if (!containsLiveCell(block, blockSize, deferredSweepClearMarks)) {
+          BlockAllocator.free(this, block);
+        } else {
+          /* As in sweepBlock; the block is not yet visible to mutators */
+          if (!LAZY_SWEEP) {
+            setFreeList(block, makeFreeList(block, sizeClass));
+          }
+          lock.acquire();
+          BlockAllocator.setNext(block, availableBlockHead.get(sizeClass));
+          availableBlockHead.set(sizeClass, block);
+          lock.release();
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Take a block whose sweep was deferred off the unswept list.
+   *
+   * @param sizeClass The size class of the block to sweep.
+   * @return The block or zero if no unswept blocks remain.
+   */
+  private Address getUnsweptBlock(int sizeClass) {
+    if (unsweptBlockHead.get(sizeClass).isZero()) {
+      return Address.zero();
+    }
+    lock.acquire();
+    Address block = unsweptBlockHead.get(sizeClass);
+    if (!block.isZero()) {
+      unsweptBlockHead.set(sizeClass, BlockAllocator.getNext(block));
+    }
+    lock.release();
+    if (!block.isZero()) {
+      BlockAllocator.setNext(block, Address.zero());
+    }
+    return block;
+  }
+
   /**
    * Sweep a block, freeing it and adding to the list given by availableHead
    * if it contains no free objects.
@@ -517,6 +659,7 @@ public abstract class SegregatedFreeListSpace extends Space implements Constants
    * @param clearMarks should we clear block mark bits as we process.
    */
   protected final Address sweepBlock(Address block, int sizeClass, Extent blockSize, Address availableHead, boolean clearMarks) {
+    pauseSweptBlocks.inc();
     boolean liveBlock = containsLiveCell(block, blockSize, clearMarks);
     if (!liveBlock) {
       BlockAllocator.setNext(block, Address.zero());
@@ -715,6 +858,10 @@ public abstract class SegregatedFreeListSpace extends Space implements Constants
           BlockAllocator.setNext(block, Address.zero());
           BlockAllocator.free(this, block);
         } else {
+          /* As in sweepBlock; the block is not yet visible to mutators */
+          if (!LAZY_SWEEP) {
+            setFreeList(block, makeFreeList(block, sizeClass));
+          }
           lock.acquire();
           BlockAllocator.setNext(block, availableBlockHead.get(sizeClass));
           availableBlockHead.set(sizeClass, block);
@@ -70,6 +70,18 @@ public final class ImmixSpace extends Space implements Constants {
   private final ChunkList chunkMap = new ChunkList();
   private final Defrag defrag;
 
+  /**
+   * The most objects that may hold temporary pins at once.  The table is
+   * searched linearly under {@link #pinLock}, which is cheap at this size.
+   * An object pinned while the table is full is pinned permanently (see
+   * {@link #pinObject}).
+   */
+  private static final int MAX_TEMPORARY_PINS = 256;
+  /** Objects holding temporary pins, and the number of pins each holds */
+  private final AddressArray pinnedObjects = AddressArray.create(MAX_TEMPORARY_PINS);
+  private final int[] pinCounts = new int[MAX_TEMPORARY_PINS];
+  private final Lock pinLock = VM.newLock(getName()+"pin");
+
   /****************************************************************************
    *
    * Initialization
@@ -727,6 +739,89 @@ public final class ImmixSpace extends Space implements Constants {
   }
 
 
+  /****************************************************************************
+   *
+   * Pinning
+   */
+
+  /**
+   * Pin an object until {@link #unpinObject} is called as many times as
+   * this was.  Temporary pins are counted in a table of
+   * {@link #MAX_TEMPORARY_PINS} objects.  If the table is full the object
+   * is pinned permanently instead: it never moves again, and unpinning it
+   * has no effect.  So this always succeeds, at worst leaving the object
+   * unable to be defragmented.
+   *
+   * @param object The object to pin
+   */
+  public void pinObject(ObjectReference object) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(getSpaceForObject(object) == this);
+    Address address = object.toAddress();
+    pinLock.acquire();
+    int free = -1;
+    for (int i = 0; i < MAX_TEMPORARY_PINS; i++) {
+      if (pinCounts[i] == 0) {
+        if (free < 0) free = i;
+      } else if (pinnedObjects.get(i).EQ(address)) {
+        pinCounts[i]++;
+        pinLock.release();
+        return;
+      }
+    }
+    if (!ObjectHeader.isPinnedObject(object)) {
+      if (free >= 0) {
+        pinnedObjects.set(free, address);
+        pinCounts[free] = 1;
+      }
+      ObjectHeader.pinObject(object);
+    }
+    pinLock.release();
+  }
+
+  /**
+   * Release a pin taken by {@link #pinObject}, letting the object move
+   * again once its last temporary pin is released.  Permanently pinned
+   * objects stay pinned.
+   *
+   * @param object The object to unpin
+   */
+  public void unpinObject(ObjectReference object) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(getSpaceForObject(object) == this);
+    Address address = object.toAddress();
+    pinLock.acquire();
+    for (int i = 0; i < MAX_TEMPORARY_PINS; i++) {
+      if (pinCounts[i] != 0 && pinnedObjects.get(i).EQ(address)) {
+        if (--pinCounts[i] == 0) {
+          pinnedObjects.set(i, Address.zero());
+          ObjectHeader.unpinObject(object);
+        }
+        break;
+      }
+    }
+    pinLock.release();
+  }
+
+  /**
+   * Pin an object for good, so that releasing any temporary pins it
+   * holds leaves it pinned.
+   *
+   * @param object The object to pin
+   */
+  public void pinObjectPermanently(ObjectReference object) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(getSpaceForObject(object) == this);
+    Address address = object.toAddress();
+    pinLock.acquire();
+    for (int i = 0; i < MAX_TEMPORARY_PINS; i++) {
+      if (pinCounts[i] != 0 && pinnedObjects.get(i).EQ(address)) {
+        pinCounts[i] = 0;
+        pinnedObjects.set(i, Address.zero());
+        break;
+      }
+    }
+    ObjectHeader.pinObject(object);
+    pinLock.release();
+  }
+
   /****************************************************************************
    *
    * Locks
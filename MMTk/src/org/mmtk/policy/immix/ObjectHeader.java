@@ -128,6 +128,12 @@ public class ObjectHeader {
     VM.objectModel.writeAvailableByte(object, (byte) (old | PINNED_BIT));
   }
 
+  @Inline
+  static void unpinObject(ObjectReference object) {
+    byte old = VM.objectModel.readAvailableByte(object);
+    VM.objectModel.writeAvailableByte(object, (byte) (old & ~PINNED_BIT));
+  }
+
   @Inline
   static boolean isPinnedObject(ObjectReference object) {
     return (VM.objectModel.readAvailableByte(object) & PINNED_BIT) == PINNED_BIT;
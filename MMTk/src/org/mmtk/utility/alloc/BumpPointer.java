@@ -92,6 +92,9 @@ import org.vmmagic.unboxed.Word;
 
   private static final boolean VERBOSE = false;
 
+  // Allocation sampling
+  private static int sampleInterval = 0; // bytes between sampled mutator allocations, or 0
+
   /****************************************************************************
    *
    * Instance variables
@@ -103,6 +106,8 @@ import org.vmmagic.unboxed.Word;
   protected Address initialRegion; // first contiguous region
   protected final boolean allowScanning; // linear scanning is permitted if true
   protected Address region; // current contiguous region
+  private Address sampleLimit; // an allocation ending beyond this is sampled; zero if not sampling
+  private int sampleBytesLeft; // distance to the sample point when the last region was given up
 
 
   /**
@@ -114,6 +119,7 @@ import org.vmmagic.unboxed.Word;
   protected BumpPointer(Space space, boolean allowScanning) {
     this.space = space;
     this.allowScanning = allowScanning;
+    sampleLimit = Address.zero();
     reset();
   }
 
@@ -122,6 +128,7 @@ import org.vmmagic.unboxed.Word;
    * This is must be done by the caller.
    */
   public final void reset() {
+    leaveSampleRegion();
     cursor = Address.zero();
     limit = Address.zero();
     internalLimit = Address.zero();
@@ -182,6 +189,7 @@ import org.vmmagic.unboxed.Word;
     if (SUPPORT_CARD_SCANNING)
       card = getCard(start.plus(CARD_MASK)); // round up
     if (end.GT(limit)) { /* external slow path */
+      leaveSampleRegion();
       rtn = allocSlowInline(end.diff(start).toInt(), align, offset);
       if (SUPPORT_CARD_SCANNING && card.NE(getCard(rtn.plus(CARD_MASK))))
         card = getCard(rtn); // round down
@@ -193,12 +201,58 @@ import org.vmmagic.unboxed.Word;
       fillAlignmentGap(cursor, start);
       cursor = end;
       rtn = start;
+      checkSample(start, end);
     }
     if (SUPPORT_CARD_SCANNING && !rtn.isZero())
       createCardAnchor(card, rtn, end.diff(start).toInt());
     return rtn;
   }
 
+  /**
+   * Sample one mutator allocation in about every <code>bytes</code>
+   * bytes allocated by each bump pointer.  The sample point clamps the
+   * internal limit, so an allocation that reaches it takes the internal
+   * slow path, which reports it through
+   * {@link org.mmtk.vm.MMTk_Events#allocationSampled}.  Bump pointers
+   * pick up a new interval when they next move to a new region.
+   *
+   * @param bytes The sampling interval in bytes, or 0 to stop sampling
+   */
+  public static void setSampleInterval(int bytes) {
+    sampleInterval = bytes;
+  }
+
+  /**
+   * Called on the internal slow path.  Sample the allocation just made if
+   * it reached the sample point, and keep the internal limit at or below
+   * the next sample point.
+   *
+   * @param start The start of the allocation
+   * @param end The end of the allocation
+   */
+  private void checkSample(Address start, Address end) {
+    if (sampleLimit.isZero() || sampleInterval == 0) return; // not sampling
+    if (end.GT(sampleLimit)) {
+      sampleLimit = end.plus(sampleInterval);
+      if (VM.activePlan.isMutator())
+        VM.events.allocationSampled(start, end.diff(start).toInt());
+    }
+    if (internalLimit.GT(sampleLimit))
+      internalLimit = sampleLimit;
+  }
+
+  /**
+   * The current region is being given up.  Remember how many bytes may
+   * still be allocated before the next sample, so that the distance
+   * carries over to the next region.
+   */
+  private void leaveSampleRegion() {
+    if (!sampleLimit.isZero()) {
+      sampleBytesLeft = sampleLimit.diff(cursor).toInt();
+      sampleLimit = Address.zero();
+    }
+  }
+
   /**
    * Given an allocation which starts a new card, create a record of
    * where the start of the object is relative to the start of the
@@ -306,6 +360,14 @@ import org.vmmagic.unboxed.Word;
       if (VM.VERIFY_ASSERTIONS)
         VM.assertions._assert(internalLimit.LE(limit));
     }
+    if (sampleInterval != 0) {
+      /* the pending allocation takes the internal slow path if it reaches the sample point */
+      if (sampleBytesLeft <= 0)
+        sampleBytesLeft = sampleInterval;
+      sampleLimit = cursor.plus(sampleBytesLeft);
+      if (internalLimit.GT(sampleLimit))
+        internalLimit = sampleLimit;
+    }
   }
 
   /**
@@ -0,0 +1,39 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * Depth to which copied objects are scanned eagerly, so that children
+ * are copied next to their parents.  Zero gives breadth-first copy order.
+ */
+public final class HierarchicalCopyDepth extends org.vmutil.options.IntOption {
+  /** The deepest permitted eager scan */
+  public static final int MAX_DEPTH = 16;
+
+  /**
+   * Create the option.
+   */
+  public HierarchicalCopyDepth() {
+    super(Options.set, "Hierarchical Copy Depth",
+          "Depth to which copied objects are scanned eagerly, so that children are copied next to their parents",
+          0);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  protected void validate() {
+    failIf(this.value < 0, "Depth must not be negative");
+    failIf(this.value > MAX_DEPTH, "Depth must not exceed " + MAX_DEPTH);
+  }
+}
@@ -46,7 +46,9 @@ public final class Options {
   public static GCTimeCap gcTimeCap;
   public static GenCycleDetection genCycleDetection;
   public static HarnessAll harnessAll;
+  public static HierarchicalCopyDepth hierarchicalCopyDepth;
   public static IgnoreSystemGC ignoreSystemGC;
+  public static LazySweep lazySweep;
   public static LineReuseRatio lineReuseRatio;
   public static MarkSweepMarkBits markSweepMarkBits;
   public static MetaDataLimit metaDataLimit;
@@ -29,4 +29,14 @@ public abstract class MMTk_Events {
 
   public abstract void heapSizeChanged(Extent heapSize);
 
+  /**
+   * A mutator allocation has been chosen as a sample (see
+   * {@link org.mmtk.utility.alloc.BumpPointer#setSampleInterval}).
+   * The object has not been initialized yet.
+   *
+   * @param start The address of the first byte of the allocated region
+   * @param bytes The size of the allocation in bytes
+   */
+  public abstract void allocationSampled(Address start, int bytes);
+
 }
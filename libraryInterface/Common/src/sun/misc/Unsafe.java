@@ -17,11 +17,18 @@ import java.lang.reflect.Field;
 import org.jikesrvm.classloader.RVMField;
 import org.jikesrvm.classloader.RVMType;
 import org.jikesrvm.runtime.Magic;
+import org.jikesrvm.runtime.Memory;
 import org.jikesrvm.runtime.RuntimeEntrypoints;
+import org.jikesrvm.runtime.SysCall;
 import org.jikesrvm.scheduler.Synchronization;
 import org.jikesrvm.scheduler.RVMThread;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.Extent;
 import org.vmmagic.unboxed.Offset;
+import org.vmmagic.unboxed.Word;
 
+import static org.jikesrvm.SizeConstants.BYTES_IN_ADDRESS;
 import static org.jikesrvm.mm.mminterface.Barriers.*;
 
 public final class Unsafe {
@@ -182,6 +189,217 @@ public final class Unsafe {
     return result;
   }
 
+  /*
+   * Atomic read-modify-write of a field. The opt compiler generates
+   * getAndAddInt as a single fetch-and-add on IA32; the others are
+   * compare-and-swap loops, whose compare-and-swap it generates inline.
+   */
+
+  public int getAndAddInt(Object obj,long offset,int delta) {
+    int value;
+    do {
+      value = getIntVolatile(obj, offset);
+    } while (!compareAndSwapInt(obj, offset, value, value + delta));
+    return value;
+  }
+
+  public long getAndAddLong(Object obj,long offset,long delta) {
+    long value;
+    do {
+      value = getLongVolatile(obj, offset);
+    } while (!compareAndSwapLong(obj, offset, value, value + delta));
+    return value;
+  }
+
+  public int getAndSetInt(Object obj,long offset,int newValue) {
+    int value;
+    do {
+      value = getIntVolatile(obj, offset);
+    } while (!compareAndSwapInt(obj, offset, value, newValue));
+    return value;
+  }
+
+  public long getAndSetLong(Object obj,long offset,long newValue) {
+    long value;
+    do {
+      value = getLongVolatile(obj, offset);
+    } while (!compareAndSwapLong(obj, offset, value, newValue));
+    return value;
+  }
+
+  public Object getAndSetObject(Object obj,long offset,Object newValue) {
+    Object value;
+    do {
+      value = getObjectVolatile(obj, offset);
+    } while (!compareAndSwapObject(obj, offset, value, newValue));
+    return value;
+  }
+
+  /*
+   * Accessors of memory outside the Java heap. The baseline and opt compilers
+   * generate the get and put methods inline as a single load or store, so
+   * these bodies are only run when the methods are called reflectively.
+   */
+
+  public byte getByte(long address) {
+    return Address.fromLong(address).loadByte();
+  }
+
+  public void putByte(long address, byte value) {
+    Address.fromLong(address).store(value);
+  }
+
+  public short getShort(long address) {
+    return Address.fromLong(address).loadShort();
+  }
+
+  public void putShort(long address, short value) {
+    Address.fromLong(address).store(value);
+  }
+
+  public char getChar(long address) {
+    return Address.fromLong(address).loadChar();
+  }
+
+  public void putChar(long address, char value) {
+    Address.fromLong(address).store(value);
+  }
+
+  public int getInt(long address) {
+    return Address.fromLong(address).loadInt();
+  }
+
+  public void putInt(long address, int value) {
+    Address.fromLong(address).store(value);
+  }
+
+  public long getLong(long address) {
+    return Address.fromLong(address).loadLong();
+  }
+
+  public void putLong(long address, long value) {
+    Address.fromLong(address).store(value);
+  }
+
+  public float getFloat(long address) {
+    return Address.fromLong(address).loadFloat();
+  }
+
+  public void putFloat(long address, float value) {
+    Address.fromLong(address).store(value);
+  }
+
+  public double getDouble(long address) {
+    return Address.fromLong(address).loadDouble();
+  }
+
+  public void putDouble(long address, double value) {
+    Address.fromLong(address).store(value);
+  }
+
+  public long getAddress(long address) {
+    return Address.fromLong(address).loadAddress().toLong();
+  }
+
+  public void putAddress(long address, long value) {
+    Address.fromLong(address).store(Address.fromLong(value));
+  }
+
+  /*
+   * Native memory is allocated through sysMalloc and sysRealloc, which take
+   * an int length, so a single allocation is limited to Integer.MAX_VALUE
+   * bytes; larger requests are rejected with an IllegalArgumentException.
+   */
+  public long allocateMemory(long bytes) {
+    if (bytes < 0 || bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Can't allocate " + bytes + " bytes");
+    }
+    if (bytes == 0) {
+      return 0;
+    }
+    Address result = SysCall.sysCall.sysMalloc((int)bytes);
+    if (result.isZero()) {
+      throw new OutOfMemoryError("Unable to allocate " + bytes + " bytes of native memory");
+    }
+    return result.toLong();
+  }
+
+  public long reallocateMemory(long address, long bytes) {
+    if (bytes < 0 || bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Can't allocate " + bytes + " bytes");
+    }
+    if (bytes == 0) {
+      freeMemory(address);
+      return 0;
+    }
+    Address result = (address == 0) ?
+        SysCall.sysCall.sysMalloc((int)bytes) :
+        SysCall.sysCall.sysRealloc(Address.fromLong(address), (int)bytes);
+    if (result.isZero()) {
+      throw new OutOfMemoryError("Unable to allocate " + bytes + " bytes of native memory");
+    }
+    return result.toLong();
+  }
+
+  public void freeMemory(long address) {
+    if (address != 0) {
+      SysCall.sysCall.sysFree(Address.fromLong(address));
+    }
+  }
+
+  public void setMemory(long address, long bytes, byte value) {
+    setMemory(null, address, bytes, value);
+  }
+
+  public void setMemory(Object obj, long offset, long bytes, byte value) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("Can't set " + bytes + " bytes");
+    }
+    fill(obj, Word.fromLong(offset), Word.fromLong(bytes).toExtent(), value);
+  }
+
+  public void copyMemory(long srcAddress, long destAddress, long bytes) {
+    copyMemory(null, srcAddress, null, destAddress, bytes);
+  }
+
+  public void copyMemory(Object srcObj, long srcOffset, Object destObj, long destOffset, long bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("Can't copy " + bytes + " bytes");
+    }
+    move(srcObj, Word.fromLong(srcOffset), destObj, Word.fromLong(destOffset), Word.fromLong(bytes).toExtent());
+  }
+
+  /**
+   * Fill memory at an offset into an object, or at an address if the object
+   * is null.  Uninterruptible, so that the object can not move between
+   * taking its address and the fill.
+   */
+  @Uninterruptible
+  private static void fill(Object obj, Word offset, Extent bytes, byte value) {
+    Address start = (obj == null) ? offset.toAddress() : Magic.objectAsAddress(obj).plus(offset.toOffset());
+    SysCall.sysCall.sysFill(start, value, bytes);
+  }
+
+  /**
+   * Copy memory between offsets into objects, or addresses where an object
+   * is null.  Uninterruptible, so that neither object can move between
+   * taking its address and the copy.
+   */
+  @Uninterruptible
+  private static void move(Object srcObj, Word srcOffset, Object destObj, Word destOffset, Extent bytes) {
+    Address src = (srcObj == null) ? srcOffset.toAddress() : Magic.objectAsAddress(srcObj).plus(srcOffset.toOffset());
+    Address dest = (destObj == null) ? destOffset.toAddress() : Magic.objectAsAddress(destObj).plus(destOffset.toOffset());
+    SysCall.sysCall.sysMemmove(dest, src, bytes);
+  }
+
+  public int addressSize() {
+    return BYTES_IN_ADDRESS;
+  }
+
+  public int pageSize() {
+    return Memory.getPagesize();
+  }
+
   public int arrayBaseOffset(Class<?> arrayClass) {
     return 0;
   }
@@ -35,6 +35,7 @@ import java.util.regex.PatternSyntaxException;
 
 import org.apache.harmony.kernel.vm.VM;
 import org.apache.harmony.luni.util.PriviAction;
+import org.jikesrvm.runtime.Memory;
 
 /**
  * <p>
@@ -1003,10 +1004,9 @@ public final class String implements Serializable, Comparable<String>,
             if (start < 0) {
                 start = 0;
             }
-            for (int i = offset + start; i < offset + count; i++) {
-                if (value[i] == c) {
-                    return i - offset;
-                }
+            int i = Memory.indexOfChar(value, offset + start, offset + count, c);
+            if (i >= 0) {
+                return i - offset;
             }
         }
         return -1;
@@ -1264,12 +1264,7 @@ public final class String implements Serializable, Comparable<String>,
             return true;
         }
         int o1 = offset + thisStart, o2 = string.offset + start;
-        for (int i = 0; i < length; ++i) {
-            if (value[o1 + i] != string.value[o2 + i]) {
-                return false;
-            }
-        }
-        return true;
+        return Memory.equalChars(value, o1, string.value, o2, length);
     }
 
     /**
@@ -1777,6 +1777,8 @@ emitMoveSubWord MOVZX "zero extended" 0xB6 0xB7 quad
 
 emitBinaryReg CMPXCHG \<\-\> 0xB1 none 0x0F
 emitBinaryReg CMPXCHG \<\-\> 0xB1 none 0x0Fquad
+emitBinaryReg XADD \<\-\> 0xC1 none 0x0F
+emitBinaryReg XADD \<\-\> 0xC1 none 0x0Fquad
 
 emitShift () {
     acronym=$1
@@ -2957,6 +2959,28 @@ emitSSE2Op 0x66 none ORPD 0x56 none
 emitSSE2Op none none XORPS 0x57 none
 emitSSE2Op 0x66 none XORPD 0x57 none
 
+# Packed 128-bit integer ops.
+emitSSE2Op 0xF3 0xF3 MOVDQU 0x6F 0x7F
+emitSSE2Op 0x66 0x66 MOVDQA 0x6F 0x7F
+emitSSE2Op 0x66 none PXOR 0xEF none
+emitSSE2Op 0x66 none PCMPEQB 0x74 none
+emitSSE2Op 0x66 none PCMPEQW 0x75 none
+emitSSE2Op 0x66 none PCMPEQD 0x76 none
+emitSSE2Op 0x66 none PUNPCKLWD 0x61 none
+emitSSE2Op 0x66 none PUNPCKLDQ 0x62 none
+emitSSE2Op 0x66 none PUNPCKLQDQ 0x6C none
+emitSSE2Op 0x66 none PADDD 0xFE none
+emitSSE2Op 0x66 none PSUBD 0xFA none
+emitSSE2Op 0x66 none PAND 0xDB none
+emitSSE2Op 0x66 none POR 0xEB none
+# Packed double ops.
+emitSSE2Op 0x66 none ADDPD 0x58 none
+emitSSE2Op 0x66 none SUBPD 0x5C none
+emitSSE2Op 0x66 none MULPD 0x59 none
+emitSSE2Op 0x66 none DIVPD 0x5E none
+# NB only the register--register form of PMOVMSKB is valid
+emitSSE2Op 0x66 none PMOVMSKB 0xD7 none none XMM GPR
+
 emitFloatMemAcc() {
     local acronym=$1
     local op=$2
@@ -62,6 +62,15 @@ public interface SizeConstants {
   int LOG_BITS_IN_ADDRESS = LOG_BITS_IN_BYTE + LOG_BYTES_IN_ADDRESS;
   int BITS_IN_ADDRESS = 1 << LOG_BITS_IN_ADDRESS;
 
+  /**
+   * The size of a reference slot, that is a reference field, a reference
+   * array element or a reference static.  All code that lays out or walks
+   * reference slots should use these constants rather than the address
+   * size, so that the representation of a slot can be changed in one place.
+   */
+  int LOG_BYTES_IN_REFERENCE = LOG_BYTES_IN_ADDRESS;
+  int BYTES_IN_REFERENCE = 1 << LOG_BYTES_IN_REFERENCE;
+
   int LOG_BYTES_IN_WORD = VM.BuildFor64Addr ? 3 : 2;
   int BYTES_IN_WORD = 1 << LOG_BYTES_IN_WORD;
   int LOG_BITS_IN_WORD = LOG_BITS_IN_BYTE + LOG_BYTES_IN_WORD;
@@ -14,9 +14,12 @@ package org.jikesrvm;
 
 import org.jikesrvm.ArchitectureSpecific.ThreadLocalState;
 import org.jikesrvm.adaptive.controller.Controller;
+import org.jikesrvm.adaptive.measurements.CpuProfiler;
 import org.jikesrvm.adaptive.util.CompilerAdvice;
 import org.jikesrvm.classloader.Atom;
 import org.jikesrvm.classloader.BootstrapClassLoader;
+import org.jikesrvm.classloader.ClassArchive;
+import org.jikesrvm.classloader.DynamicTypeCheck;
 import org.jikesrvm.classloader.RVMClass;
 import org.jikesrvm.classloader.RVMClassLoader;
 import org.jikesrvm.classloader.RVMMember;
@@ -26,9 +29,13 @@ import org.jikesrvm.classloader.TypeDescriptorParsing;
 import org.jikesrvm.classloader.TypeReference;
 import org.jikesrvm.compilers.baseline.BaselineCompiler;
 import org.jikesrvm.compilers.baseline.EdgeCounts;
+import org.jikesrvm.compilers.common.BackgroundCompiler;
 import org.jikesrvm.compilers.common.BootImageCompiler;
 import org.jikesrvm.compilers.common.RuntimeCompiler;
+import org.jikesrvm.mm.mminterface.HeapProfiler;
 import org.jikesrvm.mm.mminterface.MemoryManager;
+import org.jikesrvm.objectmodel.FieldAccessProfile;
+import org.jikesrvm.runtime.BootImageProfile;
 import org.jikesrvm.runtime.BootRecord;
 import org.jikesrvm.runtime.DynamicLibrary;
 import org.jikesrvm.runtime.Entrypoints;
@@ -441,7 +448,11 @@ public class VM extends Properties implements Constants, ExitStatus {
     if (VM.BuildForAdaptiveSystem) {
       if (verboseBoot >= 1) VM.sysWriteln("Initializing adaptive system");
       Controller.boot();
+      CpuProfiler.boot(CpuProfileFile);
     }
+    HeapProfiler.boot(HeapProfileFile);
+    BootImageProfile.boot(BootImageProfileFile);
+    BackgroundCompiler.boot();
 
     // The first argument must be a class name.
     if (verboseBoot >= 1) VM.sysWriteln("Extracting name of class to execute");
@@ -456,6 +467,7 @@ public class VM extends Properties implements Constants, ExitStatus {
     }
 
     if (verboseBoot >= 1) VM.sysWriteln("Initializing Application Class Loader");
+    ClassArchive.boot(ClassArchiveFile);
     RVMClassLoader.getApplicationClassLoader();
     RVMClassLoader.declareApplicationClassLoaderIsReady();
 
@@ -474,6 +486,7 @@ public class VM extends Properties implements Constants, ExitStatus {
     // Allow profile information to be read in from a file
     //
     EdgeCounts.boot(EdgeCounterFile);
+    FieldAccessProfile.boot(HotFieldFile);
 
     if (VM.BuildForAdaptiveSystem) {
       CompilerAdvice.postBoot();
@@ -2328,6 +2341,10 @@ public class VM extends Properties implements Constants, ExitStatus {
       RVMThread.reportThreadTransitionCounts();
     }
 
+    if (VM.countSecondarySuperCache) {
+      DynamicTypeCheck.reportSecondarySuperCacheCounts();
+    }
+
     if (Options.stackTraceAtExit) {
       VM.sysWriteln("[Here is the context of the call to VM.sysExit(", value, ")...:");
       VM.disableGC();
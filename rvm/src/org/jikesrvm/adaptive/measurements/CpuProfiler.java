@@ -0,0 +1,276 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.measurements;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import org.jikesrvm.ArchitectureSpecific.StackframeLayoutConstants;
+import org.jikesrvm.Callbacks;
+import org.jikesrvm.VM;
+import org.jikesrvm.adaptive.measurements.organizers.StackSampleOrganizer;
+import org.jikesrvm.classloader.MemberReference;
+import org.jikesrvm.classloader.RVMMethod;
+import org.jikesrvm.compilers.common.CompiledMethod;
+import org.jikesrvm.compilers.common.CompiledMethods;
+import org.jikesrvm.compilers.opt.runtimesupport.OptCompiledMethod;
+import org.jikesrvm.compilers.opt.runtimesupport.OptEncodedCallSiteTree;
+import org.jikesrvm.compilers.opt.runtimesupport.OptMachineCodeMap;
+import org.jikesrvm.scheduler.RVMThread;
+import org.jikesrvm.util.HashMapRVM;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Offset;
+
+/**
+ * A sampling CPU profiler, enabled with
+ * <code>-X:vm:cpuProfile=file</code>.
+ * <p>
+ * Every <code>-X:vm:cpuProfileInterval</code> timer ticks, each thread
+ * running Java code records its call stack in its own
+ * {@link StackSampleBuffer} when it takes the timer yieldpoint (see
+ * {@link org.jikesrvm.adaptive.measurements.listeners.StackSampleListener});
+ * the timer thread records a sample for each collector thread while a
+ * collection is in progress.  The samples are drained into counts of
+ * identical stacks by a {@link StackSampleOrganizer} as the buffers fill,
+ * and written at exit, or whenever {@link #dump} is called, in the
+ * collapsed stack format used to draw flame graphs:
+ * <pre>
+ * thread;outermost.Method;...;innermost.Method count
+ * </pre>
+ * The profiler only listens to timer samples; it is independent of the
+ * controller and its samples play no part in recompilation decisions.
+ */
+public final class CpuProfiler implements Callbacks.ExitMonitor {
+
+  /** Is the profiler running? */
+  private static boolean enabled;
+
+  /** File the profile is written to at exit */
+  private static String profileFile;
+
+  /** Buffers of all threads that have been sampled and not yet drained after terminating */
+  private static final ArrayList<StackSampleBuffer> buffers = new ArrayList<StackSampleBuffer>();
+
+  /** Number of samples of each collapsed stack since the last dump */
+  private static HashMapRVM<String, int[]> counts = new HashMapRVM<String, int[]>();
+
+  /** Samples lost because a buffer overflowed before it was drained */
+  private static int lost;
+
+  /** Scratch space for copying a sample out of a buffer */
+  private static final int[] frames = new int[2 * StackSampleBuffer.MAX_DEPTH];
+
+  private static StackSampleOrganizer organizer;
+
+  /**
+   * Start profiling, if a profile file was given.  Must be called after
+   * the runtime measurement system has booted.
+   *
+   * @param fileName the file to write the profile to at exit, or
+   * {@code null}
+   */
+  public static void boot(String fileName) {
+    if (fileName == null) return;
+    profileFile = fileName;
+    enabled = true;
+
+    // Threads created from now on register themselves; register the rest
+    RVMThread[] existing = new RVMThread[RVMThread.MAX_THREADS];
+    int numExisting = 0;
+    RVMThread.acctLock.lockNoHandshake();
+    for (int i = 0; i < RVMThread.numThreads; i++) {
+      existing[numExisting++] = RVMThread.threads[i];
+    }
+    RVMThread.acctLock.unlock();
+    for (int i = 0; i < numExisting; i++) {
+      registerThread(existing[i]);
+    }
+
+    organizer = new StackSampleOrganizer();
+    organizer.start();
+    Callbacks.addExitMonitor(new CpuProfiler());
+  }
+
+  /** @return whether the profiler is running */
+  public static boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Give a thread a buffer for its samples.
+   *
+   * @param t the thread
+   */
+  public static synchronized void registerThread(RVMThread t) {
+    if (t.stackSamples == null) {
+      StackSampleBuffer buffer = new StackSampleBuffer(t);
+      buffers.add(buffer);
+      t.stackSamples = buffer;
+    }
+  }
+
+  /**
+   * Wake the organizer to drain the buffers.  Called by the timer thread,
+   * which samples collector threads.
+   */
+  @Uninterruptible
+  public static void requestDrain() {
+    organizer.activate();
+  }
+
+  /**
+   * Move the samples of every thread's buffer into the profile.
+   */
+  public static synchronized void drain() {
+    for (int b = buffers.size() - 1; b >= 0; b--) {
+      StackSampleBuffer buffer = buffers.get(b);
+      // A terminated thread won't add any more samples after these
+      boolean terminated = buffer.thread.getExecStatus() == RVMThread.TERMINATED;
+      drain(buffer);
+      if (terminated) {
+        buffers.remove(b);
+      }
+    }
+  }
+
+  private static void drain(StackSampleBuffer buffer) {
+    int head = buffer.getHead();
+    int n = buffer.getTail();
+    if (head - n > StackSampleBuffer.SAMPLES) {
+      lost += head - n - StackSampleBuffer.SAMPLES;
+      n = head - StackSampleBuffer.SAMPLES;
+    }
+    ArrayList<String> names = new ArrayList<String>();
+    for (; n != head; n++) {
+      if (buffer.overwritten(n)) {
+        lost++;
+        continue;
+      }
+      int depth = buffer.copySample(n, frames);
+      if (buffer.overwritten(n)) {
+        lost++;
+        continue;
+      }
+      names.clear();
+      int frameCount = depth & ~StackSampleBuffer.TRUNCATED;
+      for (int i = 0; i < frameCount; i++) {
+        addFrameNames(names, frames[2 * i], frames[2 * i + 1]);
+      }
+      if ((depth & StackSampleBuffer.TRUNCATED) != 0) {
+        names.add("[truncated]");
+      }
+      names.add(buffer.thread.getName());
+
+      StringBuilder stack = new StringBuilder();
+      for (int i = names.size() - 1; i >= 0; i--) {
+        stack.append(names.get(i));
+        if (i > 0) stack.append(';');
+      }
+      String key = stack.toString();
+      int[] count = counts.get(key);
+      if (count == null) {
+        count = new int[1];
+        counts.put(key, count);
+      }
+      count[0]++;
+    }
+    buffer.setTail(head);
+  }
+
+  /**
+   * Add the names of the methods executing in a frame, innermost first.
+   * An opt compiled frame may hold several methods, as a result of
+   * inlining.
+   *
+   * @param names the list to add to
+   * @param cmid the frame's compiled method id
+   * @param offset the offset of the frame's instruction in the method
+   */
+  private static void addFrameNames(ArrayList<String> names, int cmid, int offset) {
+    if (cmid == StackSampleBuffer.COLLECTOR_FRAME) {
+      names.add("[GC]");
+      return;
+    }
+    if (cmid == StackframeLayoutConstants.INVISIBLE_METHOD_ID) {
+      names.add("[invisible]");
+      return;
+    }
+    CompiledMethod cm = CompiledMethods.getCompiledMethod(cmid);
+    if (cm == null) {
+      // obsoleted and freed since the sample was taken
+      names.add("[unknown]");
+      return;
+    }
+    if (cm.getCompilerType() == CompiledMethod.TRAP) {
+      names.add("[trap]");
+      return;
+    }
+    if (VM.BuildForOptCompiler && cm.getCompilerType() == CompiledMethod.OPT) {
+      OptMachineCodeMap map = ((OptCompiledMethod) cm).getMCMap();
+      Offset instructionOffset = Offset.fromIntSignExtend(offset);
+      int iei = map.getInlineEncodingForMCOffset(instructionOffset);
+      if (iei >= 0) {
+        int[] inlineEncoding = map.inlineEncoding;
+        for (; iei >= 0; iei = OptEncodedCallSiteTree.getParent(iei, inlineEncoding)) {
+          int mid = OptEncodedCallSiteTree.getMethodID(iei, inlineEncoding);
+          names.add(methodName(MemberReference.getMemberRef(mid).asMethodReference().getResolvedMember()));
+        }
+        return;
+      }
+    }
+    names.add(methodName(cm.getMethod()));
+  }
+
+  private static String methodName(RVMMethod method) {
+    return method.getDeclaringClass() + "." + method.getName();
+  }
+
+  /**
+   * Drain the buffers and write the samples taken since the last dump, as
+   * collapsed stacks.
+   *
+   * @param fileName the file to write
+   */
+  public static synchronized void dump(String fileName) {
+    drain();
+    PrintStream out;
+    try {
+      out = new PrintStream(new FileOutputStream(fileName));
+    } catch (IOException e) {
+      VM.sysWriteln("CpuProfiler: can't open ", fileName);
+      return;
+    }
+    int total = 0;
+    for (String stack : counts.keys()) {
+      int count = counts.get(stack)[0];
+      out.print(stack);
+      out.print(' ');
+      out.println(count);
+      total += count;
+    }
+    out.close();
+    if (lost > 0) {
+      VM.sysWriteln("CpuProfiler: lost ", lost, " samples to full buffers");
+    }
+    if (VM.verboseBoot >= 1) {
+      VM.sysWriteln("CpuProfiler: wrote ", total, " samples");
+    }
+    counts = new HashMapRVM<String, int[]>();
+    lost = 0;
+  }
+
+  public void notifyExit(int value) {
+    dump(profileFile);
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.measurements;
+
+import org.jikesrvm.ArchitectureSpecific.StackframeLayoutConstants;
+import org.jikesrvm.VM;
+import org.jikesrvm.compilers.common.CompiledMethod;
+import org.jikesrvm.compilers.common.CompiledMethods;
+import org.jikesrvm.runtime.Magic;
+import org.jikesrvm.runtime.RuntimeEntrypoints;
+import org.jikesrvm.scheduler.RVMThread;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+
+/**
+ * A bounded ring of call stack samples for one thread, filled by the
+ * {@link CpuProfiler}.
+ * <p>
+ * Each sample records up to {@link #MAX_DEPTH} frames, innermost first, as
+ * a compiled method id and the offset of the frame's instruction within
+ * that method.  The offset is mapped to methods (including opt inlined
+ * ones) and bytecode indices when the ring is drained, as
+ * {@link org.jikesrvm.runtime.StackTrace} does, so that taking a sample
+ * is just a stack walk.
+ * <p>
+ * The ring has a single writer (the thread itself, or the timer thread for
+ * collector threads, which don't take yieldpoints) and a single reader
+ * (the profiler, when draining) and needs no locks.  The writer publishes a
+ * sample by advancing {@link #head} once the sample is written; the reader
+ * discards any sample that the writer may have started to overwrite while
+ * it was being copied.  If the reader falls behind, the oldest samples are
+ * lost.
+ */
+@Uninterruptible
+public final class StackSampleBuffer implements StackframeLayoutConstants {
+
+  /** Number of samples in the ring; a power of two */
+  public static final int SAMPLES = 256;
+
+  /** Maximum number of frames recorded in a sample */
+  public static final int MAX_DEPTH = 48;
+
+  /** Pseudo compiled method id of the frame recorded for collector threads */
+  public static final int COLLECTOR_FRAME = -2;
+
+  /** Set in a sample's depth if frames beyond MAX_DEPTH were dropped */
+  public static final int TRUNCATED = 1 << 16;
+
+  /** Ints per sample: the depth, then a (cmid, offset) pair per frame */
+  private static final int SAMPLE_SIZE = 1 + 2 * MAX_DEPTH;
+
+  /** The thread whose samples these are */
+  final RVMThread thread;
+
+  private final int[] samples = new int[SAMPLES * SAMPLE_SIZE];
+
+  /** Number of samples written (wraps) */
+  private volatile int head;
+
+  /** Number of samples drained (wraps) */
+  private volatile int tail;
+
+  /** Timer ticks to go before the next sample */
+  private int countdown;
+
+  StackSampleBuffer(RVMThread thread) {
+    this.thread = thread;
+  }
+
+  /**
+   * Should a sample be taken on this timer tick?  Honours
+   * <code>-X:vm:cpuProfileInterval</code>.  Only called by the writer.
+   */
+  private boolean tick() {
+    if (--countdown > 0) return false;
+    countdown = VM.CpuProfileInterval;
+    return true;
+  }
+
+  /**
+   * Sample the current thread's stack.  Called by the thread itself, at a
+   * yieldpoint.
+   *
+   * @param sfp the frame pointer of the method that took the yieldpoint
+   * @return whether the ring is at least half full and should be drained
+   */
+  public boolean sampleStack(Address sfp) {
+    if (!tick()) return false;
+
+    // Find the instruction in sfp's method from the frame it calls
+    Address fp = Magic.getFramePointer();
+    while (Magic.getCallerFramePointer(fp).NE(sfp)) {
+      fp = Magic.getCallerFramePointer(fp);
+      if (fp.EQ(STACKFRAME_SENTINEL_FP)) return false;
+    }
+    Address ip = Magic.getReturnAddress(fp);
+    fp = sfp;
+
+    int h = head;
+    int base = (h & (SAMPLES - 1)) * SAMPLE_SIZE;
+    int depth = 0;
+    while (Magic.getCallerFramePointer(fp).NE(STACKFRAME_SENTINEL_FP)) {
+      if (depth == MAX_DEPTH) {
+        depth |= TRUNCATED;
+        break;
+      }
+      int cmid = Magic.getCompiledMethodID(fp);
+      int offset = 0;
+      if (cmid != INVISIBLE_METHOD_ID) {
+        CompiledMethod cm = CompiledMethods.getCompiledMethod(cmid);
+        if (cm.getCompilerType() != CompiledMethod.TRAP) {
+          offset = cm.getInstructionOffset(ip).toInt();
+          if (cm.hasBridgeFromNativeAnnotation()) {
+            // skip native frames, stopping at last native frame preceeding the
+            // Java To C transition frame
+            fp = RuntimeEntrypoints.unwindNativeStackFrame(fp);
+          }
+        }
+      }
+      samples[base + 1 + 2 * depth] = cmid;
+      samples[base + 2 + 2 * depth] = offset;
+      depth++;
+      ip = Magic.getReturnAddress(fp);
+      fp = Magic.getCallerFramePointer(fp);
+    }
+    return publish(h, base, depth);
+  }
+
+  /**
+   * Record that a collector thread is collecting.  Called by the timer
+   * thread, as collector threads don't take yieldpoints.
+   *
+   * @return whether the ring is at least half full and should be drained
+   */
+  public boolean sampleCollector() {
+    if (!tick()) return false;
+    int h = head;
+    int base = (h & (SAMPLES - 1)) * SAMPLE_SIZE;
+    samples[base + 1] = COLLECTOR_FRAME;
+    samples[base + 2] = 0;
+    return publish(h, base, 1);
+  }
+
+  private boolean publish(int h, int base, int depth) {
+    samples[base] = depth;
+    Magic.sync(); // the sample must be visible before head is
+    head = h + 1;
+    return h + 1 - tail >= SAMPLES / 2;
+  }
+
+  /** @return the number of samples written so far (wraps) */
+  int getHead() {
+    return head;
+  }
+
+  /** @return the number of samples drained so far (wraps) */
+  int getTail() {
+    return tail;
+  }
+
+  void setTail(int tail) {
+    this.tail = tail;
+  }
+
+  /**
+   * Copy a sample out of the ring.  The copy is only valid if
+   * {@link #overwritten} is false afterwards.
+   *
+   * @param n the number of the sample
+   * @param frames receives (cmid, offset) pairs, innermost frame first;
+   *   must hold 2 * MAX_DEPTH ints
+   * @return the sample's depth, possibly with {@link #TRUNCATED} set
+   */
+  int copySample(int n, int[] frames) {
+    int base = (n & (SAMPLES - 1)) * SAMPLE_SIZE;
+    int depth = samples[base];
+    int frameCount = depth & ~TRUNCATED;
+    if (frameCount > MAX_DEPTH) frameCount = MAX_DEPTH;
+    for (int i = 0; i < 2 * frameCount; i++) {
+      frames[i] = samples[base + 1 + i];
+    }
+    return depth;
+  }
+
+  /**
+   * @param n the number of a sample
+   * @return whether the writer may have begun to overwrite it
+   */
+  boolean overwritten(int n) {
+    return head - n > SAMPLES - 1;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.measurements.listeners;
+
+import org.jikesrvm.adaptive.measurements.StackSampleBuffer;
+import org.jikesrvm.scheduler.RVMThread;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+
+/**
+ * A context listener for the {@link org.jikesrvm.adaptive.measurements.CpuProfiler}.
+ * On each timer sample it records the current thread's call stack in the
+ * thread's {@link StackSampleBuffer}, and wakes its organizer to drain the
+ * buffers when one is half full.
+ * <p>
+ * Unlike the other listeners it stays active while its organizer runs:
+ * the buffers are per thread and can be drained while they are written.
+ */
+@Uninterruptible
+public final class StackSampleListener extends ContextListener {
+
+  /**
+   * @param sfp the frame pointer of the method that took the yieldpoint
+   * @param whereFrom Was this a yieldpoint in a PROLOGUE, BACKEDGE, or
+   *            EPILOGUE?
+   */
+  public void update(Address sfp, int whereFrom) {
+    RVMThread t = RVMThread.getCurrentThread();
+    // collector threads are sampled by the timer thread, which must be the
+    // only writer of their buffers
+    if (t.isCollectorThread()) return;
+    StackSampleBuffer buffer = t.stackSamples;
+    if (buffer != null && buffer.sampleStack(sfp)) {
+      activateOrganizer();
+    }
+  }
+
+  public void report() {}
+
+  public void reset() {}
+}
@@ -0,0 +1,42 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.adaptive.measurements.organizers;
+
+import org.jikesrvm.adaptive.measurements.CpuProfiler;
+import org.jikesrvm.adaptive.measurements.RuntimeMeasurements;
+import org.jikesrvm.adaptive.measurements.listeners.StackSampleListener;
+import org.vmmagic.pragma.NonMoving;
+
+/**
+ * Drains the call stack samples of the {@link CpuProfiler} whenever a
+ * thread's sample buffer is half full.  It does not report to the
+ * controller.
+ * <p>
+ * The listener is not set as {@link #listener}, so it is never passivated:
+ * any number of threads may wake this organizer at once.
+ */
+@NonMoving
+public final class StackSampleOrganizer extends Organizer {
+
+  @Override
+  protected void initialize() {
+    StackSampleListener stackListener = new StackSampleListener();
+    stackListener.setOrganizer(this);
+    stackListener.activate();
+    RuntimeMeasurements.installTimerContextListener(stackListener);
+  }
+
+  void thresholdReached() {
+    CpuProfiler.drain();
+  }
+}
@@ -16,7 +16,9 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
 import java.util.StringTokenizer;
+import java.util.jar.Manifest;
 import org.jikesrvm.VM;
 import org.jikesrvm.runtime.Magic;
 
@@ -49,6 +51,9 @@ public class ApplicationClassLoader extends URLClassLoader {
   private final boolean createdAtBootImageWritingTime;
   private final boolean createdWithRunningVM;
 
+  /** Archive of this classpath's class files, or {@code null} if there is none */
+  private final ClassArchive archive;
+
   public ApplicationClassLoader(String specifiedClasspath) {
     super(new URL[0]);
     if (DBG) {
@@ -58,6 +63,7 @@ public class ApplicationClassLoader extends URLClassLoader {
 
     createdAtBootImageWritingTime = VM.writingBootImage;
     createdWithRunningVM = VM.runningVM;
+    archive = ClassArchive.forClasspath(specifiedClasspath);
 
     try {
       if (specifiedClasspath == null) {
@@ -104,6 +110,40 @@ public class ApplicationClassLoader extends URLClassLoader {
            (DBG ? "@" + VM.addressAsHexString(Magic.objectAsAddress(this)) : "");
   }
 
+  /**
+   * Look for the class in the class archive, if there is one, before
+   * searching the classpath.  Archived classes are defined with the code
+   * source and manifest of the jar they came from, as the classpath
+   * search would define them.
+   */
+  protected Class<?> findClass(String className) throws ClassNotFoundException {
+    if (archive != null) {
+      int i = archive.indexOf(className);
+      byte[] bytes = i < 0 ? null : archive.getClassBytes(i);
+      if (bytes != null) {
+        CodeSource source = archive.getCodeSource(i);
+        int dot = className.lastIndexOf('.');
+        if (dot > 0) {
+          String packageName = className.substring(0, dot);
+          if (getPackage(packageName) == null) {
+            Manifest manifest = archive.getManifest(i);
+            try {
+              if (manifest != null && source != null) {
+                definePackage(packageName, manifest, source.getLocation());
+              } else {
+                definePackage(packageName, null, null, null, null, null, null, null);
+              }
+            } catch (IllegalArgumentException e) {
+              // defined by another thread in the meantime
+            }
+          }
+        }
+        return defineClass(className, bytes, 0, bytes.length, source);
+      }
+    }
+    return super.findClass(className);
+  }
+
   protected String findLibrary(String libName) {
     return null;
   }
@@ -189,6 +189,9 @@ public final class Atom {
     val = dictionary.get(val);
     if (val != null || !create) return val;
     synchronized(Atom.class) {
+      // Another thread may have created the atom since we looked
+      Atom found = dictionary.get(new Atom(bytes, -1, str));
+      if (found != null) return found;
       val = new Atom(bytes, nextId++, str);
       int column = val.id >> LOG_ROW_SIZE;
       if (column == atoms.length) {
@@ -733,7 +736,8 @@ public final class Atom {
        "Lgnu/classpath/ServiceProviderLoadingAction".getBytes(),
        "Lgnu/classpath/SystemProperties".getBytes(),
        "Lorg/vmmagic/".getBytes(),
-       "Lorg/mmtk/".getBytes()};
+       "Lorg/mmtk/".getBytes(),
+       "Lsun/misc/Unsafe;".getBytes()};
 
   /**
    * The set of class prefixes that MUST NOT be loaded by bootstrap classloader.
@@ -944,20 +948,43 @@ public final class Atom {
    * run during booting.
    */
   private static class InternedStrings {
+    /** Number of independently locked stripes of the table, a power of 2 */
+    private static final int STRIPES = 32;
+
     /**
-     * Look up for interned strings.
+     * Look up for interned strings.  The table is split into stripes by
+     * hash code, each with its own lock, so that threads interning
+     * different strings rarely contend.  Keys and values are weak, so
+     * interned strings that are no longer reachable are collected.
      */
-    private static final WeakHashMap<String,WeakReference<String>> internedStrings =
-      new WeakHashMap<String,WeakReference<String>>();
+    private static final WeakHashMap<String,WeakReference<String>>[] internedStrings = createStripes();
+
+    @SuppressWarnings("unchecked")
+    private static WeakHashMap<String,WeakReference<String>>[] createStripes() {
+      WeakHashMap<String,WeakReference<String>>[] stripes = new WeakHashMap[STRIPES];
+      for (int i = 0; i < STRIPES; i++) {
+        stripes[i] = new WeakHashMap<String,WeakReference<String>>();
+      }
+      return stripes;
+    }
 
     /**
-     * Find an interned string but don't create it if not found
+     * @param str string to lookup
+     * @return the stripe of the table that holds the string
+     */
+    private static WeakHashMap<String,WeakReference<String>> stripeFor(String str) {
+      int h = str.hashCode();
+      return internedStrings[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Find an interned string in a stripe; caller holds the stripe's lock
+     * @param stripe stripe to search
      * @param str string to lookup
      * @return the interned string or null if it isn't interned
      */
-    static synchronized String findInternedString(String str) {
-      WeakReference<String> ref;
-      ref = internedStrings.get(str);
+    private static String lookup(WeakHashMap<String,WeakReference<String>> stripe, String str) {
+      WeakReference<String> ref = stripe.get(str);
       if (ref != null) {
         String s = ref.get();
         if (s != null) {
@@ -967,6 +994,18 @@ public final class Atom {
       return null;
     }
 
+    /**
+     * Find an interned string but don't create it if not found
+     * @param str string to lookup
+     * @return the interned string or null if it isn't interned
+     */
+    static String findInternedString(String str) {
+      WeakHashMap<String,WeakReference<String>> stripe = stripeFor(str);
+      synchronized (stripe) {
+        return lookup(stripe, str);
+      }
+    }
+
     /**
      * Find a string literal from an atom
      * @param str string to find
@@ -989,15 +1028,18 @@ public final class Atom {
      * @param str string to intern
      * @return interned string
      */
-    static synchronized String internUnfoundString(String str) {
-      // double check string isn't found as we're holding the lock on the class
-      String s = findInternedString(str);
-      if (s != null) return s;
-      // If we get to here, then there is no interned version of the String.
-      // So we make one.
-      WeakReference<String> ref = new WeakReference<String>(str);
-      internedStrings.put(str, ref);
-      return str;
+    static String internUnfoundString(String str) {
+      WeakHashMap<String,WeakReference<String>> stripe = stripeFor(str);
+      synchronized (stripe) {
+        // double check string isn't found as we're holding the lock on the stripe
+        String s = lookup(stripe, str);
+        if (s != null) return s;
+        // If we get to here, then there is no interned version of the String.
+        // So we make one.
+        WeakReference<String> ref = new WeakReference<String>(str);
+        stripe.put(str, ref);
+        return str;
+      }
     }
   }
 
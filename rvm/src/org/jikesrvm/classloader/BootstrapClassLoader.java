@@ -26,17 +26,27 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import org.jikesrvm.VM;
 import org.jikesrvm.runtime.Entrypoints;
+import org.jikesrvm.util.HashMapRVM;
 import org.jikesrvm.util.ImmutableEntryHashMapRVM;
 
 /**
  * Implements an object that functions as the bootstrap class loader.
  * This class is a Singleton pattern.
+ * <p>
+ * The loader is parallel capable: rather than locking the whole loader,
+ * each class name has its own lock that is held only while that class is
+ * being read and defined, so different classes can be loaded by different
+ * threads at the same time.  The map of loaded classes has immutable
+ * entries and is read without locking.
  */
 public final class BootstrapClassLoader extends java.lang.ClassLoader {
 
   private final ImmutableEntryHashMapRVM<String, RVMType> loaded =
     new ImmutableEntryHashMapRVM<String, RVMType>();
 
+  /** Locks for the classes currently being loaded, keyed by class name */
+  private final HashMapRVM<String, Object> loadingLocks = new HashMapRVM<String, Object>();
+
   /** Places whence we load bootstrap .class files. */
   private static String bootstrapClasspath;
 
@@ -101,40 +111,85 @@ public final class BootstrapClassLoader extends java.lang.ClassLoader {
     return bootstrapClassLoader;
   }
 
+  /**
+   * Get the lock that serialises loading of the named class.  Once the
+   * class has been defined the lock is discarded by
+   * {@link #releaseClassLoadingLock}, so a thread holding it must check
+   * {@link #loaded} again before defining the class.  After a failed load
+   * the lock is kept, so that retries remain serialised.
+   *
+   * @param className the name of the class
+   * @return the lock for that class name
+   */
+  private Object getClassLoadingLock(String className) {
+    synchronized (loadingLocks) {
+      Object lock = loadingLocks.get(className);
+      if (lock == null) {
+        lock = new Object();
+        loadingLocks.put(className, lock);
+      }
+      return lock;
+    }
+  }
+
+  private void releaseClassLoadingLock(String className) {
+    synchronized (loadingLocks) {
+      loadingLocks.remove(className);
+    }
+  }
+
+  /**
+   * Record a newly defined type.  Lookups in {@link #loaded} are not
+   * locked, but insertions must be serialised.
+   */
+  private void recordLoaded(String className, RVMType type) {
+    synchronized (loaded) {
+      if (loaded.get(className) == null) {
+        loaded.put(className, type);
+      }
+    }
+  }
+
   /**
    * Backdoor for use by TypeReference.resolve when !VM.runningVM.
    * As of this writing, it is not used by any other classes.
    * @throws NoClassDefFoundError
    */
-  synchronized RVMType loadVMClass(String className) throws NoClassDefFoundError {
-    try {
-      InputStream is = getResourceAsStream(className.replace('.', File.separatorChar) + ".class");
-      if (is == null) throw new NoClassDefFoundError(className);
-      DataInputStream dataInputStream = new DataInputStream(is);
-      RVMType type = null;
+  RVMType loadVMClass(String className) throws NoClassDefFoundError {
+    RVMType type = loaded.get(className);
+    if (type != null) return type;
+    synchronized (getClassLoadingLock(className)) {
       try {
-        // Debugging:
-        // VM.sysWriteln("loadVMClass: trying to resolve className " + className);
-        type = RVMClassLoader.defineClassInternal(className, dataInputStream, this);
-        loaded.put(className, type);
-      } finally {
+        type = loaded.get(className);
+        if (type != null) return type;
+        InputStream is = getResourceAsStream(className.replace('.', File.separatorChar) + ".class");
+        if (is == null) throw new NoClassDefFoundError(className);
+        DataInputStream dataInputStream = new DataInputStream(is);
         try {
-          // Make sure the input stream is closed.
-          dataInputStream.close();
-        } catch (IOException e) { }
+          // Debugging:
+          // VM.sysWriteln("loadVMClass: trying to resolve className " + className);
+          type = RVMClassLoader.defineClassInternal(className, dataInputStream, this);
+          recordLoaded(className, type);
+          releaseClassLoadingLock(className);
+        } finally {
+          try {
+            // Make sure the input stream is closed.
+            dataInputStream.close();
+          } catch (IOException e) { }
+        }
+        return type;
+      } catch (NoClassDefFoundError e) {
+        throw e;
+      } catch (Throwable e) {
+        // We didn't find the class, or it wasn't valid, etc.
+        NoClassDefFoundError ncdf = new NoClassDefFoundError(className);
+        ncdf.initCause(e);
+        throw ncdf;
       }
-      return type;
-    } catch (NoClassDefFoundError e) {
-      throw e;
-    } catch (Throwable e) {
-      // We didn't find the class, or it wasn't valid, etc.
-      NoClassDefFoundError ncdf = new NoClassDefFoundError(className);
-      ncdf.initCause(e);
-      throw ncdf;
     }
   }
 
-  public synchronized Class<?> loadClass(String className, boolean resolveClass) throws ClassNotFoundException {
+  public Class<?> loadClass(String className, boolean resolveClass) throws ClassNotFoundException {
     if (!VM.runningVM) {
       return super.loadClass(className, resolveClass);
     }
@@ -170,7 +225,7 @@ public final class BootstrapClassLoader extends java.lang.ClassLoader {
       TypeReference typeRef =
           TypeReference.findOrCreate(this, Atom.findOrCreateAsciiAtom(className.replace('.', '/')));
       RVMType ans = typeRef.resolve();
-      loaded.put(className, ans);
+      recordLoaded(className, ans);
       return ans.getClassForType();
     } else {
       if (!VM.fullyBooted) {
@@ -181,34 +236,40 @@ public final class BootstrapClassLoader extends java.lang.ClassLoader {
         VM.sysFail("Trying to load a class too early in the booting process");
       }
       // class types: try to find the class file
-      try {
-        if (className.startsWith("L") && className.endsWith(";")) {
-          className = className.substring(1, className.length() - 2);
-        }
-        InputStream is = getResourceAsStream(className.replace('.', File.separatorChar) + ".class");
-        if (is == null) throw new ClassNotFoundException(className);
-        DataInputStream dataInputStream = new DataInputStream(is);
-        Class<?> cls = null;
+      if (className.startsWith("L") && className.endsWith(";")) {
+        className = className.substring(1, className.length() - 2);
+      }
+      synchronized (getClassLoadingLock(className)) {
         try {
-          RVMType type = RVMClassLoader.defineClassInternal(className, dataInputStream, this);
-          loaded.put(className, type);
-          cls = type.getClassForType();
-        } finally {
+          // Another thread may have defined the class while we waited
+          RVMType type = loaded.get(className);
+          if (type != null) return type.getClassForType();
+          InputStream is = getResourceAsStream(className.replace('.', File.separatorChar) + ".class");
+          if (is == null) throw new ClassNotFoundException(className);
+          DataInputStream dataInputStream = new DataInputStream(is);
+          Class<?> cls = null;
           try {
-            // Make sure the input stream is closed.
-            dataInputStream.close();
-          } catch (IOException e) { }
-        }
-        return cls;
-      } catch (ClassNotFoundException e) {
-        throw e;
-      } catch (Throwable e) {
-        if (DBG) {
-          VM.sysWrite("About to throw ClassNotFoundException(", className, ") because we got this Throwable:");
-          e.printStackTrace();
+            type = RVMClassLoader.defineClassInternal(className, dataInputStream, this);
+            recordLoaded(className, type);
+            releaseClassLoadingLock(className);
+            cls = type.getClassForType();
+          } finally {
+            try {
+              // Make sure the input stream is closed.
+              dataInputStream.close();
+            } catch (IOException e) { }
+          }
+          return cls;
+        } catch (ClassNotFoundException e) {
+          throw e;
+        } catch (Throwable e) {
+          if (DBG) {
+            VM.sysWrite("About to throw ClassNotFoundException(", className, ") because we got this Throwable:");
+            e.printStackTrace();
+          }
+          // We didn't find the class, or it wasn't valid, etc.
+          throw new ClassNotFoundException(className, e);
         }
-        // We didn't find the class, or it wasn't valid, etc.
-        throw new ClassNotFoundException(className, e);
       }
     }
   }
@@ -221,6 +282,19 @@ public final class BootstrapClassLoader extends java.lang.ClassLoader {
 
   private static HashMap<String, ZipFile> zipFileCache;
 
+  /**
+   * Find the open zip file for a classpath entry, opening it if need be.
+   * Synchronized since classes may be loaded by several threads at once.
+   */
+  private static synchronized ZipFile getZipFile(String path) throws IOException {
+    ZipFile zf = zipFileCache.get(path);
+    if (zf == null) {
+      zf = new ZipFile(path);
+      zipFileCache.put(path, zf);
+    }
+    return zf;
+  }
+
   private interface Handler<T> {
     void process(ZipFile zf, ZipEntry ze) throws Exception;
 
@@ -299,15 +373,7 @@ public final class BootstrapClassLoader extends java.lang.ClassLoader {
       try {
         String path = tok.nextToken();
         if (path.endsWith(".jar") || path.endsWith(".zip")) {
-          ZipFile zf = zipFileCache.get(path);
-          if (zf == null) {
-            zf = new ZipFile(path);
-            if (zf == null) {
-              continue;
-            } else {
-              zipFileCache.put(path, zf);
-            }
-          }
+          ZipFile zf = getZipFile(path);
           // Zip spec. states that separator must be '/' in the path
           if (File.separatorChar != '/') {
             name = name.replace(File.separatorChar, '/');
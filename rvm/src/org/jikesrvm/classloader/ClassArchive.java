@@ -0,0 +1,256 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.classloader;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+import java.util.jar.Manifest;
+import org.jikesrvm.VM;
+import org.jikesrvm.util.HashMapRVM;
+
+/**
+ * An archive of the class files of an application classpath, written ahead
+ * of time by {@link org.jikesrvm.tools.classArchive.ClassArchiveWriter} and
+ * named on the command line with
+ * <code>-X:vm:classArchive=path-to-archive</code>.
+ * <p>
+ * The archive holds every class file of the classpath's jars uncompressed
+ * in a single file, with an index by class name, and the manifest of each
+ * jar.  At startup only the index is read; class files are read on demand
+ * by the {@link ApplicationClassLoader}, which saves looking each class up
+ * in the jars and inflating it.  Classes are defined with the code source
+ * and package attributes of the jar they came from.
+ * <p>
+ * The archive records the classpath it was built for and the length and
+ * modification time of each jar.  It is only used if the application
+ * classpath is the same and no jar has changed, which is checked without
+ * reading the jars.
+ * <p>
+ * File format (big-endian, as written by {@link java.io.DataOutputStream}):
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * UTF    classpath
+ * int    number of jars
+ *   UTF  path, long length, long modification time,
+ *   int  manifest length (-1 if none), byte[] manifest  (per jar)
+ * int    number of classes
+ *   UTF  class name, int jar, long offset, int length   (per class; offset
+ *                                                        is from the start
+ *                                                        of the file)
+ * byte[] class file data
+ * </pre>
+ */
+public final class ClassArchive {
+
+  /** Magic number at the start of every archive ("JRCA") */
+  public static final int MAGIC = 0x4a524341;
+
+  /** Version of the archive format */
+  public static final int VERSION = 3;
+
+  /** The archive given on the command line, if it is usable */
+  private static ClassArchive archive;
+
+  /** The application classpath the archive was built for */
+  private final String classpath;
+
+  /** The archive file, read on demand */
+  private final RandomAccessFile file;
+
+  /** Index of each class name into {@link #jars}, {@link #offsets} and {@link #lengths} */
+  private final HashMapRVM<String, Integer> index;
+
+  private final int[] jars;
+  private final long[] offsets;
+  private final int[] lengths;
+
+  /** The path and manifest of each jar */
+  private final String[] jarPaths;
+  private final byte[][] manifestBytes;
+
+  /** Code sources and manifests of the jars, made on demand */
+  private final CodeSource[] codeSources;
+  private final Manifest[] manifests;
+
+  private ClassArchive(String classpath, RandomAccessFile file, String[] jarPaths, byte[][] manifestBytes,
+                       HashMapRVM<String, Integer> index, int[] jars, long[] offsets, int[] lengths) {
+    this.classpath = classpath;
+    this.file = file;
+    this.jarPaths = jarPaths;
+    this.manifestBytes = manifestBytes;
+    this.index = index;
+    this.jars = jars;
+    this.offsets = offsets;
+    this.lengths = lengths;
+    this.codeSources = new CodeSource[jarPaths.length];
+    this.manifests = new Manifest[jarPaths.length];
+  }
+
+  /**
+   * Open the class archive, if one was given, and check it is still valid.
+   *
+   * @param fileName the name of the archive file, or {@code null}
+   */
+  public static void boot(String fileName) {
+    if (fileName != null) {
+      archive = open(fileName);
+    }
+  }
+
+  /**
+   * Find the archive for an application classpath.
+   *
+   * @param classpath the application classpath
+   * @return the archive, or {@code null} if there is no usable archive
+   * for this classpath
+   */
+  static ClassArchive forClasspath(String classpath) {
+    if (archive != null && archive.classpath.equals(classpath)) {
+      return archive;
+    }
+    return null;
+  }
+
+  /**
+   * Find a class in the archive.
+   *
+   * @param className the dotted name of the class
+   * @return the index of the class, or -1 if it is not in the archive
+   */
+  int indexOf(String className) {
+    Integer i = index.get(className);
+    return i == null ? -1 : i;
+  }
+
+  /**
+   * Read a class file from the archive.
+   *
+   * @param i the index of the class
+   * @return the contents of the class file, or {@code null} if it
+   * couldn't be read
+   */
+  synchronized byte[] getClassBytes(int i) {
+    byte[] bytes = new byte[lengths[i]];
+    try {
+      file.seek(offsets[i]);
+      file.readFully(bytes);
+    } catch (IOException e) {
+      VM.sysWriteln("ClassArchive: error reading class ", i);
+      return null;
+    }
+    return bytes;
+  }
+
+  /**
+   * @param i the index of a class
+   * @return the code source of the jar the class came from
+   */
+  synchronized CodeSource getCodeSource(int i) {
+    int jar = jars[i];
+    if (codeSources[jar] == null) {
+      try {
+        URL url = new URL("file", null, -1, jarPaths[jar]);
+        codeSources[jar] = new CodeSource(url, (Certificate[]) null);
+      } catch (MalformedURLException e) {
+        return null;
+      }
+    }
+    return codeSources[jar];
+  }
+
+  /**
+   * @param i the index of a class
+   * @return the manifest of the jar the class came from, or {@code null}
+   * if it has none
+   */
+  synchronized Manifest getManifest(int i) {
+    int jar = jars[i];
+    if (manifests[jar] == null && manifestBytes[jar] != null) {
+      try {
+        manifests[jar] = new Manifest(new ByteArrayInputStream(manifestBytes[jar]));
+      } catch (IOException e) {
+        VM.sysWriteln("ClassArchive: ignoring bad manifest of ", jarPaths[jar]);
+        manifestBytes[jar] = null;
+      }
+    }
+    return manifests[jar];
+  }
+
+  private static ClassArchive open(String fileName) {
+    RandomAccessFile file = null;
+    try {
+      file = new RandomAccessFile(fileName, "r");
+      DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file.getFD())));
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        VM.sysWriteln("ClassArchive: not a class archive, or the wrong version: ", fileName);
+        file.close();
+        return null;
+      }
+      String classpath = in.readUTF();
+      int numJars = in.readInt();
+      String[] jarPaths = new String[numJars];
+      byte[][] manifestBytes = new byte[numJars][];
+      for (int j = 0; j < numJars; j++) {
+        String jar = in.readUTF();
+        long length = in.readLong();
+        long modified = in.readLong();
+        File jarFile = new File(jar);
+        if (jarFile.length() != length || jarFile.lastModified() != modified) {
+          VM.sysWriteln("ClassArchive: ignoring archive as this jar has changed: ", jar);
+          file.close();
+          return null;
+        }
+        jarPaths[j] = jar;
+        int manifestLength = in.readInt();
+        if (manifestLength >= 0) {
+          manifestBytes[j] = new byte[manifestLength];
+          in.readFully(manifestBytes[j]);
+        }
+      }
+      int numClasses = in.readInt();
+      HashMapRVM<String, Integer> index = new HashMapRVM<String, Integer>();
+      int[] jars = new int[numClasses];
+      long[] offsets = new long[numClasses];
+      int[] lengths = new int[numClasses];
+      for (int i = 0; i < numClasses; i++) {
+        index.put(in.readUTF(), i);
+        jars[i] = in.readInt();
+        offsets[i] = in.readLong();
+        lengths[i] = in.readInt();
+      }
+      if (VM.verboseClassLoading) {
+        VM.sysWriteln("ClassArchive: classes in archive: ", numClasses);
+      }
+      return new ClassArchive(classpath, file, jarPaths, manifestBytes, index, jars, offsets, lengths);
+    } catch (IOException e) {
+      VM.sysWriteln("ClassArchive: couldn't read class archive ", fileName);
+      if (file != null) {
+        try {
+          file.close();
+        } catch (IOException e2) { }
+      }
+      return null;
+    }
+  }
+}
@@ -78,6 +78,14 @@ import org.vmmagic.pragma.Uninterruptible;
  * <p>
  * (6) Otherwise.  If the LHS depth component of the RHS's superclassIds
  *    array is the LHS class ID, the test succeeds.  Else, it fails.
+ * <p>
+ * The tests of case 2 that can't be done by comparing TIBs are done at
+ * runtime, as are those of case 1 when the LHS element type is an
+ * interface.  To make repeating them cheap, each TIB has a secondary
+ * super cache holding the TIB of the last array type or interface that
+ * the runtime found the type assignable to (initially the TIB itself).
+ * The compilers test the cache inline before calling the runtime, which
+ * tests it again and updates it when the full test succeeds.
  *
  * @see org.jikesrvm.compilers.opt.hir2lir.DynamicTypeCheckExpansion
  * @see RVMType
@@ -100,6 +108,12 @@ public class DynamicTypeCheck implements TIBLayoutConstants {
    */
   public static final int MIN_DOES_IMPLEMENT_SIZE = 5; // an int[]
 
+  /** Number of runtime type checks answered by the secondary super cache */
+  private static int secondarySuperCacheHits;
+
+  /** Number of runtime type checks not answered by the secondary super cache */
+  private static int secondarySuperCacheMisses;
+
   /**
    * Create the superclass Id vector for a RVMType.
    *
@@ -299,4 +313,47 @@ public class DynamicTypeCheck implements TIBLayoutConstants {
       return false;
     }
   }
+
+  /**
+   * Can we store an object of type RHSType in a variable of type LHSType?
+   * As {@link #instanceOfResolved} but first consulting the secondary
+   * super cache of RHSType, and updating it if LHSType is an array type
+   * or interface that RHSType is found assignable to.
+   * Assumption. LHSType and RHSType are already resolved.
+   *
+   * @param LHSType the left-hand-side type
+   * @param RHSType the right-hand-size type
+   * @return <code>true</code> if we can store an object of
+   *         RHSType into a variable of type LSType
+   *         or <code>false</code> if we cannot.
+   */
+  public static boolean instanceOfCached(RVMType LHSType, RVMType RHSType) {
+    TIB rhsTIB = RHSType.getTypeInformationBlock();
+    boolean hit = rhsTIB.getSecondarySuperCache() == LHSType.getTypeInformationBlock();
+    if (VM.countSecondarySuperCache) {
+      if (hit) {
+        secondarySuperCacheHits++;
+      } else {
+        secondarySuperCacheMisses++;
+      }
+    }
+    if (hit) return true;
+    if (!instanceOfResolved(LHSType, RHSType)) return false;
+    if (LHSType.isArrayType() || LHSType.asClass().isInterface()) {
+      TIB lhsTIB = LHSType.getTypeInformationBlock();
+      if (lhsTIB != null) {
+        rhsTIB.setSecondarySuperCache(lhsTIB);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Report the hits and misses of the secondary super cache
+   * (see {@link VM#countSecondarySuperCache})
+   */
+  public static void reportSecondarySuperCacheCounts() {
+    VM.sysWriteln("Secondary super cache hits: ", secondarySuperCacheHits);
+    VM.sysWriteln("Secondary super cache misses: ", secondarySuperCacheMisses);
+  }
 }
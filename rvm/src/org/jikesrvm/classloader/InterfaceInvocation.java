@@ -303,6 +303,20 @@ public class InterfaceInvocation implements TIBLayoutConstants, SizeConstants {
     return -1;
   }
 
+  /**
+   * Does a call of the given signature through the IMT of klass go
+   * through a conflict resolution stub?
+   *
+   * @param klass a class whose IMT has been built
+   * @param sig the interface method signature
+   * @return whether the IMT slot of sig is shared with other signatures
+   */
+  public static boolean isIMTConflict(RVMClass klass, InterfaceMethodSignature sig) {
+    if (VM.VerifyAssertions) VM._assert(VM.BuildForIMTInterfaceInvocation);
+    int slot = sig.getIMTOffset().toInt() >> LOG_BYTES_IN_ADDRESS;
+    return (klass.imtConflictSlots & (1 << slot)) != 0;
+  }
+
   /**
    * If there is an an IMT or ITable entry that contains
    * compiled code for the argument method, then update it to
@@ -427,6 +441,7 @@ public class InterfaceInvocation implements TIBLayoutConstants, SizeConstants {
           CodeArray conflictResolutionStub = InterfaceMethodConflictResolver.createStub(sigIds, targets);
           klass.addCachedObject(Magic.codeArrayAsObject(conflictResolutionStub));
           set(tib, imt, slot, conflictResolutionStub);
+          klass.imtConflictSlots |= 1 << slot;
         }
       }
     }
@@ -62,8 +62,15 @@ public final class InterfaceMethodSignature implements TIBLayoutConstants, SizeC
    * @param ref     A reference to a supposed interface method
    * @return the interface method signature
    */
-  public static synchronized InterfaceMethodSignature findOrCreate(MemberReference ref) {
-    InterfaceMethodSignature key = new InterfaceMethodSignature(ref.getName(), ref.getDescriptor(), nextId+1);
+  public static InterfaceMethodSignature findOrCreate(MemberReference ref) {
+    // The dictionary has immutable entries, so it can be probed without locking
+    InterfaceMethodSignature val = dictionary.get(new InterfaceMethodSignature(ref.getName(), ref.getDescriptor(), 0));
+    if (val != null) return val;
+    return create(ref.getName(), ref.getDescriptor());
+  }
+
+  private static synchronized InterfaceMethodSignature create(Atom name, Atom descriptor) {
+    InterfaceMethodSignature key = new InterfaceMethodSignature(name, descriptor, nextId+1);
     InterfaceMethodSignature val = dictionary.get(key);
     if (val != null) return val;
     nextId++;
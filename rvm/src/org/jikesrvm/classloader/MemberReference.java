@@ -84,12 +84,26 @@ public abstract class MemberReference {
    * @param mn the name of the member
    * @param md the descriptor of the member
    */
-  public static synchronized MemberReference findOrCreate(TypeReference tRef, Atom mn, Atom md) {
+  public static MemberReference findOrCreate(TypeReference tRef, Atom mn, Atom md) {
+    if (md.isMethodDescriptor() && tRef.isArrayType() && !tRef.isUnboxedArrayType()) {
+      tRef = RVMType.JavaLangObjectType.getTypeRef();
+    }
+    // The dictionary has immutable entries, so it can be probed without locking
+    MemberReference val = dictionary.get(new Probe(tRef, mn, md));
+    if (val != null) return val;
+    return create(tRef, mn, md);
+  }
+
+  /**
+   * Create the canonical MemberReference instance for the given tuple,
+   * unless another thread got there first.
+   * @param tRef the type reference
+   * @param mn the name of the member
+   * @param md the descriptor of the member
+   */
+  private static synchronized MemberReference create(TypeReference tRef, Atom mn, Atom md) {
     MemberReference key;
     if (md.isMethodDescriptor()) {
-      if (tRef.isArrayType() && !tRef.isUnboxedArrayType()) {
-        tRef = RVMType.JavaLangObjectType.getTypeRef();
-      }
       key = new MethodReference(tRef, mn, md, nextId + 1);
     } else {
       key = new FieldReference(tRef, mn, md, nextId + 1);
@@ -112,6 +126,16 @@ public abstract class MemberReference {
     return key;
   }
 
+  /**
+   * A key used to look up the dictionary without parsing the member's
+   * descriptor, as constructing a MethodReference or FieldReference would.
+   */
+  private static final class Probe extends MemberReference {
+    Probe(TypeReference tRef, Atom mn, Atom md) {
+      super(tRef, mn, md, 0);
+    }
+  }
+
   /**
    * Given a StringTokenizer currently pointing to the start of a {@link
    * MemberReference} (created by doing a toString() on a
@@ -247,7 +247,18 @@ public final class MethodReference extends MemberReference {
    * SysCall annotated methods we don't know until they are resolved.
    */
   public boolean isMagic() {
-    return getType().isMagicType() || ((resolvedMember != null) && (resolvedMember.isSysCall() || resolvedMember.isSpecializedInvoke()));
+    return getType().isMagicType() || isUnsafe() || ((resolvedMember != null) && (resolvedMember.isSysCall() || resolvedMember.isSpecializedInvoke()));
+  }
+
+  /**
+   * Is the method reference to a method of sun.misc.Unsafe? The compilers
+   * generate its memory accessors inline and call its other methods.
+   * Unsafe is always loaded by the bootstrap class loader (see
+   * {@link Atom#isBootstrapClassDescriptor()}), so references to it from
+   * application classes are to the same type.
+   */
+  public boolean isUnsafe() {
+    return getType() == TypeReference.SunMiscUnsafe;
   }
 
   /**
@@ -148,7 +148,7 @@ public final class RVMArray extends RVMType implements Constants, ClassLoaderCon
   @Pure
   @Uninterruptible
   public int getMemoryBytes() {
-    return BYTES_IN_ADDRESS;
+    return BYTES_IN_REFERENCE;
   }
 
   /**
@@ -194,9 +194,9 @@ public final class RVMArray extends RVMType implements Constants, ClassLoaderCon
     }
     switch (getDescriptor().parseForArrayElementTypeCode()) {
       case ClassTypeCode:
-        return LOG_BYTES_IN_ADDRESS;
+        return LOG_BYTES_IN_REFERENCE;
       case ArrayTypeCode:
-        return LOG_BYTES_IN_ADDRESS;
+        return LOG_BYTES_IN_REFERENCE;
       case BooleanTypeCode:
         return LOG_BYTES_IN_BOOLEAN;
       case ByteTypeCode:
@@ -1140,9 +1140,9 @@ public final class RVMArray extends RVMType implements Constants, ClassLoaderCon
    * @param len The number of array elements to be copied
    */
   private static void arraycopyNoCheckcast(Object[] src, int srcIdx, Object[] dst, int dstIdx, int len) {
-    Offset srcOffset = Offset.fromIntZeroExtend(srcIdx << LOG_BYTES_IN_ADDRESS);
-    Offset dstOffset = Offset.fromIntZeroExtend(dstIdx << LOG_BYTES_IN_ADDRESS);
-    int bytes = len << LOG_BYTES_IN_ADDRESS;
+    Offset srcOffset = Offset.fromIntZeroExtend(srcIdx << LOG_BYTES_IN_REFERENCE);
+    Offset dstOffset = Offset.fromIntZeroExtend(dstIdx << LOG_BYTES_IN_REFERENCE);
+    int bytes = len << LOG_BYTES_IN_REFERENCE;
 
     if (((src != dst) || (srcIdx > dstIdx)) && OBJECT_BULK_COPY_SUPPORTED) {
       if (NEEDS_OBJECT_ASTORE_BARRIER || NEEDS_OBJECT_ALOAD_BARRIER) {
@@ -1173,23 +1173,23 @@ public final class RVMArray extends RVMType implements Constants, ClassLoaderCon
     // set up things according to the direction of the copy
     int increment;
     if (srcOffset.sGT(dstOffset)) { // direction of copy
-      increment = BYTES_IN_ADDRESS;
+      increment = BYTES_IN_REFERENCE;
     } else {
-      srcOffset = srcOffset.plus(bytes - BYTES_IN_ADDRESS);
-      dstOffset = dstOffset.plus(bytes - BYTES_IN_ADDRESS);
-      increment = -BYTES_IN_ADDRESS;
+      srcOffset = srcOffset.plus(bytes - BYTES_IN_REFERENCE);
+      dstOffset = dstOffset.plus(bytes - BYTES_IN_REFERENCE);
+      increment = -BYTES_IN_REFERENCE;
     }
 
     // perform the copy
     while (len-- != 0) {
       Object value;
       if (NEEDS_OBJECT_ALOAD_BARRIER) {
-        value = Barriers.objectArrayRead(src, srcOffset.toInt() >> LOG_BYTES_IN_ADDRESS);
+        value = Barriers.objectArrayRead(src, srcOffset.toInt() >> LOG_BYTES_IN_REFERENCE);
       } else {
         value = Magic.getObjectAtOffset(src, srcOffset);
       }
       if (NEEDS_OBJECT_ASTORE_BARRIER) {
-        Barriers.objectArrayWrite(dst, dstOffset.toInt() >> LOG_BYTES_IN_ADDRESS, value);
+        Barriers.objectArrayWrite(dst, dstOffset.toInt() >> LOG_BYTES_IN_REFERENCE, value);
       } else {
         Magic.setObjectAtOffset(dst, dstOffset, value);
       }
@@ -18,6 +18,7 @@ import java.lang.annotation.Inherited;
 import org.jikesrvm.Callbacks;
 import org.jikesrvm.Constants;
 import org.jikesrvm.VM;
+import org.jikesrvm.compilers.common.BackgroundCompiler;
 import org.jikesrvm.compilers.common.CompiledMethod;
 import org.jikesrvm.compilers.opt.inlining.ClassLoadingDependencyManager;
 import org.jikesrvm.mm.mminterface.HandInlinedScanning;
@@ -230,7 +231,7 @@ public final class RVMClass extends RVMType implements Constants, ClassLoaderCon
   @Pure
   @Uninterruptible
   public int getMemoryBytes() {
-    return BYTES_IN_ADDRESS;
+    return BYTES_IN_REFERENCE;
   }
 
   /**
@@ -1534,6 +1535,7 @@ public final class RVMClass extends RVMType implements Constants, ClassLoaderCon
         classInitializerMethod.compile();
         cm = classInitializerMethod.getCurrentCompiledMethod();
       }
+      BackgroundCompiler.predictCallees(classInitializerMethod);
 
       if (VM.verboseClassLoading) VM.sysWrite("[Running static initializer for " + this + "]\n");
 
@@ -1733,6 +1735,7 @@ public final class RVMClass extends RVMType implements Constants, ClassLoaderCon
   private static RVMClass[] interfaces;
   private int interfaceId = -1;
   RVMMethod[] noIMTConflictMap; // used by InterfaceInvocation to support resetTIB
+  int imtConflictSlots; // bit per IMT slot holding a conflict resolution stub, used by InterfaceInvocation
 
   /**
    * Classes used as Interfaces get assigned an interface id.
@@ -13,7 +13,7 @@
 package org.jikesrvm.classloader;
 
 import org.jikesrvm.VM;
-import static org.jikesrvm.SizeConstants.BYTES_IN_ADDRESS;
+import static org.jikesrvm.SizeConstants.BYTES_IN_REFERENCE;
 
 import org.jikesrvm.runtime.ReflectionBase;
 import org.jikesrvm.util.ImmutableEntryHashSetRVM;
@@ -133,6 +133,7 @@ public final class TypeReference {
   public static final TypeReference JavaIoSerializable = findOrCreate(java.io.Serializable.class);
   public static final TypeReference JavaLangRefReference = findOrCreate(java.lang.ref.Reference.class);
   public static final TypeReference JavaLangSystem = findOrCreate(java.lang.System.class);
+  public static final TypeReference SunMiscUnsafe = findOrCreate("Lsun/misc/Unsafe;");
 
   public static final TypeReference JavaLangObjectArray = findOrCreate(java.lang.Object[].class);
 
@@ -228,7 +229,7 @@ public final class TypeReference {
    * @throws IllegalArgumentException Needs to throw some kind of error in
    *  the case of a Atom that does not represent a type name.
    */
-  public static synchronized TypeReference findOrCreate(ClassLoader cl, Atom tn) throws IllegalArgumentException {
+  public static TypeReference findOrCreate(ClassLoader cl, Atom tn) throws IllegalArgumentException {
     TypeDescriptorParsing.validateAsTypeDescriptor(tn);
     // Primitives, arrays of primitives, system classes and arrays of system
     // classes must use the bootstrap classloader.  Force that here so we don't
@@ -313,11 +314,27 @@ public final class TypeReference {
   /**
    * Find or create the canonical TypeReference instance for
    * the given pair without type descriptor parsing.
+   * <p>
+   * The dictionary has immutable entries, so an existing reference is
+   * found without locking; only creation of a new one is synchronized.
    *
    * @param cl the classloader (defining/initiating depending on usage)
    * @param tn the name of the type
    */
-  public static synchronized TypeReference findOrCreateInternal(ClassLoader cl, Atom tn) {
+  public static TypeReference findOrCreateInternal(ClassLoader cl, Atom tn) {
+    TypeReference val = dictionary.get(new TypeReference(cl, tn, 0));
+    if (val != null) return val;
+    return create(cl, tn);
+  }
+
+  /**
+   * Create the canonical TypeReference instance for the given pair,
+   * unless another thread got there first.
+   *
+   * @param cl the classloader (defining/initiating depending on usage)
+   * @param tn the name of the type
+   */
+  private static synchronized TypeReference create(ClassLoader cl, Atom tn) {
     // Next actually findOrCreate the type reference using the proper classloader.
     TypeReference key = new TypeReference(cl, tn, nextId);
     TypeReference val = dictionary.get(key);
@@ -611,7 +628,7 @@ public final class TypeReference {
       return type.getMemoryBytes();
     } else {
       // anything remaining must be a reference
-      return BYTES_IN_ADDRESS;
+      return BYTES_IN_REFERENCE;
     }
   }
 
@@ -782,6 +799,14 @@ public final class TypeReference {
    *        This stinks. XXX)
    */
   public RVMType resolve() throws NoClassDefFoundError, IllegalArgumentException {
+    /*
+    * The bootstrap class loader locks each class name while loading it and
+    * always hands back the one type it defined, so class types it loads need
+    * no further locking here.  This lets several threads load classes at once.
+    */
+    if (isClassType() && classloader == BootstrapClassLoader.getBootstrapClassLoader()) {
+      return resolveInternal();
+    }
     /*
     * Lock the classloader instead of this to avoid conflicting locking order.
     * Suppose we locked this, then one thread could call resolve(), locking this,
@@ -0,0 +1,250 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.compilers.baseline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jikesrvm.Callbacks;
+import org.jikesrvm.VM;
+import org.jikesrvm.classloader.InterfaceInvocation;
+import org.jikesrvm.classloader.InterfaceMethodSignature;
+import org.jikesrvm.classloader.MemberReference;
+import org.jikesrvm.classloader.MethodReference;
+import org.jikesrvm.classloader.RVMClass;
+import org.jikesrvm.classloader.RVMMethod;
+import org.jikesrvm.classloader.RVMType;
+import org.jikesrvm.classloader.TypeReference;
+import org.jikesrvm.objectmodel.ObjectModel;
+import org.jikesrvm.objectmodel.TIB;
+import org.jikesrvm.runtime.Magic;
+import org.vmmagic.pragma.Entrypoint;
+import org.vmmagic.unboxed.Word;
+import org.vmmagic.unboxed.WordArray;
+
+/**
+ * A repository of inline caches for the invokeinterface call sites of
+ * baseline compiled code.  Each call site has {@link #ENTRIES} entries,
+ * each caching the TIB of a receiver class and the offset in that TIB of
+ * the virtual method implementing the interface method.  The compiled
+ * code compares the TIB of the receiver with the cached TIBs and on a hit
+ * calls through the virtual method table, so avoiding the IMT and any
+ * conflict resolution stub in it.  On a miss it calls {@link #cacheMiss}
+ * and then dispatches through the IMT.  A site whose entries are all
+ * taken is marked megamorphic and left to the IMT.<p>
+ *
+ * The caches are patched in data rather than in code, so that they can be
+ * updated safely while other processors run the call site.  TIBs are
+ * never moved or collected, so their addresses can be kept in a
+ * {@link WordArray}.
+ */
+public final class InterfaceInlineCaches implements Callbacks.ExitMonitor {
+  /** Number of receiver classes cached at each call site */
+  public static final int ENTRIES = 2;
+
+  /** Number of call sites to allocate space for initially */
+  private static final int INITIAL_SITES = 512;
+
+  /** Lock for allocating call sites and updating their entries */
+  private static final Object lock = new Object();
+
+  /**
+   * TIB addresses of the cached receiver classes, {@link #ENTRIES} per call
+   * site. Zero marks an empty entry.
+   */
+  @Entrypoint
+  private static WordArray tibs;
+
+  /**
+   * TIB offsets of the methods to call for the cached receiver classes,
+   * indexed as {@link #tibs}
+   */
+  @Entrypoint
+  private static int[] offsets;
+
+  /** For each call site, whether it has seen more receiver classes than it can cache */
+  @Entrypoint
+  private static int[] megamorphic;
+
+  /** For each call site, the number of calls that hit its cache (when counting statistics) */
+  @Entrypoint
+  private static int[] hits;
+
+  /** For each call site, the id of the interface method it calls */
+  private static int[] methods;
+
+  /** For each call site, the number of calls that missed its cache (when counting statistics) */
+  private static int[] misses;
+
+  /** For each call site, the number of calls made after it became megamorphic (when counting statistics) */
+  private static int[] megamorphicCalls;
+
+  /** For each call site, the number of calls that went through an IMT conflict stub (when counting statistics) */
+  private static int[] conflictCalls;
+
+  /** Number of call sites allocated */
+  private static int numSites;
+
+  /** Have we registered the exit call back yet? */
+  private static boolean registered = false;
+
+  public void notifyExit(int value) { report(); }
+
+  /**
+   * Allocate the inline cache of a new invokeinterface call site.
+   *
+   * @param methodRef the interface method called by the call site
+   * @return the index of the call site
+   */
+  public static int allocateSite(MethodReference methodRef) {
+    synchronized (lock) {
+      if (VM.runningVM && !registered && BaselineCompiler.options.INTERFACE_INLINE_CACHE_STATISTICS) {
+        registered = true;
+        Callbacks.addExitMonitor(new InterfaceInlineCaches());
+      }
+      if (methods == null) {
+        grow(INITIAL_SITES);
+      } else if (numSites == methods.length) {
+        grow(numSites * 2);
+      }
+      int site = numSites++;
+      methods[site] = methodRef.getId();
+      return site;
+    }
+  }
+
+  /**
+   * Grow the arrays to hold the given number of call sites.  The compiled
+   * code reads a TIB before the corresponding offset, so the TIBs are
+   * published last.
+   */
+  private static void grow(int sites) {
+    WordArray newTibs = WordArray.create(sites * ENTRIES);
+    int[] newOffsets = new int[sites * ENTRIES];
+    int[] newMegamorphic = new int[sites];
+    int[] newHits = new int[sites];
+    int[] newMethods = new int[sites];
+    int[] newMisses = new int[sites];
+    int[] newMegamorphicCalls = new int[sites];
+    int[] newConflictCalls = new int[sites];
+    if (methods != null) {
+      for (int i = 0; i < numSites * ENTRIES; i++) {
+        newTibs.set(i, tibs.get(i));
+      }
+      System.arraycopy(offsets, 0, newOffsets, 0, numSites * ENTRIES);
+      System.arraycopy(megamorphic, 0, newMegamorphic, 0, numSites);
+      System.arraycopy(hits, 0, newHits, 0, numSites);
+      System.arraycopy(methods, 0, newMethods, 0, numSites);
+      System.arraycopy(misses, 0, newMisses, 0, numSites);
+      System.arraycopy(megamorphicCalls, 0, newMegamorphicCalls, 0, numSites);
+      System.arraycopy(conflictCalls, 0, newConflictCalls, 0, numSites);
+    }
+    methods = newMethods;
+    misses = newMisses;
+    megamorphicCalls = newMegamorphicCalls;
+    conflictCalls = newConflictCalls;
+    offsets = newOffsets;
+    megamorphic = newMegamorphic;
+    hits = newHits;
+    Magic.sync();
+    tibs = newTibs;
+  }
+
+  /**
+   * Called by compiled code when the receiver of an invokeinterface call
+   * site is not in the site's cache, before it dispatches through the IMT.
+   * Adds the receiver's class to the cache if there is an empty entry and
+   * otherwise marks the site megamorphic.
+   *
+   * @param target the receiver of the call
+   * @param site the index of the call site
+   */
+  @Entrypoint
+  static void cacheMiss(Object target, int site) {
+    TIB tib = ObjectModel.getTIB(target);
+    RVMType type = tib.getType();
+    MethodReference methodRef = MemberReference.getMemberRef(methods[site]).asMethodReference();
+    if (BaselineCompiler.options.INTERFACE_INLINE_CACHE_STATISTICS) {
+      if (megamorphic[site] != 0) {
+        megamorphicCalls[site]++;
+      } else {
+        misses[site]++;
+      }
+      if (type.isClassType() &&
+          InterfaceInvocation.isIMTConflict(type.asClass(), InterfaceMethodSignature.findOrCreate(methodRef))) {
+        conflictCalls[site]++;
+      }
+    }
+    if (megamorphic[site] != 0 || !type.isClassType()) return;
+
+    RVMClass klass = type.asClass();
+    RVMMethod found = klass.findVirtualMethod(methodRef.getName(), methodRef.getDescriptor());
+    if (found == null || found.isAbstract() || !found.isPublic()) {
+      return; // leave the error to the IMT dispatch
+    }
+    Word tibWord = Magic.objectAsAddress(Magic.tibAsObject(tib)).toWord();
+    synchronized (lock) {
+      int first = site * ENTRIES;
+      for (int i = first; i < first + ENTRIES; i++) {
+        Word cached = tibs.get(i);
+        if (cached.EQ(tibWord)) {
+          return; // added by another thread
+        }
+        if (cached.isZero()) {
+          offsets[i] = found.getOffset().toInt();
+          Magic.writeFloor();
+          tibs.set(i, tibWord);
+          return;
+        }
+      }
+      megamorphic[site] = 1;
+    }
+  }
+
+  /**
+   * Report the calls through the inline caches for each interface, with
+   * the number of calls that went through IMT conflict resolution stubs.
+   */
+  public static void report() {
+    Map<TypeReference, long[]> counts = new LinkedHashMap<TypeReference, long[]>();
+    int sites;
+    synchronized (lock) {
+      sites = numSites;
+    }
+    for (int site = 0; site < sites; site++) {
+      TypeReference iface = MemberReference.getMemberRef(methods[site]).getType();
+      long[] c = counts.get(iface);
+      if (c == null) {
+        c = new long[6];
+        counts.put(iface, c);
+      }
+      c[0]++;
+      c[1] += hits[site];
+      c[2] += misses[site];
+      c[3] += megamorphicCalls[site];
+      c[4] += conflictCalls[site];
+      if (megamorphic[site] != 0) c[5]++;
+    }
+    VM.sysWriteln("Interface inline caches: interface, sites, megamorphic sites, hits, misses, megamorphic calls, conflict stub calls");
+    for (Map.Entry<TypeReference, long[]> e : counts.entrySet()) {
+      long[] c = e.getValue();
+      if (c[1] + c[2] + c[3] == 0) continue;
+      VM.sysWrite(e.getKey().getName());
+      VM.sysWrite(" ", c[0]);
+      VM.sysWrite(" ", c[5]);
+      VM.sysWrite(" ", c[1]);
+      VM.sysWrite(" ", c[2]);
+      VM.sysWrite(" ", c[3]);
+      VM.sysWriteln(" ", c[4]);
+    }
+  }
+}
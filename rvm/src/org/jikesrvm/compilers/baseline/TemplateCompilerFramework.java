@@ -1451,7 +1451,7 @@ public abstract class TemplateCompilerFramework
 
           MethodReference methodRef = bcodes.getMethodReference();
           if (shouldPrint) asm.noteBytecode(biStart, "invokevirtual", methodRef);
-          if (methodRef.getType().isMagicType()) {
+          if (methodRef.getType().isMagicType() || methodRef.isUnsafe()) {
             if (emit_Magic(methodRef)) {
               break;
             }
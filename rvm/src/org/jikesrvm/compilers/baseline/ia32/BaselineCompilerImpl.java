@@ -34,6 +34,7 @@ import org.jikesrvm.classloader.TypeReference;
 import org.jikesrvm.compilers.baseline.BaselineCompiledMethod;
 import org.jikesrvm.compilers.baseline.BaselineCompiler;
 import org.jikesrvm.compilers.baseline.EdgeCounts;
+import org.jikesrvm.compilers.baseline.InterfaceInlineCaches;
 import org.jikesrvm.compilers.common.CompiledMethod;
 import org.jikesrvm.compilers.common.assembler.ForwardReference;
 import org.jikesrvm.compilers.common.assembler.ia32.Assembler;
@@ -3286,6 +3287,10 @@ public abstract class BaselineCompilerImpl extends BaselineCompiler implements B
     // (2) Emit interface invocation sequence.
     if (VM.BuildForIMTInterfaceInvocation) {
       InterfaceMethodSignature sig = InterfaceMethodSignature.findOrCreate(methodRef);
+      ForwardReference cachedCallDone = null;
+      if (options.INTERFACE_INLINE_CACHES) {
+        cachedCallDone = genInterfaceInlineCache(methodRef, count);
+      }
 
       // squirrel away signature ID
       ThreadLocalState.emitMoveImmToField(asm, ArchEntrypoints.hiddenSignatureIdField.getOffset(), sig.getId());
@@ -3300,6 +3305,9 @@ public abstract class BaselineCompilerImpl extends BaselineCompiler implements B
       }
       genParameterRegisterLoad(methodRef, true);
       asm.emitCALL_RegDisp(S0, sig.getIMTOffset()); // the interface call
+      if (cachedCallDone != null) {
+        cachedCallDone.resolve(asm);
+      }
     } else {
       int itableIndex = -1;
       if (VM.BuildForITableInterfaceInvocation && resolvedMethod != null) {
@@ -3355,6 +3363,98 @@ public abstract class BaselineCompilerImpl extends BaselineCompiler implements B
     genResultRegisterUnload(methodRef);
   }
 
+  /**
+   * Emit the inline cache check of an invokeinterface call site. If the
+   * class of the receiver is cached (see {@link InterfaceInlineCaches})
+   * the cached virtual method is called directly; otherwise the code falls
+   * through to the IMT dispatch, first telling the cache of the miss
+   * unless the site is megamorphic.
+   *
+   * @param methodRef the referenced method
+   * @param count number of stack words of the parameters, including "this"
+   * @return the forward reference from the end of the cached call, to be
+   * resolved after the IMT dispatch
+   */
+  private ForwardReference genInterfaceInlineCache(MethodReference methodRef, int count) {
+    int site = InterfaceInlineCaches.allocateSite(methodRef);
+    boolean countStatistics = options.INTERFACE_INLINE_CACHE_STATISTICS;
+    int first = site * InterfaceInlineCaches.ENTRIES;
+
+    // T1 = "this" object, S0 = its TIB, S1 = cached TIBs
+    stackMoveHelper(T1, Offset.fromIntZeroExtend((count - 1) << LG_WORDSIZE));
+    baselineEmitLoadTIB(asm, S0, T1);
+    genLoadStaticArray(S1, Entrypoints.interfaceInlineCacheTibsField);
+    ForwardReference[] hit = new ForwardReference[InterfaceInlineCaches.ENTRIES];
+    for (int i = 0; i < hit.length; i++) {
+      Offset entry = Offset.fromIntZeroExtend((first + i) << LG_WORDSIZE);
+      if (VM.BuildFor32Addr) {
+        asm.emitCMP_Reg_RegDisp(S0, S1, entry);
+      } else {
+        asm.emitCMP_Reg_RegDisp_Quad(S0, S1, entry);
+      }
+      hit[i] = asm.forwardJcc(Assembler.EQ);
+    }
+
+    // miss: unless counting, only tell the cache when it may still take the class
+    ForwardReference megamorphic = null;
+    if (!countStatistics) {
+      genLoadStaticArray(S1, Entrypoints.interfaceInlineCacheMegamorphicField);
+      asm.emitCMP_RegDisp_Imm(S1, Offset.fromIntZeroExtend(site << LOG_BYTES_IN_INT), 0);
+      megamorphic = asm.forwardJcc(Assembler.NE);
+    }
+    asm.emitPUSH_Reg(T1);       // push "this"
+    asm.emitPUSH_Imm(site);     // push call site index
+    genParameterRegisterLoad(asm, 2);
+    asm.emitCALL_Abs(Magic.getTocPointer().plus(Entrypoints.interfaceInlineCacheMissMethod.getOffset()));
+    ForwardReference imtDispatch = asm.forwardJMP();
+
+    // hit: S1 = offset of the cached method in the TIB
+    ForwardReference[] cachedCall = new ForwardReference[hit.length - 1];
+    for (int i = 0; i < hit.length; i++) {
+      hit[i].resolve(asm);
+      genLoadStaticArray(S1, Entrypoints.interfaceInlineCacheOffsetsField);
+      asm.emitMOV_Reg_RegDisp(S1, S1, Offset.fromIntZeroExtend((first + i) << LOG_BYTES_IN_INT));
+      if (i < cachedCall.length) {
+        cachedCall[i] = asm.forwardJMP();
+      }
+    }
+    for (ForwardReference fr : cachedCall) {
+      fr.resolve(asm);
+    }
+    if (countStatistics) {
+      genLoadStaticArray(T0, Entrypoints.interfaceInlineCacheHitsField);
+      asm.emitINC_RegDisp(T0, Offset.fromIntZeroExtend(site << LOG_BYTES_IN_INT));
+    }
+    // S0 has address of cached method
+    if (VM.BuildFor32Addr) {
+      asm.emitMOV_Reg_RegIdx(S0, S0, S1, Assembler.BYTE, NO_SLOT);
+    } else {
+      asm.emitMOV_Reg_RegIdx_Quad(S0, S0, S1, Assembler.BYTE, NO_SLOT);
+    }
+    genParameterRegisterLoad(methodRef, true);
+    asm.emitCALL_Reg(S0);
+    ForwardReference done = asm.forwardJMP();
+
+    if (megamorphic != null) {
+      megamorphic.resolve(asm);
+    }
+    imtDispatch.resolve(asm);
+    return done;
+  }
+
+  /**
+   * Emit code to load a static field holding an array into a register
+   * @param reg the register to load
+   * @param field the static field
+   */
+  private void genLoadStaticArray(GPR reg, RVMField field) {
+    if (VM.BuildFor32Addr) {
+      asm.emitMOV_Reg_Abs(reg, Magic.getTocPointer().plus(field.getOffset()));
+    } else {
+      asm.emitMOV_Reg_Abs_Quad(reg, Magic.getTocPointer().plus(field.getOffset()));
+    }
+  }
+
   /*
    * other object model functions
    */
@@ -3497,10 +3597,28 @@ public abstract class BaselineCompilerImpl extends BaselineCompiler implements B
    */
   @Override
   protected final void emit_checkcast(TypeReference typeRef) {
+    ForwardReference isNull = null;
+    ForwardReference cacheHit = null;
+    RVMType type = typeRef.peekType();
+    if (useSecondarySuperCache(type)) {
+      if (VM.BuildFor32Addr) {
+        asm.emitMOV_Reg_RegInd(S0, SP);      // load object from stack
+        asm.emitTEST_Reg_Reg(S0, S0);        // test for null
+      } else {
+        asm.emitMOV_Reg_RegInd_Quad(S0, SP); // load object from stack
+        asm.emitTEST_Reg_Reg_Quad(S0, S0);   // test for null
+      }
+      isNull = asm.forwardJcc(Assembler.EQ);
+      cacheHit = genSecondarySuperCacheTest(type);
+    }
     asm.emitPUSH_RegInd(SP);                        // duplicate the object ref on the stack
     asm.emitPUSH_Imm(typeRef.getId());               // TypeReference id.
     genParameterRegisterLoad(asm, 2);                     // pass 2 parameter words
     asm.emitCALL_Abs(Magic.getTocPointer().plus(Entrypoints.checkcastMethod.getOffset())); // checkcast(obj, type reference id);
+    if (cacheHit != null) {
+      cacheHit.resolve(asm);
+      isNull.resolve(asm);
+    }
   }
 
   /**
@@ -3633,10 +3751,64 @@ public abstract class BaselineCompilerImpl extends BaselineCompiler implements B
    */
   @Override
   protected final void emit_instanceof(TypeReference typeRef) {
+    ForwardReference done = null;
+    RVMType type = typeRef.peekType();
+    if (useSecondarySuperCache(type)) {
+      if (VM.BuildFor32Addr) {
+        asm.emitMOV_Reg_RegInd(S0, SP);      // load object from stack
+        asm.emitTEST_Reg_Reg(S0, S0);        // test for null
+      } else {
+        asm.emitMOV_Reg_RegInd_Quad(S0, SP); // load object from stack
+        asm.emitTEST_Reg_Reg_Quad(S0, S0);   // test for null
+      }
+      ForwardReference isNull = asm.forwardJcc(Assembler.EQ);
+      ForwardReference cacheHit = genSecondarySuperCacheTest(type);
+      isNull.resolve(asm);
+      ForwardReference cacheMiss = asm.forwardJMP();
+      cacheHit.resolve(asm);
+      asm.emitPOP_Reg(S0);                   // discard object
+      asm.emitPUSH_Imm(1);
+      done = asm.forwardJMP();
+      cacheMiss.resolve(asm);
+    }
     asm.emitPUSH_Imm(typeRef.getId());
     genParameterRegisterLoad(asm, 2);          // pass 2 parameter words
     asm.emitCALL_Abs(Magic.getTocPointer().plus(Entrypoints.instanceOfMethod.getOffset()));
     asm.emitPUSH_Reg(T0);
+    if (done != null) {
+      done.resolve(asm);
+    }
+  }
+
+  /**
+   * Should a type check against the given type, which is not done inline,
+   * first test the secondary super cache of the object's TIB?
+   * @param type the LHS type, or null if not yet loaded
+   * @return whether to emit the cache test
+   */
+  private static boolean useSecondarySuperCache(RVMType type) {
+    // when counting, leave the cache test to the runtime
+    return !VM.countSecondarySuperCache && type != null && type.isArrayType() && type.isInstantiated();
+  }
+
+  /**
+   * Emit code to test whether the secondary super cache of the TIB of the
+   * non-null object in S0 holds the TIB of the given type
+   * (see {@link org.jikesrvm.classloader.DynamicTypeCheck}).
+   * Clobbers S0.
+   * @param type the LHS type, which must be instantiated
+   * @return a forward reference taken if the cache holds the type
+   */
+  private ForwardReference genSecondarySuperCacheTest(RVMType type) {
+    baselineEmitLoadTIB(asm, S0, S0);                           // TIB of object
+    if (VM.BuildFor32Addr) {
+      asm.emitMOV_Reg_RegDisp(S0, S0, Offset.fromIntZeroExtend(TIB_SECONDARY_SUPER_CACHE_INDEX << LG_WORDSIZE));
+      asm.emitCMP_Reg_Abs(S0, Magic.getTocPointer().plus(type.getTibOffset()));
+    } else {
+      asm.emitMOV_Reg_RegDisp_Quad(S0, S0, Offset.fromIntZeroExtend(TIB_SECONDARY_SUPER_CACHE_INDEX << LG_WORDSIZE));
+      asm.emitCMP_Reg_Abs_Quad(S0, Magic.getTocPointer().plus(type.getTibOffset()));
+    }
+    return asm.forwardJcc(Assembler.EQ);
   }
 
   /**
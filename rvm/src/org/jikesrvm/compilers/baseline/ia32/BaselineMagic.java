@@ -889,6 +889,108 @@ final class BaselineMagic {
     generators.put(getMethodReference(Magic.class, MagicNames.setDoubleAtOffset, Object.class, Offset.class, double.class, int.class, void.class), g);
   }
 
+  /**
+   * Get a reference to a method of sun.misc.Unsafe. These are created by
+   * descriptor, as the host's Unsafe differs from the one in the boot image.
+   * @param name method name
+   * @param descriptor method descriptor
+   * @return the method reference
+   */
+  private static MethodReference getUnsafeMethodReference(Atom name, String descriptor) {
+    return MethodReference.findOrCreate(TypeReference.SunMiscUnsafe, name, Atom.findOrCreateAsciiAtom(descriptor));
+  }
+
+  /**
+   * Load a quantity from the long address taken by a sun.misc.Unsafe
+   * accessor, discarding the Unsafe instance
+   */
+  private static final class Unsafe_Load extends MagicGenerator {
+    @Override
+    void generateMagic(Assembler asm, MethodReference m, RVMMethod cm, Offset sd) {
+      asm.emitPOP_Reg(T0);                    // address (low half on 32bit)
+      asm.emitPOP_Reg(S0);                    // throw away slot
+      asm.emitPOP_Reg(S0);                    // throw away Unsafe instance
+      TypeReference type = m.getReturnType();
+      if (type.isByteType()) {
+        asm.emitMOVSX_Reg_RegInd_Byte(T0, T0);
+        asm.emitPUSH_Reg(T0);
+      } else if (type.isShortType()) {
+        asm.emitMOVSX_Reg_RegInd_Word(T0, T0);
+        asm.emitPUSH_Reg(T0);
+      } else if (type.isCharType()) {
+        asm.emitMOVZX_Reg_RegInd_Word(T0, T0);
+        asm.emitPUSH_Reg(T0);
+      } else if (type.getStackWords() == 1) {
+        asm.emitPUSH_RegInd(T0);              // pushes [T0]
+      } else if (VM.BuildFor32Addr) {
+        asm.emitPUSH_RegDisp(T0, ONE_SLOT);   // pushes [T0+4]
+        asm.emitPUSH_RegInd(T0);              // pushes [T0]
+      } else {
+        asm.emitPUSH_Reg(T0);                 // create space
+        asm.emitPUSH_RegInd(T0);              // pushes [T0]
+      }
+    }
+  }
+  static {
+    MagicGenerator g = new Unsafe_Load();
+    generators.put(getUnsafeMethodReference(MagicNames.unsafeGetByte, "(J)B"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafeGetShort, "(J)S"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafeGetChar, "(J)C"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafeGetInt, "(J)I"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafeGetFloat, "(J)F"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafeGetLong, "(J)J"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafeGetDouble, "(J)D"), g);
+  }
+
+  /**
+   * Store a quantity to the long address taken by a sun.misc.Unsafe
+   * accessor, discarding the Unsafe instance
+   */
+  private static final class Unsafe_Store extends MagicGenerator {
+    @Override
+    void generateMagic(Assembler asm, MethodReference m, RVMMethod cm, Offset sd) {
+      TypeReference type = m.getParameterTypes()[1];
+      if (type.getStackWords() == 1) {
+        asm.emitPOP_Reg(T0);                       // value
+        asm.emitPOP_Reg(S0);                       // address (low half on 32bit)
+        asm.emitPOP_Reg(T1);                       // throw away slot
+        asm.emitPOP_Reg(T1);                       // throw away Unsafe instance
+        if (type.isByteType() || type.isBooleanType()) {
+          asm.emitMOV_RegInd_Reg_Byte(S0, T0);     // [S0] <- (byte) T0
+        } else if (type.isShortType() || type.isCharType()) {
+          asm.emitMOV_RegInd_Reg_Word(S0, T0);     // [S0] <- (short) T0
+        } else {
+          asm.emitMOV_RegInd_Reg(S0, T0);          // [S0] <- T0
+        }
+      } else if (VM.BuildFor32Addr) {
+        asm.emitPOP_Reg(T0);                       // value low
+        asm.emitPOP_Reg(T1);                       // value high
+        asm.emitPOP_Reg(S0);                       // address low
+        asm.emitMOV_RegInd_Reg(S0, T0);            // [S0] <- value low
+        asm.emitMOV_RegDisp_Reg(S0, ONE_SLOT, T1); // [S0+4] <- value high
+        asm.emitPOP_Reg(T0);                       // throw away slot
+        asm.emitPOP_Reg(T0);                       // throw away Unsafe instance
+      } else {
+        asm.emitPOP_Reg(T0);                       // value
+        asm.emitPOP_Reg(T1);                       // throw away slot
+        asm.emitPOP_Reg(S0);                       // address
+        asm.emitMOV_RegInd_Reg_Quad(S0, T0);       // [S0] <- value
+        asm.emitPOP_Reg(T0);                       // throw away slot
+        asm.emitPOP_Reg(T0);                       // throw away Unsafe instance
+      }
+    }
+  }
+  static {
+    MagicGenerator g = new Unsafe_Store();
+    generators.put(getUnsafeMethodReference(MagicNames.unsafePutByte, "(JB)V"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafePutShort, "(JS)V"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafePutChar, "(JC)V"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafePutInt, "(JI)V"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafePutFloat, "(JF)V"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafePutLong, "(JJ)V"), g);
+    generators.put(getUnsafeMethodReference(MagicNames.unsafePutDouble, "(JD)V"), g);
+  }
+
   /**
    * Compare and swap a 32bit value
    */
@@ -2198,6 +2300,99 @@ final class BaselineMagic {
     generators.put(getMethodReference(Magic.class, MagicNames.sqrt, double.class, double.class), g);
   }
 
+  /**
+   * Copy 16 bytes through an XMM register
+   */
+  private static final class Copy16 extends MagicGenerator {
+    @Override
+    void generateMagic(Assembler asm, MethodReference m, RVMMethod cm, Offset sd) {
+      if (SSE2_BASE) {
+        asm.emitPOP_Reg(T0);                          // T0 = src
+        asm.emitPOP_Reg(S0);                          // S0 = dst
+        asm.emitMOVDQU_Reg_RegInd(XMM0, T0);          // XMM0 = [src]
+        asm.emitMOVDQU_RegInd_Reg(S0, XMM0);          // [dst] = XMM0
+      } else {
+        VM.sysFail("Vector copy only available for SSE2");
+      }
+    }
+  }
+  static {
+    MagicGenerator g = new Copy16();
+    generators.put(getMethodReference(Magic.class, MagicNames.copy16, Address.class, Address.class, void.class), g);
+  }
+
+  /**
+   * Zero 16 bytes through an XMM register
+   */
+  private static final class Zero16 extends MagicGenerator {
+    @Override
+    void generateMagic(Assembler asm, MethodReference m, RVMMethod cm, Offset sd) {
+      if (SSE2_BASE) {
+        asm.emitPOP_Reg(T0);                          // T0 = dst
+        asm.emitPXOR_Reg_Reg(XMM0, XMM0);             // XMM0 = 0
+        asm.emitMOVDQU_RegInd_Reg(T0, XMM0);          // [dst] = XMM0
+      } else {
+        VM.sysFail("Vector zero only available for SSE2");
+      }
+    }
+  }
+  static {
+    MagicGenerator g = new Zero16();
+    generators.put(getMethodReference(Magic.class, MagicNames.zero16, Address.class, void.class), g);
+  }
+
+  /**
+   * Compare 16 bytes at two addresses, producing a mask of the equal bytes
+   */
+  private static final class CompareBytes16 extends MagicGenerator {
+    @Override
+    void generateMagic(Assembler asm, MethodReference m, RVMMethod cm, Offset sd) {
+      if (SSE2_BASE) {
+        asm.emitPOP_Reg(T0);                          // T0 = b
+        asm.emitPOP_Reg(S0);                          // S0 = a
+        asm.emitMOVDQU_Reg_RegInd(XMM0, S0);          // XMM0 = [a]
+        asm.emitMOVDQU_Reg_RegInd(XMM1, T0);          // XMM1 = [b]
+        asm.emitPCMPEQB_Reg_Reg(XMM0, XMM1);          // 0xFF in each equal byte
+        asm.emitPMOVMSKB_Reg_Reg(T0, XMM0);           // T0 = top bit of each byte
+        asm.emitPUSH_Reg(T0);
+      } else {
+        VM.sysFail("Vector compare only available for SSE2");
+      }
+    }
+  }
+  static {
+    MagicGenerator g = new CompareBytes16();
+    generators.put(getMethodReference(Magic.class, MagicNames.compareBytes16, Address.class, Address.class, int.class), g);
+  }
+
+  /**
+   * Compare 8 chars at an address with a char, producing a mask of the
+   * matching chars
+   */
+  private static final class MatchChars16 extends MagicGenerator {
+    @Override
+    void generateMagic(Assembler asm, MethodReference m, RVMMethod cm, Offset sd) {
+      if (SSE2_BASE) {
+        asm.emitPOP_Reg(T0);                          // T0 = c
+        asm.emitPOP_Reg(S0);                          // S0 = a
+        asm.emitMOVD_Reg_Reg(XMM1, T0);               // c in the low word of XMM1
+        asm.emitPUNPCKLWD_Reg_Reg(XMM1, XMM1);        // ... in the low 2 words
+        asm.emitPUNPCKLDQ_Reg_Reg(XMM1, XMM1);        // ... in the low 4 words
+        asm.emitPUNPCKLQDQ_Reg_Reg(XMM1, XMM1);       // ... in all 8 words
+        asm.emitMOVDQU_Reg_RegInd(XMM0, S0);          // XMM0 = [a]
+        asm.emitPCMPEQW_Reg_Reg(XMM0, XMM1);          // 0xFFFF in each matching word
+        asm.emitPMOVMSKB_Reg_Reg(T0, XMM0);           // T0 = top bit of each byte
+        asm.emitPUSH_Reg(T0);
+      } else {
+        VM.sysFail("Vector match only available for SSE2");
+      }
+    }
+  }
+  static {
+    MagicGenerator g = new MatchChars16();
+    generators.put(getMethodReference(Magic.class, MagicNames.matchChars16, Address.class, int.class, int.class), g);
+  }
+
   /**
    * Return the current inlining depth (always 0 for baseline)
    */
@@ -4194,6 +4194,26 @@ public abstract class BaselineCompilerImpl extends BaselineCompiler
   //                             MAGIC
   //*************************************************************************
 
+  private static boolean isUnsafeGet(Atom methodName) {
+    return methodName == MagicNames.unsafeGetByte ||
+           methodName == MagicNames.unsafeGetShort ||
+           methodName == MagicNames.unsafeGetChar ||
+           methodName == MagicNames.unsafeGetInt ||
+           methodName == MagicNames.unsafeGetFloat ||
+           methodName == MagicNames.unsafeGetLong ||
+           methodName == MagicNames.unsafeGetDouble;
+  }
+
+  private static boolean isUnsafePut(Atom methodName) {
+    return methodName == MagicNames.unsafePutByte ||
+           methodName == MagicNames.unsafePutShort ||
+           methodName == MagicNames.unsafePutChar ||
+           methodName == MagicNames.unsafePutInt ||
+           methodName == MagicNames.unsafePutFloat ||
+           methodName == MagicNames.unsafePutLong ||
+           methodName == MagicNames.unsafePutDouble;
+  }
+
   /*
    *  Generate inline machine instructions for special methods that cannot be
    *  implemented in java bytecodes. These instructions are generated whenever
@@ -4325,6 +4345,61 @@ public abstract class BaselineCompilerImpl extends BaselineCompiler
       return true;
     }
 
+    if (methodToBeCalled.isUnsafe()) {
+      // sun.misc.Unsafe accessors of a long address take the form:
+      // ..., Unsafe, long, [Value] -> ..., [Value]
+      // other methods of Unsafe are called
+
+      TypeReference[] types = methodToBeCalled.getParameterTypes();
+
+      if (types.length == 1 && types[0].isLongType() && isUnsafeGet(methodName)) {
+        TypeReference type = methodToBeCalled.getReturnType();
+        popLong(T1, T0);                // pop address, low half in T0 on 32bit
+        discardSlot();                  // discard Unsafe instance
+        if (type.isByteType()) {
+          asm.emitLBZ(T0, 0, T0);       // load with zero extension.
+          asm.emitEXTSB(T0, T0);        // sign extend
+          pushInt(T0);                  // push *(address)
+        } else if (type.isShortType()) {
+          asm.emitLHA(T0, 0, T0);       // load with sign extension.
+          pushInt(T0);                  // push *(address)
+        } else if (type.isCharType()) {
+          asm.emitLHZ(T0, 0, T0);       // load with zero extension.
+          pushInt(T0);                  // push *(address)
+        } else if (type.getStackWords() == 1) {
+          asm.emitLInt(T0, 0, T0);      // *(address)
+          pushInt(T0);                  // push *(address)
+        } else {
+          asm.emitLFD(F0, 0, T0);       // *(address)
+          pushDouble(F0);               // push *(address)
+        }
+        return true;
+      }
+
+      if (types.length == 2 && types[0].isLongType() && isUnsafePut(methodName)) {
+        TypeReference type = types[1];
+        if (type.getStackWords() == 1) {
+          popInt(T2);                   // pop newvalue
+          popLong(T1, T0);              // pop address, low half in T0 on 32bit
+          discardSlot();                // discard Unsafe instance
+          if (type.isByteType()) {
+            asm.emitSTBX(T2, 0, T0);    // *(address) = newvalue
+          } else if (type.isShortType() || type.isCharType()) {
+            asm.emitSTHX(T2, 0, T0);    // *(address) = newvalue
+          } else {
+            asm.emitSTWX(T2, 0, T0);    // *(address) = newvalue
+          }
+        } else {
+          popDouble(F0);                // pop newvalue
+          popLong(T1, T0);              // pop address, low half in T0 on 32bit
+          discardSlot();                // discard Unsafe instance
+          asm.emitSTFD(F0, 0, T0);      // *(address) = newvalue
+        }
+        return true;
+      }
+      return false;
+    }
+
     if (methodToBeCalled.getType() == TypeReference.Address) {
       // Address.xyz magic
 
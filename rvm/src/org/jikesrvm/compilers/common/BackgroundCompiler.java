@@ -0,0 +1,233 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.compilers.common;
+
+import org.jikesrvm.Callbacks;
+import org.jikesrvm.VM;
+import org.jikesrvm.adaptive.controller.Controller;
+import org.jikesrvm.classloader.BytecodeConstants;
+import org.jikesrvm.classloader.BytecodeStream;
+import org.jikesrvm.classloader.NormalMethod;
+import org.jikesrvm.classloader.RVMClass;
+import org.jikesrvm.classloader.RVMMethod;
+import org.jikesrvm.runtime.Time;
+import org.jikesrvm.scheduler.SystemThread;
+import org.jikesrvm.util.HashSetRVM;
+import org.jikesrvm.util.LinkedListRVM;
+import org.vmmagic.pragma.NonMoving;
+
+/**
+ * Compiles methods that are likely to be called soon on a thread of its
+ * own, so that fewer of the methods run as a program starts are compiled
+ * on the thread first calling them.  Enabled with
+ * <code>-X:vm:backgroundCompile=true</code>.<p>
+ *
+ * The methods predicted are those a method about to run may call: the
+ * methods invoked by a class initializer once it is compiled, and by a
+ * method called for the first time through the lazy method invoker.  Only
+ * methods of classes already resolved are predicted, so predicting loads
+ * no classes, and methods compiled here predict nothing further.  The
+ * thread takes the methods queued in batches of
+ * <code>-X:vm:backgroundCompileBatch</code>, compiling each and installing
+ * its code in the JTOC or TIBs, so that the first call reaches it
+ * directly.<p>
+ *
+ * With <code>-X:vm:measureCompilation=true</code> the compile times of the
+ * thread and the latency of first calls through the lazy method invoker
+ * are reported at exit.
+ */
+@NonMoving
+public final class BackgroundCompiler extends SystemThread implements BytecodeConstants {
+
+  /** Are predicted methods being compiled in the background? */
+  private static boolean enabled;
+
+  /** Methods predicted but not yet taken by the thread */
+  private static final LinkedListRVM<NormalMethod> queue = new LinkedListRVM<NormalMethod>();
+
+  /** Methods ever queued, so that each is queued once */
+  private static final HashSetRVM<NormalMethod> queued = new HashSetRVM<NormalMethod>();
+
+  /** Lock of the queue */
+  private static final Object lock = new Object();
+
+  /*
+   * Statistics, guarded by the lock
+   */
+  private static int numPredicted;
+  private static int numBatches;
+  private static int numCompiled;
+  private static long compileNanos;
+  private static long maxCompileNanos;
+  private static int numFirstCalls;
+  private static int numFirstCallsCompiled;
+  private static long firstCallNanos;
+  private static long maxFirstCallNanos;
+
+  private BackgroundCompiler() {
+    super("BackgroundCompiler");
+  }
+
+  /**
+   * Start the thread, if compiling in the background is enabled.  It is
+   * disabled when the adaptive system compiles methods with the optimizing
+   * compiler from the start, as the thread would then tie up the
+   * optimizing compiler with methods that may never run.
+   */
+  public static void boot() {
+    if (!VM.BackgroundCompile) return;
+    if (VM.BuildForAdaptiveSystem && Controller.options.optIRC()) {
+      if (VM.verboseBoot >= 1) VM.sysWriteln("BackgroundCompiler: disabled by the initial opt compiler");
+      return;
+    }
+    if (VM.MeasureCompilation) {
+      Callbacks.addExitMonitor(new Callbacks.ExitMonitor() {
+        public void notifyExit(int value) {
+          report();
+        }
+      });
+    }
+    new BackgroundCompiler().start();
+    enabled = true;
+  }
+
+  /**
+   * @return are predicted methods being compiled in the background?
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Queue the methods a method may call that aren't yet compiled.
+   *
+   * @param method the method about to run
+   */
+  public static void predictCallees(RVMMethod method) {
+    if (!enabled || !(method instanceof NormalMethod)) return;
+    BytecodeStream bcodes = ((NormalMethod) method).getBytecodes();
+    int predicted = 0;
+    while (bcodes.hasMoreBytecodes()) {
+      int opcode = bcodes.nextInstruction();
+      // invokeinterface is skipped: its target is the abstract method of the interface
+      if (opcode == JBC_invokestatic || opcode == JBC_invokespecial || opcode == JBC_invokevirtual) {
+        RVMMethod callee = bcodes.getMethodReference().peekResolvedMethod();
+        if (callee instanceof NormalMethod && !callee.isCompiled() &&
+            callee.getDeclaringClass().isResolved()) {
+          NormalMethod normalCallee = (NormalMethod) callee;
+          synchronized (lock) {
+            if (!queued.contains(normalCallee)) {
+              queued.add(normalCallee);
+              queue.add(normalCallee);
+              predicted++;
+            }
+          }
+        }
+      } else {
+        bcodes.skipInstruction();
+      }
+    }
+    if (predicted > 0) {
+      synchronized (lock) {
+        numPredicted += predicted;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Record the first call of a method through the lazy method invoker.
+   *
+   * @param compiled was the method compiled by the calling thread, rather
+   *   than found compiled in the background?
+   * @param nanos the time the calling thread took to compile the method
+   */
+  public static void recordFirstCall(boolean compiled, long nanos) {
+    synchronized (lock) {
+      numFirstCalls++;
+      if (compiled) {
+        numFirstCallsCompiled++;
+        firstCallNanos += nanos;
+        if (nanos > maxFirstCallNanos) maxFirstCallNanos = nanos;
+      }
+    }
+  }
+
+  /**
+   * Take the next batch of methods, waiting for them to be predicted if
+   * need be.
+   */
+  private static NormalMethod[] takeBatch() {
+    synchronized (lock) {
+      while (queue.isEmpty()) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          // try again
+        }
+      }
+      int n = Math.min(queue.size(), Math.max(VM.BackgroundCompileBatch, 1));
+      NormalMethod[] batch = new NormalMethod[n];
+      for (int i = 0; i < n; i++) {
+        batch[i] = queue.remove(0);
+      }
+      numBatches++;
+      return batch;
+    }
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      NormalMethod[] batch = takeBatch();
+      for (NormalMethod method : batch) {
+        if (method.isCompiled()) continue; // its first call beat us to it
+        long start = Time.nanoTime();
+        try {
+          method.compile();
+        } catch (Throwable e) {
+          // The first call will compile it and report the error
+          if (VM.verboseBoot >= 1) VM.sysWriteln("BackgroundCompiler: failed to compile ", method.toString());
+          continue;
+        }
+        long nanos = Time.nanoTime() - start;
+        RVMClass declaringClass = method.getDeclaringClass();
+        if (declaringClass.isInstantiated()) {
+          declaringClass.updateMethod(method);
+        }
+        synchronized (lock) {
+          numCompiled++;
+          compileNanos += nanos;
+          if (nanos > maxCompileNanos) maxCompileNanos = nanos;
+        }
+      }
+    }
+  }
+
+  /**
+   * Report the methods compiled in the background and the latency of
+   * first calls.
+   */
+  private static void report() {
+    synchronized (lock) {
+      VM.sysWriteln("BackgroundCompiler: methods predicted: ", numPredicted);
+      VM.sysWriteln("BackgroundCompiler: methods compiled: ", numCompiled, " in batches: ", numBatches);
+      VM.sysWrite("BackgroundCompiler: compile time: ", Time.nanosToMillis(compileNanos));
+      VM.sysWriteln(" ms, longest: ", Time.nanosToMillis(maxCompileNanos), " ms");
+      VM.sysWriteln("BackgroundCompiler: first calls: ", numFirstCalls, " finding the method compiled: ",
+                    numFirstCalls - numFirstCallsCompiled);
+      VM.sysWrite("BackgroundCompiler: first call compile time: ", Time.nanosToMillis(firstCallNanos));
+      VM.sysWriteln(" ms, longest: ", Time.nanosToMillis(maxFirstCallNanos), " ms");
+    }
+  }
+}
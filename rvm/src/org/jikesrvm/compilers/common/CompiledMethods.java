@@ -25,8 +25,10 @@ import org.jikesrvm.classloader.RVMType;
 import org.jikesrvm.compilers.baseline.BaselineCompiledMethod;
 import org.jikesrvm.compilers.opt.runtimesupport.OptCompiledMethod;
 import org.jikesrvm.jni.JNICompiledMethod;
+import org.jikesrvm.runtime.Entrypoints;
 import org.jikesrvm.runtime.Magic;
 import org.jikesrvm.runtime.Memory;
+import org.jikesrvm.scheduler.Synchronization;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.unboxed.Address;
 
@@ -47,11 +49,17 @@ public class CompiledMethods implements SizeConstants {
    * Java methods that have been compiled into machine code.
    * Note that there may be more than one compiled versions of the same method
    * (ie. at different levels of optimization).
+   * <p>
+   * Rows are only ever added, and a slot is only ever written by the thread
+   * that allocated its id (or cleared when snipping obsolete methods), so
+   * readers index it without locking.  A row may not yet exist for an id
+   * that has just been allocated.
    */
   private static CompiledMethod[][] compiledMethods = new CompiledMethod[16][1 << LOG_ROW_SIZE];
 
   /**
-   * Index of most recently allocated slot in compiledMethods[].
+   * Index of most recently allocated slot in compiledMethods[].  Updated
+   * atomically.
    */
   private static int currentCompiledMethodId = 0;
 
@@ -62,18 +70,46 @@ public class CompiledMethods implements SizeConstants {
   private static boolean scanForObsoleteMethods = false;
 
   /**
-   * Ensure space in backing array for id
+   * Allocate a new compiled method id
+   */
+  private static int allocateCompiledMethodId() {
+    if (VM.runningVM) {
+      return Synchronization.fetchAndAdd(Magic.getJTOC(), Entrypoints.currentCompiledMethodIdField.getOffset(), 1) + 1;
+    } else {
+      synchronized (CompiledMethods.class) {
+        return ++currentCompiledMethodId;
+      }
+    }
+  }
+
+  /**
+   * Ensure space in backing array for id.  Only adding a row takes a lock,
+   * once every 2^LOG_ROW_SIZE ids.
    */
   private static void ensureCapacity(int id) {
     int column = id >> LOG_ROW_SIZE;
-    if (column >= compiledMethods.length) {
-      CompiledMethod[][] tmp = new CompiledMethod[column+1][];
-      for (int i=0; i < column; i++) {
-        tmp[i] = compiledMethods[i];
+    CompiledMethod[][] rows = compiledMethods;
+    if (column < rows.length && rows[column] != null) return;
+    synchronized (CompiledMethods.class) {
+      rows = compiledMethods;
+      if (column >= rows.length) {
+        CompiledMethod[][] tmp = new CompiledMethod[Math.max(column + 1, rows.length * 2)][];
+        for (int i=0; i < rows.length; i++) {
+          tmp[i] = rows[i];
+        }
+        rows = tmp;
+      }
+      // ids are allocated before their rows, so other threads may need
+      // rows before this one
+      for (int i = 0; i <= column; i++) {
+        if (rows[i] == null) {
+          CompiledMethod[] row = new CompiledMethod[1 << LOG_ROW_SIZE];
+          if (VM.runningVM) Magic.sync();
+          rows[i] = row;
+        }
       }
-      tmp[column] = new CompiledMethod[1 << LOG_ROW_SIZE];
-      compiledMethods = tmp;
-      Magic.sync();
+      if (VM.runningVM) Magic.sync();
+      compiledMethods = rows;
     }
   }
 
@@ -83,7 +119,10 @@ public class CompiledMethods implements SizeConstants {
   @Uninterruptible
   public static CompiledMethod getCompiledMethodUnchecked(int cmid) {
     int column = cmid >> LOG_ROW_SIZE;
-    return compiledMethods[column][cmid & ROW_MASK];
+    CompiledMethod[][] rows = compiledMethods;
+    if (column >= rows.length) return null; // id allocated, row not yet added
+    CompiledMethod[] row = rows[column];
+    return row == null ? null : row[cmid & ROW_MASK];
   }
 
   /**
@@ -117,10 +156,9 @@ public class CompiledMethods implements SizeConstants {
   /**
    * Create a CompiledMethod appropriate for the given compilerType
    */
-  public static synchronized CompiledMethod createCompiledMethod(RVMMethod m, int compilerType) {
-    int id = currentCompiledMethodId + 1;
+  public static CompiledMethod createCompiledMethod(RVMMethod m, int compilerType) {
+    int id = allocateCompiledMethodId();
     ensureCapacity(id);
-    currentCompiledMethodId++;
     CompiledMethod cm = null;
     if (compilerType == CompiledMethod.BASELINE) {
       cm = new BaselineCompiledMethod(id, m);
@@ -138,10 +176,9 @@ public class CompiledMethods implements SizeConstants {
   /**
    * Create a CompiledMethod for the synthetic hardware trap frame
    */
-  public static synchronized CompiledMethod createHardwareTrapCompiledMethod() {
-    int id = currentCompiledMethodId + 1;
+  public static CompiledMethod createHardwareTrapCompiledMethod() {
+    int id = allocateCompiledMethodId();
     ensureCapacity(id);
-    currentCompiledMethodId++;
     CompiledMethod cm = new HardwareTrapCompiledMethod(id, null);
     setCompiledMethod(id, cm);
     return cm;
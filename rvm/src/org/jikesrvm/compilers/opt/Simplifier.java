@@ -17,6 +17,7 @@ import static org.jikesrvm.SizeConstants.BITS_IN_INT;
 import static org.jikesrvm.SizeConstants.BITS_IN_LONG;
 import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_ADDRESS;
 import static org.jikesrvm.compilers.opt.ir.Operators.*;
+import static org.jikesrvm.objectmodel.TIBLayoutConstants.TIB_SECONDARY_SUPER_CACHE_INDEX;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
@@ -3520,6 +3521,10 @@ public abstract class Simplifier extends IRTools {
             intOffset = offset.asAddressConstant().value.toInt();
           }
           int intSlot = intOffset >> LOG_BYTES_IN_ADDRESS;
+          if (intSlot == TIB_SECONDARY_SUPER_CACHE_INDEX) {
+            // the cache is updated at runtime
+            return DefUseEffect.UNCHANGED;
+          }
 
           // Create appropriate constant operand for TIB slot
           ConstantOperand result;
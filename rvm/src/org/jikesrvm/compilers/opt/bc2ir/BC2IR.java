@@ -31,6 +31,8 @@ import org.jikesrvm.classloader.RVMMethod;
 import org.jikesrvm.classloader.MethodReference;
 import org.jikesrvm.classloader.RVMType;
 import org.jikesrvm.classloader.TypeReference;
+import org.jikesrvm.compilers.baseline.BranchProfile;
+import org.jikesrvm.compilers.baseline.ConditionalBranchProfile;
 import org.jikesrvm.compilers.baseline.SwitchBranchProfile;
 import org.jikesrvm.compilers.common.CompiledMethod;
 import org.jikesrvm.compilers.common.CompiledMethods;
@@ -205,6 +207,12 @@ public final class BC2IR
   // OSR field
   private boolean osrGuardedInline = false;
 
+  /**
+   * OSR field: should branches that the profile says always go the same
+   * way get an uncommon trap on their other side?
+   */
+  private boolean osrUncommonTraps = false;
+
   /**
    * OSR field: TODO rework this mechanism!
    * adjustment of bcIndex of instructions because of
@@ -339,6 +347,26 @@ public final class BC2IR
        OptimizingCompiler.getAppStarted() &&
        (Controller.options != null) &&
        Controller.options.ENABLE_RECOMPILATION;
+
+    this.osrUncommonTraps = this.osrGuardedInline &&
+       context.options.OSR_UNCOMMON_TRAPS &&
+       !context.options.inverseFrequencyCounters() &&
+       (context.branchProfiles != null) &&
+       !context.original_cm.getMethod().getDeclaringClass().isInBootImage() &&
+       hasOsrBarriers(context.inlineSequence);
+  }
+
+  /**
+   * Does each call site that this method is inlined into have an OSR
+   * barrier to describe the caller's state?
+   */
+  private static boolean hasOsrBarriers(InlineSequence seq) {
+    for (; seq.getCallSite() != null; seq = seq.getCaller()) {
+      if (seq.getCallSite().scratchObject == null) {
+        return false;
+      }
+    }
+    return true;
   }
 
   private void finish(GenerationContext context) {
@@ -464,6 +492,17 @@ public final class BC2IR
 
       lastOsrBarrier = null;
 
+      /* an uncommon trap resumes at the branch in the baseline code, so
+       * it needs the state before the compared values are popped.
+       */
+      Instruction uncommonTrapBarrier = null;
+      ArrayList<Instruction> uncommonTrapMoves = null;
+      if (this.osrUncommonTraps &&
+          (((code >= JBC_ifeq) && (code <= JBC_if_acmpne)) || (code == JBC_ifnull) || (code == JBC_ifnonnull))) {
+        uncommonTrapMoves = new ArrayList<Instruction>();
+        uncommonTrapBarrier = _createUncommonTrapBarrier(uncommonTrapMoves);
+      }
+
       switch (code) {
         case JBC_nop:
           break;
@@ -2639,6 +2678,14 @@ public final class BC2IR
           break;
       }
 
+      if (uncommonTrapBarrier != null && s != null && IfCmp.conforms(s)) {
+        // OsrPointConstructor makes the never taken side a trap
+        for (Instruction move : uncommonTrapMoves) {
+          appendInstruction(move);
+        }
+        s.scratchObject = uncommonTrapBarrier;
+      }
+
       if (s != null && !currentBBLE.isSelfRegen()) {
         appendInstruction(s);
       }
@@ -4730,6 +4777,18 @@ public final class BC2IR
   /* create an OSR Barrier instruction at the current position.
    */
   private Instruction _createOsrBarrier() {
+    ArrayList<Instruction> moves = new ArrayList<Instruction>();
+    Instruction barrier = _createOsrBarrier(moves);
+    for (Instruction move : moves) {
+      appendInstruction(move);
+    }
+    return barrier;
+  }
+
+  /* create an OSR Barrier instruction at the current position, adding
+   * the moves that load its operands to moves rather than appending them.
+   */
+  private Instruction _createOsrBarrier(ArrayList<Instruction> moves) {
     ArrayList<Operand> livevars = new ArrayList<Operand>();
 
     /* for local variables, we have to use helper to make a register. */
@@ -4744,7 +4803,7 @@ public final class BC2IR
       Operand op = _localState[i];
 
       if ((op != null) && (op != DUMMY)) {
-        livevars.add(_loadLocalForOSR(op));
+        livevars.add(_loadLocalForOSR(op, moves));
         num_llocals++;
 
         if (op instanceof ReturnAddressOperand) {
@@ -4812,9 +4871,9 @@ public final class BC2IR
         int tgtpc = ((ReturnAddressOperand) op).retIndex - gc.method.getOsrPrologueLength();
         op = new IntConstantOperand(tgtpc);
       } else if (op instanceof LongConstantOperand) {
-        op = _prepareLongConstant(op);
+        op = _prepareLongConstant(op, moves);
       } else if (op instanceof DoubleConstantOperand) {
-        op = _prepareDoubleConstant(op);
+        op = _prepareDoubleConstant(op, moves);
       }
 
       if (VM.VerifyAssertions) VM._assert(op != null);
@@ -4836,24 +4895,59 @@ public final class BC2IR
     return barrier;
   }
 
+  /**
+   * Create an OSR barrier for the conditional branch at the current
+   * position if the profile says it always goes the same way.  The
+   * moves that load the barrier's operands are added to moves, for the
+   * caller to append just ahead of the branch, so that the branch is
+   * still generated straight after the instruction computing its operand.
+   *
+   * @param moves the list to add the barrier's moves to
+   * @return the barrier or null if the branch shouldn't get an uncommon trap
+   */
+  private Instruction _createUncommonTrapBarrier(ArrayList<Instruction> moves) {
+    BranchProfile bp = gc.branchProfiles.getEntry(instrIndex - bciAdjustment);
+    if (!(bp instanceof ConditionalBranchProfile) ||
+        (bp.getFrequency() < gc.options.OSR_UNCOMMON_TRAP_THRESHOLD)) {
+      return null;
+    }
+    float taken = ((ConditionalBranchProfile) bp).getTakenProbability();
+    if ((taken != 0f) && (taken != 1f)) {
+      return null;
+    }
+    if (lastInstr != null) {
+      switch (lastInstr.getOpcode()) {
+        case DOUBLE_CMPG_opcode:
+        case DOUBLE_CMPL_opcode:
+        case FLOAT_CMPG_opcode:
+        case FLOAT_CMPL_opcode:
+        case LONG_CMP_opcode:
+          // the compare may be folded into the branch, losing the value
+          // the barrier would hold
+          return null;
+      }
+    }
+    return _createOsrBarrier(moves);
+  }
+
   /** special process for long/double constants */
-  private Operand _prepareLongConstant(Operand op) {
+  private Operand _prepareLongConstant(Operand op, ArrayList<Instruction> moves) {
     /* for long and double constants, always move them to a register,
      * therefor, BURS will split it in two registers.
      */
     RegisterOperand t = gc.temps.makeTemp(op.getType());
-    appendInstruction(Move.create(LONG_MOVE, t, op));
+    moves.add(Move.create(LONG_MOVE, t, op));
 
     return t.copyD2U();
   }
 
   /** special process for long/double constants */
-  private Operand _prepareDoubleConstant(Operand op) {
+  private Operand _prepareDoubleConstant(Operand op, ArrayList<Instruction> moves) {
     /* for long and double constants, always move them to a register,
      * therefor, BURS will split it in two registers.
      */
     RegisterOperand t = gc.temps.makeTemp(op.getType());
-    appendInstruction(Move.create(DOUBLE_MOVE, t, op));
+    moves.add(Move.create(DOUBLE_MOVE, t, op));
 
     return t.copyD2U();
   }
@@ -4861,9 +4955,10 @@ public final class BC2IR
   /**
    * make a temporary register, and create a move instruction
    * @param op the local variable.
+   * @param moves the list to add the move to
    * @return operand marked as use.
    */
-  private Operand _loadLocalForOSR(Operand op) {
+  private Operand _loadLocalForOSR(Operand op, ArrayList<Instruction> moves) {
 
     /* return address is processed specially */
     if (op instanceof ReturnAddressOperand) {
@@ -4901,7 +4996,7 @@ public final class BC2IR
         return null;
     }
 
-    appendInstruction(Move.create(operator, t, op.copy()));
+    moves.add(Move.create(operator, t, op.copy()));
     return t.copyD2U();
   }
 
@@ -29,6 +29,7 @@ import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_LOAD;
 import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_SQRT;
 import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_STORE;
 import static org.jikesrvm.compilers.opt.ir.Operators.FENCE;
+import static org.jikesrvm.compilers.opt.ir.Operators.FETCH_ADD_INT;
 import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_AS_INT_BITS;
 import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_LOAD;
 import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_SQRT;
@@ -44,6 +45,7 @@ import static org.jikesrvm.compilers.opt.ir.Operators.INT_LOAD;
 import static org.jikesrvm.compilers.opt.ir.Operators.INT_SHL;
 import static org.jikesrvm.compilers.opt.ir.Operators.INT_STORE;
 import static org.jikesrvm.compilers.opt.ir.Operators.LONG_2ADDR;
+import static org.jikesrvm.compilers.opt.ir.Operators.LONG_2INT;
 import static org.jikesrvm.compilers.opt.ir.Operators.LONG_BITS_AS_DOUBLE;
 import static org.jikesrvm.compilers.opt.ir.Operators.LONG_LOAD;
 import static org.jikesrvm.compilers.opt.ir.Operators.LONG_STORE;
@@ -103,6 +105,7 @@ import org.jikesrvm.compilers.opt.ir.operand.ObjectConstantOperand;
 import org.jikesrvm.compilers.opt.ir.operand.Operand;
 import org.jikesrvm.compilers.opt.ir.operand.RegisterOperand;
 import org.jikesrvm.compilers.opt.ir.operand.TrueGuardOperand;
+import org.jikesrvm.mm.mminterface.Barriers;
 import org.jikesrvm.objectmodel.TIBLayoutConstants;
 import org.jikesrvm.runtime.ArchEntrypoints;
 import org.jikesrvm.runtime.MagicNames;
@@ -132,6 +135,10 @@ public class GenerateMagic implements TIBLayoutConstants  {
   static boolean generateMagic(BC2IR bc2ir, GenerationContext gc, MethodReference meth)
       throws MagicNotImplementedException {
 
+    if (meth.isUnsafe()) {
+      return generateUnsafeMagic(bc2ir, gc, meth);
+    }
+
     if (gc.method.hasNoInlinePragma()) gc.allocFrame = true;
 
     // HACK: Don't schedule any bbs containing unsafe magics.
@@ -825,6 +832,224 @@ public class GenerateMagic implements TIBLayoutConstants  {
     return true;
   } // generateMagic
 
+  /**
+   * Generate the accessors of sun.misc.Unsafe that take a long address as a
+   * single load or store, and those that take an object and a field offset
+   * as described at {@link #generateUnsafeFieldMagic}. Other methods of
+   * Unsafe are left to be called.
+   *
+   * @param bc2ir the bc2ir object that is generating the
+   *              ir containing this magic
+   * @param gc must be bc2ir.gc
+   * @param meth the method of Unsafe being invoked
+   * @return true if the method was generated inline
+   */
+  private static boolean generateUnsafeMagic(BC2IR bc2ir, GenerationContext gc, MethodReference meth)
+      throws MagicNotImplementedException {
+    Atom methodName = meth.getName();
+    TypeReference[] types = meth.getParameterTypes();
+    if (types.length >= 2 && types[0] == TypeReference.JavaLangObject && types[1] == TypeReference.Long) {
+      return generateUnsafeFieldMagic(bc2ir, gc, meth);
+    }
+    if (types.length == 0 || types[0] != TypeReference.Long) return false;
+
+    if (types.length == 1 && isUnsafeGet(methodName)) {
+      TypeReference returnType = meth.getReturnType();
+      bc2ir.markBBUnsafeForScheduling();
+      Operand base = popUnsafeAddress(bc2ir, gc);
+      RegisterOperand result = gc.temps.makeTemp(returnType);
+      bc2ir.appendInstruction(Load.create(getOperator(returnType, LOAD_OP),
+                                          result,
+                                          base,
+                                          new AddressConstantOperand(Address.zero()),
+                                          null));
+      bc2ir.push(result.copyD2U(), returnType);
+    } else if (types.length == 2 && isUnsafePut(methodName)) {
+      TypeReference storeType = types[1];
+      bc2ir.markBBUnsafeForScheduling();
+      Operand val = bc2ir.pop(storeType);
+      Operand base = popUnsafeAddress(bc2ir, gc);
+      bc2ir.appendInstruction(Store.create(getOperator(storeType, STORE_OP),
+                                           val,
+                                           base,
+                                           new AddressConstantOperand(Address.zero()),
+                                           null));
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Generate the methods of sun.misc.Unsafe that access a field of an object
+   * by its offset. Plain and volatile gets, and plain, volatile and ordered
+   * puts, become a load or store with the fences of their Java bodies. On
+   * IA32, where a single locked instruction implements them, compare-and-swap
+   * becomes an attempt and getAndAddInt a fetch-and-add. Methods that must
+   * go through a barrier of the selected plan are left to be called.
+   *
+   * @param bc2ir the bc2ir object that is generating the
+   *              ir containing this magic
+   * @param gc must be bc2ir.gc
+   * @param meth the method of Unsafe being invoked
+   * @return true if the method was generated inline
+   */
+  private static boolean generateUnsafeFieldMagic(BC2IR bc2ir, GenerationContext gc, MethodReference meth)
+      throws MagicNotImplementedException {
+    Atom methodName = meth.getName();
+    TypeReference[] types = meth.getParameterTypes();
+
+    if (types.length == 2 && isUnsafeFieldGet(methodName)) {
+      TypeReference type = meth.getReturnType();
+      bc2ir.markBBUnsafeForScheduling();
+      Operand offset = popUnsafeOffset(bc2ir, gc);
+      Operand object = bc2ir.popRef();
+      bc2ir.popRef(); // the Unsafe instance, which is never null
+      RegisterOperand val = gc.temps.makeTemp(type);
+      bc2ir.appendInstruction(Load.create(getOperator(type, LOAD_OP), val, object, offset, null));
+      if (isUnsafeVolatile(methodName)) {
+        bc2ir.appendInstruction(Empty.create(READ_CEILING));
+      }
+      bc2ir.push(val.copyD2U(), type);
+    } else if (types.length == 3 && isUnsafeFieldPut(methodName)) {
+      TypeReference type = types[2];
+      if (needsPutfieldBarrier(type)) return false;
+      bc2ir.markBBUnsafeForScheduling();
+      Operand val = bc2ir.pop(type);
+      Operand offset = popUnsafeOffset(bc2ir, gc);
+      Operand object = bc2ir.popRef();
+      bc2ir.popRef(); // the Unsafe instance, which is never null
+      boolean isVolatile = isUnsafeVolatile(methodName);
+      if (isVolatile || isUnsafeOrdered(methodName)) {
+        bc2ir.appendInstruction(Empty.create(WRITE_FLOOR));
+      }
+      bc2ir.appendInstruction(Store.create(getOperator(type, STORE_OP), val, object, offset, null));
+      if (isVolatile) {
+        bc2ir.appendInstruction(Empty.create(FENCE));
+      }
+    } else if (VM.BuildForIA32 && types.length == 4 && isUnsafeCompareAndSwap(methodName)) {
+      TypeReference type = types[2];
+      if (needsPutfieldBarrier(type) || needsGetfieldBarrier(type)) return false;
+      bc2ir.markBBUnsafeForScheduling();
+      Operand newVal = bc2ir.pop(type);
+      Operand oldVal = bc2ir.pop(type);
+      Operand offset = popUnsafeOffset(bc2ir, gc);
+      Operand object = bc2ir.popRef();
+      bc2ir.popRef(); // the Unsafe instance, which is never null
+      RegisterOperand test = gc.temps.makeTempBoolean();
+      Operator operator = getOperator(type, ATTEMPT_OP);
+      bc2ir.appendInstruction(Attempt.create(operator, test, object, offset, oldVal, newVal, null));
+      bc2ir.push(test.copyD2U());
+    } else if (VM.BuildForIA32 && types.length == 3 && methodName == MagicNames.unsafeGetAndAddInt) {
+      if (needsPutfieldBarrier(TypeReference.Int) || needsGetfieldBarrier(TypeReference.Int)) return false;
+      bc2ir.markBBUnsafeForScheduling();
+      Operand delta = bc2ir.popInt();
+      Operand offset = popUnsafeOffset(bc2ir, gc);
+      Operand object = bc2ir.popRef();
+      bc2ir.popRef(); // the Unsafe instance, which is never null
+      RegisterOperand val = gc.temps.makeTempInt();
+      bc2ir.appendInstruction(Attempt.create(FETCH_ADD_INT, val, object, offset, null, delta, null));
+      bc2ir.push(val.copyD2U());
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Pop the long field offset of an Unsafe field accessor, truncating it to
+   * an Offset as Unsafe.longToOffset does.
+   */
+  private static Operand popUnsafeOffset(BC2IR bc2ir, GenerationContext gc) {
+    RegisterOperand intOffset = gc.temps.makeTempInt();
+    bc2ir.appendInstruction(Unary.create(LONG_2INT, intOffset, bc2ir.popLong()));
+    RegisterOperand offset = gc.temps.makeTemp(TypeReference.Offset);
+    bc2ir.appendInstruction(Unary.create(INT_2ADDRSigExt, offset, intOffset.copyD2U()));
+    return offset.copyD2U();
+  }
+
+  private static boolean isUnsafeFieldGet(Atom methodName) {
+    return methodName == MagicNames.unsafeGetInt ||
+           methodName == MagicNames.unsafeGetLong ||
+           methodName == MagicNames.unsafeGetIntVolatile ||
+           methodName == MagicNames.unsafeGetLongVolatile ||
+           methodName == MagicNames.unsafeGetObjectVolatile;
+  }
+
+  private static boolean isUnsafeFieldPut(Atom methodName) {
+    return methodName == MagicNames.unsafePutInt ||
+           methodName == MagicNames.unsafePutLong ||
+           methodName == MagicNames.unsafePutObject ||
+           methodName == MagicNames.unsafePutIntVolatile ||
+           methodName == MagicNames.unsafePutLongVolatile ||
+           methodName == MagicNames.unsafePutObjectVolatile ||
+           isUnsafeOrdered(methodName);
+  }
+
+  private static boolean isUnsafeVolatile(Atom methodName) {
+    return methodName == MagicNames.unsafeGetIntVolatile ||
+           methodName == MagicNames.unsafeGetLongVolatile ||
+           methodName == MagicNames.unsafeGetObjectVolatile ||
+           methodName == MagicNames.unsafePutIntVolatile ||
+           methodName == MagicNames.unsafePutLongVolatile ||
+           methodName == MagicNames.unsafePutObjectVolatile;
+  }
+
+  private static boolean isUnsafeOrdered(Atom methodName) {
+    return methodName == MagicNames.unsafePutOrderedInt ||
+           methodName == MagicNames.unsafePutOrderedLong ||
+           methodName == MagicNames.unsafePutOrderedObject;
+  }
+
+  private static boolean isUnsafeCompareAndSwap(Atom methodName) {
+    return methodName == MagicNames.unsafeCompareAndSwapInt ||
+           methodName == MagicNames.unsafeCompareAndSwapLong ||
+           methodName == MagicNames.unsafeCompareAndSwapObject;
+  }
+
+  private static boolean needsPutfieldBarrier(TypeReference type) {
+    if (type == TypeReference.Int) return Barriers.NEEDS_INT_PUTFIELD_BARRIER;
+    if (type == TypeReference.Long) return Barriers.NEEDS_LONG_PUTFIELD_BARRIER;
+    return Barriers.NEEDS_OBJECT_PUTFIELD_BARRIER;
+  }
+
+  private static boolean needsGetfieldBarrier(TypeReference type) {
+    if (type == TypeReference.Int) return Barriers.NEEDS_INT_GETFIELD_BARRIER;
+    if (type == TypeReference.Long) return Barriers.NEEDS_LONG_GETFIELD_BARRIER;
+    return Barriers.NEEDS_OBJECT_GETFIELD_BARRIER;
+  }
+
+  /**
+   * Pop the long address and the Unsafe instance of an Unsafe accessor,
+   * converting the address to an Address.
+   */
+  private static Operand popUnsafeAddress(BC2IR bc2ir, GenerationContext gc) {
+    RegisterOperand address = gc.temps.makeTemp(TypeReference.Address);
+    bc2ir.appendInstruction(Unary.create(LONG_2ADDR, address, bc2ir.popLong()));
+    bc2ir.popRef(); // the Unsafe instance, which is never null
+    return address.copyD2U();
+  }
+
+  private static boolean isUnsafeGet(Atom methodName) {
+    return methodName == MagicNames.unsafeGetByte ||
+           methodName == MagicNames.unsafeGetShort ||
+           methodName == MagicNames.unsafeGetChar ||
+           methodName == MagicNames.unsafeGetInt ||
+           methodName == MagicNames.unsafeGetFloat ||
+           methodName == MagicNames.unsafeGetLong ||
+           methodName == MagicNames.unsafeGetDouble;
+  }
+
+  private static boolean isUnsafePut(Atom methodName) {
+    return methodName == MagicNames.unsafePutByte ||
+           methodName == MagicNames.unsafePutShort ||
+           methodName == MagicNames.unsafePutChar ||
+           methodName == MagicNames.unsafePutInt ||
+           methodName == MagicNames.unsafePutFloat ||
+           methodName == MagicNames.unsafePutLong ||
+           methodName == MagicNames.unsafePutDouble;
+  }
+
   // Generate magic where the untype operational semantics is identified by name.
   // The operands' types are determined from the method signature.
   //
@@ -1049,6 +1274,7 @@ public class GenerateMagic implements TIBLayoutConstants  {
   private static Operator getOperator(TypeReference type, int operatorClass)
       throws MagicNotImplementedException {
     if (operatorClass == LOAD_OP) {
+      if (type == TypeReference.JavaLangObject) return REF_LOAD;
       if (type == TypeReference.Address) return REF_LOAD;
       if (type == TypeReference.ObjectReference) return REF_LOAD;
       if (type == TypeReference.Word) return REF_LOAD;
@@ -1068,12 +1294,14 @@ public class GenerateMagic implements TIBLayoutConstants  {
       if (type == TypeReference.Int) return PREPARE_INT;
       if (type == TypeReference.Long) return PREPARE_LONG;
     } else if (operatorClass == ATTEMPT_OP) {
+      if (type == TypeReference.JavaLangObject) return ATTEMPT_ADDR;
       if (type == TypeReference.Address) return ATTEMPT_ADDR;
       if (type == TypeReference.ObjectReference) return ATTEMPT_ADDR;
       if (type == TypeReference.Word) return ATTEMPT_ADDR;
       if (type == TypeReference.Int) return ATTEMPT_INT;
       if (type == TypeReference.Long) return ATTEMPT_LONG;
     } else if (operatorClass == STORE_OP) {
+      if (type == TypeReference.JavaLangObject) return REF_STORE;
       if (type == TypeReference.Address) return REF_STORE;
       if (type == TypeReference.ObjectReference) return REF_STORE;
       if (type == TypeReference.Word) return REF_STORE;
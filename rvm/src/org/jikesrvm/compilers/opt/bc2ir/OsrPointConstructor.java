@@ -12,6 +12,7 @@
  */
 package org.jikesrvm.compilers.opt.bc2ir;
 
+import static org.jikesrvm.compilers.opt.ir.Operators.GOTO;
 import static org.jikesrvm.compilers.opt.ir.Operators.OSR_BARRIER_opcode;
 
 import java.util.LinkedList;
@@ -22,11 +23,15 @@ import org.jikesrvm.compilers.opt.OptOptions;
 import org.jikesrvm.compilers.opt.controlflow.BranchOptimizations;
 import org.jikesrvm.compilers.opt.driver.CompilerPhase;
 import org.jikesrvm.compilers.opt.ir.BasicBlock;
+import org.jikesrvm.compilers.opt.ir.Goto;
 import org.jikesrvm.compilers.opt.ir.IR;
+import org.jikesrvm.compilers.opt.ir.IfCmp;
 import org.jikesrvm.compilers.opt.ir.Instruction;
 import org.jikesrvm.compilers.opt.ir.InstructionEnumeration;
 import org.jikesrvm.compilers.opt.ir.OsrBarrier;
 import org.jikesrvm.compilers.opt.ir.OsrPoint;
+import org.jikesrvm.compilers.opt.ir.operand.BranchOperand;
+import org.jikesrvm.compilers.opt.ir.operand.BranchProfileOperand;
 import org.jikesrvm.compilers.opt.ir.operand.InlinedOsrTypeInfoOperand;
 import org.jikesrvm.compilers.opt.ir.operand.Operand;
 import org.jikesrvm.compilers.opt.ir.operand.OsrTypeInfoOperand;
@@ -71,6 +76,9 @@ public class OsrPointConstructor extends CompilerPhase {
    * Goes through each instruction, reconstruct OsrPoint instructions.
    */
   public void perform(IR ir) {
+    // 0. replace never taken branches with OsrPoints
+    insertUncommonTraps(ir);
+
     // 1. collecting OsrPoint instructions
     LinkedList<Instruction> osrs = collectOsrPoints(ir);
 
@@ -101,6 +109,57 @@ public class OsrPointConstructor extends CompilerPhase {
     branchOpts.perform(ir);
   }
 
+  /**
+   * BC2IR attaches an OsrBarrier to each conditional branch that always
+   * went the same way when the method was profiled. Replace the other way
+   * with an uncommon trap: an OsrPoint that resumes the method at the
+   * branch in baseline code, where it is recompiled without the trap.
+   */
+  private void insertUncommonTraps(IR ir) {
+    LinkedList<Instruction> branches = new LinkedList<Instruction>();
+    InstructionEnumeration instenum = ir.forwardInstrEnumerator();
+    while (instenum.hasMoreElements()) {
+      Instruction inst = instenum.next();
+      if (IfCmp.conforms(inst) && (inst.scratchObject != null)) {
+        branches.add(inst);
+      }
+    }
+
+    for (Instruction branch : branches) {
+      BranchProfileOperand profile = IfCmp.getBranchProfile(branch);
+      boolean neverTaken = profile.takenProbability == 0f;
+      if (!neverTaken && (profile.takenProbability != 1f)) {
+        continue;
+      }
+      BasicBlock bb = branch.getBasicBlock();
+      BasicBlock trap = new BasicBlock(branch.bcIndex, branch.position, ir.cfg);
+      Instruction osr = BC2IR._osrHelper((Instruction) branch.scratchObject);
+      osr.position = branch.position;
+      osr.bcIndex = branch.bcIndex;
+      trap.appendInstruction(osr);
+      trap.setInfrequent();
+      ir.cfg.addLastInCodeOrder(trap);
+      trap.insertOut(ir.cfg.exit());
+
+      if (neverTaken) {
+        IfCmp.setTarget(branch, trap.makeJumpTarget());
+      } else {
+        // never falls through: trap on the opposite condition, otherwise
+        // go to the old target
+        BranchOperand target = IfCmp.getClearTarget(branch);
+        IfCmp.getCond(branch).flipCode();
+        IfCmp.setTarget(branch, trap.makeJumpTarget());
+        profile.flip();
+        while (branch.nextInstructionInCodeOrder() != bb.lastInstruction()) {
+          branch.nextInstructionInCodeOrder().remove();
+        }
+        bb.appendInstruction(Goto.create(GOTO, target));
+      }
+      bb.recomputeNormalOut(ir);
+      branch.scratchObject = null;
+    }
+  }
+
   /** Iterates instructions, build a list of OsrPoint instructions. */
   private LinkedList<Instruction> collectOsrPoints(IR ir) {
     LinkedList<Instruction> osrs = new LinkedList<Instruction>();
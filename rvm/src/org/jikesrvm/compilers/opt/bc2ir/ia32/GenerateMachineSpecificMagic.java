@@ -27,6 +27,7 @@ import org.jikesrvm.compilers.opt.ir.Load;
 import org.jikesrvm.compilers.opt.ir.Move;
 import org.jikesrvm.compilers.opt.ir.Operators;
 import org.jikesrvm.compilers.opt.ir.Store;
+import org.jikesrvm.compilers.opt.ir.Vector16;
 import org.jikesrvm.compilers.opt.ir.ia32.PhysicalRegisterSet;
 import org.jikesrvm.compilers.opt.ir.operand.AddressConstantOperand;
 import org.jikesrvm.compilers.opt.ir.operand.IntConstantOperand;
@@ -99,6 +100,24 @@ public abstract class GenerateMachineSpecificMagic implements Operators, Stackfr
       bc2ir.appendInstruction(CacheOp.create(PREFETCH, bc2ir.popAddress()));
     } else if (methodName == MagicNames.pause) {
       bc2ir.appendInstruction(Empty.create(PAUSE));
+    } else if (methodName == MagicNames.copy16) {
+      Operand src = bc2ir.popAddress();
+      Operand dst = bc2ir.popAddress();
+      bc2ir.appendInstruction(Vector16.create(VECTOR_COPY16, dst, src));
+    } else if (methodName == MagicNames.zero16) {
+      bc2ir.appendInstruction(Vector16.create(VECTOR_ZERO16, bc2ir.popAddress()));
+    } else if (methodName == MagicNames.compareBytes16) {
+      Operand b = bc2ir.popAddress();
+      Operand a = bc2ir.popAddress();
+      RegisterOperand val = gc.temps.makeTempInt();
+      bc2ir.appendInstruction(Vector16.create(VECTOR_COMPARE_BYTES16, val, a, b));
+      bc2ir.push(val.copyD2U());
+    } else if (methodName == MagicNames.matchChars16) {
+      Operand c = bc2ir.popInt();
+      Operand a = bc2ir.popAddress();
+      RegisterOperand val = gc.temps.makeTempInt();
+      bc2ir.appendInstruction(Vector16.create(VECTOR_MATCH_CHARS16, val, a, c));
+      bc2ir.push(val.copyD2U());
     } else if (methodName == MagicNames.getCallerFramePointer) {
       Operand fp = bc2ir.popAddress();
       RegisterOperand val = gc.temps.makeTemp(TypeReference.Address);
@@ -85,7 +85,8 @@ public class LoopUnrolling extends CompilerPhase {
   }
 
   public boolean shouldPerform(OptOptions options) {
-    return ((options.getOptLevel() >= 3) && (options.CONTROL_UNROLL_LOG >= 1) && (!options.SSA_LOOP_VERSIONING));
+    return ((options.getOptLevel() >= 3) && (options.CONTROL_UNROLL_LOG >= 1) && (!options.SSA_LOOP_VERSIONING) &&
+            (!options.SSA_LOOP_VECTORIZATION));
   }
 
   /**
@@ -51,6 +51,7 @@ import org.jikesrvm.compilers.opt.ssa.GCP;
 import org.jikesrvm.compilers.opt.ssa.LeaveSSA;
 import org.jikesrvm.compilers.opt.ssa.LiveRangeSplitting;
 import org.jikesrvm.compilers.opt.ssa.LoadElimination;
+import org.jikesrvm.compilers.opt.ssa.LoopVectorization;
 import org.jikesrvm.compilers.opt.ssa.LoopVersioning;
 import org.jikesrvm.compilers.opt.ssa.PiNodes;
 import org.jikesrvm.compilers.opt.ssa.RedundantBranchElimination;
@@ -332,6 +333,8 @@ public class OptimizationPlanner {
             new GCP(),
             // Loop versioning
             new LoopVersioning(),
+            // Loop vectorization
+            new LoopVectorization(),
             // Leave SSA
             new LeaveSSA()}) {
           public boolean shouldPerform(OptOptions options) {
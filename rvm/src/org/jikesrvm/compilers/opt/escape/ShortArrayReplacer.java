@@ -75,6 +75,17 @@ import static org.jikesrvm.compilers.opt.ir.Operators.TRAP;
 import static org.jikesrvm.compilers.opt.ir.Operators.TRAP_IF;
 import static org.jikesrvm.compilers.opt.ir.Operators.UBYTE_ALOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.USHORT_ALOAD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_ADD16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_DIV16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_MOVE16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_MUL16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_SUB16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_ADD16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_AND16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_MOVE16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_OR16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_SUB16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_XOR16_opcode;
 import org.jikesrvm.compilers.opt.ir.Register;
 import org.jikesrvm.compilers.opt.ir.operand.ConditionOperand;
 import org.jikesrvm.compilers.opt.ir.operand.Operand;
@@ -392,6 +403,18 @@ final class ShortArrayReplacer implements AggregateReplacer {
         case OBJARRAY_STORE_CHECK_opcode:
         case OBJARRAY_STORE_CHECK_NOTNULL_opcode:
           // TODO: create a store check that doesn't need an array argument
+        case VECTOR_DOUBLE_ADD16_opcode:
+        case VECTOR_DOUBLE_DIV16_opcode:
+        case VECTOR_DOUBLE_MOVE16_opcode:
+        case VECTOR_DOUBLE_MUL16_opcode:
+        case VECTOR_DOUBLE_SUB16_opcode:
+        case VECTOR_INT_ADD16_opcode:
+        case VECTOR_INT_AND16_opcode:
+        case VECTOR_INT_MOVE16_opcode:
+        case VECTOR_INT_OR16_opcode:
+        case VECTOR_INT_SUB16_opcode:
+        case VECTOR_INT_XOR16_opcode:
+          // vectorized loops access the elements 16 bytes at a time
           return true;
         case CHECKCAST_opcode:
         case CHECKCAST_NOTNULL_opcode:
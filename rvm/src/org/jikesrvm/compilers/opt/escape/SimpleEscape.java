@@ -60,6 +60,7 @@ import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_ALOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_ASTORE_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_LOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_STORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.FETCH_ADD_INT_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_ALOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_ASTORE_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_LOAD_opcode;
@@ -146,6 +147,17 @@ import static org.jikesrvm.compilers.opt.ir.Operators.UBYTE_ALOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.UBYTE_LOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.USHORT_ALOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.USHORT_LOAD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_ADD16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_DIV16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_MOVE16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_MUL16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_SUB16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_ADD16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_AND16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_MOVE16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_OR16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_SUB16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_XOR16_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.YIELDPOINT_OSR_opcode;
 import org.jikesrvm.compilers.opt.ir.Register;
 import org.jikesrvm.compilers.opt.ir.PutField;
@@ -472,6 +484,17 @@ class SimpleEscape extends CompilerPhase {
       case CHECKCAST_UNRESOLVED_opcode:
       case GET_CAUGHT_EXCEPTION_opcode:
       case IR_PROLOGUE_opcode:
+      case VECTOR_DOUBLE_ADD16_opcode:
+      case VECTOR_DOUBLE_DIV16_opcode:
+      case VECTOR_DOUBLE_MOVE16_opcode:
+      case VECTOR_DOUBLE_MUL16_opcode:
+      case VECTOR_DOUBLE_SUB16_opcode:
+      case VECTOR_INT_ADD16_opcode:
+      case VECTOR_INT_AND16_opcode:
+      case VECTOR_INT_MOVE16_opcode:
+      case VECTOR_INT_OR16_opcode:
+      case VECTOR_INT_SUB16_opcode:
+      case VECTOR_INT_XOR16_opcode:
         return false;
       case RETURN_opcode:
         // a return instruction might cause an object to escape,
@@ -531,6 +554,7 @@ class SimpleEscape extends CompilerPhase {
       case ATTEMPT_LONG_opcode:
       case ATTEMPT_INT_opcode:
       case ATTEMPT_ADDR_opcode:
+      case FETCH_ADD_INT_opcode:
       case INT_MOVE_opcode:
       case INT_ADD_opcode:
       case REF_ADD_opcode:
@@ -674,6 +698,17 @@ class SimpleEscape extends CompilerPhase {
       case CHECKCAST_UNRESOLVED_opcode:
       case GET_CAUGHT_EXCEPTION_opcode:
       case IR_PROLOGUE_opcode:
+      case VECTOR_DOUBLE_ADD16_opcode:
+      case VECTOR_DOUBLE_DIV16_opcode:
+      case VECTOR_DOUBLE_MOVE16_opcode:
+      case VECTOR_DOUBLE_MUL16_opcode:
+      case VECTOR_DOUBLE_SUB16_opcode:
+      case VECTOR_INT_ADD16_opcode:
+      case VECTOR_INT_AND16_opcode:
+      case VECTOR_INT_MOVE16_opcode:
+      case VECTOR_INT_OR16_opcode:
+      case VECTOR_INT_SUB16_opcode:
+      case VECTOR_INT_XOR16_opcode:
         return false;
       case RETURN_opcode:
         // a return instruction causes an object to escape this method.
@@ -714,6 +749,7 @@ class SimpleEscape extends CompilerPhase {
       case ATTEMPT_ADDR_opcode:
       case PREPARE_LONG_opcode:
       case ATTEMPT_LONG_opcode:
+      case FETCH_ADD_INT_opcode:
       case INT_MOVE_opcode:
       case INT_ADD_opcode:
       case REF_ADD_opcode:
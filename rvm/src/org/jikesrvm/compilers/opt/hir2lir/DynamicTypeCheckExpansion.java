@@ -12,6 +12,9 @@
  */
 package org.jikesrvm.compilers.opt.hir2lir;
 
+import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_ADDRESS;
+import static org.jikesrvm.objectmodel.TIBLayoutConstants.TIB_SECONDARY_SUPER_CACHE_INDEX;
+
 import org.jikesrvm.VM;
 import org.jikesrvm.classloader.RVMArray;
 import org.jikesrvm.classloader.RVMClass;
@@ -52,6 +55,7 @@ import static org.jikesrvm.compilers.opt.ir.Operators.INT_LOAD;
 import static org.jikesrvm.compilers.opt.ir.Operators.INT_MOVE;
 import static org.jikesrvm.compilers.opt.ir.Operators.INT_SHL;
 import static org.jikesrvm.compilers.opt.ir.Operators.REF_IFCMP;
+import static org.jikesrvm.compilers.opt.ir.Operators.REF_LOAD;
 import static org.jikesrvm.compilers.opt.ir.Operators.REF_MOVE;
 import static org.jikesrvm.compilers.opt.ir.Operators.TRAP;
 import static org.jikesrvm.compilers.opt.ir.Operators.USHORT_ALOAD;
@@ -586,6 +590,27 @@ abstract class DynamicTypeCheckExpansion extends ConvertToLowLevelIR {
           return curBlock.lastInstruction();
         }
       }
+
+      // Before calling checkstore, see whether the secondary super cache of
+      // the runtime elemRef type holds the runtime LHS elem type.
+      if (!VM.countSecondarySuperCache) {
+        RegisterOperand rhsCache =
+            InsertLoadOffset(curBlock.lastInstruction(),
+                             ir,
+                             REF_LOAD,
+                             TypeReference.TIB,
+                             rhsTIB.copy(),
+                             Offset.fromIntZeroExtend(TIB_SECONDARY_SUPER_CACHE_INDEX << LOG_BYTES_IN_ADDRESS));
+        curBlock.appendInstruction(IfCmp.create(REF_IFCMP,
+                                                guardResult.copyRO(),
+                                                rhsCache,
+                                                lhsElemTIB.copyU2U(),
+                                                ConditionOperand.EQUAL(),
+                                                contBlock.makeJumpTarget(),
+                                                new BranchProfileOperand()));
+        curBlock.insertOut(contBlock);
+        curBlock = advanceBlock(s.bcIndex, curBlock, ir);
+      }
     }
 
     // Call RuntimeEntrypoints.checkstore.
@@ -1044,6 +1069,32 @@ abstract class DynamicTypeCheckExpansion extends ConvertToLowLevelIR {
                                                falseProb));
           return continueAt;
         }
+
+        // Before calling instanceOf, see whether the secondary super cache
+        // of the RHS type holds the LHS type.
+        if (LHSArray.isInstantiated() && !VM.countSecondarySuperCache) {
+          RegisterOperand rhsCache =
+              InsertLoadOffset(continueAt,
+                               ir,
+                               REF_LOAD,
+                               TypeReference.TIB,
+                               RHStib.copy(),
+                               Offset.fromIntZeroExtend(TIB_SECONDARY_SUPER_CACHE_INDEX << LOG_BYTES_IN_ADDRESS));
+          Instruction cacheTest =
+              IfCmp.create(REF_IFCMP,
+                           oldGuard,
+                           rhsCache,
+                           classTIB.copy(),
+                           ConditionOperand.EQUAL(),
+                           trueBlock.makeJumpTarget(),
+                           new BranchProfileOperand());
+          if (oldGuard != null) {
+            oldGuard = oldGuard.copyD2D();
+          }
+          continueAt.insertBefore(cacheTest);
+          mainBlock.splitNodeWithLinksAt(cacheTest, ir);
+          mainBlock.insertOut(trueBlock);
+        }
       }
 
       // Not a case we want to handle inline
@@ -49,6 +49,10 @@ import static org.jikesrvm.compilers.opt.ir.Operators.LONG_USHR_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.LONG_XOR_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.NOP;
 import static org.jikesrvm.compilers.opt.ir.Operators.PREFETCH_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_COMPARE_BYTES16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_COPY16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_MATCH_CHARS16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_ZERO16_opcode;
 import org.jikesrvm.compilers.opt.ir.Register;
 import org.jikesrvm.compilers.opt.ir.operand.Operand;
 import org.jikesrvm.compilers.opt.ir.operand.RegisterOperand;
@@ -72,6 +76,10 @@ public abstract class MachineSpecificIRIA extends MachineSpecificIR {
     public boolean mayEscapeThread(Instruction instruction) {
       switch (instruction.getOpcode()) {
         case PREFETCH_opcode:
+        case VECTOR_ZERO16_opcode:
+        case VECTOR_COPY16_opcode:
+        case VECTOR_COMPARE_BYTES16_opcode:
+        case VECTOR_MATCH_CHARS16_opcode:
           return false;
         case GET_CURRENT_PROCESSOR_opcode:
           return true;
@@ -97,6 +105,10 @@ public abstract class MachineSpecificIRIA extends MachineSpecificIR {
     public boolean mayEscapeThread(Instruction instruction) {
       switch (instruction.getOpcode()) {
         case PREFETCH_opcode:
+        case VECTOR_ZERO16_opcode:
+        case VECTOR_COPY16_opcode:
+        case VECTOR_COMPARE_BYTES16_opcode:
+        case VECTOR_MATCH_CHARS16_opcode:
           return false;
         case GET_CURRENT_PROCESSOR_opcode:
         case LONG_OR_opcode:
@@ -144,7 +156,16 @@ public abstract class MachineSpecificIRIA extends MachineSpecificIR {
 
   @Override
   public boolean isHandledByRegisterUnknown(char opcode) {
-    return (opcode == PREFETCH_opcode);
+    switch (opcode) {
+      case PREFETCH_opcode:
+      case VECTOR_ZERO16_opcode:
+      case VECTOR_COPY16_opcode:
+      case VECTOR_COMPARE_BYTES16_opcode:
+      case VECTOR_MATCH_CHARS16_opcode:
+        return true;
+      default:
+        return false;
+    }
   }
 
   /* unique to IA */
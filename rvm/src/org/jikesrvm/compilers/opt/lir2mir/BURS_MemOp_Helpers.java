@@ -351,6 +351,14 @@ public abstract class BURS_MemOp_Helpers extends BURS_Common_Helpers {
                     AStore.getGuard(s));
   }
 
+  /**
+   * Construct a memory operand for the 16 bytes of an array from an
+   * element, for the vector array operations
+   */
+  protected final MemoryOperand MO_VECTOR(Operand array, Operand index, byte scale) {
+    return MO_ARRAY(array, index, scale, PARAGRAPH, Offset.zero(), null, null);
+  }
+
   /**
    * Construct memory operand for an array access
    */
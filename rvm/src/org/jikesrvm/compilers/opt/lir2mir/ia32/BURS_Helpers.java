@@ -57,9 +57,11 @@ import static org.jikesrvm.compilers.opt.ir.Operators.IA32_JCC;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LEA;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LOCK_CMPXCHG;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LOCK_CMPXCHG8B;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LOCK_XADD;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_METHODSTART;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOV;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOVD;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOVDQU;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOVLPD;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOVSD;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOVSS;
@@ -71,6 +73,13 @@ import static org.jikesrvm.compilers.opt.ir.Operators.IA32_NOT;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_OR;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_ORPD;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_ORPS;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_PCMPEQB;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_PCMPEQW;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_PMOVMSKB;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_PUNPCKLDQ;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_PUNPCKLQDQ;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_PUNPCKLWD;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_PXOR;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_RCR;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_RDTSC;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_SAR;
@@ -121,6 +130,7 @@ import org.jikesrvm.compilers.opt.ir.MIR_Set;
 import org.jikesrvm.compilers.opt.ir.MIR_TrapIf;
 import org.jikesrvm.compilers.opt.ir.MIR_Unary;
 import org.jikesrvm.compilers.opt.ir.MIR_UnaryAcc;
+import org.jikesrvm.compilers.opt.ir.MIR_XChng;
 import org.jikesrvm.compilers.opt.ir.Move;
 import org.jikesrvm.compilers.opt.ir.Nullary;
 import org.jikesrvm.compilers.opt.ir.Operator;
@@ -130,6 +140,8 @@ import org.jikesrvm.compilers.opt.ir.Register;
 import org.jikesrvm.compilers.opt.ir.RegisterOperandEnumeration;
 import org.jikesrvm.compilers.opt.ir.TrapIf;
 import org.jikesrvm.compilers.opt.ir.Unary;
+import org.jikesrvm.compilers.opt.ir.Vector16;
+import org.jikesrvm.compilers.opt.ir.VectorArrayOp;
 import org.jikesrvm.compilers.opt.ir.operand.BranchOperand;
 import org.jikesrvm.compilers.opt.ir.operand.BranchProfileOperand;
 import org.jikesrvm.compilers.opt.ir.operand.ConditionOperand;
@@ -1196,6 +1208,114 @@ Operand value, boolean signExtend) {
     }
   }
 
+  /**
+   * @return the 16 bytes at the address operand of an SSE2 vector
+   * operation; the magic doesn't require them to be aligned
+   */
+  private static MemoryOperand VECTOR16_MO(Operand address) {
+    return MemoryOperand.I(R(address), PARAGRAPH, null, null);
+  }
+
+  /**
+   * Expansion of Magic.zero16.  The vector operations work through XMM0
+   * and XMM1, as a symbolic register would be spilled as a double, losing
+   * the upper 8 bytes.
+   */
+  protected final void VECTOR_ZERO16(Instruction s) {
+    RegisterOperand xmm0 = D(getFPR(0));
+    EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PXOR, xmm0, xmm0.copyRO())));
+    EMIT(MIR_Move.mutate(s, IA32_MOVDQU, VECTOR16_MO(Vector16.getAddress(s)), xmm0.copyRO()));
+  }
+
+  /**
+   * Expansion of Magic.copy16
+   */
+  protected final void VECTOR_COPY16(Instruction s) {
+    RegisterOperand xmm0 = D(getFPR(0));
+    EMIT(CPOS(s, MIR_Move.create(IA32_MOVDQU, xmm0, VECTOR16_MO(Vector16.getValue(s)))));
+    EMIT(MIR_Move.mutate(s, IA32_MOVDQU, VECTOR16_MO(Vector16.getAddress(s)), xmm0.copyRO()));
+  }
+
+  /**
+   * Expansion of Magic.compareBytes16
+   */
+  protected final void VECTOR_COMPARE_BYTES16(Instruction s) {
+    RegisterOperand xmm0 = D(getFPR(0));
+    RegisterOperand xmm1 = D(getFPR(1));
+    EMIT(CPOS(s, MIR_Move.create(IA32_MOVDQU, xmm0, VECTOR16_MO(Vector16.getAddress(s)))));
+    EMIT(CPOS(s, MIR_Move.create(IA32_MOVDQU, xmm1, VECTOR16_MO(Vector16.getValue(s)))));
+    EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PCMPEQB, xmm0.copyRO(), xmm1.copyRO())));
+    EMIT(MIR_Unary.mutate(s, IA32_PMOVMSKB, Vector16.getResult(s), xmm0.copyRO()));
+  }
+
+  /**
+   * Expansion of Magic.matchChars16: broadcast the char to all 8 words of
+   * XMM1 and compare them with the 8 chars at the address
+   */
+  protected final void VECTOR_MATCH_CHARS16(Instruction s) {
+    RegisterOperand xmm0 = D(getFPR(0));
+    RegisterOperand xmm1 = D(getFPR(1));
+    Operand c = Vector16.getValue(s);
+    if (!c.isRegister()) {
+      RegisterOperand temp = regpool.makeTempInt();
+      EMIT(CPOS(s, MIR_Move.create(IA32_MOV, temp, c)));
+      c = temp.copyRO();
+    }
+    EMIT(CPOS(s, MIR_Move.create(IA32_MOVD, xmm1, c)));
+    EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PUNPCKLWD, xmm1.copyRO(), xmm1.copyRO())));
+    EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PUNPCKLDQ, xmm1.copyRO(), xmm1.copyRO())));
+    EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PUNPCKLQDQ, xmm1.copyRO(), xmm1.copyRO())));
+    EMIT(CPOS(s, MIR_Move.create(IA32_MOVDQU, xmm0, VECTOR16_MO(Vector16.getAddress(s)))));
+    EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PCMPEQW, xmm0.copyRO(), xmm1.copyRO())));
+    EMIT(MIR_Unary.mutate(s, IA32_PMOVMSKB, Vector16.getResult(s), xmm0.copyRO()));
+  }
+
+  /**
+   * Expansion of the vector array operations created by loop
+   * vectorization. The arrays mightn't be 16 byte aligned so both values
+   * are loaded with MOVDQU before being combined.
+   *
+   * @param s the instruction to expand
+   * @param op the packed operation or null for a move
+   * @param isDouble are the arrays double[] rather than int[]
+   */
+  protected final void VECTOR_ARRAY_OP(Instruction s, Operator op, boolean isDouble) {
+    byte scale = isDouble ? QW_S : DW_S;
+    RegisterOperand xmm0 = D(getFPR(0));
+    RegisterOperand xmm1 = D(getFPR(1));
+    VECTOR_ARRAY_VALUE(s, xmm0, VectorArrayOp.getVal1(s), VectorArrayOp.getIndex1(s), scale, isDouble);
+    if (op != null) {
+      VECTOR_ARRAY_VALUE(s, xmm1, VectorArrayOp.getVal2(s), VectorArrayOp.getIndex2(s), scale, isDouble);
+      EMIT(CPOS(s, MIR_BinaryAcc.create(op, xmm0.copyRO(), xmm1.copyRO())));
+    }
+    EMIT(MIR_Move.mutate(s, IA32_MOVDQU,
+                         MO_VECTOR(VectorArrayOp.getArray(s), VectorArrayOp.getIndex(s), scale),
+                         xmm0.copyRO()));
+  }
+
+  /**
+   * Load a value of a vector array operation into an XMM register: 16
+   * bytes of an array or, with no index, a scalar in every element
+   */
+  private void VECTOR_ARRAY_VALUE(Instruction s, RegisterOperand xmm, Operand val, Operand index,
+                                  byte scale, boolean isDouble) {
+    if (index != null) {
+      EMIT(CPOS(s, MIR_Move.create(IA32_MOVDQU, xmm.copyRO(), MO_VECTOR(val, index, scale))));
+    } else if (isDouble) {
+      EMIT(CPOS(s, MIR_Move.create(IA32_MOVSD, xmm.copyRO(), val.copy())));
+      EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PUNPCKLQDQ, xmm.copyRO(), xmm.copyRO())));
+    } else {
+      if (!val.isRegister()) {
+        RegisterOperand temp = regpool.makeTempInt();
+        EMIT(CPOS(s, MIR_Move.create(IA32_MOV, temp, val.copy())));
+        val = temp.copyRO();
+      }
+      EMIT(CPOS(s, MIR_Move.create(IA32_MOVD, xmm.copyRO(), val.copy())));
+      EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PUNPCKLDQ, xmm.copyRO(), xmm.copyRO())));
+      EMIT(CPOS(s, MIR_BinaryAcc.create(IA32_PUNPCKLQDQ, xmm.copyRO(), xmm.copyRO())));
+    }
+  }
+
   /**
    * Expansion of INT_DIV and INT_REM
    *
@@ -3520,6 +3640,20 @@ Operand value, boolean signExtend) {
     EMIT(MIR_CondBranch.create(IA32_JCC, COND(cond), target, bp));
   }
 
+  /**
+   * This routine expands a FETCH_ADD instruction into an atomic exchange
+   * and add. The value at mo is incremented by value and the result
+   * register is set to the value at mo before the addition.
+   *
+   * @param result the register operand that is set to the old value at mo
+   * @param mo the address at which to add
+   * @param value the value to add at the address mo
+   */
+  protected final void FETCH_ADD(RegisterOperand result, MemoryOperand mo, Operand value) {
+    EMIT(MIR_Move.create(IA32_MOV, result, value));
+    EMIT(MIR_XChng.create(IA32_LOCK_XADD, mo, result.copyRO()));
+  }
+
   /*
    * special case handling OSR instructions expand long type variables to two
    * intergers
@@ -714,7 +714,21 @@ abstract class AssemblerBase extends Assembler
       case IA32_SUBSS_opcode:
       case IA32_MULSS_opcode:
       case IA32_DIVSS_opcode:
-      case IA32_XORPS_opcode: {
+      case IA32_XORPS_opcode:
+      case IA32_PXOR_opcode:
+      case IA32_PCMPEQB_opcode:
+      case IA32_PCMPEQW_opcode:
+      case IA32_PUNPCKLWD_opcode:
+      case IA32_PUNPCKLDQ_opcode:
+      case IA32_PUNPCKLQDQ_opcode:
+      case IA32_PADDD_opcode:
+      case IA32_PSUBD_opcode:
+      case IA32_PAND_opcode:
+      case IA32_POR_opcode:
+      case IA32_ADDPD_opcode:
+      case IA32_SUBPD_opcode:
+      case IA32_MULPD_opcode:
+      case IA32_DIVPD_opcode {
         int size = 4; // opcode + modr/m
         Operand value = MIR_BinaryAcc.getValue(inst);
         size += operandCost(value, false);
@@ -739,7 +753,8 @@ abstract class AssemblerBase extends Assembler
       case IA32_CVTSD2SI_opcode:
       case IA32_CVTTSD2SI_opcode:
       case IA32_CVTSS2SI_opcode:
-      case IA32_CVTTSS2SI_opcode: {
+      case IA32_CVTTSS2SI_opcode:
+      case IA32_PMOVMSKB_opcode: {
         int size = 4; // opcode + modr/m
         Operand result = MIR_Unary.getResult(inst);
         Operand value = MIR_Unary.getVal(inst);
@@ -769,6 +784,7 @@ abstract class AssemblerBase extends Assembler
         return size;
       }
       case IA32_MOVD_opcode:
+      case IA32_MOVDQU_opcode:
       case IA32_MOVLPD_opcode:
       case IA32_MOVQ_opcode:
       case IA32_MOVSS_opcode:
@@ -12,6 +12,7 @@
  */
 package org.jikesrvm.compilers.opt.mir2mc.ia32;
 
+import org.jikesrvm.HeapLayoutConstants;
 import org.jikesrvm.VM;
 import org.jikesrvm.classloader.RVMMethod;
 import org.jikesrvm.compilers.opt.ir.BBend;
@@ -66,14 +67,17 @@ import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LEA_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LOCK;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LOCK_CMPXCHG8B_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LOCK_CMPXCHG_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_LOCK_XADD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOV;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOV_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_MOVZX__B;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_SET__B_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_SHL;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_TEST;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_TEST_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_TRAPIF;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_TRAPIF_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.IA32_XADD;
 import static org.jikesrvm.compilers.opt.ir.Operators.IA32_XOR;
 import static org.jikesrvm.compilers.opt.ir.Operators.NULL_CHECK_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.REQUIRE_ESP_opcode;
@@ -394,6 +398,11 @@ public class FinalMIRExpansion extends IRTools {
           p.operator = IA32_CMPXCHG8B;
           break;
 
+        case IA32_LOCK_XADD_opcode:
+          p.insertBefore(MIR_Empty.create(IA32_LOCK));
+          p.operator = IA32_XADD;
+          break;
+
         case YIELDPOINT_PROLOGUE_opcode:
           expandYieldpoint(p, ir, Entrypoints.optThreadSwitchFromPrologueMethod, IA32ConditionOperand.NE());
           break;
@@ -403,7 +412,12 @@ public class FinalMIRExpansion extends IRTools {
           break;
 
         case YIELDPOINT_BACKEDGE_opcode:
-          expandYieldpoint(p, ir, Entrypoints.optThreadSwitchFromBackedgeMethod, IA32ConditionOperand.GT());
+          // An absolute disp32 operand would be RIP-relative on x86-64
+          if (VM.pollingPageYieldpoints && VM.BuildFor32Addr) {
+            expandPollingYieldpoint(p, ir);
+          } else {
+            expandYieldpoint(p, ir, Entrypoints.optThreadSwitchFromBackedgeMethod, IA32ConditionOperand.GT());
+          }
           break;
 
         case YIELDPOINT_OSR_opcode:
@@ -544,6 +558,25 @@ public class FinalMIRExpansion extends IRTools {
                                                       BranchProfileOperand.never()));
   }
 
+  /**
+   * Expand a yieldpoint into a read of the yieldpoint polling page (see
+   * {@link org.jikesrvm.scheduler.RVMThread#armPollingPage}).  When a
+   * yieldpoint is requested the page is protected and the read faults; the
+   * trap handler then makes it look as if the read had called
+   * {@link Entrypoints#optThreadSwitchFromBackedgeMethod}, returning to the
+   * next instruction.  The read is therefore the GC point, and s is mutated
+   * in place so that it keeps its GC map entry.  Only used on 32-bit
+   * builds, which can address the page with an absolute displacement.
+   *
+   * @param s the yieldpoint instruction
+   * @param ir the containing IR
+   */
+  private static void expandPollingYieldpoint(Instruction s, IR ir) {
+    PhysicalRegisterSet phys = ir.regpool.getPhysicalRegisterSet();
+    MemoryOperand page = MemoryOperand.D(HeapLayoutConstants.YIELDPOINT_POLLING_PAGE, (byte) 4, null, null);
+    MIR_Test.mutate(s, IA32_TEST, page, I(phys.getEAX()));
+  }
+
   /* generate yieldpoint without checking threadSwith request
    */
   private static void expandUnconditionalYieldpoint(Instruction s, IR ir, RVMMethod meth) {
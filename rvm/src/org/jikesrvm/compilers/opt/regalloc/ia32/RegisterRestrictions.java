@@ -213,7 +213,8 @@ public class RegisterRestrictions extends GenericRegisterRestrictions
       case IA32_CVTSS2SI_opcode:
       case IA32_CVTTSD2SI_opcode:
       case IA32_CVTTSS2SI_opcode:
-      case IA32_CVTSI2SS_opcode: {
+      case IA32_CVTSI2SS_opcode:
+      case IA32_PMOVMSKB_opcode: {
         RegisterOperand op = MIR_Unary.getResult(s).asRegister();
         if (op.getRegister() == r) return true;
       }
@@ -229,6 +230,20 @@ public class RegisterRestrictions extends GenericRegisterRestrictions
       case IA32_ANDNPD_opcode:
       case IA32_ORPD_opcode:
       case IA32_XORPD_opcode:
+      case IA32_PXOR_opcode:
+      case IA32_PCMPEQB_opcode:
+      case IA32_PCMPEQW_opcode:
+      case IA32_PUNPCKLWD_opcode:
+      case IA32_PUNPCKLDQ_opcode:
+      case IA32_PUNPCKLQDQ_opcode:
+      case IA32_PADDD_opcode:
+      case IA32_PSUBD_opcode:
+      case IA32_PAND_opcode:
+      case IA32_POR_opcode:
+      case IA32_ADDPD_opcode:
+      case IA32_SUBPD_opcode:
+      case IA32_MULPD_opcode:
+      case IA32_DIVPD_opcode:
         return true;
 
       case IA32_ADDSS_opcode:
@@ -512,6 +512,8 @@ public final class OptCompiledMethod extends CompiledMethod {
     if (patchMap != null) {
       for (int idx = 0; idx < patchMap.length; idx += 2) {
         ArchitectureSpecific.CodeArray code = cm.codeArrayForOffset(Offset.fromIntZeroExtend(patchMap[idx]));
+        Memory.unprotectBootImageCode(Magic.objectAsAddress(code),
+                                      code.length() << ArchitectureSpecific.RegisterConstants.LG_INSTRUCTION_WIDTH);
         if (VM.BuildForIA32) {
           ArchitectureSpecific.Assembler.patchCode(code, patchMap[idx], patchMap[idx + 1]);
         } else if (VM.BuildForPowerPC) {
@@ -50,11 +50,13 @@ import org.jikesrvm.compilers.opt.ir.InstructionEnumeration;
 import org.jikesrvm.compilers.opt.ir.Label;
 import org.jikesrvm.compilers.opt.ir.MonitorOp;
 import org.jikesrvm.compilers.opt.ir.OperandEnumeration;
+import org.jikesrvm.compilers.opt.ir.Operators;
 import org.jikesrvm.compilers.opt.ir.Phi;
 import org.jikesrvm.compilers.opt.ir.Prepare;
 import org.jikesrvm.compilers.opt.ir.Register;
 import org.jikesrvm.compilers.opt.ir.ResultCarrier;
 import org.jikesrvm.compilers.opt.ir.Return;
+import org.jikesrvm.compilers.opt.ir.VectorArrayOp;
 import org.jikesrvm.compilers.opt.ir.operand.BasicBlockOperand;
 import org.jikesrvm.compilers.opt.ir.operand.HeapOperand;
 import org.jikesrvm.compilers.opt.ir.operand.Operand;
@@ -469,6 +471,8 @@ public class EnterSSA extends CompilerPhase {
             Prepare.conforms(s) ||
             Attempt.conforms(s) ||
             CacheOp.conforms(s) ||
+            VectorArrayOp.conforms(s) ||
+            Operators.helper.isHandledByRegisterUnknown(s.getOpcode()) ||
             s.isDynamicLinkingPoint()) {
           dictionary.registerUnknown(s, b);
         }
@@ -0,0 +1,825 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.compilers.opt.ssa;
+
+import static org.jikesrvm.compilers.opt.driver.OptConstants.SYNTH_LOOP_VECTORIZATION_BCI;
+import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_ADD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_ALOAD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_ASTORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_DIV_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_MUL_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_SUB_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.GOTO;
+import static org.jikesrvm.compilers.opt.ir.Operators.GOTO_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.GUARD_COMBINE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.GUARD_MOVE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_ADD;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_ADD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_ALOAD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_AND;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_AND_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_ASTORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_IFCMP;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_IFCMP_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_OR_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_SUB;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_SUB_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_XOR_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.PHI;
+import static org.jikesrvm.compilers.opt.ir.Operators.PHI_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.REF_IFCMP;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_ADD16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_DIV16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_MOVE16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_MUL16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_SUB16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_ADD16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_AND16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_MOVE16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_OR16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_SUB16;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_XOR16;
+import static org.jikesrvm.compilers.opt.ir.Operators.YIELDPOINT_BACKEDGE_opcode;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.jikesrvm.VM;
+import org.jikesrvm.compilers.opt.DefUse;
+import org.jikesrvm.compilers.opt.OptOptions;
+import org.jikesrvm.compilers.opt.controlflow.AnnotatedLSTGraph;
+import org.jikesrvm.compilers.opt.controlflow.AnnotatedLSTNode;
+import org.jikesrvm.compilers.opt.controlflow.DominatorTree;
+import org.jikesrvm.compilers.opt.controlflow.DominatorsPhase;
+import org.jikesrvm.compilers.opt.controlflow.LSTGraph;
+import org.jikesrvm.compilers.opt.controlflow.LTDominators;
+import org.jikesrvm.compilers.opt.driver.CompilerPhase;
+import org.jikesrvm.compilers.opt.ir.ALoad;
+import org.jikesrvm.compilers.opt.ir.AStore;
+import org.jikesrvm.compilers.opt.ir.BasicBlock;
+import org.jikesrvm.compilers.opt.ir.Binary;
+import org.jikesrvm.compilers.opt.ir.Goto;
+import org.jikesrvm.compilers.opt.ir.IR;
+import org.jikesrvm.compilers.opt.ir.IfCmp;
+import org.jikesrvm.compilers.opt.ir.Instruction;
+import org.jikesrvm.compilers.opt.ir.InstructionEnumeration;
+import org.jikesrvm.compilers.opt.ir.InstructionFormat;
+import org.jikesrvm.compilers.opt.ir.Operator;
+import org.jikesrvm.compilers.opt.ir.Phi;
+import org.jikesrvm.compilers.opt.ir.VectorArrayOp;
+import org.jikesrvm.compilers.opt.ir.operand.BasicBlockOperand;
+import org.jikesrvm.compilers.opt.ir.operand.BranchProfileOperand;
+import org.jikesrvm.compilers.opt.ir.operand.ConditionOperand;
+import org.jikesrvm.compilers.opt.ir.operand.IntConstantOperand;
+import org.jikesrvm.compilers.opt.ir.operand.Operand;
+import org.jikesrvm.compilers.opt.ir.operand.RegisterOperand;
+import org.jikesrvm.compilers.opt.util.GraphNode;
+
+/**
+ * This optimisation runs the innermost counted loops over int and
+ * double arrays 16 bytes at a time using the packed SSE2
+ * instructions. It relies on {@link LoopVersioning} having created a
+ * version of the loop whose null and bound checks are made before it
+ * is entered. A loop is vectorized if:
+ *
+ * 1) it is a single block regular {@link AnnotatedLSTNode} whose
+ * iterator counts up by one while less than an invariant value;
+ *
+ * 2) it contains no checks, calls or other PEIs, and no phi other
+ * than the iterator's;
+ *
+ * 3) its arrays are all int[] or all double[], are loop invariant and
+ * are indexed by the iterator plus a constant;
+ *
+ * 4) every store fills the array with an invariant, copies a loaded
+ * element, or combines loaded elements and invariants with an
+ * operation that SSE2 has a packed instruction for.
+ *
+ * An access conflicts with a store when they may be to the same array
+ * and the vector loop could reorder them. A conflict on one array
+ * register stops the loop being vectorized, a conflict between two
+ * array registers becomes a test that they aren't the same array.
+ *
+ * Example:
+ * <listing>
+ *   header:
+ *      t1_2 = phi t1_1, t1_3
+ *      t2 = double_aload l0, t1_2
+ *      t3 = double_mul t2, d1
+ *           double_astore t3, l1, t1_2
+ *      t1_3 = t1_2 + 1
+ *      if t1_3 &lt; t4 goto header
+ * </listing>
+ *
+ * becomes:
+ *
+ * <listing>
+ *   t5 = t4 - t1_1
+ *   t6 = t5 + -1
+ *   t7 = t6 &amp; -2
+ *   t8 = t1_1 + t7
+ *   if t1_1 &gt;= t4 goto join
+ *   if t5 &lt;= 2 goto join
+ *   if l0 == l1 goto join
+ * vector:
+ *   t9 = phi t1_1, t10
+ *        vector_double_mul16 l1, t9, l0, t9, d1
+ *   t10 = t9 + 2
+ *   if t10 &lt; t8 goto vector
+ * join:
+ *   t11 = phi t1_1, t1_1, t1_1, t8
+ * header:
+ *   t1_2 = phi t11, t1_3
+ *   ...
+ * </listing>
+ *
+ * The vector loop always leaves at least one iteration to the
+ * original loop so that values used after the loop are still computed
+ * by it. Sums and other reductions aren't vectorized as there is no
+ * IR type for 16 byte values, the vector operations go from memory to
+ * memory.
+ */
+public final class LoopVectorization extends CompilerPhase {
+  // -oO Debug variables Oo-
+  /**
+   * Flag to optionally print verbose debugging messages
+   */
+  private static final boolean DEBUG = false;
+
+  // -oO Debug routines Oo-
+  /**
+   * Human readable report of what goes on
+   *
+   * @param s String to print
+   **/
+  private static void report(String s) {
+    if (DEBUG) {
+      VM.sysWriteln(s);
+    }
+  }
+
+  /**
+   * Return a string name for this phase.
+   * @return "Loop Vectorization"
+   */
+  @Override
+  public String getName() {
+    return "Loop Vectorization";
+  }
+
+  // -oO Variables used throughout the optimisation phase Oo-
+  /**
+   * Size of an SSE2 register
+   */
+  private static final int BYTES_IN_VECTOR = 16;
+
+  /**
+   * IR for optimisation
+   */
+  private IR ir;
+
+  /**
+   * Loop headers that have been considered, including those of the
+   * loops this phase creates
+   */
+  private HashSet<BasicBlock> processedHeaders;
+
+  /**
+   * Compiler phases called from this one
+   */
+  private final CompilerPhase domPhase;
+
+  // -oO Interface to the rest of the compiler Oo-
+
+  /**
+   * Constructor for this compiler phase
+   */
+  private static final Constructor<CompilerPhase> constructor =
+      getCompilerPhaseConstructor(LoopVectorization.class);
+
+  /**
+   * Get a constructor object for this compiler phase
+   * @return compiler phase constructor
+   */
+  @Override
+  public Constructor<CompilerPhase> getClassConstructor() {
+    return constructor;
+  }
+
+  /**
+   * Constructor
+   */
+  public LoopVectorization() {
+    domPhase = new DominatorsPhase(false);
+  }
+
+  /**
+   * Should the optimisation be performed? Only the SSE2 BURS rules can
+   * select the vector operations, so other targets keep scalar loops.
+   */
+  @Override
+  public boolean shouldPerform(OptOptions options) {
+    return options.SSA_LOOP_VECTORIZATION && VM.BuildForSSE2Full;
+  }
+
+  /**
+   * The main entry point
+   *
+   * @param _ir the IR to process
+   */
+  @Override
+  public void perform(IR _ir) {
+    ir = _ir;
+    if (ir.hasReachableExceptionHandlers()) {
+      return;
+    }
+    // Build LST tree and dominator info
+    domPhase.perform(ir);
+    DefUse.computeDU(ir);
+    // Build annotated version
+    ir.HIRInfo.loopStructureTree = new AnnotatedLSTGraph(ir, ir.HIRInfo.loopStructureTree);
+
+    processedHeaders = new HashSet<BasicBlock>();
+    while (findLoopToVectorize((AnnotatedLSTNode) ir.HIRInfo.loopStructureTree.getRoot())) {
+      if (DEBUG) {
+        VM.sysWriteln("Successful vectorization of " + ir.getMethod());
+        SSA.printInstructions(ir);
+      }
+      // Get IR into shape for next pass
+      DefUse.computeDU(ir);
+      LTDominators.perform(ir, true, true);
+      ir.HIRInfo.dominatorTree = new DominatorTree(ir, true);
+      LSTGraph.perform(ir);
+      AnnotatedLSTGraph.perform(ir);
+    }
+    // No longer in use
+    processedHeaders = null;
+  }
+
+  // -oO Analysis Oo-
+
+  /**
+   * An array element accessed in every iteration of the loop
+   */
+  private static final class ArrayAccess {
+    /**
+     * The load or store
+     */
+    final Instruction instruction;
+    /**
+     * Position of the access in the loop body
+     */
+    final int position;
+    /**
+     * Distance of the index from the phi iterator
+     */
+    final int distance;
+    /**
+     * The array, followed through moves until it's made available
+     * before the loop
+     */
+    Operand array;
+
+    ArrayAccess(Instruction instruction, int position, Operand array, int distance) {
+      this.instruction = instruction;
+      this.position = position;
+      this.array = array;
+      this.distance = distance;
+    }
+  }
+
+  /**
+   * A store in the loop and the vector operation that computes 16
+   * bytes of it. Each value is a loaded array element or an invariant
+   * repeated in every element.
+   */
+  private static final class VectorStatement {
+    final ArrayAccess store;
+    final Operator operator;
+    final ArrayAccess load1;
+    final ArrayAccess load2;
+    Operand scalar1;
+    Operand scalar2;
+
+    VectorStatement(ArrayAccess store, Operator operator,
+                    ArrayAccess load1, Operand scalar1, ArrayAccess load2, Operand scalar2) {
+      this.store = store;
+      this.operator = operator;
+      this.load1 = load1;
+      this.scalar1 = scalar1;
+      this.load2 = load2;
+      this.scalar2 = scalar2;
+    }
+  }
+
+  /**
+   * Find an innermost loop to vectorize and vectorize it.
+   *
+   * @param loop  Loop to search
+   * @return was a loop vectorized
+   */
+  private boolean findLoopToVectorize(AnnotatedLSTNode loop) {
+    boolean isInnermost = true;
+    Enumeration<GraphNode> innerLoops = loop.outNodes();
+    while (innerLoops.hasMoreElements()) {
+      isInnermost = false;
+      if (findLoopToVectorize((AnnotatedLSTNode) innerLoops.nextElement())) {
+        return true;
+      }
+    }
+    if (!isInnermost || loop.isNonRegularLoop() || processedHeaders.contains(loop.header)) {
+      return false;
+    }
+    processedHeaders.add(loop.header);
+    return vectorizeLoop(loop);
+  }
+
+  /**
+   * Is the operand the phi iterator plus or minus constants?
+   *
+   * @param loop the loop
+   * @param index the operand to test
+   */
+  private static boolean isUnitStrideIndex(AnnotatedLSTNode loop, Operand index) {
+    if (loop.isPhiLoopIterator(index)) {
+      return true;
+    } else if (!index.isRegister()) {
+      return false;
+    }
+    Instruction def = AnnotatedLSTNode.definingInstruction(index);
+    switch (def.getOpcode()) {
+      case INT_ADD_opcode:
+        return (Binary.getVal1(def).isIntConstant() && isUnitStrideIndex(loop, Binary.getVal2(def))) ||
+               (Binary.getVal2(def).isIntConstant() && isUnitStrideIndex(loop, Binary.getVal1(def)));
+      case INT_SUB_opcode:
+        return Binary.getVal2(def).isIntConstant() && isUnitStrideIndex(loop, Binary.getVal1(def));
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Can the instruction be left out of the vector loop? It mustn't
+   * have any effect other than defining its result.
+   *
+   * @param s the instruction to test
+   */
+  private static boolean isPureComputation(Instruction s) {
+    if (s.isPEI() || s.isImplicitLoad() || s.isImplicitStore() || s.isCall() ||
+        s.isAllocation() || s.isBranch() || s.isYieldPoint()) {
+      return false;
+    }
+    switch (s.operator().format) {
+      case InstructionFormat.Binary_format:
+      case InstructionFormat.GuardedBinary_format:
+      case InstructionFormat.GuardedUnary_format:
+      case InstructionFormat.Move_format:
+      case InstructionFormat.Unary_format:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Get the vector operator for a scalar operator whose result is
+   * stored in the loop
+   *
+   * @param operator the scalar operator
+   * @return the vector operator or null if there isn't one
+   */
+  private static Operator getVectorOperator(Operator operator) {
+    switch (operator.opcode) {
+      case INT_ADD_opcode:
+        return VECTOR_INT_ADD16;
+      case INT_SUB_opcode:
+        return VECTOR_INT_SUB16;
+      case INT_AND_opcode:
+        return VECTOR_INT_AND16;
+      case INT_OR_opcode:
+        return VECTOR_INT_OR16;
+      case INT_XOR_opcode:
+        return VECTOR_INT_XOR16;
+      case DOUBLE_ADD_opcode:
+        return VECTOR_DOUBLE_ADD16;
+      case DOUBLE_SUB_opcode:
+        return VECTOR_DOUBLE_SUB16;
+      case DOUBLE_MUL_opcode:
+        return VECTOR_DOUBLE_MUL16;
+      case DOUBLE_DIV_opcode:
+        return VECTOR_DOUBLE_DIV16;
+      default:
+        // NB SSE2 has no packed 32bit multiply
+        return null;
+    }
+  }
+
+  /**
+   * Work out the vector operation for a store
+   *
+   * @param loop the loop
+   * @param store the store
+   * @param loads the loads in the loop
+   * @param isDouble are the arrays double[] rather than int[]
+   * @return the vector operation or null if the stored value can't be
+   * vectorized
+   */
+  private static VectorStatement getVectorStatement(AnnotatedLSTNode loop, ArrayAccess store,
+                                                    HashMap<Instruction, ArrayAccess> loads, boolean isDouble) {
+    Operator move = isDouble ? VECTOR_DOUBLE_MOVE16 : VECTOR_INT_MOVE16;
+    Operand value = AStore.getValue(store.instruction);
+    // a fill?
+    if (loop.isInvariant(value)) {
+      return new VectorStatement(store, move, null, value, null, null);
+    }
+    Instruction def = AnnotatedLSTNode.follow(value).instruction;
+    // a copy?
+    if (loads.containsKey(def)) {
+      return new VectorStatement(store, move, loads.get(def), null, null, null);
+    }
+    // an element-wise operation?
+    if (!Binary.conforms(def) || (getVectorOperator(def.operator()) == null)) {
+      return null;
+    }
+    Operand val1 = Binary.getVal1(def);
+    Operand val2 = Binary.getVal2(def);
+    ArrayAccess load1 = null;
+    ArrayAccess load2 = null;
+    if (!loop.isInvariant(val1)) {
+      load1 = loads.get(AnnotatedLSTNode.follow(val1).instruction);
+      if (load1 == null) {
+        return null;
+      }
+      val1 = null;
+    }
+    if (!loop.isInvariant(val2)) {
+      load2 = loads.get(AnnotatedLSTNode.follow(val2).instruction);
+      if (load2 == null) {
+        return null;
+      }
+      val2 = null;
+    }
+    return new VectorStatement(store, getVectorOperator(def.operator()), load1, val1, load2, val2);
+  }
+
+  /**
+   * Record that two arrays must not be the same for the vector loop to
+   * be correct
+   *
+   * @param aliasTests the pairs of arrays already to be tested
+   * @param a1 an access
+   * @param a2 another access
+   * @return false if the arrays are the same register and the loop
+   * can't be vectorized
+   */
+  private static boolean addAliasTest(ArrayList<ArrayAccess[]> aliasTests, ArrayAccess a1, ArrayAccess a2) {
+    if (a1.array.similar(a2.array)) {
+      return false;
+    }
+    for (ArrayAccess[] test : aliasTests) {
+      if ((test[0].array.similar(a1.array) && test[1].array.similar(a2.array)) ||
+          (test[0].array.similar(a2.array) && test[1].array.similar(a1.array))) {
+        return true;
+      }
+    }
+    aliasTests.add(new ArrayAccess[]{a1, a2});
+    return true;
+  }
+
+  /**
+   * Try to vectorize a loop
+   *
+   * @param loop the loop
+   * @return was the loop vectorized
+   */
+  private boolean vectorizeLoop(AnnotatedLSTNode loop) {
+    BasicBlock header = loop.header;
+
+    // 1) Check the loop is a single block counting up by one while
+    // the iterator is less than an invariant
+    if ((header != loop.exit) || !loop.isMonotonic() || (loop.getMonotonicStrideValue() != 1)) {
+      return false;
+    }
+    Instruction branch = header.firstBranchInstruction();
+    if ((branch.getOpcode() != INT_IFCMP_opcode) ||
+        !IfCmp.getCond(branch).isLESS() ||
+        !loop.isCarriedLoopIterator(AnnotatedLSTNode.follow(IfCmp.getVal1(branch))) ||
+        !loop.isInvariant(IfCmp.getVal2(branch))) {
+      return false;
+    }
+    Instruction iterator = AnnotatedLSTNode.definingInstruction(loop.getCarriedLoopIterator());
+    if ((iterator.getOpcode() != INT_ADD_opcode) || (iterator.getBasicBlock() != header)) {
+      return false;
+    }
+    Instruction phi = AnnotatedLSTNode.follow(Binary.getVal1(iterator)).instruction;
+    if (!Phi.conforms(phi) || (phi.getBasicBlock() != header)) {
+      return false;
+    }
+    int entry = -1;
+    for (int i = 0; i < Phi.getNumberOfPreds(phi); i++) {
+      if (Phi.getPred(phi, i).block == loop.predecessor) {
+        entry = i;
+      }
+    }
+    if (entry == -1) {
+      return false;
+    }
+
+    // 2) Check the loop body and find its array accesses
+    int elementSize = 0;
+    Instruction yieldpoint = null;
+    HashMap<Instruction, ArrayAccess> loads = new HashMap<Instruction, ArrayAccess>();
+    ArrayList<ArrayAccess> stores = new ArrayList<ArrayAccess>();
+    int position = 0;
+    for (InstructionEnumeration e = header.forwardRealInstrEnumerator(); e.hasMoreElements(); position++) {
+      Instruction s = e.next();
+      switch (s.getOpcode()) {
+        case PHI_opcode:
+          if (s != phi) {
+            report("Loop carries a value other than its iterator");
+            return false;
+          }
+          break;
+        case INT_IFCMP_opcode:
+          if (s != branch) {
+            return false;
+          }
+          break;
+        case GOTO_opcode:
+        case GUARD_MOVE_opcode:
+        case GUARD_COMBINE_opcode:
+          break;
+        case YIELDPOINT_BACKEDGE_opcode:
+          yieldpoint = s;
+          break;
+        case INT_ALOAD_opcode:
+        case DOUBLE_ALOAD_opcode:
+        case INT_ASTORE_opcode:
+        case DOUBLE_ASTORE_opcode: {
+          boolean isLoad = ALoad.conforms(s);
+          int size = ((s.getOpcode() == INT_ALOAD_opcode) || (s.getOpcode() == INT_ASTORE_opcode)) ? 4 : 8;
+          if ((elementSize != 0) && (elementSize != size)) {
+            return false;
+          }
+          elementSize = size;
+          Operand array = isLoad ? ALoad.getArray(s) : AStore.getArray(s);
+          Operand index = isLoad ? ALoad.getIndex(s) : AStore.getIndex(s);
+          if (!loop.isInvariant(array) || !isUnitStrideIndex(loop, index)) {
+            return false;
+          }
+          ArrayAccess access =
+              new ArrayAccess(s, position, AnnotatedLSTNode.follow(array), loop.getFixedDistanceFromPhiIterator(index));
+          if (isLoad) {
+            loads.put(s, access);
+          } else {
+            stores.add(access);
+          }
+          break;
+        }
+        default:
+          if (!isPureComputation(s)) {
+            report("Can't vectorize loop containing " + s);
+            return false;
+          }
+      }
+    }
+    if (stores.isEmpty()) {
+      return false;
+    }
+    boolean isDouble = elementSize == 8;
+    int lanes = BYTES_IN_VECTOR / elementSize;
+
+    // 3) Work out the vector operation for each store
+    ArrayList<VectorStatement> statements = new ArrayList<VectorStatement>();
+    ArrayList<ArrayAccess> accesses = new ArrayList<ArrayAccess>(stores);
+    for (ArrayAccess store : stores) {
+      VectorStatement statement = getVectorStatement(loop, store, loads, isDouble);
+      if (statement == null) {
+        report("Can't vectorize store " + store.instruction);
+        return false;
+      }
+      statements.add(statement);
+      if ((statement.load1 != null) && !accesses.contains(statement.load1)) {
+        accesses.add(statement.load1);
+      }
+      if ((statement.load2 != null) && !accesses.contains(statement.load2)) {
+        accesses.add(statement.load2);
+      }
+    }
+
+    // 4) Find the accesses the vector loop could reorder. Another
+    // access to a different element of the stored array would see or
+    // clobber elements of later iterations, and a load before a store
+    // to its array would see that store if it was moved down to the
+    // statement using it.
+    ArrayList<ArrayAccess[]> aliasTests = new ArrayList<ArrayAccess[]>();
+    for (VectorStatement statement : statements) {
+      for (ArrayAccess access : accesses) {
+        if ((access != statement.store) && (access.distance != statement.store.distance) &&
+            !addAliasTest(aliasTests, statement.store, access)) {
+          report("Can't vectorize loop with dependence between " + statement.store.instruction +
+                 " and " + access.instruction);
+          return false;
+        }
+      }
+      for (ArrayAccess load : new ArrayAccess[]{statement.load1, statement.load2}) {
+        if (load != null) {
+          for (ArrayAccess store : stores) {
+            if ((store.position > load.position) && (store.position < statement.store.position) &&
+                !addAliasTest(aliasTests, store, load)) {
+              report("Can't vectorize loop with " + store.instruction + " between " + load.instruction +
+                     " and " + statement.store.instruction);
+              return false;
+            }
+          }
+        }
+      }
+    }
+    if (DEBUG) {
+      VM.sysWriteln("Vectorizing loop in " + ir.getMethod() + ":");
+      VM.sysWriteln(loop.toString());
+    }
+
+    // 5) Make the invariants available before the loop
+    BasicBlock join = createBlock(header);
+    ArrayList<BasicBlock> testBlocks = new ArrayList<BasicBlock>();
+    BasicBlock block = createBlock(header);
+    testBlocks.add(block);
+    for (ArrayAccess access : accesses) {
+      access.array = loop.generateLoopInvariantOperand(block, access.array);
+    }
+    for (VectorStatement statement : statements) {
+      if (statement.scalar1 != null) {
+        statement.scalar1 = loop.generateLoopInvariantOperand(block, statement.scalar1);
+      }
+      if (statement.scalar2 != null) {
+        statement.scalar2 = loop.generateLoopInvariantOperand(block, statement.scalar2);
+      }
+    }
+    Operand terminal = loop.generateLoopInvariantOperand(block, IfCmp.getVal2(branch));
+    Operand initial = Phi.getValue(phi, entry);
+
+    // 6) Work out the iterations to run 16 bytes at a time, leaving at
+    // least one for the original loop
+    RegisterOperand count = ir.regpool.makeTempInt();
+    appendInstruction(block, Binary.create(INT_SUB, count, terminal.copy(), initial.copy()));
+    RegisterOperand countLessOne = ir.regpool.makeTempInt();
+    appendInstruction(block, Binary.create(INT_ADD, countLessOne, count.copyRO(), new IntConstantOperand(-1)));
+    RegisterOperand vectorCount = ir.regpool.makeTempInt();
+    appendInstruction(block,
+                      Binary.create(INT_AND, vectorCount, countLessOne.copyRO(), new IntConstantOperand(-lanes)));
+    RegisterOperand vectorEnd = ir.regpool.makeTempInt();
+    appendInstruction(block, Binary.create(INT_ADD, vectorEnd, initial.copy(), vectorCount.copyRO()));
+
+    // 7) Create the tests that skip the vector loop. NB the count can
+    // only overflow to a negative value once the loop is known to run
+    ArrayList<Instruction> tests = new ArrayList<Instruction>();
+    tests.add(IfCmp.create(INT_IFCMP, ir.regpool.makeTempValidation(), initial.copy(), terminal.copy(),
+                           ConditionOperand.GREATER_EQUAL(), join.makeJumpTarget(), BranchProfileOperand.unlikely()));
+    tests.add(IfCmp.create(INT_IFCMP, ir.regpool.makeTempValidation(), count.copyRO(),
+                           new IntConstantOperand(lanes), ConditionOperand.LESS_EQUAL(), join.makeJumpTarget(),
+                           new BranchProfileOperand()));
+    for (ArrayAccess[] test : aliasTests) {
+      tests.add(IfCmp.create(REF_IFCMP, ir.regpool.makeTempValidation(), test[0].array.copy(), test[1].array.copy(),
+                             ConditionOperand.EQUAL(), join.makeJumpTarget(), BranchProfileOperand.unlikely()));
+    }
+    BasicBlock vector = createBlock(header);
+    for (int i = 0; i < tests.size(); i++) {
+      BasicBlock next = (i == tests.size() - 1) ? vector : createBlock(header);
+      appendInstruction(block, tests.get(i));
+      appendInstruction(block, Goto.create(GOTO, next.makeJumpTarget()));
+      if (next != vector) {
+        block = next;
+        testBlocks.add(block);
+      }
+    }
+
+    // 8) Create the vector loop
+    RegisterOperand vectorIterator = ir.regpool.makeTempInt();
+    RegisterOperand nextVectorIterator = ir.regpool.makeTempInt();
+    Instruction vectorPhi = Phi.create(PHI, vectorIterator, 2);
+    Phi.setValue(vectorPhi, 0, initial.copy());
+    Phi.setPred(vectorPhi, 0, new BasicBlockOperand(block));
+    Phi.setValue(vectorPhi, 1, nextVectorIterator.copyRO());
+    Phi.setPred(vectorPhi, 1, new BasicBlockOperand(vector));
+    appendInstruction(vector, vectorPhi);
+    if (yieldpoint != null) {
+      Instruction copy = yieldpoint.copyWithoutLinks();
+      vector.appendInstruction(copy);
+      DefUse.updateDUForNewInstruction(copy);
+    }
+    HashMap<Integer, Operand> indices = new HashMap<Integer, Operand>();
+    for (VectorStatement statement : statements) {
+      ArrayAccess store = statement.store;
+      Instruction s =
+          VectorArrayOp.create(statement.operator,
+                               store.array.copy(),
+                               getVectorIndex(vector, indices, vectorIterator, store.distance),
+                               (statement.load1 != null) ? statement.load1.array.copy() : statement.scalar1.copy(),
+                               (statement.load1 != null) ?
+                                   getVectorIndex(vector, indices, vectorIterator, statement.load1.distance) : null,
+                               (statement.load2 != null) ? statement.load2.array.copy() :
+                                   ((statement.scalar2 != null) ? statement.scalar2.copy() : null),
+                               (statement.load2 != null) ?
+                                   getVectorIndex(vector, indices, vectorIterator, statement.load2.distance) : null);
+      s.copyPosition(store.instruction);
+      vector.appendInstruction(s);
+      DefUse.updateDUForNewInstruction(s);
+    }
+    appendInstruction(vector,
+                      Binary.create(INT_ADD, nextVectorIterator, vectorIterator.copyRO(), new IntConstantOperand(lanes)));
+    appendInstruction(vector,
+                      IfCmp.create(INT_IFCMP, ir.regpool.makeTempValidation(), nextVectorIterator.copyRO(),
+                                   vectorEnd.copyRO(), ConditionOperand.LESS(), vector.makeJumpTarget(),
+                                   BranchProfileOperand.likely()));
+    appendInstruction(vector, Goto.create(GOTO, join.makeJumpTarget()));
+    processedHeaders.add(vector);
+
+    // 9) Join the paths into the original loop, which carries on from
+    // where the vector loop stopped
+    RegisterOperand start = ir.regpool.makeTempInt();
+    Instruction joinPhi = Phi.create(PHI, start, testBlocks.size() + 1);
+    for (int i = 0; i < testBlocks.size(); i++) {
+      Phi.setValue(joinPhi, i, initial.copy());
+      Phi.setPred(joinPhi, i, new BasicBlockOperand(testBlocks.get(i)));
+    }
+    Phi.setValue(joinPhi, testBlocks.size(), vectorEnd.copyRO());
+    Phi.setPred(joinPhi, testBlocks.size(), new BasicBlockOperand(vector));
+    appendInstruction(join, joinPhi);
+    appendInstruction(join, Goto.create(GOTO, header.makeJumpTarget()));
+    Phi.setValue(phi, entry, start.copyRO());
+    Phi.setPred(phi, entry, new BasicBlockOperand(join));
+
+    // 10) Fix up the CFG
+    loop.predecessor.redirectOuts(header, testBlocks.get(0), ir);
+    for (BasicBlock testBlock : testBlocks) {
+      testBlock.recomputeNormalOut(ir);
+    }
+    vector.recomputeNormalOut(ir);
+    join.recomputeNormalOut(ir);
+    ir.cfg.compactNodeNumbering();
+    return true;
+  }
+
+  /**
+   * Create an empty block at the end of the code order
+   *
+   * @param header the header of the loop being vectorized
+   * @return the new block
+   */
+  private BasicBlock createBlock(BasicBlock header) {
+    BasicBlock block = header.createSubBlock(SYNTH_LOOP_VECTORIZATION_BCI, ir);
+    ir.cfg.linkInCodeOrder(ir.cfg.lastInCodeOrder(), block);
+    return block;
+  }
+
+  /**
+   * Append a synthesized instruction to a block
+   *
+   * @param block the block
+   * @param s the instruction
+   */
+  private static void appendInstruction(BasicBlock block, Instruction s) {
+    s.setBytecodeIndex(SYNTH_LOOP_VECTORIZATION_BCI);
+    block.appendInstruction(s);
+    DefUse.updateDUForNewInstruction(s);
+  }
+
+  /**
+   * Get the index of an access in the vector loop
+   *
+   * @param vector the vector loop
+   * @param indices the indices already computed, keyed by distance
+   * @param vectorIterator the iterator of the vector loop
+   * @param distance the distance of the access from the iterator
+   * @return the index
+   */
+  private Operand getVectorIndex(BasicBlock vector, HashMap<Integer, Operand> indices,
+                                 RegisterOperand vectorIterator, int distance) {
+    if (distance == 0) {
+      return vectorIterator.copyRO();
+    }
+    Operand index = indices.get(distance);
+    if (index == null) {
+      RegisterOperand result = ir.regpool.makeTempInt();
+      appendInstruction(vector,
+                        Binary.create(INT_ADD, result, vectorIterator.copyRO(), new IntConstantOperand(distance)));
+      index = result;
+      indices.put(distance, index);
+    }
+    return index.copy();
+  }
+}
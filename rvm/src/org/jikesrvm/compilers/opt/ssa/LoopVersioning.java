@@ -344,7 +344,8 @@ public final class LoopVersioning extends CompilerPhase {
    */
   @Override
   public boolean shouldPerform(OptOptions options) {
-    return options.SSA_LOOP_VERSIONING;
+    // vectorization relies on the versioned loop having no checks
+    return options.SSA_LOOP_VERSIONING || options.SSA_LOOP_VECTORIZATION;
   }
 
   /**
@@ -1244,7 +1245,7 @@ public final class LoopVersioning extends CompilerPhase {
             IfCmp.create(INT_IFCMP,
                          lowerBoundGuard,
                          minIndexValue.copy(),
-                         array_length.copyRO(),
+                         new IntConstantOperand(0),
                          ConditionOperand.LESS(),
                          unoptimizedLoopEntry.makeJumpTarget(),
                          BranchProfileOperand.unlikely());
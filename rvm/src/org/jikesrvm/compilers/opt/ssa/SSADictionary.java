@@ -49,6 +49,7 @@ import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_ALOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_ASTORE_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_LOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_STORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.FETCH_ADD_INT_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_ALOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_ASTORE_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.GETFIELD_opcode;
@@ -91,6 +92,17 @@ import static org.jikesrvm.compilers.opt.ir.Operators.UNINT_BEGIN_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.UNINT_END_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.USHORT_ALOAD_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.USHORT_LOAD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_ADD16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_DIV16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_MOVE16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_MUL16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_DOUBLE_SUB16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_ADD16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_AND16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_MOVE16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_OR16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_SUB16_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.VECTOR_INT_XOR16_opcode;
 import static org.jikesrvm.compilers.opt.ir.Operators.WRITE_FLOOR_opcode;
 import org.jikesrvm.compilers.opt.ir.Phi;
 import org.jikesrvm.compilers.opt.ir.PutField;
@@ -854,8 +866,20 @@ public final class SSADictionary {
       case PREPARE_ADDR_opcode:
       case ATTEMPT_INT_opcode:
       case ATTEMPT_ADDR_opcode:
+      case FETCH_ADD_INT_opcode:
       case READ_CEILING_opcode:
       case WRITE_FLOOR_opcode:
+      case VECTOR_DOUBLE_ADD16_opcode:
+      case VECTOR_DOUBLE_DIV16_opcode:
+      case VECTOR_DOUBLE_MOVE16_opcode:
+      case VECTOR_DOUBLE_MUL16_opcode:
+      case VECTOR_DOUBLE_SUB16_opcode:
+      case VECTOR_INT_ADD16_opcode:
+      case VECTOR_INT_AND16_opcode:
+      case VECTOR_INT_MOVE16_opcode:
+      case VECTOR_INT_OR16_opcode:
+      case VECTOR_INT_SUB16_opcode:
+      case VECTOR_INT_XOR16_opcode:
         // do nothing: these cases handled by registerUnknown
         break;
       case UBYTE_LOAD_opcode:
@@ -5855,9 +5855,10 @@ public class JNIFunctions implements SizeConstants {
 
   /**
    * GetPrimitiveArrayCritical: return a direct pointer to the primitive array
-   * and disable GC so that the array will not be moved.  This function
-   * is intended to be paired with the ReleasePrimitiveArrayCritical function
-   * within a short time so that GC will be reenabled
+   * and pin it so that the array will not be moved.  If the plan can not pin
+   * the array, GC is disabled instead.  This function is intended to be paired
+   * with the ReleasePrimitiveArrayCritical function within a short time so that
+   * the array is unpinned (or GC reenabled)
    *
    * @param env A JREF index for the JNI environment object
    * @param arrayJREF a JREF index for the primitive array in Java
@@ -5883,8 +5884,12 @@ public class JNIFunctions implements SizeConstants {
          address */
       JNIGenericHelpers.setBoolStar(isCopyAddress, false);
 
-      // For array of primitive, return the object address, which is the array itself
-      VM.disableGC(true);
+      // For array of primitive, return the object address, which is the array itself.
+      // Pin the array so collections can go ahead while native code holds it; if the
+      // plan can't pin it, hold off collection until the matching release instead.
+      if (!MemoryManager.pin(primitiveArray)) {
+        VM.disableGC(true);
+      }
       return Magic.objectAsAddress(primitiveArray);
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
@@ -5897,7 +5902,8 @@ public class JNIFunctions implements SizeConstants {
    * ReleasePrimitiveArrayCritical: this function is intended to be paired
    * with the GetPrimitiveArrayCritical function.
    * Since the native code has direct access
-   * to the array, no copyback update is necessary;  GC is simply reenabled.
+   * to the array, no copyback update is necessary;  the array is unpinned,
+   * or GC is reenabled if it could not be pinned.
    * @param env A JREF index for the JNI environment object
    * @param arrayJREF a JREF index for the primitive array in Java
    * @param arrayCopyAddress
@@ -5911,7 +5917,10 @@ public class JNIFunctions implements SizeConstants {
     RuntimeEntrypoints.checkJNICountDownToGC();
 
     try {
-      VM.enableGC(true);
+      Object primitiveArray = env.getJNIRef(arrayJREF);
+      if (!MemoryManager.unpin(primitiveArray)) {
+        VM.enableGC(true);
+      }
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
       env.recordException(unexpected);
@@ -5940,7 +5949,9 @@ public class JNIFunctions implements SizeConstants {
        address */
     JNIGenericHelpers.setBoolStar(isCopyAddress, false);
 
-    VM.disableGC(true);
+    if (!MemoryManager.pin(strChars)) {
+      VM.disableGC(true);
+    }
     Address strBase = Magic.objectAsAddress(strChars);
     return strBase.plus(strOffset * 2);
   }
@@ -5949,10 +5960,11 @@ public class JNIFunctions implements SizeConstants {
    * ReleaseStringCritical: this function is intended to be paired with the
    * GetStringCritical function.  Since the native code has direct access
    * to the string's backing array of characters, no copyback update is
-   * necessary;  GC is simply reenabled.
+   * necessary;  the backing array is unpinned, or GC is reenabled if it
+   * could not be pinned.
    *
    * @param env A JREF index for the JNI environment object
-   * @param strJREF a JREF index for the string in Java (ignored)
+   * @param strJREF a JREF index for the string in Java
    * @param carray the pointer returned by GetStringCritical (ignored)
    */
   private static void ReleaseStringCritical(JNIEnvironment env, int strJREF, Address carray) {
@@ -5960,7 +5972,11 @@ public class JNIFunctions implements SizeConstants {
     RuntimeEntrypoints.checkJNICountDownToGC();
 
     try {
-      VM.enableGC(true);
+      String str = (String) env.getJNIRef(strJREF);
+      char[] strChars = java.lang.JikesRVMSupport.getBackingCharArray(str);
+      if (!MemoryManager.unpin(strChars)) {
+        VM.enableGC(true);
+      }
     } catch (Throwable unexpected) {
       if (traceJNI) unexpected.printStackTrace(System.err);
       env.recordException(unexpected);
@@ -12,9 +12,9 @@
  */
 package org.jikesrvm.jni;
 
-import java.lang.ref.WeakReference;
 import org.jikesrvm.VM;
 import org.jikesrvm.runtime.Magic;
+import org.jikesrvm.mm.mminterface.Barriers;
 import org.jikesrvm.mm.mminterface.MemoryManager;
 import org.vmmagic.pragma.Entrypoint;
 import org.vmmagic.pragma.Uninterruptible;
@@ -23,27 +23,93 @@ import org.vmmagic.unboxed.AddressArray;
 import org.vmmagic.unboxed.Address;
 
 /**
- * Weak Global References are global references (negative numbers), with the
- * 2^30 bit UNset.  Mask in the 2^30 bit to get the real index into the table.
+ * Global and weak global references handed out to native code.<p>
+ *
+ * Global references are negative numbers: the negated index of a slot in
+ * {@link #JNIGlobalRefs}.  Weak global references are encoded the same way
+ * from an index into {@link #JNIWeakGlobalRefs}, but with the 2^30 bit
+ * UNset.  Mask in the 2^30 bit to get the real index into the table.<p>
+ *
+ * Deleted slots are threaded onto a per-table free list and reused, so a
+ * table only grows when the number of live references exceeds its size.
+ * Slot 0 of each table is never used, so that 0 can terminate the free
+ * lists and stand for the null reference.<p>
+ *
+ * The strong table is scanned as a set of roots.  The weak table is not:
+ * the weak reference processor clears slots whose referent did not
+ * survive, and forwards the rest.
  */
 public class JNIGlobalRefTable {
 
+  /** Initial number of slots in each table */
+  private static final int INITIAL_SIZE = 100;
+
   @Entrypoint
-  public static AddressArray JNIGlobalRefs = AddressArray.create(100);
-  private static int free = 1;
+  public static AddressArray JNIGlobalRefs = AddressArray.create(INITIAL_SIZE);
+
+  @Entrypoint
+  public static AddressArray JNIWeakGlobalRefs = AddressArray.create(INITIAL_SIZE);
+
+  /** Free list links for each table, indexed by slot; 0 terminates */
+  private static int[] globalFreeList = new int[INITIAL_SIZE];
+  private static int[] weakFreeList = new int[INITIAL_SIZE];
 
-  static int newGlobalRef(Object referent) {
+  /** Head of each free list, 0 if empty */
+  private static int globalFreeHead = 0;
+  private static int weakFreeHead = 0;
+
+  /** First slot of each table that has never been handed out */
+  private static int globalHighWater = 1;
+  private static int weakHighWater = 1;
+
+  /* Weak references are returned with the STRONG_REF_BIT bit UNset.  */
+  public static final int STRONG_REF_BIT = 1 << 30;
+
+  static synchronized int newGlobalRef(Object referent) {
     if (VM.VerifyAssertions) VM._assert(MemoryManager.validRef(ObjectReference.fromObject(referent)));
+    if (referent == null) return 0;
 
-    if (free >= JNIGlobalRefs.length()) {
-      AddressArray newGlobalRefs = AddressArray.create(JNIGlobalRefs.length() * 2);
-      copyAndReplaceGlobalRefs(newGlobalRefs);
+    int slot = globalFreeHead;
+    if (slot != 0) {
+      globalFreeHead = globalFreeList[slot];
+    } else {
+      if (globalHighWater >= JNIGlobalRefs.length()) {
+        int newLength = JNIGlobalRefs.length() * 2;
+        AddressArray newGlobalRefs = AddressArray.create(newLength);
+        globalFreeList = new int[newLength];
+        copyAndReplaceGlobalRefs(newGlobalRefs);
+      }
+      slot = globalHighWater++;
     }
+    JNIGlobalRefs.set(slot, Magic.objectAsAddress(referent));
+    return -slot;
+  }
+
+  static synchronized int newWeakRef(Object referent) {
+    if (VM.VerifyAssertions) VM._assert(MemoryManager.validRef(ObjectReference.fromObject(referent)));
+    if (referent == null) return 0;
 
-    JNIGlobalRefs.set(free, Magic.objectAsAddress(referent));
-    return -free++;
+    int slot = weakFreeHead;
+    if (slot != 0) {
+      weakFreeHead = weakFreeList[slot];
+    } else {
+      if (weakHighWater >= JNIWeakGlobalRefs.length()) {
+        int newLength = JNIWeakGlobalRefs.length() * 2;
+        AddressArray newWeakRefs = AddressArray.create(newLength);
+        weakFreeList = new int[newLength];
+        copyAndReplaceWeakRefs(newWeakRefs);
+      }
+      slot = weakHighWater++;
+    }
+    JNIWeakGlobalRefs.set(slot, Magic.objectAsAddress(referent));
+    return -slot & ~STRONG_REF_BIT;
   }
 
+  /**
+   * Install a larger strong table.  Uninterruptible so that the
+   * collector never sees a partially copied table; the free list has
+   * already been replaced, and is empty whenever the table grows.
+   */
   @Uninterruptible
   private static void copyAndReplaceGlobalRefs(AddressArray newGlobalRefs) {
     for(int i=0; i < JNIGlobalRefs.length(); i++) {
@@ -52,23 +118,31 @@ public class JNIGlobalRefTable {
     JNIGlobalRefs = newGlobalRefs;
   }
 
-  /* Weak references are returned with the STRONG_REF_BIT bit UNset.  */
-  public static final int STRONG_REF_BIT = 1 << 30;
-
-  static int newWeakRef(Object referent) {
-    int gref = newGlobalRef(new WeakReference<Object>(referent));
-    return gref & ~STRONG_REF_BIT;
+  /** Install a larger weak table; see {@link #copyAndReplaceGlobalRefs}. */
+  @Uninterruptible
+  private static void copyAndReplaceWeakRefs(AddressArray newWeakRefs) {
+    for(int i=0; i < JNIWeakGlobalRefs.length(); i++) {
+      newWeakRefs.set(i, JNIWeakGlobalRefs.get(i));
+    }
+    JNIWeakGlobalRefs = newWeakRefs;
   }
 
-  static void deleteGlobalRef(int index) {
+  static synchronized void deleteGlobalRef(int index) {
+    if (index == 0) return;
     if (VM.VerifyAssertions) VM._assert(!isWeakRef(index));
-    JNIGlobalRefs.set(-index, Address.zero());
+    int slot = -index;
+    JNIGlobalRefs.set(slot, Address.zero());
+    globalFreeList[slot] = globalFreeHead;
+    globalFreeHead = slot;
   }
 
-  static void deleteWeakRef(int index) {
+  static synchronized void deleteWeakRef(int index) {
+    if (index == 0) return;
     if (VM.VerifyAssertions) VM._assert(isWeakRef(index));
-    int gref = index | STRONG_REF_BIT;
-    deleteGlobalRef(gref);
+    int slot = -(index | STRONG_REF_BIT);
+    JNIWeakGlobalRefs.set(slot, Address.zero());
+    weakFreeList[slot] = weakFreeHead;
+    weakFreeHead = slot;
   }
 
   @Uninterruptible
@@ -78,12 +152,21 @@ public class JNIGlobalRefTable {
     return Magic.addressAsObject(JNIGlobalRefs.get(-index));
   }
 
+  /**
+   * @return the referent of a weak global reference, or {@code null}
+   * if it has been collected.  Like {@link java.lang.ref.Reference#get},
+   * a live referent goes through the reference read barrier.
+   */
+  @Entrypoint
   @Uninterruptible
   static Object weakRef(int index) {
     if (VM.VerifyAssertions) VM._assert(isWeakRef(index));
-    @SuppressWarnings("unchecked") // yes, we're being bad.
-    WeakReference<Object> ref = (WeakReference<Object>) globalRef(index | STRONG_REF_BIT);
-    return java.lang.ref.JikesRVMSupport.uninterruptibleReferenceGet(ref);
+
+    Object referent = Magic.addressAsObject(JNIWeakGlobalRefs.get(-(index | STRONG_REF_BIT)));
+    if (Barriers.NEEDS_JAVA_LANG_REFERENCE_READ_BARRIER && referent != null) {
+      referent = Barriers.javaLangReferenceReadBarrier(referent);
+    }
+    return referent;
   }
 
   @Uninterruptible
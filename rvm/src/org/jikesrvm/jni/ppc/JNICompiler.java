@@ -25,6 +25,7 @@ import org.jikesrvm.compilers.common.assembler.ppc.Assembler;
 import org.jikesrvm.compilers.common.assembler.ppc.AssemblerConstants;
 import org.jikesrvm.jni.JNICompiledMethod;
 import org.jikesrvm.jni.JNIGlobalRefTable;
+import org.jikesrvm.mm.mminterface.Barriers;
 import org.jikesrvm.ppc.BaselineConstants;
 import org.jikesrvm.ppc.MachineCode;
 import org.jikesrvm.runtime.Entrypoints;
@@ -357,11 +358,11 @@ public abstract class JNICompiler
       globalRef.resolve(asm);
       asm.emitLVAL(T3, JNIGlobalRefTable.STRONG_REF_BIT);
       asm.emitAND(T1, T0, T3);
-      asm.emitLAddrOffset(T2, JTOC, Entrypoints.JNIGlobalRefsField.getOffset());
       asm.emitCMPI(T1, 0);
       ForwardReference weakGlobalRef = asm.emitForwardBC(Assembler.EQ);
 
       // Strong global references
+      asm.emitLAddrOffset(T2, JTOC, Entrypoints.JNIGlobalRefsField.getOffset());
       asm.emitNEG(T0, T0);
       asm.emitSLWI(T0, T0, LOG_BYTES_IN_ADDRESS);  // convert index to offset
       asm.emitLAddrX(T0, T2, T0);
@@ -369,11 +370,20 @@ public abstract class JNICompiler
 
       // Weak global references
       weakGlobalRef.resolve(asm);
-      asm.emitOR(T0, T0, T3); // STRONG_REF_BIT
-      asm.emitNEG(T0, T0);
-      asm.emitSLWI(T0, T0, LOG_BYTES_IN_ADDRESS);  // convert index to offset
-      asm.emitLAddrX(T0, T2, T0);
-      asm.emitLAddrOffset(T0, T0, Entrypoints.referenceReferentField.getOffset());
+      if (Barriers.NEEDS_JAVA_LANG_REFERENCE_READ_BARRIER) {
+        // the referent must pass through the reference read barrier, so
+        // call JNIGlobalRefTable.weakRef with the index still in T0
+        asm.emitLAddrOffset(T1, JTOC, Entrypoints.JNIWeakGlobalRefMethod.getOffset()); // T1 gets address of function
+        asm.emitMTLR(T1);
+        asm.emitBCLRL();   // call JNIGlobalRefTable.weakRef, referent returned in T0
+        asm.emitLAddrOffset(S0, THREAD_REGISTER, Entrypoints.jniEnvField.getOffset()); // S0 was clobbered by the call
+      } else {
+        asm.emitLAddrOffset(T2, JTOC, Entrypoints.JNIWeakGlobalRefsField.getOffset());
+        asm.emitOR(T0, T0, T3); // STRONG_REF_BIT
+        asm.emitNEG(T0, T0);
+        asm.emitSLWI(T0, T0, LOG_BYTES_IN_ADDRESS);  // convert index to offset
+        asm.emitLAddrX(T0, T2, T0);
+      }
       afterWeakGlobalRef.resolve(asm);
       afterGlobalRef.resolve(asm);
     }
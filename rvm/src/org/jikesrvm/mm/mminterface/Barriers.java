@@ -1245,7 +1245,7 @@ public class Barriers implements org.mmtk.utility.Constants {
   public static void objectArrayWrite(Object[] ref, int index, Object value) {
     if (NEEDS_OBJECT_GC_WRITE_BARRIER) {
       ObjectReference array = ObjectReference.fromObject(ref);
-      Offset offset = Offset.fromIntZeroExtend(index << MemoryManagerConstants.LOG_BYTES_IN_ADDRESS);
+      Offset offset = Offset.fromIntZeroExtend(index << MemoryManagerConstants.LOG_BYTES_IN_REFERENCE);
       Selected.Mutator.get().objectReferenceWrite(array, array.toAddress().plus(offset), ObjectReference.fromObject(value), offset.toWord(), Word.zero(), ARRAY_ELEMENT);
     } else if (VM.VerifyAssertions)
       VM._assert(false);
@@ -1282,7 +1282,7 @@ public class Barriers implements org.mmtk.utility.Constants {
   public static Object objectArrayRead(Object[] ref, int index) {
     if (NEEDS_OBJECT_GC_READ_BARRIER) {
       ObjectReference array = ObjectReference.fromObject(ref);
-      Offset offset = Offset.fromIntZeroExtend(index << MemoryManagerConstants.LOG_BYTES_IN_ADDRESS);
+      Offset offset = Offset.fromIntZeroExtend(index << MemoryManagerConstants.LOG_BYTES_IN_REFERENCE);
       return Selected.Mutator.get().objectReferenceRead(array, array.toAddress().plus(offset), offset.toWord(), Word.zero(), ARRAY_ELEMENT).toObject();
     } else if (VM.VerifyAssertions)
       VM._assert(false);
@@ -40,11 +40,11 @@ public class HandInlinedScanning {
     JavaHeader.objectStartOffset(RVMType.JavaLangObjectType) +
     ObjectModel.computeScalarHeaderSize(RVMType.JavaLangObjectType);
 
-  private static final int FIELD1_OFFSET = FIELD0_OFFSET + Constants.BYTES_IN_ADDRESS;
-  private static final int FIELD2_OFFSET = FIELD1_OFFSET + Constants.BYTES_IN_ADDRESS;
-  private static final int FIELD3_OFFSET = FIELD2_OFFSET + Constants.BYTES_IN_ADDRESS;
-  private static final int FIELD4_OFFSET = FIELD3_OFFSET + Constants.BYTES_IN_ADDRESS;
-  private static final int FIELD5_OFFSET = FIELD4_OFFSET + Constants.BYTES_IN_ADDRESS;
+  private static final int FIELD1_OFFSET = FIELD0_OFFSET + Constants.BYTES_IN_REFERENCE;
+  private static final int FIELD2_OFFSET = FIELD1_OFFSET + Constants.BYTES_IN_REFERENCE;
+  private static final int FIELD3_OFFSET = FIELD2_OFFSET + Constants.BYTES_IN_REFERENCE;
+  private static final int FIELD4_OFFSET = FIELD3_OFFSET + Constants.BYTES_IN_REFERENCE;
+  private static final int FIELD5_OFFSET = FIELD4_OFFSET + Constants.BYTES_IN_REFERENCE;
 
   /** Master switch */
   public static final boolean ENABLED = true;
@@ -0,0 +1,526 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.mm.mminterface;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.jikesrvm.ArchitectureSpecific.StackframeLayoutConstants;
+import org.jikesrvm.Callbacks;
+import org.jikesrvm.SizeConstants;
+import org.jikesrvm.VM;
+import org.jikesrvm.classloader.MemberReference;
+import org.jikesrvm.classloader.RVMMethod;
+import org.jikesrvm.compilers.baseline.BaselineCompiledMethod;
+import org.jikesrvm.compilers.common.CompiledMethod;
+import org.jikesrvm.compilers.common.CompiledMethods;
+import org.jikesrvm.compilers.opt.runtimesupport.OptCompiledMethod;
+import org.jikesrvm.compilers.opt.runtimesupport.OptEncodedCallSiteTree;
+import org.jikesrvm.compilers.opt.runtimesupport.OptMachineCodeMap;
+import org.jikesrvm.objectmodel.JavaHeader;
+import org.jikesrvm.runtime.Magic;
+import org.jikesrvm.runtime.RuntimeEntrypoints;
+import org.jikesrvm.scheduler.SpinLock;
+import org.jikesrvm.util.HashMapRVM;
+import org.mmtk.plan.TraceLocal;
+import org.mmtk.utility.alloc.BumpPointer;
+import org.mmtk.utility.options.Options;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.AddressArray;
+import org.vmmagic.unboxed.ObjectReference;
+import org.vmmagic.unboxed.Offset;
+
+/**
+ * An allocation site heap profiler, enabled with
+ * <code>-X:vm:heapProfile=file</code>.
+ * <p>
+ * About one mutator allocation in every
+ * <code>-X:vm:heapProfileInterval</code> bytes is sampled.  The bump
+ * pointer allocators stop at the sample point and report the allocation
+ * (see {@link BumpPointer#setSampleInterval}), and the allocating thread
+ * records its call stack, as compiled method ids and instruction offsets,
+ * in a table of allocation sites.  An object is sampled with probability
+ * of about its size over the interval, so each sample stands for the
+ * larger of the two.  When the profiler is off the allocators never stop
+ * for samples and the allocation fast path is unchanged.
+ * <p>
+ * Sampled objects are held weakly in a table that the collector processes
+ * in its weak reference phase.  After each full-heap collection the
+ * surviving samples give the live bytes of each site.  At exit, or
+ * whenever {@link #dump} is called, one line is written per site, sorted
+ * by site so that profiles of different runs can be compared with diff:
+ * <pre>
+ * allocated live samples live-samples site
+ * </pre>
+ * The site is the allocating method and bytecode index, then its callers,
+ * innermost first, starting from the first frame outside the allocator.
+ * <p>
+ * Only bump pointer allocations are sampled: objects allocated directly
+ * into the large object space or a free list space are not seen.
+ */
+public final class HeapProfiler implements Callbacks.ExitMonitor, SizeConstants, StackframeLayoutConstants {
+
+  /** Maximum number of frames recorded for a site */
+  private static final int SITE_DEPTH = 24;
+
+  /** Size of the site table; a power of two */
+  private static final int SITES = 4096;
+
+  /** Number of sites at which the table is considered full */
+  private static final int MAX_SITES = SITES * 3 / 4;
+
+  /** Number of sampled objects that can be tracked at once */
+  private static final int OBJECTS = 16384;
+
+  /** Is the profiler running? */
+  private static boolean enabled;
+
+  /** Are sampled objects tracked through collections? */
+  private static boolean trackObjects;
+
+  /** File the profile is written to at exit */
+  private static String profileFile;
+
+  /** Bytes between samples */
+  private static int interval;
+
+  /** Protects the tables against concurrent samples and dumps */
+  private static final SpinLock lock = new SpinLock();
+
+  /*
+   * Sites, in an open addressed hash table.  A site's frames are
+   * SITE_DEPTH (cmid, offset) pairs, innermost first.
+   */
+  private static int[] siteDepth;          // 0 for an empty slot
+  private static int[] siteFrames;
+  private static int[] siteSamples;
+  private static long[] siteBytes;
+  private static int[] siteLiveSamples;    // as of the last full-heap collection
+  private static long[] siteLiveBytes;
+  private static int numSites;
+
+  /** Scratch space for the stack of the sample being taken */
+  private static int[] frames;
+
+  /** Sampled objects, held weakly */
+  private static AddressArray objects;
+  private static int[] objectSite;
+  private static int[] objectBytes;
+  private static int numObjects;
+
+  /** The object table before a collector that forwards after liveness moves it */
+  private static Address unforwardedObjects;
+
+  /** Samples and bytes of sites that didn't fit in the site table */
+  private static int otherSamples;
+  private static long otherBytes;
+
+  /** Samples not tracked because the object table was full */
+  private static int untracked;
+
+  /** Number of full-heap collections since the profiler started */
+  private static int fullHeapCollections;
+
+  /**
+   * Start profiling, if a profile file was given.
+   *
+   * @param fileName the file to write the profile to at exit, or
+   * {@code null}
+   */
+  public static void boot(String fileName) {
+    if (fileName == null) return;
+    if (VM.HeapProfileInterval <= 0) {
+      VM.sysWriteln("HeapProfiler: heapProfileInterval must be positive");
+      return;
+    }
+    profileFile = fileName;
+    interval = VM.HeapProfileInterval;
+    siteDepth = new int[SITES];
+    siteFrames = new int[SITES * 2 * SITE_DEPTH];
+    siteSamples = new int[SITES];
+    siteBytes = new long[SITES];
+    siteLiveSamples = new int[SITES];
+    siteLiveBytes = new long[SITES];
+    frames = new int[2 * SITE_DEPTH];
+    // Without reference types the weak reference phase, which clears
+    // dead samples, never runs
+    trackObjects = !Options.noReferenceTypes.getValue();
+    if (trackObjects) {
+      objects = AddressArray.create(OBJECTS);
+      objectSite = new int[OBJECTS];
+      objectBytes = new int[OBJECTS];
+    }
+    Callbacks.addExitMonitor(new HeapProfiler());
+    enabled = true;
+    BumpPointer.setSampleInterval(interval);
+  }
+
+  /** @return whether the profiler is running */
+  @Uninterruptible
+  public static boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Record a sampled allocation.  Called by the allocating thread when an
+   * allocation reaches the sample point, before the object is initialized.
+   *
+   * @param start the address of the first byte of the allocated region
+   * @param bytes the size of the allocation in bytes
+   */
+  @Uninterruptible
+  public static void sampleAllocation(Address start, int bytes) {
+    if (!enabled) return;
+    int weight = bytes > interval ? bytes : interval;
+    lock.lock();
+    int site = internSite(recordStack());
+    if (site < 0) {
+      otherSamples++;
+      otherBytes += weight;
+    } else {
+      siteSamples[site]++;
+      siteBytes[site] += weight;
+      if (trackObjects) {
+        if (numObjects < OBJECTS) {
+          // As JavaHeader will initialize the object
+          objects.set(numObjects, start.plus(JavaHeader.OBJECT_REF_OFFSET));
+          objectSite[numObjects] = site;
+          objectBytes[numObjects] = weight;
+          numObjects++;
+        } else {
+          untracked++;
+        }
+      }
+    }
+    lock.unlock();
+  }
+
+  /**
+   * Record the call stack of the caller in {@link #frames}.
+   *
+   * @return the number of frames recorded
+   */
+  @Uninterruptible
+  private static int recordStack() {
+    Address fp = Magic.getFramePointer();
+    Address ip = Magic.getReturnAddress(fp);
+    fp = Magic.getCallerFramePointer(fp);
+    int depth = 0;
+    while (depth < SITE_DEPTH && Magic.getCallerFramePointer(fp).NE(STACKFRAME_SENTINEL_FP)) {
+      int cmid = Magic.getCompiledMethodID(fp);
+      int offset = 0;
+      if (cmid != INVISIBLE_METHOD_ID) {
+        CompiledMethod cm = CompiledMethods.getCompiledMethod(cmid);
+        if (cm.getCompilerType() != CompiledMethod.TRAP) {
+          offset = cm.getInstructionOffset(ip).toInt();
+          if (cm.hasBridgeFromNativeAnnotation()) {
+            // skip native frames, stopping at last native frame preceeding the
+            // Java To C transition frame
+            fp = RuntimeEntrypoints.unwindNativeStackFrame(fp);
+          }
+        }
+      }
+      frames[2 * depth] = cmid;
+      frames[2 * depth + 1] = offset;
+      depth++;
+      ip = Magic.getReturnAddress(fp);
+      fp = Magic.getCallerFramePointer(fp);
+    }
+    return depth;
+  }
+
+  /**
+   * Find the site of the stack in {@link #frames}, adding it if needed.
+   *
+   * @param depth the number of frames in the stack
+   * @return the site's index, or -1 if the site table is full
+   */
+  @Uninterruptible
+  private static int internSite(int depth) {
+    int hash = depth;
+    for (int i = 0; i < 2 * depth; i++) {
+      hash = hash * 31 + frames[i];
+    }
+    int site = (hash ^ (hash >>> 16)) & (SITES - 1);
+    while (siteDepth[site] != 0) {
+      if (siteDepth[site] == depth && sameFrames(site, depth)) {
+        return site;
+      }
+      site = (site + 1) & (SITES - 1);
+    }
+    if (numSites == MAX_SITES) return -1;
+    numSites++;
+    int base = site * 2 * SITE_DEPTH;
+    for (int i = 0; i < 2 * depth; i++) {
+      siteFrames[base + i] = frames[i];
+    }
+    siteDepth[site] = depth;
+    return site;
+  }
+
+  @Uninterruptible
+  private static boolean sameFrames(int site, int depth) {
+    int base = site * 2 * SITE_DEPTH;
+    for (int i = 0; i < 2 * depth; i++) {
+      if (siteFrames[base + i] != frames[i]) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Clear the samples whose objects are dead and forward the rest, either
+   * now or in {@link #forwardSamples} if the collector forwards after
+   * liveness.  After a full-heap collection, recompute the live bytes of
+   * each site.  Called in the weak reference phase of a collection.
+   *
+   * @param trace the trace
+   * @param nursery is this a nursery collection?
+   */
+  @Uninterruptible
+  public static void scanSamples(TraceLocal trace, boolean nursery) {
+    if (!trackObjects) return;
+    boolean forwardLater = Selected.Constraints.get().needsForwardAfterLiveness();
+    if (!nursery) {
+      for (int s = 0; s < SITES; s++) {
+        siteLiveSamples[s] = 0;
+        siteLiveBytes[s] = 0;
+      }
+      fullHeapCollections++;
+    }
+    int toIndex = 0;
+    for (int i = 0; i < numObjects; i++) {
+      ObjectReference object = objects.get(i).toObjectReference();
+      if (!trace.isLive(object)) continue;
+      if (!forwardLater) {
+        object = trace.getForwardedReferent(object);
+      }
+      int site = objectSite[i];
+      objects.set(toIndex, object.toAddress());
+      objectSite[toIndex] = site;
+      objectBytes[toIndex] = objectBytes[i];
+      if (!nursery) {
+        siteLiveSamples[site]++;
+        siteLiveBytes[site] += objectBytes[i];
+      }
+      toIndex++;
+    }
+    numObjects = toIndex;
+    if (forwardLater) {
+      unforwardedObjects = Magic.objectAsAddress(objects);
+    }
+  }
+
+  /**
+   * Forward the surviving samples, for collectors that forward after
+   * liveness.  By now the table itself may have been forwarded, so the
+   * address it had during {@link #scanSamples} is used.
+   *
+   * @param trace the trace
+   */
+  @Uninterruptible
+  public static void forwardSamples(TraceLocal trace) {
+    if (!trackObjects) return;
+    for (int i = 0; i < numObjects; i++) {
+      Address slot = unforwardedObjects.plus(i << LOG_BYTES_IN_ADDRESS);
+      slot.store(trace.getForwardedReferent(slot.loadObjectReference()));
+    }
+    unforwardedObjects = Address.zero();
+  }
+
+  /**
+   * Copy the site table, holding the lock so that it is consistent.
+   * Uninterruptible, so no collection can update the live counts while
+   * copying.
+   */
+  @Uninterruptible
+  private static int snapshot(int[] depth, int[] siteFrameCopy, int[] samples, long[] bytes,
+                              int[] liveSamples, long[] liveBytes, long[] other) {
+    lock.lock();
+    for (int s = 0; s < SITES; s++) {
+      depth[s] = siteDepth[s];
+      samples[s] = siteSamples[s];
+      bytes[s] = siteBytes[s];
+      liveSamples[s] = siteLiveSamples[s];
+      liveBytes[s] = siteLiveBytes[s];
+    }
+    for (int i = 0; i < siteFrameCopy.length; i++) {
+      siteFrameCopy[i] = siteFrames[i];
+    }
+    other[0] = otherSamples;
+    other[1] = otherBytes;
+    other[2] = untracked;
+    int collections = fullHeapCollections;
+    lock.unlock();
+    return collections;
+  }
+
+  /**
+   * Write the allocated and live bytes of every allocation site.  The
+   * profile covers all allocations since the profiler started, and the
+   * live objects as of the last full-heap collection.
+   *
+   * @param fileName the file to write
+   */
+  public static synchronized void dump(String fileName) {
+    int[] depth = new int[SITES];
+    int[] siteFrameCopy = new int[SITES * 2 * SITE_DEPTH];
+    int[] samples = new int[SITES];
+    long[] bytes = new long[SITES];
+    int[] liveSamples = new int[SITES];
+    long[] liveBytes = new long[SITES];
+    long[] other = new long[3];
+    int collections = snapshot(depth, siteFrameCopy, samples, bytes, liveSamples, liveBytes, other);
+
+    // Sites with different compiled code for the same methods are merged
+    HashMapRVM<String, long[]> rows = new HashMapRVM<String, long[]>();
+    for (int s = 0; s < SITES; s++) {
+      if (depth[s] == 0) continue;
+      String site = siteName(siteFrameCopy, s * 2 * SITE_DEPTH, depth[s]);
+      long[] row = rows.get(site);
+      if (row == null) {
+        row = new long[4];
+        rows.put(site, row);
+      }
+      row[0] += bytes[s];
+      row[1] += liveBytes[s];
+      row[2] += samples[s];
+      row[3] += liveSamples[s];
+    }
+    if (other[0] > 0) {
+      rows.put("[other]", new long[] {other[1], 0, other[0], 0});
+    }
+
+    String[] sites = new String[rows.size()];
+    int n = 0;
+    for (String site : rows.keys()) {
+      sites[n++] = site;
+    }
+    Arrays.sort(sites);
+
+    PrintStream out;
+    try {
+      out = new PrintStream(new FileOutputStream(fileName));
+    } catch (IOException e) {
+      VM.sysWriteln("HeapProfiler: can't open ", fileName);
+      return;
+    }
+    out.println("# interval " + interval + " bytes, " + collections + " full-heap collections");
+    out.println("# allocated live samples live-samples site");
+    for (String site : sites) {
+      long[] row = rows.get(site);
+      out.println(row[0] + " " + row[1] + " " + row[2] + " " + row[3] + " " + site);
+    }
+    out.close();
+    if (other[0] > 0) {
+      VM.sysWriteln("HeapProfiler: site table full, ", (int) other[0], " samples not attributed");
+    }
+    if (other[2] > 0) {
+      VM.sysWriteln("HeapProfiler: object table full, ", (int) other[2], " samples not tracked");
+    }
+  }
+
+  /**
+   * Name a site by its frames outside the allocator, innermost first.
+   *
+   * @param frames (cmid, offset) pairs
+   * @param base the index of the site's first pair
+   * @param depth the number of frames
+   * @return the site's name
+   */
+  private static String siteName(int[] frames, int base, int depth) {
+    ArrayList<String> names = new ArrayList<String>();
+    for (int i = 0; i < depth; i++) {
+      addFrameNames(names, frames[base + 2 * i], frames[base + 2 * i + 1]);
+    }
+    StringBuilder site = new StringBuilder();
+    for (String name : names) {
+      if (site.length() > 0) site.append(';');
+      site.append(name);
+    }
+    return site.length() == 0 ? "[allocator]" : site.toString();
+  }
+
+  /**
+   * Add the names and bytecode indices of the methods executing in a
+   * frame, innermost first, leaving out the allocator's own methods until
+   * the first method outside it has been named.
+   *
+   * @param names the list to add to
+   * @param cmid the frame's compiled method id
+   * @param offset the offset of the frame's instruction in the method
+   */
+  private static void addFrameNames(ArrayList<String> names, int cmid, int offset) {
+    if (cmid == INVISIBLE_METHOD_ID) {
+      if (!names.isEmpty()) names.add("[invisible]");
+      return;
+    }
+    CompiledMethod cm = CompiledMethods.getCompiledMethod(cmid);
+    if (cm == null) {
+      // obsoleted and freed since the sample was taken
+      names.add("[unknown]");
+      return;
+    }
+    if (cm.getCompilerType() == CompiledMethod.TRAP) {
+      if (!names.isEmpty()) names.add("[trap]");
+      return;
+    }
+    Offset instructionOffset = Offset.fromIntSignExtend(offset);
+    if (VM.BuildForOptCompiler && cm.getCompilerType() == CompiledMethod.OPT) {
+      OptMachineCodeMap map = ((OptCompiledMethod) cm).getMCMap();
+      int iei = map.getInlineEncodingForMCOffset(instructionOffset);
+      if (iei >= 0) {
+        int[] inlineEncoding = map.inlineEncoding;
+        int bci = map.getBytecodeIndexForMCOffset(instructionOffset);
+        for (; iei >= 0; iei = OptEncodedCallSiteTree.getParent(iei, inlineEncoding)) {
+          int mid = OptEncodedCallSiteTree.getMethodID(iei, inlineEncoding);
+          addMethodName(names, MemberReference.getMemberRef(mid).asMethodReference().getResolvedMember(), bci);
+          if (iei > 0) {
+            bci = OptEncodedCallSiteTree.getByteCodeOffset(iei, inlineEncoding);
+          }
+        }
+        return;
+      }
+    }
+    int bci = -1;
+    if (cm.getCompilerType() == CompiledMethod.BASELINE) {
+      bci = ((BaselineCompiledMethod) cm).findBytecodeIndexForInstruction(instructionOffset);
+    }
+    addMethodName(names, cm.getMethod(), bci);
+  }
+
+  private static void addMethodName(ArrayList<String> names, RVMMethod method, int bci) {
+    String cls = method.getDeclaringClass().toString();
+    if (names.isEmpty() && isAllocatorClass(cls)) return;
+    names.add(bci >= 0 ? cls + "." + method.getName() + ":" + bci : cls + "." + method.getName());
+  }
+
+  /**
+   * @param cls the name of a class
+   * @return whether the class is part of the allocator, rather than a
+   * site that allocates
+   */
+  private static boolean isAllocatorClass(String cls) {
+    return cls.startsWith("org.mmtk.") ||
+      cls.startsWith("org.jikesrvm.mm.") ||
+      cls.startsWith("org.jikesrvm.objectmodel.") ||
+      cls.equals("org.jikesrvm.runtime.RuntimeEntrypoints");
+  }
+
+  public void notifyExit(int value) {
+    dump(profileFile);
+  }
+}
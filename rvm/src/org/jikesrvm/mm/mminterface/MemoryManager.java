@@ -938,6 +938,27 @@ public final class MemoryManager implements HeapLayoutConstants, Constants {
     return Selected.Plan.get().willNeverMove(ObjectReference.fromObject(obj));
   }
 
+  /**
+   * Pin an object so the collector will not move it (used by JNI
+   * critical regions).
+   *
+   * @param obj The object to pin
+   * @return true if the object is pinned, false if the plan can not pin it
+   */
+  public static boolean pin(Object obj) {
+    return Selected.Plan.get().pin(ObjectReference.fromObject(obj));
+  }
+
+  /**
+   * Release a pin taken by {@link #pin}.
+   *
+   * @param obj The object to unpin
+   * @return true if the object had been pinned
+   */
+  public static boolean unpin(Object obj) {
+    return Selected.Plan.get().unpin(ObjectReference.fromObject(obj));
+  }
+
   /**
    *  Will this object move (allows us to optimize some JNI calls)
    */
@@ -75,7 +75,7 @@ public final class SpecializedScanMethod extends SpecializedMethod implements Si
   /** The total number of patterns */
   private static final int PATTERNS = 66;
   /** Maximum field offset we can deal with */
-  private static final int MAX_SPECIALIZED_OFFSET = 6 << LOG_BYTES_IN_ADDRESS;
+  private static final int MAX_SPECIALIZED_OFFSET = 6 << LOG_BYTES_IN_REFERENCE;
 
   /** We keep the specialized methods for key object reference patterns here.*/
   private final CompiledMethod[] specializedMethods = new CompiledMethod[PATTERNS];
@@ -118,7 +118,7 @@ public final class SpecializedScanMethod extends SpecializedMethod implements Si
     if (offsets.length == 0) {
       return NULL_PATTERN;
     }
-    if ((offsets.length << LOG_BYTES_IN_ADDRESS) > SPECIALIZED_PATTERNS) {
+    if ((offsets.length << LOG_BYTES_IN_REFERENCE) > SPECIALIZED_PATTERNS) {
       return FALLBACK_PATTERN;
     }
 
@@ -130,7 +130,7 @@ public final class SpecializedScanMethod extends SpecializedMethod implements Si
       if (reference > MAX_SPECIALIZED_OFFSET) {
         return FALLBACK_PATTERN;
       }
-      pattern |= 1 << (reference >> LOG_BYTES_IN_ADDRESS);
+      pattern |= 1 << (reference >> LOG_BYTES_IN_REFERENCE);
     }
 
     if (pattern < 0 || pattern > 63) {
@@ -211,7 +211,7 @@ public final class SpecializedScanMethod extends SpecializedMethod implements Si
     } else {
       if (VM.VerifyAssertions) VM._assert(type.isArrayType() && type.asArray().getElementType().isReferenceType());
       for(int i=0; i < ObjectModel.getArrayLength(objectRef.toObject()); i++) {
-        trace.processEdge(objectRef, objectRef.toAddress().plus(i << LOG_BYTES_IN_ADDRESS));
+        trace.processEdge(objectRef, objectRef.toAddress().plus(i << LOG_BYTES_IN_REFERENCE));
       }
     }
   }
@@ -230,7 +230,7 @@ public final class SpecializedScanMethod extends SpecializedMethod implements Si
     Address base = Magic.objectAsAddress(object);
     int length = ObjectModel.getArrayLength(object);
     for (int i=0; i < length; i++) {
-      trace.processEdge(ObjectReference.fromObject(object), base.plus(i << LOG_BYTES_IN_ADDRESS));
+      trace.processEdge(ObjectReference.fromObject(object), base.plus(i << LOG_BYTES_IN_REFERENCE));
     }
   }
 
@@ -245,19 +245,19 @@ public final class SpecializedScanMethod extends SpecializedMethod implements Si
       trace.processEdge(ObjectReference.fromObject(object), base.plus(0));
     }
     if ((pattern &  2) != 0) {
-      trace.processEdge(ObjectReference.fromObject(object), base.plus(1 << LOG_BYTES_IN_ADDRESS));
+      trace.processEdge(ObjectReference.fromObject(object), base.plus(1 << LOG_BYTES_IN_REFERENCE));
     }
     if ((pattern &  4) != 0) {
-      trace.processEdge(ObjectReference.fromObject(object), base.plus(2 << LOG_BYTES_IN_ADDRESS));
+      trace.processEdge(ObjectReference.fromObject(object), base.plus(2 << LOG_BYTES_IN_REFERENCE));
     }
     if ((pattern &  8) != 0) {
-      trace.processEdge(ObjectReference.fromObject(object), base.plus(3 << LOG_BYTES_IN_ADDRESS));
+      trace.processEdge(ObjectReference.fromObject(object), base.plus(3 << LOG_BYTES_IN_REFERENCE));
     }
     if ((pattern & 16) != 0) {
-      trace.processEdge(ObjectReference.fromObject(object), base.plus(4 << LOG_BYTES_IN_ADDRESS));
+      trace.processEdge(ObjectReference.fromObject(object), base.plus(4 << LOG_BYTES_IN_REFERENCE));
     }
     if ((pattern & 32) != 0) {
-      trace.processEdge(ObjectReference.fromObject(object), base.plus(5 << LOG_BYTES_IN_ADDRESS));
+      trace.processEdge(ObjectReference.fromObject(object), base.plus(5 << LOG_BYTES_IN_REFERENCE));
     }
   }
 
@@ -0,0 +1,161 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.objectmodel;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.StringTokenizer;
+import org.jikesrvm.VM;
+import org.jikesrvm.classloader.Atom;
+import org.jikesrvm.classloader.RVMClass;
+import org.jikesrvm.classloader.RVMField;
+import org.jikesrvm.util.HashSetRVM;
+import org.jikesrvm.util.ImmutableEntryHashMapRVM;
+
+/**
+ * A profile of frequently accessed ("hot") instance fields, used by
+ * {@link FieldLayout} to place hot fields ahead of the cold ones.  The
+ * layout still puts reference fields first and long fields next, so hot
+ * references start the object and hot primitives lead their own size.
+ * <p>
+ * The profile is read from a file named on the command line with
+ * <code>-X:vm:hotFieldFile=path-to-profile</code>.  Each line of the file
+ * names one hot field:
+ * <pre>
+ * &lt;class&gt; &lt;field&gt;
+ * </pre>
+ * where <code>&lt;class&gt;</code> is either a type descriptor
+ * (<code>Lcom/example/Foo;</code>) or a dotted class name
+ * (<code>com.example.Foo</code>).  Blank lines and lines starting with
+ * <code>#</code> are ignored.
+ * <p>
+ * A class's layout is fixed when it is resolved, so the profile only
+ * affects classes resolved after it has been read; classes in the boot
+ * image keep the layout chosen when the image was written.
+ */
+public final class FieldAccessProfile {
+
+  /** Hot field names, keyed by the descriptor of their declaring class */
+  private static ImmutableEntryHashMapRVM<Atom, HashSetRVM<Atom>> hotFields;
+
+  private FieldAccessProfile() {}
+
+  /**
+   * Read the hot field profile, if one was given.
+   *
+   * @param fileName the name of the profile file, or {@code null}
+   */
+  public static void boot(String fileName) {
+    if (fileName != null) {
+      readProfile(fileName);
+    }
+  }
+
+  /**
+   * @return whether any hot fields have been recorded
+   */
+  public static boolean hasProfile() {
+    return hotFields != null;
+  }
+
+  /**
+   * Is the given instance field of the given class recorded as hot?
+   *
+   * @param klass the declaring class
+   * @param field the field
+   * @return {@code true} if the profile lists this field as hot
+   */
+  public static boolean isHot(RVMClass klass, RVMField field) {
+    if (hotFields == null) return false;
+    HashSetRVM<Atom> names = hotFields.get(klass.getDescriptor());
+    return names != null && names.contains(field.getName());
+  }
+
+  /**
+   * Order the fields of a class so that those recorded as hot come first,
+   * otherwise keeping their declared order.
+   *
+   * @param klass the declaring class
+   * @param fields the fields of the class
+   * @return the fields, hot ones first
+   */
+  static RVMField[] hotFieldsFirst(RVMClass klass, RVMField[] fields) {
+    RVMField[] ordered = new RVMField[fields.length];
+    int next = 0;
+    for (RVMField field : fields) {
+      if (isHot(klass, field)) ordered[next++] = field;
+    }
+    for (RVMField field : fields) {
+      if (!isHot(klass, field)) ordered[next++] = field;
+    }
+    return ordered;
+  }
+
+  /**
+   * Record a field as hot.
+   *
+   * @param classDescriptor descriptor of the declaring class
+   * @param fieldName name of the field
+   */
+  static synchronized void addHotField(Atom classDescriptor, Atom fieldName) {
+    if (hotFields == null) {
+      hotFields = new ImmutableEntryHashMapRVM<Atom, HashSetRVM<Atom>>();
+    }
+    HashSetRVM<Atom> names = hotFields.get(classDescriptor);
+    if (names == null) {
+      names = new HashSetRVM<Atom>();
+      hotFields.put(classDescriptor, names);
+    }
+    names.add(fieldName);
+  }
+
+  private static void readProfile(String fileName) {
+    BufferedReader in;
+    try {
+      in = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"));
+    } catch (IOException e) {
+      VM.sysWriteln("FieldAccessProfile: couldn't open hot field file ", fileName);
+      return;
+    }
+    int count = 0;
+    try {
+      for (String s = in.readLine(); s != null; s = in.readLine()) {
+        StringTokenizer parser = new StringTokenizer(s, " \t,");
+        if (!parser.hasMoreTokens()) continue;
+        String cls = parser.nextToken();
+        if (cls.startsWith("#")) continue;
+        if (!parser.hasMoreTokens()) {
+          VM.sysWriteln("FieldAccessProfile: ignoring malformed line: ", s);
+          continue;
+        }
+        String fld = parser.nextToken();
+        Atom descriptor;
+        if (cls.startsWith("L") && cls.endsWith(";")) {
+          descriptor = Atom.findOrCreateUnicodeAtom(cls);
+        } else {
+          descriptor = Atom.findOrCreateUnicodeAtom(cls.replace('.', '/')).descriptorFromClassName();
+        }
+        addHotField(descriptor, Atom.findOrCreateUnicodeAtom(fld));
+        count++;
+      }
+      in.close();
+    } catch (IOException e) {
+      VM.sysWriteln("FieldAccessProfile: error reading hot field file ", fileName);
+    }
+    if (VM.verboseClassLoading) {
+      VM.sysWriteln("FieldAccessProfile: hot fields read: ", count);
+    }
+  }
+}
@@ -93,6 +93,15 @@ public abstract class FieldLayout implements SizeConstants {
       VM.sysWriteln("Laying out: ", klass.toString());
     }
 
+    /*
+    * Fields the access profile names as hot go ahead of the cold ones
+    * in each of the passes below, so that hot references start the
+    * reference block and hot primitives come first among their size.
+    */
+    if (FieldAccessProfile.hasProfile()) {
+      fields = FieldAccessProfile.hotFieldsFirst(klass, fields);
+    }
+
     /*
     * Layout reference fields first pre-pass - This can help some
     * GC schemes.
@@ -102,7 +111,7 @@ public abstract class FieldLayout implements SizeConstants {
       for (RVMField field : fields) {
         if (!field.isStatic() && !field.hasOffset()) {
           if (field.isReferenceType()) {
-            layoutField(fieldLayout, klass, field, BYTES_IN_ADDRESS);
+            layoutField(fieldLayout, klass, field, BYTES_IN_REFERENCE);
           }
         }
       }
@@ -178,6 +178,7 @@ public final class TIB implements RuntimeTable<Object>, TIBLayoutConstants, Size
    */
   public void setType(RVMType type) {
     set(TIB_TYPE_INDEX, type);
+    setSecondarySuperCache(this);
   }
 
   /**
@@ -245,6 +246,27 @@ public final class TIB implements RuntimeTable<Object>, TIBLayoutConstants, Size
     set(TIB_INTERFACE_DISPATCH_TABLE_INDEX, imt);
   }
 
+  /**
+   * Get the TIB of the type this type was last found assignable to by a
+   * type check that the superclass and interface displays don't answer.
+   */
+  @Inline
+  public TIB getSecondarySuperCache() {
+    if (VM.runningVM) {
+      return Magic.addressAsTIB(Magic.objectAsAddress(get(TIB_SECONDARY_SUPER_CACHE_INDEX)));
+    } else {
+      return (TIB)get(TIB_SECONDARY_SUPER_CACHE_INDEX);
+    }
+  }
+
+  /**
+   * Set the TIB of the type this type was last found assignable to by a
+   * type check that the superclass and interface displays don't answer.
+   */
+  public void setSecondarySuperCache(TIB superTIB) {
+    set(TIB_SECONDARY_SUPER_CACHE_INDEX, Magic.tibAsObject(superTIB));
+  }
+
   /**
    * Set the TIB of the elements of this array (null if not an array).
    */
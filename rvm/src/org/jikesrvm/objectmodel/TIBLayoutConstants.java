@@ -44,7 +44,9 @@ public interface TIBLayoutConstants {
   //          +--------------------+
   //        4:|     iTABLES/IMT    +-->
   //          +--------------------+
-  //        5:|  specialized 0     +-->
+  //        5:| secondary super TIB+-->
+  //          +--------------------+
+  //        6:|  specialized 0     +-->
   //          +--------------------+
   //          |       ...          +-->
   //          +--------------------+
@@ -95,8 +97,14 @@ public interface TIBLayoutConstants {
   // depending on which dispatch implementation we are using.
   int TIB_INTERFACE_DISPATCH_TABLE_INDEX = TIB_ARRAY_ELEMENT_TIB_INDEX + 1;
 
+  // The TIB of the last array type or interface that a type check outside
+  // the displays found this type assignable to, initially this TIB itself.
+  // (see vm/classLoader/DynamicTypeCheck.java)
+  //
+  int TIB_SECONDARY_SUPER_CACHE_INDEX = TIB_INTERFACE_DISPATCH_TABLE_INDEX + 1;
+
   // A set of 0 or more specialized methods used in the VM such as for GC scanning
-  int TIB_FIRST_SPECIALIZED_METHOD_INDEX = TIB_INTERFACE_DISPATCH_TABLE_INDEX + 1;
+  int TIB_FIRST_SPECIALIZED_METHOD_INDEX = TIB_SECONDARY_SUPER_CACHE_INDEX + 1;
 
   // Next group of slots point to virtual method code blocks
   // (slots V1..VN in above diagram).
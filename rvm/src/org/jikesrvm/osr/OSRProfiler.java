@@ -20,6 +20,8 @@ import org.jikesrvm.adaptive.controller.ControllerPlan;
 import org.jikesrvm.adaptive.recompilation.InvocationCounts;
 import org.jikesrvm.adaptive.util.AOSLogging;
 import org.jikesrvm.adaptive.util.CompilerAdviceAttribute;
+import org.jikesrvm.classloader.BytecodeConstants;
+import org.jikesrvm.classloader.BytecodeStream;
 import org.jikesrvm.compilers.common.CompiledMethod;
 import org.jikesrvm.compilers.common.CompiledMethods;
 import org.jikesrvm.compilers.common.RuntimeCompiler;
@@ -29,13 +31,17 @@ import org.jikesrvm.compilers.opt.runtimesupport.OptCompiledMethod;
 /**
  * Maintain statistic information about on stack replacement events
  */
-public class OSRProfiler implements Callbacks.ExitMonitor {
+public class OSRProfiler implements Callbacks.ExitMonitor, BytecodeConstants {
 
   private static int invalidations = 0;
+  private static int uncommonTraps = 0;
+  private static int uncommonTrapRecompilations = 0;
   private static boolean registered = false;
 
   public void notifyExit(int value) {
     VM.sysWriteln("OSR invalidations " + invalidations);
+    VM.sysWriteln("OSR uncommon traps " + uncommonTraps);
+    VM.sysWriteln("OSR uncommon trap recompilations " + uncommonTrapRecompilations);
   }
 
   // we know which assumption is invalidated
@@ -47,8 +53,12 @@ public class OSRProfiler implements Callbacks.ExitMonitor {
       Callbacks.addExitMonitor(new OSRProfiler());
     }
 
+    boolean uncommonTrap = isUncommonTrap(state);
     if (VM.TraceOnStackReplacement || VM.MeasureCompilation) {
       OSRProfiler.invalidations++;
+      if (uncommonTrap) {
+        OSRProfiler.uncommonTraps++;
+      }
     }
 
     // find the root state
@@ -57,11 +67,20 @@ public class OSRProfiler implements Callbacks.ExitMonitor {
     }
 
     // only invalidate the root state
-    invalidateState(state);
+    invalidateState(state, uncommonTrap);
+  }
+
+  // the OsrPoints of uncommon traps resume at a conditional branch,
+  // those of guarded inlining at a call
+  private static boolean isUncommonTrap(ExecutionState state) {
+    BytecodeStream bcodes = state.meth.getBytecodes();
+    bcodes.reset(state.bcIndex);
+    int code = bcodes.nextInstruction();
+    return ((code >= JBC_ifeq) && (code <= JBC_if_acmpne)) || (code == JBC_ifnull) || (code == JBC_ifnonnull);
   }
 
   // invalidate an execution state
-  private static synchronized void invalidateState(ExecutionState state) {
+  private static synchronized void invalidateState(ExecutionState state, boolean uncommonTrap) {
     // step 1: invalidate the compiled method with this OSR assumption
     //         how does this affect the performance?
     CompiledMethod mostRecentlyCompiledMethod = CompiledMethods.getCompiledMethod(state.cmid);
@@ -122,13 +141,17 @@ public class OSRProfiler implements Callbacks.ExitMonitor {
       if (cmplplan != null) {
         if (VM.VerifyAssertions) {VM._assert(cmplplan.getMethod() == state.meth);}
 
-        // for invalidated method, we donot perform OSR guarded inlining anymore.
+        // for invalidated method, we donot perform OSR guarded inlining
+        // or insert uncommon traps anymore.
         // the Options object may be shared by several methods,
         // we have to reset it back
         boolean savedOsr = cmplplan.options.OSR_GUARDED_INLINING;
+        boolean savedTraps = cmplplan.options.OSR_UNCOMMON_TRAPS;
         cmplplan.options.OSR_GUARDED_INLINING = false;
+        cmplplan.options.OSR_UNCOMMON_TRAPS = false;
         int newcmid = RuntimeCompiler.recompileWithOpt(cmplplan);
         cmplplan.options.OSR_GUARDED_INLINING = savedOsr;
+        cmplplan.options.OSR_UNCOMMON_TRAPS = savedTraps;
 
         if (newcmid != -1) {
           AOSLogging.logger.debug("recompiling state with opt succeeded " + state.cmid);
@@ -140,6 +163,9 @@ public class OSRProfiler implements Callbacks.ExitMonitor {
           Controller.methodSamples.augmentData(newcmid, oldSamples);
 
           recmplsucc = true;
+          if (uncommonTrap && (VM.TraceOnStackReplacement || VM.MeasureCompilation)) {
+            OSRProfiler.uncommonTrapRecompilations++;
+          }
           if (VM.TraceOnStackReplacement) {
             VM.sysWriteln("  recompile " + state.meth + " at -O" + cmplplan.options.getOptLevel());
           }
@@ -147,7 +173,9 @@ public class OSRProfiler implements Callbacks.ExitMonitor {
       }
     }
 
-    if (!recmplsucc) {
+    // the default options would put the same trap back, so leave the
+    // method to the baseline code until its profile is updated
+    if (!recmplsucc && !uncommonTrap) {
       int newcmid = RuntimeCompiler.recompileWithOpt(state.meth);
       if (newcmid == -1) {
         if (VM.TraceOnStackReplacement) {VM.sysWriteln("  opt recompilation failed!");}
@@ -0,0 +1,152 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.runtime;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import org.jikesrvm.Callbacks;
+import org.jikesrvm.VM;
+import org.mmtk.utility.statistics.Stats;
+import org.vmmagic.unboxed.Address;
+
+/**
+ * A profile of the pages of the boot image touched by a run of the VM,
+ * written at exit to the file named with
+ * <code>-X:vm:bootImageProfile=file</code>.  Given to the boot image
+ * writer with <code>-layoutProfile</code>, it places the objects and code
+ * on those pages together at the start of the next image, so that starting
+ * the VM touches fewer pages.  The profile gives the page size and then
+ * the offset of each touched page in the data or code image:
+ * <pre>
+ * pagesize &lt;bytes&gt;
+ * &lt;data|code&gt; &lt;offset&gt;
+ * </pre>
+ * The images are mapped from their files, so a page is only mapped into
+ * the VM when it is first touched.  The mapped pages are read from Linux's
+ * <code>/proc/self/pagemap</code>, which the kernel may also have mapped
+ * around a touched page, so the profile can include a few pages that
+ * weren't touched.  Collections scan the boot image, touching every page
+ * of it that holds references, so a training run should use a heap large
+ * enough that nothing is collected before it exits.
+ */
+public final class BootImageProfile implements Callbacks.ExitMonitor {
+
+  /** Where the kernel reports the pages mapped into this process */
+  private static final String PAGEMAP = "/proc/self/pagemap";
+
+  /** Bytes of each page's entry in the pagemap */
+  private static final int PAGEMAP_ENTRY = 8;
+
+  /** Bit of a pagemap entry set when the page is present */
+  private static final long PRESENT = 1L << 63;
+
+  /** Bit of a pagemap entry set when the page is swapped out */
+  private static final long SWAPPED = 1L << 62;
+
+  /** File the profile is written to at exit */
+  private final String profileFile;
+
+  private BootImageProfile(String profileFile) {
+    this.profileFile = profileFile;
+  }
+
+  /**
+   * Arrange for the profile to be written at exit, if a profile file was
+   * given.
+   *
+   * @param fileName the file to write the profile to, or {@code null}
+   */
+  public static void boot(String fileName) {
+    if (fileName != null) {
+      Callbacks.addExitMonitor(new BootImageProfile(fileName));
+    }
+  }
+
+  public void notifyExit(int value) {
+    write(profileFile);
+  }
+
+  /**
+   * Write the pages of the boot image that have been touched.
+   *
+   * @param fileName the file to write the profile to
+   */
+  public static void write(String fileName) {
+    RandomAccessFile pagemap;
+    try {
+      pagemap = new RandomAccessFile(PAGEMAP, "r");
+    } catch (IOException e) {
+      VM.sysWriteln("BootImageProfile: can't read ", PAGEMAP);
+      return;
+    }
+    PrintStream out;
+    try {
+      out = new PrintStream(new FileOutputStream(fileName));
+    } catch (IOException e) {
+      VM.sysWriteln("BootImageProfile: can't open ", fileName);
+      return;
+    }
+    int pageSize = Memory.getPagesize();
+    BootRecord bootRecord = BootRecord.the_boot_record;
+    int collections = Stats.gcCount();
+    out.println("# boot image pages touched, after " + collections + " collections");
+    out.println("pagesize " + pageSize);
+    try {
+      int data = writeTouched(out, "data", pagemap, bootRecord.bootImageDataStart, bootRecord.bootImageDataEnd, pageSize);
+      int code = writeTouched(out, "code", pagemap, bootRecord.bootImageCodeStart, bootRecord.bootImageCodeEnd, pageSize);
+      if (VM.verboseBoot >= 1) {
+        VM.sysWriteln("BootImageProfile: data pages touched: ", data);
+        VM.sysWriteln("BootImageProfile: code pages touched: ", code);
+      }
+    } catch (IOException e) {
+      VM.sysWriteln("BootImageProfile: error reading ", PAGEMAP);
+    }
+    out.close();
+    try {
+      pagemap.close();
+    } catch (IOException e) {
+      // nothing was written to it
+    }
+    if (collections > 0) {
+      VM.sysWriteln("BootImageProfile: collections touched the pages of the boot image holding references; ",
+                    "use a larger heap");
+    }
+  }
+
+  /**
+   * Write the offsets of the touched pages of one image.
+   *
+   * @return the number of pages touched
+   */
+  private static int writeTouched(PrintStream out, String image, RandomAccessFile pagemap,
+                                  Address start, Address end, int pageSize) throws IOException {
+    int touched = 0;
+    byte[] entry = new byte[PAGEMAP_ENTRY];
+    for (Address page = start; page.LT(end); page = page.plus(pageSize)) {
+      pagemap.seek(page.toLong() / pageSize * PAGEMAP_ENTRY);
+      pagemap.readFully(entry);
+      long bits = 0;
+      for (int i = 0; i < PAGEMAP_ENTRY; i++) {
+        int b = entry[VM.LittleEndian ? PAGEMAP_ENTRY - 1 - i : i] & 0xff;
+        bits = (bits << 8) | b;
+      }
+      if ((bits & (PRESENT | SWAPPED)) != 0) {
+        out.println(image + " " + page.diff(start).toInt());
+        touched++;
+      }
+    }
+    return touched;
+  }
+}
@@ -190,6 +190,15 @@ public class BootRecord {
    * jtoc offset of RuntimeEntrypoints.deliverHardwareException()
    */
   Offset deliverHardwareExceptionOffset;
+  /**
+   * page read by opt-compiled loops to poll for yieldpoints
+   */
+  public Address yieldpointPollingPage;
+  /**
+   * jtoc offset of OptSaveVolatile.yieldpointFromBackedge(), entered when
+   * a poll of the yieldpoint polling page faults
+   */
+  Offset yieldpointFromPollOffset;
   /**
    * jtoc offset of RVMThread.dumpStackAndDie(I)
    */
@@ -226,10 +235,13 @@ public class BootRecord {
 
   // memory
   public Address sysCopyIP;
+  public Address sysMemmoveIP;
   public Address sysMallocIP;
   public Address sysCallocIP;
+  public Address sysReallocIP;
   public Address sysFreeIP;
   public Address sysZeroIP;
+  public Address sysFillIP;
   public Address sysZeroPagesIP;
   public Address sysSyncCacheIP;
 
@@ -19,6 +19,7 @@ import org.jikesrvm.Constants;
 import org.jikesrvm.classloader.RVMClass;
 import org.jikesrvm.classloader.RVMMethod;
 import org.jikesrvm.classloader.MethodReference;
+import org.jikesrvm.compilers.common.BackgroundCompiler;
 import org.jikesrvm.compilers.common.CompiledMethod;
 import org.jikesrvm.compilers.common.CompiledMethods;
 import org.vmmagic.pragma.DynamicBridge;
@@ -146,15 +147,31 @@ public class DynamicLinker implements Constants {
       // if necessary, compile method
       //
       if (!targetMethod.isCompiled()) {
-        targetMethod.compile();
+        long start = BackgroundCompiler.isEnabled() ? Time.nanoTime() : 0;
+        // The background compiler may be compiling the method meanwhile: holding
+        // the lock compile() takes tells whether this call is what compiled it
+        boolean compiled;
+        synchronized (targetMethod) {
+          CompiledMethod before = targetMethod.getCurrentCompiledMethod();
+          targetMethod.compile();
+          compiled = targetMethod.getCurrentCompiledMethod() != before;
+        }
+        if (BackgroundCompiler.isEnabled()) {
+          BackgroundCompiler.recordFirstCall(compiled, Time.nanoTime() - start);
+        }
 
         // If targetMethod is a virtual method, then eagerly patch tib of declaring class.
         // (we need to do this to get the method test used by opt to work with lazy compilation).
         if (!(targetMethod.isObjectInitializer() || targetMethod.isStatic())) {
           targetClass.updateTIBEntry(targetMethod);
         }
+      } else if (BackgroundCompiler.isEnabled()) {
+        BackgroundCompiler.recordFirstCall(false, 0);
       }
 
+      // queue what the method may call for compiling in the background
+      BackgroundCompiler.predictCallees(targetMethod);
+
       // patch appropriate dispatch table
       //
       if (targetMethod.isObjectInitializer() || targetMethod.isStatic()) {
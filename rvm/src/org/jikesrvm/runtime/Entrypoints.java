@@ -78,6 +78,8 @@ public class Entrypoints {
       getField(org.jikesrvm.Services.class, "intBufferLock", int.class);
   public static final RVMField dumpBufferLockField =
       getField(org.jikesrvm.Services.class, "dumpBufferLock", int.class);
+  public static final RVMField currentCompiledMethodIdField =
+      getField(org.jikesrvm.compilers.common.CompiledMethods.class, "currentCompiledMethodId", int.class);
 
   public static final NormalMethod unexpectedAbstractMethodCallMethod =
       getMethod(org.jikesrvm.runtime.RuntimeEntrypoints.class, "unexpectedAbstractMethodCall", "()V");
@@ -394,6 +396,10 @@ public class Entrypoints {
       getField(org.jikesrvm.jni.JNIEnvironment.class, "basePointerOnEntryToNative", org.vmmagic.unboxed.Address.class);
   public static final RVMField JNIGlobalRefsField =
     getField(org.jikesrvm.jni.JNIGlobalRefTable.class, "JNIGlobalRefs", org.vmmagic.unboxed.AddressArray.class);
+  public static final RVMField JNIWeakGlobalRefsField =
+    getField(org.jikesrvm.jni.JNIGlobalRefTable.class, "JNIWeakGlobalRefs", org.vmmagic.unboxed.AddressArray.class);
+  public static final NormalMethod JNIWeakGlobalRefMethod =
+    getMethod(org.jikesrvm.jni.JNIGlobalRefTable.class, "weakRef", "(I)Ljava/lang/Object;");
   public static final RVMField JNIRefsField =
       getField(org.jikesrvm.jni.JNIEnvironment.class, "JNIRefs", org.vmmagic.unboxed.AddressArray.class);
   public static final RVMField JNIRefsTopField = getField(org.jikesrvm.jni.JNIEnvironment.class, "JNIRefsTop", int.class);
@@ -449,6 +455,17 @@ public class Entrypoints {
   public static final RVMField edgeCountersField =
       getField(org.jikesrvm.compilers.baseline.EdgeCounts.class, "data", int[][].class);
 
+  public static final NormalMethod interfaceInlineCacheMissMethod =
+      getMethod(org.jikesrvm.compilers.baseline.InterfaceInlineCaches.class, "cacheMiss", "(Ljava/lang/Object;I)V");
+  public static final RVMField interfaceInlineCacheTibsField =
+      getField(org.jikesrvm.compilers.baseline.InterfaceInlineCaches.class, "tibs", org.vmmagic.unboxed.WordArray.class);
+  public static final RVMField interfaceInlineCacheOffsetsField =
+      getField(org.jikesrvm.compilers.baseline.InterfaceInlineCaches.class, "offsets", int[].class);
+  public static final RVMField interfaceInlineCacheMegamorphicField =
+      getField(org.jikesrvm.compilers.baseline.InterfaceInlineCaches.class, "megamorphic", int[].class);
+  public static final RVMField interfaceInlineCacheHitsField =
+      getField(org.jikesrvm.compilers.baseline.InterfaceInlineCaches.class, "hits", int[].class);
+
   //////////////////
   // Entrypoints that are valid only when the opt compiler is included in the build
   //////////////////
@@ -1113,6 +1113,62 @@ public final class Magic {
     return -1.0d; // which should upset them even if assertions aren't enabled ...
   }
 
+  /**
+   * On IA32 with SSE2, copy 16 bytes through an XMM register.  Neither
+   * address need be aligned.
+   *
+   * @param dst the address to copy to
+   * @param src the address to copy from
+   */
+  public static void copy16(Address dst, Address src) {
+    if (VM.runningVM && VM.VerifyAssertions) {
+      VM._assert(VM.NOT_REACHED);  // call site should have been hijacked by magic in compiler
+    }
+  }
+
+  /**
+   * On IA32 with SSE2, zero 16 bytes through an XMM register.  The
+   * address need not be aligned.
+   *
+   * @param dst the address to zero
+   */
+  public static void zero16(Address dst) {
+    if (VM.runningVM && VM.VerifyAssertions) {
+      VM._assert(VM.NOT_REACHED);  // call site should have been hijacked by magic in compiler
+    }
+  }
+
+  /**
+   * On IA32 with SSE2, compare the 16 bytes at two addresses with a
+   * single PCMPEQB.
+   *
+   * @param a the first address
+   * @param b the second address
+   * @return a mask whose bit i is set iff byte i of the two agree, so
+   * 0xFFFF if all 16 do
+   */
+  public static int compareBytes16(Address a, Address b) {
+    if (VM.runningVM && VM.VerifyAssertions) {
+      VM._assert(VM.NOT_REACHED);  // call site should have been hijacked by magic in compiler
+    }
+    return -1;
+  }
+
+  /**
+   * On IA32 with SSE2, look for a char among the 8 chars at an address
+   * with a single PCMPEQW.
+   *
+   * @param a the address
+   * @param c the char to look for
+   * @return a mask in which bits 2i and 2i+1 are set iff char i is c
+   */
+  public static int matchChars16(Address a, int c) {
+    if (VM.runningVM && VM.VerifyAssertions) {
+      VM._assert(VM.NOT_REACHED);  // call site should have been hijacked by magic in compiler
+    }
+    return -1;
+  }
+
   /**
    * How deeply inlined is this method (0 means no inlining).
    */
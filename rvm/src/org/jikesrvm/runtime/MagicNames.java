@@ -63,6 +63,11 @@ public class MagicNames {
   public static final Atom store = Atom.findOrCreateAsciiAtom("store");
   public static final Atom pause = Atom.findOrCreateAsciiAtom("pause");
   public static final Atom sqrt  = Atom.findOrCreateAsciiAtom("sqrt");
+  /* IA SSE2-specific */
+  public static final Atom copy16 = Atom.findOrCreateAsciiAtom("copy16");
+  public static final Atom zero16 = Atom.findOrCreateAsciiAtom("zero16");
+  public static final Atom compareBytes16 = Atom.findOrCreateAsciiAtom("compareBytes16");
+  public static final Atom matchChars16 = Atom.findOrCreateAsciiAtom("matchChars16");
 
   public static final Atom getInlineDepth = Atom.findOrCreateAsciiAtom("getInlineDepth");
   public static final Atom isConstantParameter = Atom.findOrCreateAsciiAtom("isConstantParameter");
@@ -205,4 +210,36 @@ public class MagicNames {
   public static final Atom addressArrayLength = Atom.findOrCreateAsciiAtom("length");
   public static final Atom addressArrayGet = Atom.findOrCreateAsciiAtom("get");
   public static final Atom addressArraySet = Atom.findOrCreateAsciiAtom("set");
+
+  // atoms related to the address accessors of sun.misc.Unsafe
+  public static final Atom unsafeGetByte = Atom.findOrCreateAsciiAtom("getByte");
+  public static final Atom unsafeGetShort = Atom.findOrCreateAsciiAtom("getShort");
+  public static final Atom unsafeGetChar = Atom.findOrCreateAsciiAtom("getChar");
+  public static final Atom unsafeGetInt = Atom.findOrCreateAsciiAtom("getInt");
+  public static final Atom unsafeGetFloat = Atom.findOrCreateAsciiAtom("getFloat");
+  public static final Atom unsafeGetLong = Atom.findOrCreateAsciiAtom("getLong");
+  public static final Atom unsafeGetDouble = Atom.findOrCreateAsciiAtom("getDouble");
+  public static final Atom unsafePutByte = Atom.findOrCreateAsciiAtom("putByte");
+  public static final Atom unsafePutShort = Atom.findOrCreateAsciiAtom("putShort");
+  public static final Atom unsafePutChar = Atom.findOrCreateAsciiAtom("putChar");
+  public static final Atom unsafePutInt = Atom.findOrCreateAsciiAtom("putInt");
+  public static final Atom unsafePutFloat = Atom.findOrCreateAsciiAtom("putFloat");
+  public static final Atom unsafePutLong = Atom.findOrCreateAsciiAtom("putLong");
+  public static final Atom unsafePutDouble = Atom.findOrCreateAsciiAtom("putDouble");
+
+  // atoms related to the field accessors and atomic operations of sun.misc.Unsafe
+  public static final Atom unsafeGetIntVolatile = Atom.findOrCreateAsciiAtom("getIntVolatile");
+  public static final Atom unsafeGetLongVolatile = Atom.findOrCreateAsciiAtom("getLongVolatile");
+  public static final Atom unsafeGetObjectVolatile = Atom.findOrCreateAsciiAtom("getObjectVolatile");
+  public static final Atom unsafePutObject = Atom.findOrCreateAsciiAtom("putObject");
+  public static final Atom unsafePutIntVolatile = Atom.findOrCreateAsciiAtom("putIntVolatile");
+  public static final Atom unsafePutLongVolatile = Atom.findOrCreateAsciiAtom("putLongVolatile");
+  public static final Atom unsafePutObjectVolatile = Atom.findOrCreateAsciiAtom("putObjectVolatile");
+  public static final Atom unsafePutOrderedInt = Atom.findOrCreateAsciiAtom("putOrderedInt");
+  public static final Atom unsafePutOrderedLong = Atom.findOrCreateAsciiAtom("putOrderedLong");
+  public static final Atom unsafePutOrderedObject = Atom.findOrCreateAsciiAtom("putOrderedObject");
+  public static final Atom unsafeCompareAndSwapInt = Atom.findOrCreateAsciiAtom("compareAndSwapInt");
+  public static final Atom unsafeCompareAndSwapLong = Atom.findOrCreateAsciiAtom("compareAndSwapLong");
+  public static final Atom unsafeCompareAndSwapObject = Atom.findOrCreateAsciiAtom("compareAndSwapObject");
+  public static final Atom unsafeGetAndAddInt = Atom.findOrCreateAsciiAtom("getAndAddInt");
 }
@@ -14,6 +14,7 @@ package org.jikesrvm.runtime;
 
 import static org.jikesrvm.SizeConstants.BYTES_IN_ADDRESS;
 import static org.jikesrvm.SizeConstants.BYTES_IN_INT;
+import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_CHAR;
 import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_DOUBLE;
 import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_INT;
 import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_SHORT;
@@ -57,6 +58,18 @@ public class Memory {
    */
   private static final int BYTES_IN_COPY = VM.BuildForIA32 && !VM.BuildForSSE2 ? 4 : 8;
 
+  /**
+   * Copy, zero and compare 16 bytes at a time through the SSE2 vector
+   * magic?  The magic allows unaligned addresses.
+   */
+  private static final boolean USE_VECTOR = VM.BuildForSSE2;
+
+  /** Number of bytes handled by a vector magic */
+  private static final int BYTES_IN_VECTOR = 16;
+
+  /** Number of chars handled by a vector magic */
+  private static final int CHARS_IN_VECTOR = BYTES_IN_VECTOR >> LOG_BYTES_IN_CHAR;
+
   @Inline
   private static void copy8Bytes(Address dstPtr, Address srcPtr) {
     if (BYTES_IN_COPY == 8) {
@@ -147,6 +160,14 @@ public class Memory {
             dstPtr = dstPtr.plus(2);
           }
         }
+        if (USE_VECTOR) {
+          Address vectorEndPtr = wordEndPtr.minus(BYTES_IN_VECTOR - 1);
+          while (srcPtr.LT(vectorEndPtr)) {
+            Magic.copy16(dstPtr, srcPtr);
+            srcPtr = srcPtr.plus(BYTES_IN_VECTOR);
+            dstPtr = dstPtr.plus(BYTES_IN_VECTOR);
+          }
+        }
         while (srcPtr.LT(wordEndPtr)) {
           if (BYTES_IN_COPY == 8) {
             copy8Bytes(dstPtr, srcPtr);
@@ -247,6 +268,14 @@ public class Memory {
             dstPtr = dstPtr.plus(2);
           }
         }
+        if (USE_VECTOR) {
+          Address vectorEndPtr = wordEndPtr.minus(BYTES_IN_VECTOR - 1);
+          while (srcPtr.LT(vectorEndPtr)) {
+            Magic.copy16(dstPtr, srcPtr);
+            srcPtr = srcPtr.plus(BYTES_IN_VECTOR);
+            dstPtr = dstPtr.plus(BYTES_IN_VECTOR);
+          }
+        }
         while (srcPtr.LT(wordEndPtr)) {
           if (BYTES_IN_COPY == 8) {
             copy8Bytes(dstPtr, srcPtr);
@@ -334,6 +363,14 @@ public class Memory {
       // The elements of long[] and double[] are always doubleword aligned
       // therefore we can do 64 bit load/stores without worrying about alignment.
       Address endPtr = srcPtr.plus(copyBytes);
+      if (USE_VECTOR) {
+        Address vectorEndPtr = endPtr.minus(BYTES_IN_VECTOR - 1);
+        while (srcPtr.LT(vectorEndPtr)) {
+          Magic.copy16(dstPtr, srcPtr);
+          srcPtr = srcPtr.plus(BYTES_IN_VECTOR);
+          dstPtr = dstPtr.plus(BYTES_IN_VECTOR);
+        }
+      }
       while (srcPtr.LT(endPtr)) {
         copy8Bytes(dstPtr, srcPtr);
         srcPtr = srcPtr.plus(8);
@@ -375,6 +412,12 @@ public class Memory {
           }
           Word endAlignment = srcAlignment.plus(numBytes).and(wordMask);
           numBytes = numBytes.minus(endAlignment.toOffset());
+          if (USE_VECTOR) {
+            Offset vectorBytes = numBytes.minus(BYTES_IN_VECTOR - 1);
+            for (; i.sLT(vectorBytes); i = i.plus(BYTES_IN_VECTOR)) {
+              Magic.copy16(dst.plus(i), src.plus(i));
+            }
+          }
           for (; i.sLT(numBytes); i = i.plus(BYTES_IN_COPY)) {
             copy8Bytes(dst.plus(i), src.plus(i));
           }
@@ -385,7 +428,14 @@ public class Memory {
         }
       }
       //normal case: 32 bit or (64 bit not aligned)
-      for (Offset i = Offset.zero(); i.sLT(numBytes); i = i.plus(BYTES_IN_INT)) {
+      Offset i = Offset.zero();
+      if (USE_VECTOR) {
+        Offset vectorBytes = numBytes.minus(BYTES_IN_VECTOR - 1);
+        for (; i.sLT(vectorBytes); i = i.plus(BYTES_IN_VECTOR)) {
+          Magic.copy16(dst.plus(i), src.plus(i));
+        }
+      }
+      for (; i.sLT(numBytes); i = i.plus(BYTES_IN_INT)) {
         copy4Bytes(dst.plus(i), src.plus(i));
       }
     }
@@ -444,7 +494,22 @@ public class Memory {
    * @param len extent to zero.
    */
   public static void zero(Address start, Extent len) {
-    SysCall.sysCall.sysZero(start, len);
+    if (USE_VECTOR && len.LE(Extent.fromIntZeroExtend(NATIVE_THRESHOLD))) {
+      // small regions, such as most objects zeroed on allocation, aren't
+      // worth the transition to C
+      Address end = start.plus(len);
+      Address vectorEnd = end.minus(BYTES_IN_VECTOR - 1);
+      while (start.LT(vectorEnd)) {
+        Magic.zero16(start);
+        start = start.plus(BYTES_IN_VECTOR);
+      }
+      while (start.LT(end)) {
+        start.store((byte) 0);
+        start = start.plus(1);
+      }
+    } else {
+      SysCall.sysCall.sysZero(start, len);
+    }
   }
 
   /**
@@ -457,6 +522,72 @@ public class Memory {
     SysCall.sysCall.sysZeroPages(start, len);
   }
 
+  /**
+   * Compare two ranges of chars.
+   *
+   * @param a the first array
+   * @param aOffset index of the first char to compare in a
+   * @param b the second array
+   * @param bOffset index of the first char to compare in b
+   * @param len number of chars to compare, all of which must be in bounds
+   * @return whether the ranges hold the same chars
+   */
+  public static boolean equalChars(char[] a, int aOffset, char[] b, int bOffset, int len) {
+    int i = 0;
+    if (USE_VECTOR) {
+      Address aPtr = Magic.objectAsAddress(a).plus(aOffset << LOG_BYTES_IN_CHAR);
+      Address bPtr = Magic.objectAsAddress(b).plus(bOffset << LOG_BYTES_IN_CHAR);
+      for (; i <= len - CHARS_IN_VECTOR; i += CHARS_IN_VECTOR) {
+        Offset o = Offset.fromIntZeroExtend(i << LOG_BYTES_IN_CHAR);
+        if (Magic.compareBytes16(aPtr.plus(o), bPtr.plus(o)) != 0xFFFF) {
+          return false;
+        }
+      }
+    }
+    for (; i < len; i++) {
+      if (a[aOffset + i] != b[bOffset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find the first occurrence of a char in a range of an array.
+   *
+   * @param a the array
+   * @param from index of the first char to look at
+   * @param to index after the last char to look at, which must be in bounds
+   * @param c the char to look for, as a code point
+   * @return the index of the first occurrence or -1 if there is none
+   */
+  public static int indexOfChar(char[] a, int from, int to, int c) {
+    if ((c & ~0xFFFF) != 0) {
+      return -1; // not a char, so can't be found
+    }
+    int i = from;
+    if (USE_VECTOR) {
+      Address aPtr = Magic.objectAsAddress(a);
+      for (; i <= to - CHARS_IN_VECTOR; i += CHARS_IN_VECTOR) {
+        int mask = Magic.matchChars16(aPtr.plus(i << LOG_BYTES_IN_CHAR), c);
+        if (mask != 0) {
+          // two bits of the mask per char
+          while ((mask & 3) == 0) {
+            mask >>>= 2;
+            i++;
+          }
+          return i;
+        }
+      }
+    }
+    for (; i < to; i++) {
+      if (a[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   ////////////////////////
   // (2) Cache management
   ////////////////////////
@@ -549,6 +680,26 @@ public class Memory {
     return SysCall.sysCall.sysMProtect(address, size, prot) == 0;
   }
 
+  /**
+   * Make the pages spanning a range of the boot image code writable.
+   * The boot image runner may map the code image read-only so that its
+   * pages stay shared between VM processes; code patching must call this
+   * first, which gives this process a private copy of just those pages.
+   * Ranges outside the boot image code are left alone.
+   *
+   * @param start start of the range about to be written
+   * @param size size of the range in bytes
+   */
+  public static void unprotectBootImageCode(Address start, int size) {
+    BootRecord br = BootRecord.the_boot_record;
+    if (start.LT(br.bootImageCodeStart) || start.GE(br.bootImageCodeEnd)) return;
+    Address first = alignDown(start, getPagesize());
+    Address last = alignUp(start.plus(size), getPagesize());
+    if (!mprotect(first, last.diff(first).toWord().toExtent(), PROT_READ | PROT_WRITE | PROT_EXEC)) {
+      VM.sysFail("Unable to make boot image code writable for patching");
+    }
+  }
+
   private static int pagesize = -1;
   private static int pagesizeLog = -1;
 
@@ -16,6 +16,7 @@ import org.jikesrvm.ArchitectureSpecific;
 import org.jikesrvm.ArchitectureSpecific.Registers;
 import org.jikesrvm.VM;
 import org.jikesrvm.Constants;
+import org.jikesrvm.HeapLayoutConstants;
 import org.jikesrvm.Services;
 import org.jikesrvm.classloader.RVMArray;
 import org.jikesrvm.classloader.RVMClass;
@@ -134,7 +135,7 @@ public class RuntimeEntrypoints implements Constants, ArchitectureSpecific.Stack
     if (VM.VerifyAssertions) VM._assert(rhsType.isResolved());
     if (VM.VerifyAssertions) VM._assert(lhsType.isResolved());
 
-    return lhsType == rhsType || DynamicTypeCheck.instanceOfResolved(lhsType, rhsType);
+    return lhsType == rhsType || DynamicTypeCheck.instanceOfCached(lhsType, rhsType);
   }
 
   /**
@@ -161,7 +162,7 @@ public class RuntimeEntrypoints implements Constants, ArchitectureSpecific.Stack
 
     // not an exact match, do more involved lookups
     //
-    if (!isAssignableWith(lhsType, rhsType)) {
+    if (!isAssignableWithCached(lhsType, rhsType)) {
       throw new ClassCastException("Cannot cast a(n) " + rhsType + " to a(n) " + lhsType);
     }
   }
@@ -216,7 +217,7 @@ public class RuntimeEntrypoints implements Constants, ArchitectureSpecific.Stack
       return; // exact type match
     }
 
-    if (isAssignableWith(elmType, rhsType)) {
+    if (isAssignableWithCached(elmType, rhsType)) {
       return;
     }
 
@@ -245,6 +246,25 @@ public class RuntimeEntrypoints implements Constants, ArchitectureSpecific.Stack
     return DynamicTypeCheck.instanceOfResolved(lhs, rhs);
   }
 
+  /**
+   * May a variable of type "lhs" be assigned a value of type "rhs"?
+   * As {@link #isAssignableWith} but using and updating the secondary
+   * super cache of rhs (see {@link DynamicTypeCheck#instanceOfCached}).
+   * @param lhs type of variable
+   * @param rhs type of value
+   * @return true  --> assignment is legal
+   *           false --> assignment is illegal
+   */
+  private static boolean isAssignableWithCached(RVMType lhs, RVMType rhs) {
+    if (!lhs.isResolved()) {
+      lhs.resolve();
+    }
+    if (!rhs.isResolved()) {
+      rhs.resolve();
+    }
+    return DynamicTypeCheck.instanceOfCached(lhs, rhs);
+  }
+
   //---------------------------------------------------------------//
   //                     Object Allocation.                        //
   //---------------------------------------------------------------//
@@ -903,6 +923,15 @@ public class RuntimeEntrypoints implements Constants, ArchitectureSpecific.Stack
     BootRecord.the_boot_record.deliverHardwareExceptionOffset =
         Entrypoints.deliverHardwareExceptionMethod.getOffset();
 
+    // tell "RunBootImage.C" where the yieldpoint polling page is and where
+    // to divert a thread that faults reading it
+    //
+    BootRecord.the_boot_record.yieldpointPollingPage = HeapLayoutConstants.YIELDPOINT_POLLING_PAGE;
+    if (VM.BuildForOptCompiler) {
+      BootRecord.the_boot_record.yieldpointFromPollOffset =
+          Entrypoints.optThreadSwitchFromBackedgeMethod.getOffset();
+    }
+
     // tell "RunBootImage.C" to set "RVMThread.debugRequested" flag
     // whenever the host operating system detects a debug request signal
     //
@@ -82,18 +82,27 @@ public abstract class SysCall {
   @SysCallTemplate
   public abstract void sysCopy(Address dst, Address src, Extent cnt);
 
+  @SysCallTemplate
+  public abstract void sysMemmove(Address dst, Address src, Extent cnt);
+
   @SysCallTemplate
   public abstract Address sysMalloc(int length);
 
   @SysCallTemplate
   public abstract Address sysCalloc(int length);
 
+  @SysCallTemplate
+  public abstract Address sysRealloc(Address location, int length);
+
   @SysCallTemplate
   public abstract void sysFree(Address location);
 
   @SysCallTemplate
   public abstract void sysZero(Address dst, Extent cnt);
 
+  @SysCallTemplate
+  public abstract void sysFill(Address dst, int value, Extent cnt);
+
   @SysCallTemplate
   public abstract void sysZeroPages(Address dst, int cnt);
 
@@ -24,12 +24,15 @@ import static org.jikesrvm.ArchitectureSpecific.StackframeLayoutConstants.STACKF
 import static org.jikesrvm.ArchitectureSpecific.StackframeLayoutConstants.STACK_SIZE_GUARD;
 import org.jikesrvm.ArchitectureSpecific.ThreadLocalState;
 import org.jikesrvm.ArchitectureSpecific.StackframeLayoutConstants;
+import org.jikesrvm.HeapLayoutConstants;
 import org.jikesrvm.VM;
 import org.jikesrvm.Configuration;
 import org.jikesrvm.Services;
 import org.jikesrvm.UnimplementedError;
 import org.jikesrvm.adaptive.OnStackReplacementEvent;
+import org.jikesrvm.adaptive.measurements.CpuProfiler;
 import org.jikesrvm.adaptive.measurements.RuntimeMeasurements;
+import org.jikesrvm.adaptive.measurements.StackSampleBuffer;
 import org.jikesrvm.compilers.common.CompiledMethod;
 import org.jikesrvm.compilers.common.CompiledMethods;
 import org.jikesrvm.osr.ObjectHolder;
@@ -61,6 +64,7 @@ import org.vmmagic.pragma.UnpreemptibleNoWarn;
 import org.vmmagic.pragma.Untraced;
 import org.vmmagic.pragma.NoCheckStore;
 import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.Extent;
 import org.vmmagic.unboxed.Word;
 import org.vmmagic.unboxed.Offset;
 import static org.jikesrvm.runtime.SysCall.sysCall;
@@ -882,6 +886,12 @@ public final class RVMThread extends ThreadContext {
   @Entrypoint
   public int takeYieldpoint;
 
+  /**
+   * Call stack samples of this thread for the CPU profiler, or null if the
+   * profiler isn't running.
+   */
+  public StackSampleBuffer stackSamples;
+
   /**
    * How many times has the "timeslice" expired? This is only used for profiling
    * and OSR (in particular base-to-opt OSR).
@@ -891,6 +901,26 @@ public final class RVMThread extends ThreadContext {
   /** Is a running thread permitted to ignore the next park request */
   private boolean parkingPermit;
 
+  /*
+   * Timer wheel fields, protected by the wheel's lock
+   */
+
+  /** Is this thread queued on the {@link TimerWheel}? */
+  boolean timerQueued;
+
+  /** The tick at which the timer wheel is to wake this thread */
+  long timerTick;
+
+  /** The timer wheel slot this thread is queued in */
+  int timerSlot;
+
+  /**
+   * Thread slots of the next and previous threads in the same timer wheel
+   * slot, or {@link TimerWheel#NONE}
+   */
+  int timerNext;
+  int timerPrev;
+
   /*
    * JNI fields
    */
@@ -1284,6 +1314,7 @@ public final class RVMThread extends ThreadContext {
     outputLock = new NoYieldpointsMonitor();
     softHandshakeDataLock = new Monitor();
     handshakeLock = new Monitor();
+    TimerWheel.boot();
     doProfileReport = new Latch(false);
     monitorBySlot[getCurrentThread().threadSlot] = new NoYieldpointsMonitor();
     communicationLockBySlot[getCurrentThread().threadSlot] = new Monitor();
@@ -1544,6 +1575,9 @@ public final class RVMThread extends ThreadContext {
 
       if (VM.BuildForAdaptiveSystem) {
         onStackReplacementEvent = new OnStackReplacementEvent();
+        if (CpuProfiler.enabled()) {
+          CpuProfiler.registerThread(this);
+        }
       } else {
         onStackReplacementEvent = null;
       }
@@ -1994,6 +2028,7 @@ public final class RVMThread extends ThreadContext {
         result = TERMINATED;
       } else {
         takeYieldpoint = 1;
+        armPollingPage();
         // CAS the execStatus field
         int newState = setBlockedExecStatus();
         result = newState;
@@ -2293,6 +2328,7 @@ public final class RVMThread extends ThreadContext {
       if (isInJava()) {
         asyncDebugRequestedForThisThread = true;
         takeYieldpoint = 1;
+        armPollingPage();
         VM.sysWriteln("(stack trace will follow if thread is not lost...)");
       } else {
         if (contextRegisters != null) {
@@ -2360,6 +2396,7 @@ public final class RVMThread extends ThreadContext {
     if (yieldpointsEnabled() && yieldpointRequestPending) {
       takeYieldpoint = 1;
       yieldpointRequestPending = false;
+      armPollingPage();
     }
   }
 
@@ -2866,6 +2903,42 @@ public final class RVMThread extends ThreadContext {
     getCurrentThread().checkBlock();
     sysCall.sysThreadYield();
   }
+  /**
+   * Wait on this thread's monitor, which must be held, until it is
+   * broadcast or the given time passes.  Callers wait in a loop that
+   * re-checks their condition, so this may also return early.
+   * <p>
+   * If the {@link TimerWheel} is enabled, the thread waits without a
+   * timeout and is woken by the wheel.  To queue itself on the wheel it
+   * briefly releases its monitor, as the wheel's lock is taken before a
+   * thread's monitor, and returns so that the caller re-checks its
+   * condition.  After the loop, {@link #leaveTimerWheel} must be called.
+   *
+   * @param whenWakeupNanos the time to wake up at
+   */
+  @Unpreemptible("May block while waiting")
+  private void timedWaitAbsoluteWithHandshake(long whenWakeupNanos) {
+    if (!TimerWheel.enabled()) {
+      monitor().timedWaitAbsoluteWithHandshake(whenWakeupNanos);
+    } else if (!timerQueued) {
+      monitor().unlock();
+      TimerWheel.add(this, whenWakeupNanos);
+      monitor().lockNoHandshake();
+    } else {
+      monitor().waitWithHandshake();
+    }
+  }
+
+  /**
+   * Take this thread off the {@link TimerWheel}, if it is still queued
+   * after a timed wait.  Must be called without the monitor held.
+   */
+  private void leaveTimerWheel() {
+    if (TimerWheel.enabled()) {
+      TimerWheel.remove(this);
+    }
+  }
+
   /**
    * Suspend execution of current thread for specified number of seconds (or
    * fraction).
@@ -2879,7 +2952,7 @@ public final class RVMThread extends ThreadContext {
     t.monitor().lockNoHandshake();
     while (!t.hasInterrupt && t.asyncThrowable == null &&
         sysCall.sysNanoTime() < whenEnd) {
-      t.monitor().timedWaitAbsoluteWithHandshake(whenEnd);
+      t.timedWaitAbsoluteWithHandshake(whenEnd);
     }
     boolean throwInterrupt = false;
     Throwable throwThis = null;
@@ -2892,6 +2965,7 @@ public final class RVMThread extends ThreadContext {
       t.asyncThrowable = null;
     }
     t.monitor().unlock();
+    t.leaveTimerWheel();
     t.waiting = Waiting.RUNNABLE;
     if (throwThis != null) {
       RuntimeEntrypoints.athrow(throwThis);
@@ -3106,6 +3180,7 @@ public final class RVMThread extends ThreadContext {
     monitor().lockNoHandshake();
     asyncThrowable = cause;
     takeYieldpoint = 1;
+    armPollingPage();
     monitor().broadcast();
     monitor().unlock();
   }
@@ -3139,7 +3214,7 @@ public final class RVMThread extends ThreadContext {
     while (!parkingPermit && !hasInterrupt && asyncThrowable == null &&
            (!hasTimeout || sysCall.sysNanoTime() < whenWakeupNanos)) {
       if (hasTimeout) {
-        monitor().timedWaitAbsoluteWithHandshake(whenWakeupNanos);
+        timedWaitAbsoluteWithHandshake(whenWakeupNanos);
       } else {
         monitor().waitWithHandshake();
       }
@@ -3151,6 +3226,7 @@ public final class RVMThread extends ThreadContext {
       asyncThrowable = null;
     }
     monitor().unlock();
+    if (hasTimeout) leaveTimerWheel();
 
     if (holdsLock)
       ObjectModel.genericLock(thread);
@@ -3282,6 +3358,7 @@ public final class RVMThread extends ThreadContext {
           // acknowledged.
           t.softHandshakeRequested = true;
           t.takeYieldpoint = 1;
+          armPollingPage();
           waitForThisThread = true;
         } else {
           // the thread is not in Java code (it may be blocked or it may be
@@ -3668,6 +3745,7 @@ public final class RVMThread extends ThreadContext {
       t.yieldpointRequestPending = true;
       t.takeYieldpoint = 0;
       t.atYieldpoint = false;
+      if (pollingPageArmed) disarmPollingPage();
       return;
     }
     t.yieldpointsTakenFully++;
@@ -3782,11 +3860,71 @@ public final class RVMThread extends ThreadContext {
     }
     t.monitor().unlock();
     t.atYieldpoint = false;
+    if (pollingPageArmed) disarmPollingPage();
     if (throwThis != null) {
       throwFromUninterruptible(throwThis);
     }
   }
 
+  /**
+   * Is the yieldpoint polling page protected?
+   */
+  private static volatile boolean pollingPageArmed;
+
+  /**
+   * Make opt-compiled loops take their next yieldpoint.  With
+   * <code>-X:vm:pollingPageYieldpoints=true</code> opt-compiled loop
+   * backedges do not test {@link #takeYieldpoint}, but instead read the
+   * yieldpoint polling page, so this protects the page to make them fault
+   * into {@link #yieldpoint}.  The page is shared by all threads, so threads
+   * that were not asked to yield will also trap until it is unprotected.
+   * It is therefore only armed for requests that must be acted on soon,
+   * such as blocking and handshakes.  Timer ticks only set
+   * takeYieldpoint, so a sampled thread in a polling loop is sampled at
+   * its next prologue or epilogue yieldpoint.
+   * <p>
+   * Callers must set takeYieldpoint before calling this, so that
+   * {@link #disarmPollingPage} sees the request.
+   */
+  public static void armPollingPage() {
+    if (VM.pollingPageYieldpoints && VM.BuildFor32Addr) {
+      pollingPageArmed = true;
+      Memory.mprotect(HeapLayoutConstants.YIELDPOINT_POLLING_PAGE,
+          Extent.fromIntZeroExtend(Memory.getPagesize()), Memory.PROT_NONE);
+    }
+  }
+
+  /**
+   * Unprotect the yieldpoint polling page, unless a thread running Java
+   * code still has a yieldpoint requested.  A request made while the page
+   * is being unprotected protects it again itself, or is seen by the second
+   * check, so only a request that is still pending re-arms the page.
+   * Threads in native code are not checked; requests for them are acted on
+   * when they leave native.
+   */
+  private static void disarmPollingPage() {
+    if (pollingPageRequested()) return;
+    pollingPageArmed = false;
+    Memory.mprotect(HeapLayoutConstants.YIELDPOINT_POLLING_PAGE,
+        Extent.fromIntZeroExtend(Memory.getPagesize()), Memory.PROT_READ);
+    if (pollingPageRequested()) armPollingPage();
+  }
+
+  /**
+   * Does a thread running Java code have a yieldpoint requested?  Scans
+   * the thread slots without taking a lock, as the slot of a running
+   * thread does not change.
+   */
+  private static boolean pollingPageRequested() {
+    for (int i = 0; i < nextSlot; i++) {
+      RVMThread t = threadBySlot[i];
+      if (t != null && t.takeYieldpoint > 0 && t.isInJava()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Unpreemptible
   private static void throwFromUninterruptible(Throwable e) {
     RuntimeEntrypoints.athrow(e);
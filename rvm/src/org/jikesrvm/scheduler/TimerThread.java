@@ -13,6 +13,8 @@
 package org.jikesrvm.scheduler;
 
 import org.jikesrvm.VM;
+import org.jikesrvm.adaptive.measurements.CpuProfiler;
+import org.jikesrvm.mm.mminterface.MemoryManager;
 import static org.jikesrvm.runtime.SysCall.sysCall;
 import org.vmmagic.pragma.NonMoving;
 import org.vmmagic.pragma.Uninterruptible;
@@ -46,21 +48,33 @@ public class TimerThread extends SystemThread {
     if (verbose>=1) VM.sysWriteln("TimerThread run routine entered");
     try {
       for (;;) {
-        sysCall.sysNanoSleep(1000L*1000L*(long)VM.interruptQuantum);
+        if (VM.TimerSlack > 0) {
+          TimerWheel.service(1000L*1000L*(long)VM.interruptQuantum);
+        } else {
+          sysCall.sysNanoSleep(1000L*1000L*(long)VM.interruptQuantum);
+        }
 
         if (VM.BuildForAdaptiveSystem) {
           // grab the lock to prevent threads from getting GC'd while we are
           // iterating (since this thread doesn't stop for GC)
           RVMThread.acctLock.lockNoHandshake();
           RVMThread.timerTicks++;
+          boolean drainProfile=false;
+          boolean collecting=MemoryManager.gcInProgress();
           for (int i=0;i<RVMThread.numThreads;++i) {
             RVMThread candidate=RVMThread.threads[i];
             if (candidate!=null && candidate.shouldBeSampled()) {
               candidate.timeSliceExpired++;
               candidate.takeYieldpoint=1;
             }
+            // collector threads take no yieldpoints, so profile them from here
+            if (candidate!=null && collecting && candidate.isCollectorThread() &&
+                candidate.stackSamples!=null && candidate.stackSamples.sampleCollector()) {
+              drainProfile=true;
+            }
           }
           RVMThread.acctLock.unlock();
+          if (drainProfile) CpuProfiler.requestDrain();
         }
 
         RVMThread.checkDebugRequest();
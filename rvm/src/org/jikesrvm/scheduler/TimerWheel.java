@@ -0,0 +1,289 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.scheduler;
+
+import static org.jikesrvm.runtime.SysCall.sysCall;
+
+import org.jikesrvm.VM;
+import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.Uninterruptible;
+
+/**
+ * A hierarchical timer wheel that wakes threads from timed sleeps and
+ * parks, enabled with <code>-X:vm:timerSlack=us</code>.
+ * <p>
+ * Without it, every timed sleep blocks its pthread in a timed wait, so
+ * thousands of threads doing short timed waits each arm a kernel timer
+ * and are woken one by one.  With it, a sleeping thread queues itself on
+ * the wheel and waits on its monitor without a timeout.  The
+ * {@link TimerThread} services the wheel with a single timed wait and
+ * wakes every thread that is due by broadcasting its monitor.
+ * <p>
+ * Time is divided into ticks of the slack.  A deadline is rounded up to
+ * the next tick, so wakeups are late by at most the slack (plus the
+ * timer thread's scheduling latency), and deadlines within the same tick
+ * are woken together.  The wheel has {@link #LEVELS} levels of
+ * {@link #SLOTS} slots: level 0 holds the threads due within
+ * {@link #SLOTS} ticks, one slot per tick, and each higher level covers
+ * {@link #SLOTS} times the span of the one below.  When level 0 wraps
+ * around, the next slot of level 1 is cascaded down into it, and so on up.
+ * Threads due beyond the top level are parked in its last slot and
+ * requeued when it is cascaded.
+ * <p>
+ * Threads are linked into slots through their own fields, so queueing and
+ * dequeueing never allocate.  The links are thread slot numbers rather than
+ * references: the timer thread services the wheel while ignoring handshakes
+ * and collections, so it must not store references the collector sees.
+ * The wheel's lock is always taken before a thread's monitor, never after.
+ */
+@Uninterruptible
+public final class TimerWheel {
+  private static final int LOG_SLOTS = 6;
+  /** Slots per level */
+  private static final int SLOTS = 1 << LOG_SLOTS;
+  private static final int SLOT_MASK = SLOTS - 1;
+  /** Number of levels */
+  private static final int LEVELS = 4;
+  /** Span of the whole wheel in ticks */
+  private static final long MAX_TICKS = 1L << (LOG_SLOTS * LEVELS);
+
+  /** Link to no thread */
+  static final int NONE = -1;
+
+  /**
+   * Thread slots of the heads of the lists of threads in each slot of each
+   * level, or {@link #NONE}
+   */
+  private static final int[] slots = new int[LEVELS * SLOTS];
+
+  /** Protects the wheel; the timer thread waits on it between ticks */
+  private static NoYieldpointsMonitor lock;
+
+  /** Is the wheel being serviced by the timer thread? */
+  private static boolean enabled;
+
+  /** Length of a tick */
+  private static long tickNanos;
+
+  /** Start of tick 0 */
+  private static long epoch;
+
+  /** The next tick to be processed */
+  private static long currentTick;
+
+  /** Number of threads on the wheel */
+  private static int queued;
+
+  /**
+   * When the timer thread will next wake up, if it is waiting on
+   * {@link #lock}; otherwise 0, as it will look at the wheel before it
+   * next waits.
+   */
+  private static long plannedWakeup;
+
+  static void boot() {
+    lock = new NoYieldpointsMonitor();
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = NONE;
+    }
+  }
+
+  /** @return whether timed sleeps and parks use the wheel */
+  @Inline
+  public static boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Queue a thread to be woken at a given time, unless it is already
+   * queued.  Must not be called with the thread's monitor held.
+   *
+   * @param t the thread
+   * @param whenWakeupNanos the time to wake it at
+   */
+  static void add(RVMThread t, long whenWakeupNanos) {
+    lock.lockNoHandshake();
+    if (!t.timerQueued) {
+      long delta = whenWakeupNanos - epoch;
+      long tick = delta <= 0 ? 0 : delta / tickNanos + (delta % tickNanos == 0 ? 0 : 1);
+      t.timerTick = tick;
+      link(t);
+      t.timerQueued = true;
+      queued++;
+      if (epoch + tick * tickNanos < plannedWakeup) {
+        lock.broadcast(); // the timer thread must wake up sooner
+      }
+    }
+    lock.unlock();
+  }
+
+  /**
+   * Remove a thread from the wheel, if it is still queued.
+   *
+   * @param t the thread
+   */
+  static void remove(RVMThread t) {
+    lock.lockNoHandshake();
+    if (t.timerQueued) {
+      unlink(t);
+      t.timerQueued = false;
+      queued--;
+    }
+    lock.unlock();
+  }
+
+  /**
+   * Put a thread into the slot for its tick, relative to the current tick.
+   */
+  private static void link(RVMThread t) {
+    long tick = t.timerTick;
+    long delta = tick - currentTick;
+    if (delta < 0) {
+      tick = currentTick;
+      delta = 0;
+    } else if (delta >= MAX_TICKS) {
+      tick = currentTick + MAX_TICKS - 1;
+      delta = MAX_TICKS - 1;
+    }
+    int level = 0;
+    while (delta >= (1L << (LOG_SLOTS * (level + 1)))) {
+      level++;
+    }
+    int slot = level * SLOTS + ((int) (tick >>> (LOG_SLOTS * level)) & SLOT_MASK);
+    int head = slots[slot];
+    t.timerSlot = slot;
+    t.timerPrev = NONE;
+    t.timerNext = head;
+    if (head != NONE) thread(head).timerPrev = t.threadSlot;
+    slots[slot] = t.threadSlot;
+  }
+
+  private static void unlink(RVMThread t) {
+    if (t.timerPrev == NONE) {
+      slots[t.timerSlot] = t.timerNext;
+    } else {
+      thread(t.timerPrev).timerNext = t.timerNext;
+    }
+    if (t.timerNext != NONE) {
+      thread(t.timerNext).timerPrev = t.timerPrev;
+    }
+    t.timerNext = NONE;
+    t.timerPrev = NONE;
+  }
+
+  /**
+   * @return the thread in a thread slot; threads on the wheel are alive,
+   * so their slots are not reused
+   */
+  @Inline
+  private static RVMThread thread(int threadSlot) {
+    return RVMThread.threadBySlot[threadSlot];
+  }
+
+  /**
+   * Service the wheel for a while, waking threads as they fall due.
+   * Called by the timer thread in place of sleeping.
+   *
+   * @param nanos how long to service the wheel for
+   */
+  static void service(long nanos) {
+    if (!enabled) {
+      tickNanos = 1000L * VM.TimerSlack;
+      epoch = sysCall.sysNanoTime();
+      enabled = true;
+    }
+    long end = sysCall.sysNanoTime() + nanos;
+    lock.lockNoHandshake();
+    for (;;) {
+      long now = sysCall.sysNanoTime();
+      advance((now - epoch) / tickNanos);
+      if (now >= end) break;
+      long next = nextTickNanos();
+      plannedWakeup = next < end ? next : end;
+      lock.timedWaitAbsoluteNoHandshake(plannedWakeup);
+    }
+    plannedWakeup = 0;
+    lock.unlock();
+  }
+
+  /**
+   * Process every tick up to and including the given one.
+   */
+  private static void advance(long lastTick) {
+    while (currentTick <= lastTick) {
+      if (queued == 0) {
+        currentTick = lastTick + 1;
+        return;
+      }
+      int index = (int) currentTick & SLOT_MASK;
+      if (index == 0) {
+        cascade();
+      }
+      fire(index);
+      currentTick++;
+    }
+  }
+
+  /**
+   * Level 0 has wrapped around: move the threads in the next slot of
+   * level 1 down, and likewise for higher levels that have wrapped.
+   */
+  private static void cascade() {
+    for (int level = 1; level < LEVELS; level++) {
+      int index = (int) (currentTick >>> (LOG_SLOTS * level)) & SLOT_MASK;
+      int slot = level * SLOTS + index;
+      int t = slots[slot];
+      slots[slot] = NONE;
+      while (t != NONE) {
+        int next = thread(t).timerNext;
+        link(thread(t));
+        t = next;
+      }
+      if (index != 0) break;
+    }
+  }
+
+  /**
+   * Wake the threads in a slot of level 0 that are due.
+   */
+  private static void fire(int index) {
+    int slot = slots[index];
+    slots[index] = NONE;
+    while (slot != NONE) {
+      RVMThread t = thread(slot);
+      slot = t.timerNext;
+      if (t.timerTick > currentTick) {
+        link(t); // beyond the span of the wheel when it was queued
+      } else {
+        t.timerNext = NONE;
+        t.timerPrev = NONE;
+        t.timerQueued = false;
+        queued--;
+        t.monitor().lockedBroadcastNoHandshake();
+      }
+    }
+  }
+
+  /**
+   * @return the start of the next tick at which threads may be due, or
+   * when level 0 next wraps around
+   */
+  private static long nextTickNanos() {
+    if (queued == 0) return Long.MAX_VALUE;
+    long tick = currentTick;
+    for (int index = (int) tick & SLOT_MASK; index < SLOTS; index++, tick++) {
+      if (slots[index] != NONE) break;
+    }
+    return epoch + tick * tickNanos;
+  }
+}
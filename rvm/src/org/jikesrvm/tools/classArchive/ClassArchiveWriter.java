@@ -0,0 +1,228 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.classArchive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.StringTokenizer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.jikesrvm.classloader.ClassArchive;
+
+/**
+ * Write a {@link ClassArchive} for an application classpath.  Runs on the
+ * host JVM, like the boot image writer:
+ * <pre>
+ * java org.jikesrvm.tools.classArchive.ClassArchiveWriter -o archive -cp classpath
+ * </pre>
+ * The classpath must be given exactly as it will be given to the VM, as
+ * the archive is only used for that classpath.  Only unsigned jars are
+ * archived; classes in directories and signed jars are still loaded from
+ * the classpath.  The classes of a directory are noted as taken, so a
+ * later jar's copy of one of them is not archived.  Classes added to a
+ * directory after the archive is written are not noticed, so the archive
+ * should be rewritten when that happens.
+ */
+public class ClassArchiveWriter {
+
+  /** Class files to archive, in classpath order, and the index of each one's jar */
+  private static final ArrayList<String> names = new ArrayList<String>();
+  private static final ArrayList<byte[]> contents = new ArrayList<byte[]>();
+  private static final ArrayList<Integer> jarIndices = new ArrayList<Integer>();
+
+  /** Classes found so far, including those of jars not archived */
+  private static final HashSet<String> seen = new HashSet<String>();
+
+  /** Manifest of each archived jar, or {@code null} if it has none */
+  private static final ArrayList<byte[]> manifests = new ArrayList<byte[]>();
+
+  public static void main(String[] args) throws IOException {
+    String archiveName = null;
+    String classpath = null;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-o")) {
+        if (++i >= args.length) {
+          fail("argument syntax error: Got a -o flag without a following archive file name");
+        }
+        archiveName = args[i];
+        continue;
+      }
+      if (args[i].equals("-cp")) {
+        if (++i >= args.length) {
+          fail("argument syntax error: Got a -cp flag without a following classpath");
+        }
+        classpath = args[i];
+        continue;
+      }
+      fail("unrecognized command line argument: " + args[i]);
+    }
+    if (archiveName == null) fail("please specify an archive file with -o");
+    if (classpath == null) fail("please specify a classpath with -cp");
+
+    ArrayList<File> jars = new ArrayList<File>();
+    StringTokenizer tok = new StringTokenizer(classpath, File.pathSeparator);
+    while (tok.hasMoreTokens()) {
+      String elt = tok.nextToken();
+      if (elt.endsWith(".jar") || elt.endsWith(".zip")) {
+        File jar = new File(elt).getAbsoluteFile();
+        if (readJar(jar, jars.size())) {
+          jars.add(jar);
+        } else {
+          say("not archiving signed jar ", elt);
+        }
+      } else {
+        say("not archiving directory ", elt);
+        noteDirectory(new File(elt), "");
+      }
+    }
+
+    DataOutputStream out =
+      new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archiveName)));
+    out.writeInt(ClassArchive.MAGIC);
+    out.writeInt(ClassArchive.VERSION);
+    out.writeUTF(classpath);
+    out.writeInt(jars.size());
+    for (int j = 0; j < jars.size(); j++) {
+      File jar = jars.get(j);
+      out.writeUTF(jar.getPath());
+      out.writeLong(jar.length());
+      out.writeLong(jar.lastModified());
+      byte[] manifest = manifests.get(j);
+      if (manifest == null) {
+        out.writeInt(-1);
+      } else {
+        out.writeInt(manifest.length);
+        out.write(manifest);
+      }
+    }
+
+    // Lay the class files out after the index, so compute its size first
+    ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+    DataOutputStream index = new DataOutputStream(indexBytes);
+    for (int i = 0; i < names.size(); i++) {
+      index.writeUTF(names.get(i));
+      index.writeInt(0);
+      index.writeLong(0);
+      index.writeInt(0);
+    }
+    long offset = out.size() + 4 + index.size();
+    out.writeInt(names.size());
+    for (int i = 0; i < names.size(); i++) {
+      out.writeUTF(names.get(i));
+      out.writeInt(jarIndices.get(i));
+      out.writeLong(offset);
+      out.writeInt(contents.get(i).length);
+      offset += contents.get(i).length;
+    }
+    for (byte[] bytes : contents) {
+      out.write(bytes);
+    }
+    out.close();
+    say("wrote ", String.valueOf(names.size()), " classes from ", String.valueOf(jars.size()),
+        " jars to ", archiveName);
+  }
+
+  /**
+   * Read the class files and manifest of a jar, unless it is signed, in
+   * which case its classes are only noted as taken.
+   *
+   * @param jar the jar
+   * @param jarIndex the index the jar will have in the archive
+   * @return whether the jar is to be archived
+   */
+  private static boolean readJar(File jar, int jarIndex) throws IOException {
+    ZipFile zf = new ZipFile(jar);
+    try {
+      boolean signed = false;
+      Enumeration<? extends ZipEntry> entries = zf.entries();
+      while (entries.hasMoreElements()) {
+        String entry = entries.nextElement().getName().toUpperCase();
+        if (entry.startsWith("META-INF/") && entry.endsWith(".SF")) {
+          signed = true;
+          break;
+        }
+      }
+      entries = zf.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry ze = entries.nextElement();
+        String entry = ze.getName();
+        if (!entry.endsWith(".class")) continue;
+        String className = entry.substring(0, entry.length() - ".class".length()).replace('/', '.');
+        // As on the classpath, the first jar to define a class wins
+        if (!seen.add(className) || signed) continue;
+        names.add(className);
+        contents.add(readEntry(zf, ze));
+        jarIndices.add(jarIndex);
+      }
+      if (signed) return false;
+      ZipEntry manifest = zf.getEntry("META-INF/MANIFEST.MF");
+      manifests.add(manifest == null ? null : readEntry(zf, manifest));
+      return true;
+    } finally {
+      zf.close();
+    }
+  }
+
+  /**
+   * Note the classes of a classpath directory as taken, as the classpath
+   * search finds them before those of any later jar.
+   *
+   * @param dir the directory, or a subdirectory of it
+   * @param prefix the package prefix of the classes in {@code dir}
+   */
+  private static void noteDirectory(File dir, String prefix) {
+    File[] files = dir.listFiles();
+    if (files == null) return;
+    for (File file : files) {
+      String name = file.getName();
+      if (file.isDirectory()) {
+        noteDirectory(file, prefix + name + ".");
+      } else if (name.endsWith(".class")) {
+        seen.add(prefix + name.substring(0, name.length() - ".class".length()));
+      }
+    }
+  }
+
+  private static byte[] readEntry(ZipFile zf, ZipEntry ze) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    InputStream in = zf.getInputStream(ze);
+    try {
+      byte[] buffer = new byte[8192];
+      for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+        bytes.write(buffer, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void say(String... messages) {
+    System.out.print("ClassArchiveWriter: ");
+    for (String message : messages)
+      System.out.print(message);
+    System.out.println();
+  }
+
+  private static void fail(String message) throws Error {
+    throw new Error("\nClassArchiveWriter: " + message);
+  }
+}
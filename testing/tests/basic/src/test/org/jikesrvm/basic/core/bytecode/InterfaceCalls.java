@@ -0,0 +1,104 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.bytecode;
+
+/**
+ * Microbenchmark of invokeinterface call sites that see one, two and four
+ * receiver classes, which the baseline compiler's inline caches find
+ * monomorphic, polymorphic and megamorphic.  Reports the time of each in
+ * milliseconds, having checked that every call reached the right method.
+ */
+class InterfaceCalls {
+  private static final int ITERATIONS = 10000000;
+
+  interface Shape {
+    int sides();
+  }
+
+  static class Triangle implements Shape {
+    public int sides() { return 3; }
+  }
+
+  static class Square implements Shape {
+    public int sides() { return 4; }
+  }
+
+  static class Pentagon implements Shape {
+    public int sides() { return 5; }
+  }
+
+  static class Hexagon implements Shape {
+    public int sides() { return 6; }
+  }
+
+  public static void main(String[] args) {
+    Shape[] one = {new Triangle(), new Triangle(), new Triangle(), new Triangle()};
+    Shape[] two = {new Triangle(), new Square(), new Triangle(), new Square()};
+    Shape[] four = {new Triangle(), new Square(), new Pentagon(), new Hexagon()};
+    for (int round = 0; round < 2; round++) { // the first round warms up
+      long monomorphic = timeMonomorphic(one);
+      long polymorphic = timePolymorphic(two);
+      long megamorphic = timeMegamorphic(four);
+      if (monomorphic < 0 || polymorphic < 0 || megamorphic < 0) {
+        System.out.println("FAILURE");
+        return;
+      }
+      if (round == 1) {
+        System.out.println("Monomorphic time: " + monomorphic);
+        System.out.println("Polymorphic time: " + polymorphic);
+        System.out.println("Megamorphic time: " + megamorphic);
+      }
+    }
+  }
+
+  private static long timeMonomorphic(Shape[] shapes) {
+    long start = System.currentTimeMillis();
+    long sum = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      sum += shapes[i & 3].sides();
+    }
+    return check("Monomorphic", sum, 12, System.currentTimeMillis() - start);
+  }
+
+  private static long timePolymorphic(Shape[] shapes) {
+    long start = System.currentTimeMillis();
+    long sum = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      sum += shapes[i & 3].sides();
+    }
+    return check("Polymorphic", sum, 14, System.currentTimeMillis() - start);
+  }
+
+  private static long timeMegamorphic(Shape[] shapes) {
+    long start = System.currentTimeMillis();
+    long sum = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      sum += shapes[i & 3].sides();
+    }
+    return check("Megamorphic", sum, 18, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Check the sum of sides counted by a loop over four shapes.
+   *
+   * @param expected the number of sides of the four shapes together
+   * @return the time, or -1 if the wrong methods were called
+   */
+  private static long check(String name, long sum, int expected, long time) {
+    if (sum != (long) expected * (ITERATIONS / 4)) {
+      System.out.println(name + " counted " + sum);
+      return -1;
+    }
+    return time;
+  }
+}
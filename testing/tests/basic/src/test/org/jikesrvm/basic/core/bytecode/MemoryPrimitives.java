@@ -0,0 +1,154 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.bytecode;
+
+/**
+ * Microbenchmark of the runtime's memory primitives: copying small arrays,
+ * allocating (and so zeroing) small arrays, and comparing and searching
+ * strings.  Reports the time of each in milliseconds, having checked the
+ * results against the obvious loops at every length and misalignment up to
+ * a few vectors.
+ */
+class MemoryPrimitives {
+  private static final int ITERATIONS = 2000000;
+  private static final int SIZE = 100;
+
+  private static Object sink;
+  private static int total;
+
+  public static void main(String[] args) {
+    if (!check()) {
+      System.out.println("FAILURE");
+      return;
+    }
+    for (int round = 0; round < 2; round++) { // the first round warms up
+      long copy = copy();
+      long zero = zero();
+      long equals = equals();
+      long indexOf = indexOf();
+      if (round == 1) {
+        System.out.println("Copy time: " + copy);
+        System.out.println("Zero time: " + zero);
+        System.out.println("Equals time: " + equals);
+        System.out.println("IndexOf time: " + indexOf);
+      }
+    }
+  }
+
+  private static boolean check() {
+    for (int len = 0; len < 64; len++) {
+      for (int from = 0; from < 8; from++) {
+        byte[] bytes = new byte[len + 8];
+        char[] chars = new char[len + 8];
+        int[] ints = new int[len + 8];
+        long[] longs = new long[len + 8];
+        for (int i = 0; i < len + 8; i++) {
+          bytes[i] = (byte) (i + 1);
+          chars[i] = (char) (i + 1);
+          ints[i] = i + 1;
+          longs[i] = i + 1;
+        }
+        byte[] bytesCopy = new byte[len + 8];
+        char[] charsCopy = new char[len + 8];
+        int[] intsCopy = new int[len + 8];
+        long[] longsCopy = new long[len + 8];
+        int to = (from * 3) & 7;
+        System.arraycopy(bytes, from, bytesCopy, to, len);
+        System.arraycopy(chars, from, charsCopy, to, len);
+        System.arraycopy(ints, from, intsCopy, to, len);
+        System.arraycopy(longs, from, longsCopy, to, len);
+        for (int i = 0; i < len + 8; i++) {
+          boolean copied = i >= to && i < to + len;
+          if (bytesCopy[i] != (copied ? bytes[i - to + from] : 0) ||
+              charsCopy[i] != (copied ? chars[i - to + from] : 0) ||
+              intsCopy[i] != (copied ? ints[i - to + from] : 0) ||
+              longsCopy[i] != (copied ? longs[i - to + from] : 0)) {
+            System.out.println("arraycopy of " + len + " from " + from + " to " + to + " wrong at " + i);
+            return false;
+          }
+        }
+
+        String s = new String(chars, from, len);
+        String t = new String(chars, from, len);
+        if (!s.equals(t)) {
+          System.out.println("equals of " + len + " from " + from + " wrong");
+          return false;
+        }
+        for (int i = 0; i < len; i++) {
+          chars[from + i]++;
+          if (s.equals(new String(chars, from, len))) {
+            System.out.println("equals of " + len + " from " + from + " differing at " + i + " wrong");
+            return false;
+          }
+          chars[from + i]--;
+          if (s.indexOf(chars[from + i]) != i || s.indexOf(chars[from + i], i) != i ||
+              s.indexOf(chars[from + i], i + 1) != -1) {
+            System.out.println("indexOf of " + len + " from " + from + " at " + i + " wrong");
+            return false;
+          }
+        }
+        if (s.indexOf(0) != -1 || s.indexOf(0x10000 + 1) != -1) {
+          System.out.println("indexOf of " + len + " from " + from + " found a missing char");
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static long copy() {
+    int[] src = new int[SIZE];
+    int[] dst = new int[SIZE];
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      System.arraycopy(src, i & 3, dst, 0, SIZE - 4);
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long zero() {
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink = new int[SIZE];
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long equals() {
+    char[] chars = new char[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      chars[i] = (char) ('a' + i % 26);
+    }
+    String s = new String(chars);
+    String t = new String(chars);
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      if (s.equals(t)) total++;
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long indexOf() {
+    char[] chars = new char[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      chars[i] = (char) ('a' + i % 26);
+    }
+    chars[SIZE - 1] = '!';
+    String s = new String(chars);
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      total += s.indexOf('!');
+    }
+    return System.currentTimeMillis() - start;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.bytecode;
+
+/**
+ * Runs methods long enough for the adaptive system to optimize them with
+ * their rare branches never taken, then takes those branches so that the
+ * uncommon traps resume the methods in baseline code.  The output is the
+ * same whether or not a trap fires; the UncommonTrapsTaken run checks the
+ * trap count printed with <code>-X:vm:measureCompilation=true</code>.
+ */
+class TestUncommonTrap {
+  private static final int WARMUP = 200000;
+
+  private static String label = "x";
+
+  static long sum(int[] a, long scale, double bias) {
+    long total = 0;
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] < 0) {
+        // never taken while warming up
+        total -= (long) (a[i] * scale + bias);
+        continue;
+      }
+      total += a[i] * scale;
+    }
+    return total;
+  }
+
+  static String describe(Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return label + o.hashCode();
+  }
+
+  static int callsDescribe(Integer i, int x) {
+    String s = describe(i);
+    if (x == Integer.MIN_VALUE) {
+      return s.length() + x;
+    }
+    return s.length();
+  }
+
+  public static void main(String[] args) {
+    int[] positive = {1, 2, 3, 4, 5, 6, 7, 8};
+    long check = 0;
+    for (int i = 0; i < WARMUP; i++) {
+      check += sum(positive, 3, 0.5);
+      check += callsDescribe(i & 7, i);
+    }
+    System.out.println("warmed up " + check);
+
+    int[] mixed = {1, -2, 3, -4, 5};
+    System.out.println("sum " + sum(mixed, 3, 0.5));
+    System.out.println("describe " + describe(null));
+    System.out.println("callsDescribe " + callsDescribe(null, 0));
+    System.out.println("callsDescribe " + callsDescribe(7, Integer.MIN_VALUE));
+    for (int i = 0; i < WARMUP; i++) {
+      check += sum(mixed, 3, 0.5);
+    }
+    System.out.println("after trap " + check);
+  }
+}
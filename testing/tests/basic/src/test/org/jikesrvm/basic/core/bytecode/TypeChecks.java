@@ -0,0 +1,160 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.bytecode;
+
+import java.io.Serializable;
+
+/**
+ * Microbenchmark of the type checks that collection code does most: casts
+ * to interfaces, casts and instanceof tests against arrays of interfaces
+ * and of non-final classes, and stores into arrays of interfaces.  Reports
+ * the time of each in milliseconds, having checked the answers, including
+ * those that must fail.
+ */
+class TypeChecks {
+  private static final int ITERATIONS = 10000000;
+
+  static class Base implements Comparable<Base> {
+    final int value;
+    Base(int value) { this.value = value; }
+    public int compareTo(Base other) { return value - other.value; }
+  }
+
+  static class Derived extends Base {
+    Derived(int value) { super(value); }
+  }
+
+  public static void main(String[] args) {
+    if (!check()) {
+      System.out.println("FAILURE");
+      return;
+    }
+    Object[] objects = {new Base(1), new Derived(2), new Base(3), new Derived(4)};
+    Object[] arrays = {new Base[1], new Derived[1], new Base[1], new Derived[1]};
+    for (int round = 0; round < 2; round++) { // the first round warms up
+      long castInterface = timeCastInterface(objects);
+      long castInterfaceArray = timeCastInterfaceArray(arrays);
+      long castClassArray = timeCastClassArray(arrays);
+      long instanceOfInterfaceArray = timeInstanceOfInterfaceArray(arrays);
+      long storeInterfaceArray = timeStoreInterfaceArray(objects);
+      if (castInterface < 0 || castInterfaceArray < 0 || castClassArray < 0 ||
+          instanceOfInterfaceArray < 0 || storeInterfaceArray < 0) {
+        System.out.println("FAILURE");
+        return;
+      }
+      if (round == 1) {
+        System.out.println("CastInterface time: " + castInterface);
+        System.out.println("CastInterfaceArray time: " + castInterfaceArray);
+        System.out.println("CastClassArray time: " + castClassArray);
+        System.out.println("InstanceOfInterfaceArray time: " + instanceOfInterfaceArray);
+        System.out.println("StoreInterfaceArray time: " + storeInterfaceArray);
+      }
+    }
+  }
+
+  /**
+   * Check that the type checks succeed and fail as they should, in turn,
+   * so that a cached success doesn't answer a check that must fail.
+   */
+  private static boolean check() {
+    Object[] arrays = {new Derived[1], new String[1], new Base[1][1], new int[1], new Object[1]};
+    boolean[] comparable = {true, true, false, false, false};
+    boolean[] base = {true, false, false, false, false};
+    boolean[] serializable = {false, true, true, false, false};
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < arrays.length; i++) {
+        if ((arrays[i] instanceof Comparable[]) != comparable[i] ||
+            (arrays[i] instanceof Base[]) != base[i] ||
+            (arrays[i] instanceof Serializable[]) != serializable[i] ||
+            castComparableArray(arrays[i]) != comparable[i]) {
+          System.out.println("type check of " + arrays[i].getClass().getName() + " wrong");
+          return false;
+        }
+      }
+      Comparable<?>[] store = new Comparable<?>[1];
+      Object[] storeAsObjects = store;
+      try {
+        storeAsObjects[0] = new Derived(0);
+        storeAsObjects[0] = "string";
+        storeAsObjects[0] = new Object();
+        System.out.println("stored an Object into a Comparable[]");
+        return false;
+      } catch (ArrayStoreException e) {
+        // expected
+      }
+    }
+    return true;
+  }
+
+  private static boolean castComparableArray(Object o) {
+    try {
+      return ((Comparable<?>[]) o) != null;
+    } catch (ClassCastException e) {
+      return false;
+    }
+  }
+
+  private static long timeCastInterface(Object[] objects) {
+    long start = System.currentTimeMillis();
+    int sum = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      sum += ((Comparable<?>) objects[i & 3]).hashCode() & 1;
+    }
+    return check("CastInterface", sum >= 0, System.currentTimeMillis() - start);
+  }
+
+  private static long timeCastInterfaceArray(Object[] arrays) {
+    long start = System.currentTimeMillis();
+    int sum = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      sum += ((Comparable<?>[]) arrays[i & 3]).length;
+    }
+    return check("CastInterfaceArray", sum == ITERATIONS, System.currentTimeMillis() - start);
+  }
+
+  private static long timeCastClassArray(Object[] arrays) {
+    long start = System.currentTimeMillis();
+    int sum = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      sum += ((Base[]) arrays[i & 3]).length;
+    }
+    return check("CastClassArray", sum == ITERATIONS, System.currentTimeMillis() - start);
+  }
+
+  private static long timeInstanceOfInterfaceArray(Object[] arrays) {
+    long start = System.currentTimeMillis();
+    int sum = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      if (arrays[i & 3] instanceof Comparable[]) sum++;
+    }
+    return check("InstanceOfInterfaceArray", sum == ITERATIONS, System.currentTimeMillis() - start);
+  }
+
+  private static long timeStoreInterfaceArray(Object[] objects) {
+    Comparable<?>[] store = new Comparable<?>[64];
+    Object[] storeAsObjects = store;
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      storeAsObjects[i & 63] = objects[i & 3];
+    }
+    return check("StoreInterfaceArray", store[63] == objects[3], System.currentTimeMillis() - start);
+  }
+
+  private static long check(String name, boolean ok, long time) {
+    if (!ok) {
+      System.out.println(name + " gave the wrong answer");
+      return -1;
+    }
+    return time;
+  }
+}
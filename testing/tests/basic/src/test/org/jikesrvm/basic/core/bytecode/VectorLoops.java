@@ -0,0 +1,215 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.bytecode;
+
+/**
+ * Microbenchmark of the counted array loops that the opt compiler can
+ * vectorize, after the kernels of the Java Grande and SPECjvm numeric
+ * benchmarks: adding, xoring, filling and copying int arrays, and scaling
+ * and adding double arrays.  Reports the time of each in milliseconds,
+ * having checked the kernels at every length up to a few vectors and with
+ * their arrays the same or overlapping.
+ */
+class VectorLoops {
+  private static final int ITERATIONS = 200000;
+  private static final int SIZE = 1000;
+
+  public static void main(String[] args) {
+    for (int round = 0; round < 2; round++) { // the first round compiles the kernels
+      if (!check()) {
+        System.out.println("FAILURE");
+        return;
+      }
+    }
+    for (int round = 0; round < 2; round++) { // the first round warms up
+      long add = timeAddInts();
+      long xor = timeXorInts();
+      long fill = timeFillInts();
+      long copy = timeCopyInts();
+      long scale = timeScaleDoubles();
+      long addDoubles = timeAddDoubles();
+      if (round == 1) {
+        System.out.println("Add time: " + add);
+        System.out.println("Xor time: " + xor);
+        System.out.println("Fill time: " + fill);
+        System.out.println("Copy time: " + copy);
+        System.out.println("Scale time: " + scale);
+        System.out.println("AddDoubles time: " + addDoubles);
+      }
+    }
+  }
+
+  static void addInts(int[] a, int[] b, int[] c, int n) {
+    for (int i = 0; i < n; i++) {
+      c[i] = a[i] + b[i];
+    }
+  }
+
+  static void xorInts(int[] a, int k, int n) {
+    for (int i = 0; i < n; i++) {
+      a[i] = a[i] ^ k;
+    }
+  }
+
+  static void fillInts(int[] a, int v, int n) {
+    for (int i = 0; i < n; i++) {
+      a[i] = v;
+    }
+  }
+
+  static void copyInts(int[] src, int[] dst, int n) {
+    for (int i = 0; i < n; i++) {
+      dst[i] = src[i + 1];
+    }
+  }
+
+  static void shiftInts(int[] a, int n) {
+    for (int i = 0; i < n; i++) {
+      a[i + 1] = a[i];
+    }
+  }
+
+  static void scaleDoubles(double[] a, double s, int n) {
+    for (int i = 0; i < n; i++) {
+      a[i] = a[i] * s;
+    }
+  }
+
+  static void addDoubles(double[] x, double[] y, int n) {
+    for (int i = 0; i < n; i++) {
+      y[i] = y[i] + x[i];
+    }
+  }
+
+  private static int[] ints(int length) {
+    int[] a = new int[length];
+    for (int i = 0; i < length; i++) {
+      a[i] = i + 1;
+    }
+    return a;
+  }
+
+  private static double[] doubles(int length) {
+    double[] a = new double[length];
+    for (int i = 0; i < length; i++) {
+      a[i] = i + 0.5;
+    }
+    return a;
+  }
+
+  private static boolean check() {
+    for (int n = 0; n < 40; n++) {
+      int length = n + 2;
+      int[] a = ints(length);
+      int[] b = ints(length);
+      int[] c = new int[length];
+      addInts(a, b, c, n);
+      xorInts(a, 0x55, n);
+      int[] filled = new int[length];
+      fillInts(filled, 7, n);
+      int[] copied = new int[length];
+      copyInts(b, copied, n);
+      double[] x = doubles(length);
+      double[] y = doubles(length);
+      scaleDoubles(x, 2.0, n);
+      addDoubles(x, y, n);
+      for (int i = 0; i < length; i++) {
+        boolean done = i < n;
+        if (c[i] != (done ? 2 * (i + 1) : 0) ||
+            a[i] != (done ? (i + 1) ^ 0x55 : i + 1) ||
+            filled[i] != (done ? 7 : 0) ||
+            copied[i] != (done ? i + 2 : 0) ||
+            x[i] != (done ? 2 * (i + 0.5) : i + 0.5) ||
+            y[i] != (done ? 3 * (i + 0.5) : i + 0.5)) {
+          System.out.println("kernels of length " + n + " wrong at " + i);
+          return false;
+        }
+      }
+
+      // the same array as source and destination
+      addInts(b, b, b, n);
+      copyInts(b, b, n);
+      shiftInts(a, n);
+      addDoubles(y, y, n);
+      for (int i = 0; i < length; i++) {
+        int added = i < n ? 2 * (i + 1) : i + 1;
+        int expected = i < n ? (i + 1 < n ? 2 * (i + 2) : i + 2) : added;
+        if (b[i] != expected ||
+            a[i] != (i <= n ? 1 ^ (n > 0 ? 0x55 : 0) : i + 1) ||
+            y[i] != (i < n ? 6 * (i + 0.5) : i + 0.5)) {
+          System.out.println("overlapping kernels of length " + n + " wrong at " + i);
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static long timeAddInts() {
+    int[] a = ints(SIZE);
+    int[] b = ints(SIZE);
+    int[] c = new int[SIZE];
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      addInts(a, b, c, SIZE);
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long timeXorInts() {
+    int[] a = ints(SIZE);
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      xorInts(a, i, SIZE);
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long timeFillInts() {
+    int[] a = new int[SIZE];
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      fillInts(a, i, SIZE);
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long timeCopyInts() {
+    int[] a = ints(SIZE + 1);
+    int[] b = new int[SIZE];
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      copyInts(a, b, SIZE);
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long timeScaleDoubles() {
+    double[] a = doubles(SIZE);
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      scaleDoubles(a, (i & 1) == 0 ? 2.0 : 0.5, SIZE);
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long timeAddDoubles() {
+    double[] x = doubles(SIZE);
+    double[] y = new double[SIZE];
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      addDoubles(x, y, SIZE);
+    }
+    return System.currentTimeMillis() - start;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.classloading;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Application startup benchmark.  Loads (without initializing) every class
+ * of the jar named on the command line, which must also be the classpath,
+ * through the application class loader.  Run with and without
+ * <code>-X:vm:classArchive</code> to compare loading from the jar with
+ * loading from a class archive.
+ */
+class ClassArchiveStartup {
+  public static void main(String[] args) throws IOException {
+    ArrayList<String> names = new ArrayList<String>();
+    ZipFile zf = new ZipFile(args[0]);
+    Enumeration<? extends ZipEntry> entries = zf.entries();
+    while (entries.hasMoreElements()) {
+      String entry = entries.nextElement().getName();
+      if (entry.endsWith(".class")) {
+        names.add(entry.substring(0, entry.length() - ".class".length()).replace('/', '.'));
+      }
+    }
+    zf.close();
+
+    ClassLoader loader = ClassArchiveStartup.class.getClassLoader();
+    int loaded = 0;
+    long start = System.currentTimeMillis();
+    for (String name : names) {
+      try {
+        Class.forName(name, false, loader);
+        loaded++;
+      } catch (Throwable e) {
+        /* needs classes that aren't on this classpath */
+      }
+    }
+    long elapsed = System.currentTimeMillis() - start;
+    System.out.println("Loaded " + loaded + " of " + names.size() + " classes");
+    System.out.println("Load time: " + elapsed);
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.classloading;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Loaded afresh by each class loader in {@link ConcurrentCompilation}, so
+ * that every copy of its methods is compiled on first invocation.
+ */
+public class CompilationWorker implements Callable<Integer> {
+  public Integer call() {
+    return square(3) + cube(2) + sum(4) + fib(6);
+  }
+
+  private static int square(int x) {
+    return x * x;
+  }
+
+  private static int cube(int x) {
+    return x * square(x);
+  }
+
+  private static int sum(int n) {
+    int s = 0;
+    for (int i = 1; i <= n; i++) {
+      s += i;
+    }
+    return s;
+  }
+
+  private static int fib(int n) {
+    return n < 2 ? n : fib(n - 1) + fib(n - 2);
+  }
+}
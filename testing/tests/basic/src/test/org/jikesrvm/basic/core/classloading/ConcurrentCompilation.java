@@ -0,0 +1,101 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.classloading;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+
+/**
+ * Compilation startup benchmark.  Several threads each define
+ * {@link CompilationWorker} in many fresh class loaders and call it, so
+ * that every call compiles a new copy of its methods and the threads race
+ * to register compiled methods.  The elapsed time is reported only if
+ * every call returns the right answer.
+ */
+class ConcurrentCompilation {
+  private static final int THREADS = 8;
+  private static final int LOADERS = 250;
+  private static final String WORKER = "test.org.jikesrvm.basic.core.classloading.CompilationWorker";
+  private static final int EXPECTED = 9 + 8 + 10 + 8;
+
+  private static byte[] workerBytes;
+  private static final int[] failures = new int[THREADS];
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    workerBytes = readClass(WORKER);
+    Thread[] threads = new Thread[THREADS];
+    long start = System.currentTimeMillis();
+    for (int t = 0; t < THREADS; t++) {
+      final int id = t;
+      threads[t] = new Thread() {
+        public void run() {
+          for (int l = 0; l < LOADERS; l++) {
+            try {
+              Callable<?> worker = (Callable<?>) new WorkerLoader().loadClass(WORKER).newInstance();
+              if (!Integer.valueOf(EXPECTED).equals(worker.call())) failures[id]++;
+            } catch (Exception e) {
+              e.printStackTrace();
+              failures[id]++;
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsed = System.currentTimeMillis() - start;
+
+    int failed = 0;
+    for (int t = 0; t < THREADS; t++) {
+      failed += failures[t];
+    }
+    if (failed != 0) {
+      System.out.println(failed + " calls failed");
+      System.out.println("FAILURE");
+    } else {
+      System.out.println("Compiled " + THREADS * LOADERS + " copies on " + THREADS + " threads");
+      System.out.println("Compile time: " + elapsed);
+    }
+  }
+
+  private static byte[] readClass(String name) throws IOException {
+    InputStream in = ConcurrentCompilation.class.getClassLoader().getResourceAsStream(name.replace('.', '/') + ".class");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+      out.write(buffer, 0, n);
+    }
+    in.close();
+    return out.toByteArray();
+  }
+
+  /** Defines its own copy of the worker class, delegating everything else */
+  private static final class WorkerLoader extends ClassLoader {
+    WorkerLoader() {
+      super(ConcurrentCompilation.class.getClassLoader());
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.equals(WORKER)) return super.loadClass(name, resolve);
+      Class<?> c = findLoadedClass(name);
+      if (c == null) c = defineClass(name, workerBytes, 0, workerBytes.length);
+      if (resolve) resolveClass(c);
+      return c;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.classloading;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Class loading startup benchmark.  Several threads load (without
+ * initializing) the classes of a jar on the boot classpath, each starting
+ * at a different point in the list so that threads race to load the same
+ * classes.  Every thread must see the same Class object for each name.
+ * The elapsed time is reported only if all checks pass.
+ */
+class ParallelClassLoading {
+  private static final int THREADS = 4;
+  private static final int MAX_CLASSES = 3000;
+
+  private static String[] names;
+  private static final Class<?>[][] results = new Class<?>[THREADS][];
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    names = classNames(args[0]);
+    Thread[] threads = new Thread[THREADS];
+    long start = System.currentTimeMillis();
+    for (int t = 0; t < THREADS; t++) {
+      final int id = t;
+      threads[t] = new Thread() {
+        public void run() {
+          results[id] = loadClasses(id);
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsed = System.currentTimeMillis() - start;
+
+    boolean failed = false;
+    int loaded = 0;
+    for (int c = 0; c < names.length; c++) {
+      if (results[0][c] != null) loaded++;
+      for (int t = 1; t < THREADS; t++) {
+        if (results[t][c] != results[0][c]) {
+          System.out.println("Thread " + t + " saw a different class for " + names[c]);
+          failed = true;
+        }
+      }
+    }
+    if (failed) {
+      System.out.println("FAILURE");
+    } else {
+      System.out.println("Loaded " + loaded + " of " + names.length + " classes on " + THREADS + " threads");
+      System.out.println("Load time: " + elapsed);
+    }
+  }
+
+  private static String[] classNames(String jar) throws IOException {
+    ArrayList<String> list = new ArrayList<String>();
+    ZipFile zf = new ZipFile(jar);
+    Enumeration<? extends ZipEntry> entries = zf.entries();
+    while (entries.hasMoreElements() && list.size() < MAX_CLASSES) {
+      String entry = entries.nextElement().getName();
+      if (entry.endsWith(".class")) {
+        list.add(entry.substring(0, entry.length() - ".class".length()).replace('/', '.'));
+      }
+    }
+    zf.close();
+    return list.toArray(new String[list.size()]);
+  }
+
+  private static Class<?>[] loadClasses(int id) {
+    Class<?>[] classes = new Class<?>[names.length];
+    for (int i = 0; i < names.length; i++) {
+      /* stagger the starting point so threads load different classes first */
+      int c = (i + id * (names.length / THREADS)) % names.length;
+      try {
+        classes[c] = Class.forName(names[c], false, null);
+      } catch (Throwable e) {
+        /* not loadable on this configuration; every thread should agree */
+        classes[c] = null;
+      }
+    }
+    return classes;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.objectmodel;
+
+import org.jikesrvm.classloader.RVMClass;
+import org.jikesrvm.classloader.RVMField;
+import org.jikesrvm.classloader.TypeReference;
+import org.jikesrvm.objectmodel.FieldAccessProfile;
+
+/**
+ * Run with <code>-X:vm:hotFieldFile=TestHotFieldLayout.fields</code>, which
+ * names some fields of {@link Node} as hot in each of the forms the profile
+ * accepts.  Checks which fields the profile read as hot, and that the hot
+ * fields were laid out ahead of the cold ones of their kind without
+ * splitting the block of reference fields.
+ */
+class TestHotFieldLayout {
+
+  @SuppressWarnings("unused")
+  static class Node {
+    int coldInt;
+    Object coldRef;
+    long coldLong;
+    byte coldByte;
+    Object otherColdRef;
+    int hotInt;
+    long hotLong;
+    Object hotRef;
+  }
+
+  public static void main(String[] args) {
+    new Node();
+    RVMClass klass = TypeReference.findOrCreate(Node.class).peekType().asClass();
+    RVMField[] fields = klass.getDeclaredFields();
+    for (RVMField field : fields) {
+      System.out.println(field.getName() + " hot: " + FieldAccessProfile.isHot(klass, field));
+    }
+
+    int firstRef = Integer.MAX_VALUE;
+    int lastRef = Integer.MIN_VALUE;
+    int firstPrimitive = Integer.MAX_VALUE;
+    int refs = 0;
+    for (RVMField field : fields) {
+      int offset = field.getOffset().toInt();
+      if (field.isReferenceType()) {
+        firstRef = Math.min(firstRef, offset);
+        lastRef = Math.max(lastRef, offset);
+        refs++;
+      } else {
+        firstPrimitive = Math.min(firstPrimitive, offset);
+      }
+    }
+    int refSize = field(fields, "hotRef").getSize();
+    System.out.println("hot reference first: " + (offset(fields, "hotRef") == firstRef));
+    System.out.println("references together: " + (lastRef - firstRef == (refs - 1) * refSize));
+    System.out.println("references before primitives: " + (lastRef < firstPrimitive));
+    System.out.println("hot long before cold long: " + (offset(fields, "hotLong") < offset(fields, "coldLong")));
+    System.out.println("hot int before cold int: " + (offset(fields, "hotInt") < offset(fields, "coldInt")));
+  }
+
+  private static RVMField field(RVMField[] fields, String name) {
+    for (RVMField field : fields) {
+      if (field.getName().toString().equals(name)) return field;
+    }
+    throw new Error("no field " + name);
+  }
+
+  private static int offset(RVMField[] fields, String name) {
+    return field(fields, name).getOffset().toInt();
+  }
+}
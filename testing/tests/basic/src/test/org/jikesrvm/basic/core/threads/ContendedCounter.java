@@ -0,0 +1,120 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.threads;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import sun.misc.Unsafe;
+
+/**
+ * Microbenchmark of a counter incremented by several threads at once,
+ * through AtomicInteger, AtomicLong and Unsafe.getAndAddInt. Reports the
+ * time of each in milliseconds, having checked that no increment was lost.
+ */
+class ContendedCounter {
+  private static final int THREADS = 4;
+  private static final int ITERATIONS = 1000000;
+
+  private static Unsafe unsafe;
+  private static long countOffset;
+
+  private volatile int count;
+
+  public static void main(String[] args) throws Exception {
+    Field field = Unsafe.class.getDeclaredField("theUnsafe");
+    field.setAccessible(true);
+    unsafe = (Unsafe) field.get(null);
+    countOffset = unsafe.objectFieldOffset(ContendedCounter.class.getDeclaredField("count"));
+
+    for (int round = 0; round < 2; round++) { // the first round warms up
+      long atomicInteger = timeAtomicInteger();
+      long atomicLong = timeAtomicLong();
+      long fetchAdd = timeFetchAdd();
+      if (atomicInteger < 0 || atomicLong < 0 || fetchAdd < 0) {
+        System.out.println("FAILURE");
+        return;
+      }
+      if (round == 1) {
+        System.out.println("AtomicInteger time: " + atomicInteger);
+        System.out.println("AtomicLong time: " + atomicLong);
+        System.out.println("FetchAdd time: " + fetchAdd);
+      }
+    }
+  }
+
+  /**
+   * Run the task in each of THREADS threads at once.
+   *
+   * @return the time taken in milliseconds
+   */
+  private static long run(Runnable task) throws InterruptedException {
+    Thread[] threads = new Thread[THREADS];
+    for (int i = 0; i < THREADS; i++) {
+      threads[i] = new Thread(task);
+    }
+    long start = System.currentTimeMillis();
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  private static long timeAtomicInteger() throws InterruptedException {
+    final AtomicInteger counter = new AtomicInteger();
+    long time = run(new Runnable() {
+      public void run() {
+        for (int i = 0; i < ITERATIONS; i++) {
+          counter.getAndIncrement();
+        }
+      }
+    });
+    return check("AtomicInteger", counter.get(), time);
+  }
+
+  private static long timeAtomicLong() throws InterruptedException {
+    final AtomicLong counter = new AtomicLong();
+    long time = run(new Runnable() {
+      public void run() {
+        for (int i = 0; i < ITERATIONS; i++) {
+          counter.incrementAndGet();
+        }
+      }
+    });
+    return check("AtomicLong", counter.get(), time);
+  }
+
+  private static long timeFetchAdd() throws InterruptedException {
+    final ContendedCounter counter = new ContendedCounter();
+    long time = run(new Runnable() {
+      public void run() {
+        for (int i = 0; i < ITERATIONS; i++) {
+          unsafe.getAndAddInt(counter, countOffset, 1);
+        }
+      }
+    });
+    return check("FetchAdd", counter.count, time);
+  }
+
+  private static long check(String name, long count, long time) {
+    if (count != (long) THREADS * ITERATIONS) {
+      System.out.println(name + " counted " + count);
+      return -1;
+    }
+    return time;
+  }
+}
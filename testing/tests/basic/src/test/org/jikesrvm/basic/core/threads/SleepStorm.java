@@ -0,0 +1,95 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.threads;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Sleep microbenchmark, to be run with and without
+ * <code>-X:vm:timerSlack=us</code>.  Many threads repeatedly sleep for a
+ * millisecond.  Reports the process CPU time in milliseconds (or -1 if it
+ * can't be read from /proc) and the mean wakeup latency, how much later
+ * than requested each sleep returned, in microseconds.
+ */
+class SleepStorm {
+  /** Well within RVMThread.MAX_THREADS, which counts system threads too */
+  private static final int THREADS = 500;
+  private static final int SLEEPS = 20;
+  private static final long SLEEP_MILLIS = 1;
+  /** Clock ticks per second in /proc/self/stat */
+  private static final int CLOCK_TICKS = 100;
+
+  private static final long[] lateness = new long[THREADS];
+
+  public static void main(String[] args) throws InterruptedException {
+    Thread[] threads = new Thread[THREADS];
+    long cpuStart = cpuMillis();
+    for (int t = 0; t < THREADS; t++) {
+      final int id = t;
+      threads[t] = new Thread() {
+        public void run() {
+          long late = 0;
+          try {
+            for (int s = 0; s < SLEEPS; s++) {
+              long start = System.nanoTime();
+              Thread.sleep(SLEEP_MILLIS);
+              late += System.nanoTime() - start - SLEEP_MILLIS * 1000000;
+            }
+          } catch (InterruptedException e) {
+            late = -1;
+          }
+          lateness[id] = late;
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long cpuEnd = cpuMillis();
+
+    long total = 0;
+    for (int t = 0; t < THREADS; t++) {
+      if (lateness[t] < 0) {
+        System.out.println("Thread " + t + " was interrupted");
+        System.out.println("FAILURE");
+        return;
+      }
+      total += lateness[t];
+    }
+    System.out.println("CPU time: " + (cpuStart < 0 || cpuEnd < 0 ? -1 : cpuEnd - cpuStart));
+    System.out.println("Wakeup latency: " + (total / ((long) THREADS * SLEEPS) / 1000));
+  }
+
+  /**
+   * @return the user and system CPU time of the process in milliseconds,
+   * or -1 if it isn't available
+   */
+  private static long cpuMillis() {
+    try {
+      BufferedReader in = new BufferedReader(new FileReader("/proc/self/stat"));
+      String line = in.readLine();
+      in.close();
+      // skip the command name, which may contain spaces
+      String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+      long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+      return ticks * 1000 / CLOCK_TICKS;
+    } catch (IOException e) {
+      return -1;
+    } catch (RuntimeException e) {
+      return -1;
+    }
+  }
+}
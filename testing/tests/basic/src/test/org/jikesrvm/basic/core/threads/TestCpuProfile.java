@@ -0,0 +1,65 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.threads;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import org.jikesrvm.VM;
+import org.jikesrvm.adaptive.measurements.CpuProfiler;
+
+/**
+ * Run with <code>-X:vm:cpuProfile=...</code>.  Spins in a known method,
+ * dumps the CPU profile to the file named by args[0] and checks that the
+ * method was sampled and that every line is a collapsed stack with a count.
+ */
+class TestCpuProfile {
+  private static volatile long sink;
+
+  public static void main(String[] args) throws IOException {
+    boolean sampled = true;
+    boolean wellFormed = true;
+    // The profiler is part of the adaptive system
+    if (VM.BuildForAdaptiveSystem) {
+      long end = System.currentTimeMillis() + 2000;
+      while (System.currentTimeMillis() < end) {
+        sink += hot(sink);
+      }
+      CpuProfiler.dump(args[0]);
+
+      sampled = false;
+      BufferedReader in = new BufferedReader(new FileReader(args[0]));
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        int space = line.lastIndexOf(' ');
+        if (space < 0 || Integer.parseInt(line.substring(space + 1)) <= 0) {
+          System.out.println("bad line: " + line);
+          wellFormed = false;
+        }
+        if (line.indexOf("TestCpuProfile.hot") >= 0) {
+          sampled = true;
+        }
+      }
+      in.close();
+    }
+    System.out.println("hot method sampled: " + sampled);
+    System.out.println("profile well formed: " + wellFormed);
+  }
+
+  private static long hot(long seed) {
+    long x = seed;
+    for (int i = 0; i < 100000; i++) {
+      x = x * 6364136223846793005L + 1442695040888963407L;
+    }
+    return x;
+  }
+}
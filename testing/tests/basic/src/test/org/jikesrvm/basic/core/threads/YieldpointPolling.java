@@ -0,0 +1,85 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.core.threads;
+
+/**
+ * Yieldpoint microbenchmark, to be run with and without
+ * <code>-X:vm:pollingPageYieldpoints=true</code>.  Several threads run a
+ * tight loop kernel, whose backedge yieldpoints dominate once it is opt
+ * compiled, while the main thread times how long each System.gc() takes to
+ * stop them.  Reports the loop time in milliseconds and the mean collection
+ * latency in microseconds, which includes the time for the looping threads
+ * to reach a yieldpoint.
+ */
+class YieldpointPolling {
+  private static final int THREADS = 2;
+  private static final int ROUNDS = 400;
+  private static final int LENGTH = 100000;
+  private static final int COLLECTIONS = 20;
+
+  private static final int[] data = new int[LENGTH];
+  private static final long[] sums = new long[THREADS];
+
+  public static void main(String[] args) throws InterruptedException {
+    for (int i = 0; i < LENGTH; i++) {
+      data[i] = i;
+    }
+    Thread[] threads = new Thread[THREADS];
+    long start = System.currentTimeMillis();
+    for (int t = 0; t < THREADS; t++) {
+      final int id = t;
+      threads[t] = new Thread() {
+        public void run() {
+          long sum = 0;
+          for (int r = 0; r < ROUNDS; r++) {
+            sum += kernel();
+          }
+          sums[id] = sum;
+        }
+      };
+      threads[t].start();
+    }
+
+    long gcTime = 0;
+    for (int c = 0; c < COLLECTIONS; c++) {
+      Thread.sleep(50);
+      long gcStart = System.nanoTime();
+      System.gc();
+      gcTime += System.nanoTime() - gcStart;
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsed = System.currentTimeMillis() - start;
+
+    long expected = (long) ROUNDS * LENGTH * (LENGTH - 1) / 2;
+    for (int t = 0; t < THREADS; t++) {
+      if (sums[t] != expected) {
+        System.out.println("Thread " + t + " computed " + sums[t] + " instead of " + expected);
+        System.out.println("FAILURE");
+        return;
+      }
+    }
+    System.out.println("Loop time: " + elapsed);
+    System.out.println("GC latency: " + (gcTime / COLLECTIONS / 1000));
+  }
+
+  private static long kernel() {
+    long sum = 0;
+    for (int i = 0; i < LENGTH; i++) {
+      sum += data[i];
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.java.lang;
+
+/**
+ * Multi-threaded String.intern() microbenchmark.  Each thread interns
+ * freshly built copies of a shared vocabulary, as a parser would, and
+ * checks that every thread sees the same canonical instances.  The
+ * elapsed time is reported only if all checks pass.
+ */
+class InternBenchmark {
+  private static final int THREADS = 4;
+  private static final int WORDS = 2000;
+  private static final int ROUNDS = 50;
+
+  private static final String[][] results = new String[THREADS][];
+  private static volatile boolean failed = false;
+
+  public static void main(String[] args) throws InterruptedException {
+    Thread[] threads = new Thread[THREADS];
+    long start = System.currentTimeMillis();
+    for (int t = 0; t < THREADS; t++) {
+      final int id = t;
+      threads[t] = new Thread() {
+        public void run() {
+          results[id] = internWords(id);
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsed = System.currentTimeMillis() - start;
+
+    for (int t = 1; t < THREADS; t++) {
+      for (int w = 0; w < WORDS; w++) {
+        if (results[t][w] != results[0][w]) {
+          System.out.println("Thread " + t + " saw a different instance for " + results[0][w]);
+          failed = true;
+        }
+      }
+    }
+    if (failed) {
+      System.out.println("FAILURE");
+    } else {
+      System.out.println("Interned " + (THREADS * WORDS * ROUNDS) + " strings on " + THREADS + " threads");
+      System.out.println("Intern time: " + elapsed);
+    }
+  }
+
+  private static String[] internWords(int id) {
+    String[] canonical = new String[WORDS];
+    for (int r = 0; r < ROUNDS; r++) {
+      for (int i = 0; i < WORDS; i++) {
+        /* stagger the starting point so threads don't intern in lockstep */
+        int w = (i + id * (WORDS / THREADS)) % WORDS;
+        String s = new StringBuilder("element").append(w).toString().intern();
+        if (canonical[w] == null) {
+          canonical[w] = s;
+        } else if (canonical[w] != s) {
+          System.out.println("Interned instance changed for " + s);
+          failed = true;
+        }
+      }
+    }
+    return canonical;
+  }
+}
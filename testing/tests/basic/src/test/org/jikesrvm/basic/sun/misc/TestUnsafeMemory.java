@@ -0,0 +1,109 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package test.org.jikesrvm.basic.sun.misc;
+
+import java.lang.reflect.Field;
+
+import org.jikesrvm.classloader.Atom;
+import org.jikesrvm.classloader.MethodReference;
+import org.jikesrvm.classloader.TypeReference;
+import sun.misc.Unsafe;
+
+/**
+ * Exercise the off-heap memory methods of sun.misc.Unsafe. The accessors are
+ * run often enough for the opt compiler to generate them inline as well as
+ * the baseline compiler.  This class is loaded by the application class
+ * loader, so it also checks that calls from application classes are
+ * recognised for inlining.
+ */
+public class TestUnsafeMemory {
+  private static final int SIZE = 64;
+
+  public static void main(String[] args) throws Exception {
+    Field field = Unsafe.class.getDeclaredField("theUnsafe");
+    field.setAccessible(true);
+    Unsafe unsafe = (Unsafe) field.get(null);
+
+    ClassLoader loader = TestUnsafeMemory.class.getClassLoader();
+    // Resolve getInt as this class's constant pool does
+    TypeReference unsafeType = TypeReference.findOrCreate(loader,
+        Atom.findOrCreateAsciiAtom("Lsun/misc/Unsafe;"));
+    MethodReference getInt = MethodReference.findOrCreate(unsafeType,
+        Atom.findOrCreateAsciiAtom("getInt"), Atom.findOrCreateAsciiAtom("(J)I"));
+    System.out.println("application loader " + (loader != Object.class.getClassLoader()));
+    System.out.println("intrinsified " + (getInt.isUnsafe() && getInt.isMagic()));
+
+    long address = unsafe.allocateMemory(SIZE);
+    System.out.println("allocated " + (address != 0));
+
+    unsafe.putByte(address, (byte) -3);
+    unsafe.putShort(address + 2, (short) -1234);
+    unsafe.putChar(address + 4, '\uabcd');
+    unsafe.putInt(address + 8, 0xdeadbeef);
+    unsafe.putLong(address + 16, 0x123456789abcdefL);
+    unsafe.putFloat(address + 24, 1.5f);
+    unsafe.putDouble(address + 32, -2.25);
+    unsafe.putAddress(address + 40, address);
+    System.out.println("byte " + unsafe.getByte(address));
+    System.out.println("short " + unsafe.getShort(address + 2));
+    System.out.println("char " + Integer.toHexString(unsafe.getChar(address + 4)));
+    System.out.println("int " + Integer.toHexString(unsafe.getInt(address + 8)));
+    System.out.println("long " + Long.toHexString(unsafe.getLong(address + 16)));
+    System.out.println("float " + unsafe.getFloat(address + 24));
+    System.out.println("double " + unsafe.getDouble(address + 32));
+    System.out.println("address " + (unsafe.getAddress(address + 40) == address));
+
+    for (int round = 0; round < 3; round++) {
+      System.out.println("sum " + sum(unsafe, address));
+    }
+
+    unsafe.setMemory(address, SIZE, (byte) 0x5a);
+    System.out.println("set " + Integer.toHexString(unsafe.getInt(address + SIZE - 4)));
+
+    for (int i = 0; i < 8; i++) {
+      unsafe.putByte(address + i, (byte) i);
+    }
+    unsafe.copyMemory(address, address + 1, 7); // overlapping
+    StringBuilder copied = new StringBuilder("copy");
+    for (int i = 0; i < 8; i++) {
+      copied.append(' ').append(unsafe.getByte(address + i));
+    }
+    System.out.println(copied);
+
+    byte[] bytes = new byte[8];
+    unsafe.copyMemory(null, address, bytes, unsafe.arrayBaseOffset(byte[].class), bytes.length);
+    System.out.println("to array " + bytes[0] + " " + bytes[7]);
+
+    address = unsafe.reallocateMemory(address, SIZE * 4);
+    System.out.println("reallocated " + unsafe.getByte(address + 7) + " " + unsafe.getByte(address + SIZE - 1));
+    unsafe.freeMemory(address);
+
+    try {
+      unsafe.allocateMemory(-1);
+      System.out.println("allocated negative size");
+    } catch (IllegalArgumentException e) {
+      System.out.println("negative size rejected");
+    }
+  }
+
+  private static long sum(Unsafe unsafe, long address) {
+    long sum = 0;
+    for (int i = 0; i < 100000; i++) {
+      unsafe.putInt(address + 8, i);
+      sum += unsafe.getByte(address) + unsafe.getShort(address + 2) + unsafe.getChar(address + 4) +
+          unsafe.getInt(address + 8) + unsafe.getLong(address + 16) + (long) unsafe.getFloat(address + 24) +
+          (long) unsafe.getDouble(address + 32);
+    }
+    return sum;
+  }
+}
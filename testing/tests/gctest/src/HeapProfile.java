@@ -0,0 +1,97 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import org.jikesrvm.mm.mminterface.HeapProfiler;
+
+/**
+ * Run with <code>-X:vm:heapProfile=...</code> and a full-heap
+ * System.gc().  Retains the objects allocated at one site and drops those
+ * allocated at another, dumps the heap profile to the file named by
+ * args[0] and checks that the retained site is the live one.
+ */
+class HeapProfile {
+  static final int SIZE = 1024;
+  static final int RETAINED = 4096;
+  static final int CHURNED = 64 * 1024;
+
+  static Object[] retained = new Object[RETAINED];
+  static Object sink;
+
+  public static void main(String[] args) throws IOException {
+    retain();
+    churn();
+    System.gc();
+    HeapProfiler.dump(args[0]);
+
+    long[] retainRow = null;
+    long[] churnRow = null;
+    BufferedReader in = new BufferedReader(new FileReader(args[0]));
+    for (String line = in.readLine(); line != null; line = in.readLine()) {
+      if (line.startsWith("#")) continue;
+      String[] fields = line.split(" ");
+      long[] row = new long[4];
+      for (int i = 0; i < 4; i++) {
+        row[i] = Long.parseLong(fields[i]);
+      }
+      if (fields[4].startsWith("HeapProfile.retain")) retainRow = add(retainRow, row);
+      if (fields[4].startsWith("HeapProfile.churn")) churnRow = add(churnRow, row);
+    }
+    in.close();
+
+    if (retainRow == null && churnRow == null) {
+      // This collector's allocators don't sample
+      System.out.println("No allocations sampled");
+      System.out.println("Overall: SUCCESS");
+      return;
+    }
+    boolean success = true;
+    if (retainRow == null || churnRow == null) {
+      System.out.println("Missing site: retain " + (retainRow != null) + ", churn " + (churnRow != null));
+      success = false;
+    } else {
+      System.out.println("retain: allocated " + retainRow[0] + " live " + retainRow[1]);
+      System.out.println("churn: allocated " + churnRow[0] + " live " + churnRow[1]);
+      if (retainRow[1] < retainRow[0] / 2) {
+        System.out.println("Retained objects not live");
+        success = false;
+      }
+      if (churnRow[0] <= retainRow[0] || churnRow[1] >= retainRow[1]) {
+        System.out.println("Churned objects misreported");
+        success = false;
+      }
+    }
+    System.out.println(success ? "Overall: SUCCESS" : "Overall: FAILURE");
+  }
+
+  private static long[] add(long[] total, long[] row) {
+    if (total == null) return row;
+    for (int i = 0; i < row.length; i++) {
+      total[i] += row[i];
+    }
+    return total;
+  }
+
+  private static void retain() {
+    for (int i = 0; i < RETAINED; i++) {
+      retained[i] = new byte[SIZE];
+    }
+  }
+
+  private static void churn() {
+    for (int i = 0; i < CHURNED; i++) {
+      sink = new byte[SIZE];
+    }
+  }
+}
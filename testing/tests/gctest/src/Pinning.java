@@ -0,0 +1,118 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+
+import org.jikesrvm.mm.mminterface.MemoryManager;
+import org.jikesrvm.runtime.Magic;
+
+/**
+ * A test of object pinning, as used by the JNI critical functions.  Pins
+ * more arrays than the immix space can count temporary pins for, so some
+ * fall back to permanent pins, and checks that no pinned array moves or
+ * is damaged across collections.  Each array is pinned twice, then
+ * unpinned once before a collection and once more before the last
+ * collections.  The whole sequence runs twice, so the second round starts
+ * with the pins of the first released.
+ * <p>
+ * Plans that can not pin an object report it, and such objects are only
+ * checked for damage.
+ */
+class Pinning {
+
+  /** More than the immix space's 256 temporary pins */
+  static final int ARRAYS = 300;
+  static final int SIZE = 1000;
+
+  static Object garbage;
+  static int failCount = 0;
+
+  public static void main(String[] args) {
+    byte[][] arrays = new byte[ARRAYS][];
+    for (int i = 0; i < ARRAYS; i++) {
+      arrays[i] = new byte[SIZE];
+      for (int j = 0; j < SIZE; j++) {
+        arrays[i][j] = (byte) (i + j);
+      }
+      // interleave garbage, leaving holes that defragmentation would fill
+      garbage = new byte[SIZE];
+    }
+    // Move the arrays out of any nursery, where they could not be pinned
+    System.gc();
+
+    for (int round = 1; round <= 2; round++) {
+      boolean[] pinned = new boolean[ARRAYS];
+      long[] addresses = new long[ARRAYS];
+      int count = 0;
+      for (int i = 0; i < ARRAYS; i++) {
+        pinned[i] = MemoryManager.pin(arrays[i]);
+        if (pinned[i]) {
+          MemoryManager.pin(arrays[i]);
+          count++;
+        }
+        addresses[i] = Magic.objectAsAddress(arrays[i]).toLong();
+      }
+      System.out.println("Round " + round + ": pinned " + count + " of " + ARRAYS);
+
+      collect();
+      check("pinned twice", arrays, pinned, addresses);
+
+      for (int i = 0; i < ARRAYS; i++) {
+        if (pinned[i]) MemoryManager.unpin(arrays[i]);
+      }
+      collect();
+      check("pinned once", arrays, pinned, addresses);
+
+      for (int i = 0; i < ARRAYS; i++) {
+        if (pinned[i]) MemoryManager.unpin(arrays[i]);
+      }
+      collect();
+      check("unpinned", arrays, new boolean[ARRAYS], addresses);
+    }
+
+    System.out.print("\nOverall: ");
+    System.out.println((failCount == 0) ? "SUCCESS" : (failCount + " FAILURES"));
+  }
+
+  /**
+   * Drop the garbage, allocate some more and collect.
+   */
+  static void collect() {
+    for (int i = 0; i < ARRAYS; i++) {
+      garbage = new byte[SIZE];
+    }
+    garbage = null;
+    System.gc();
+    System.gc();
+  }
+
+  /**
+   * Check that the pinned arrays have not moved, and that no array has
+   * been damaged.
+   */
+  static void check(String what, byte[][] arrays, boolean[] pinned, long[] addresses) {
+    int moved = 0;
+    int damaged = 0;
+    for (int i = 0; i < ARRAYS; i++) {
+      if (pinned[i] && Magic.objectAsAddress(arrays[i]).toLong() != addresses[i]) {
+        moved++;
+      }
+      for (int j = 0; j < SIZE; j++) {
+        if (arrays[i][j] != (byte) (i + j)) {
+          damaged++;
+          break;
+        }
+      }
+    }
+    System.out.println("  " + what + ": " + moved + " pinned arrays moved, " + damaged + " arrays damaged");
+    if (moved != 0 || damaged != 0) failCount++;
+  }
+}
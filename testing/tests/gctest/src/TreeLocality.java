@@ -0,0 +1,101 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+
+/**
+ * Measures the mutator time of depth-first traversals of binary trees
+ * laid out by a copying collector.  The trees are grown a level at a
+ * time, interleaved across trees, so that parents and children are far
+ * apart as allocated; full-heap collections then copy them in the order
+ * of the collector's trace.  Run with and without
+ * <code>-X:gc:hierarchicalCopyDepth</code> to compare breadth-first copy
+ * order with children copied next to their parents.  Collectors that
+ * don't copy report the time of the allocation order.
+ */
+class TreeLocality {
+  static final int TREES = 16;
+  static final int DEPTH = 15;
+
+  static class Node {
+    Node left;
+    Node right;
+    int value;
+  }
+
+  static Node[] trees = new Node[TREES];
+
+  public static void main(String[] args) {
+    int rounds = args.length > 0 && args[0].equals("perf") ? 50 : 10;
+    for (int i = 0; i < TREES; i++) {
+      trees[i] = new Node();
+    }
+    for (int level = 1; level < DEPTH; level++) {
+      for (int i = 0; i < TREES; i++) {
+        grow(trees[i], level);
+      }
+    }
+    // Copy the trees, twice so that generational collectors have promoted them
+    System.gc();
+    System.gc();
+
+    int expected = (1 << DEPTH) - 1;
+    long sum = 0;
+    traverse(expected); // warm up
+    long start = System.currentTimeMillis();
+    for (int round = 0; round < rounds; round++) {
+      sum += traverse(expected);
+    }
+    long time = System.currentTimeMillis() - start;
+    if (sum != (long) rounds * TREES * expected) {
+      System.out.println("Counted " + sum + " nodes");
+      System.out.println("Overall: FAILURE");
+      return;
+    }
+    System.out.println("Traversal time: " + time);
+    System.out.println("Overall: SUCCESS");
+  }
+
+  /**
+   * Add a level of leaves to a tree.
+   *
+   * @param level the depth of the current leaves
+   */
+  private static void grow(Node t, int level) {
+    if (level == 1) {
+      t.left = new Node();
+      t.right = new Node();
+    } else {
+      grow(t.left, level - 1);
+      grow(t.right, level - 1);
+    }
+  }
+
+  /**
+   * Count the nodes of every tree, checking each has the expected number.
+   *
+   * @return the number of nodes counted, or -1 if a tree is wrong
+   */
+  private static long traverse(int expected) {
+    long total = 0;
+    for (int i = 0; i < TREES; i++) {
+      int n = count(trees[i]);
+      if (n != expected) return -1;
+      total += n;
+    }
+    return total;
+  }
+
+  private static int count(Node t) {
+    if (t == null) return 0;
+    return 1 + count(t.left) + count(t.right);
+  }
+}
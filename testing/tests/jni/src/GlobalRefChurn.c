@@ -0,0 +1,104 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+/* Microbenchmark for global and weak global reference churn
+ * Implement native methods from GlobalRefChurn.java
+ */
+
+#include <stdio.h>
+
+#include <jni.h>
+#include "GlobalRefChurn.h"
+
+#define BATCH 16
+
+int verbose=1;
+
+jweak heldWeak = NULL;
+
+JNIEXPORT void JNICALL Java_GlobalRefChurn_setVerboseOff (JNIEnv *env, jclass cls)
+{
+    verbose=0;
+}
+
+/** 0 on success, nonzero on failure. */
+JNIEXPORT jint JNICALL
+Java_GlobalRefChurn_churnGlobal(JNIEnv *env, jclass cls, jobject obj, jint iterations)
+{
+    jobject refs[BATCH];
+    int i, j;
+    for (i = 0; i < iterations; i += BATCH) {
+        for (j = 0; j < BATCH; j++) {
+            refs[j] = (*env)->NewGlobalRef(env, obj);
+            if (refs[j] == NULL) {
+                if (verbose)
+                    fprintf(stderr, "NewGlobalRef returned NULL\n");
+                return -1;
+            }
+        }
+        for (j = 0; j < BATCH; j++) {
+            if (! (*env)->IsSameObject(env, refs[j], obj)) {
+                if (verbose)
+                    fprintf(stderr, "IsSameObject failed on global ref %p\n", refs[j]);
+                return -1;
+            }
+            (*env)->DeleteGlobalRef(env, refs[j]);
+        }
+    }
+    return 0;
+}
+
+/** 0 on success, nonzero on failure. */
+JNIEXPORT jint JNICALL
+Java_GlobalRefChurn_churnWeak(JNIEnv *env, jclass cls, jobject obj, jint iterations)
+{
+    jweak refs[BATCH];
+    int i, j;
+    for (i = 0; i < iterations; i += BATCH) {
+        for (j = 0; j < BATCH; j++) {
+            refs[j] = (*env)->NewWeakGlobalRef(env, obj);
+            if (refs[j] == NULL) {
+                if (verbose)
+                    fprintf(stderr, "NewWeakGlobalRef returned NULL\n");
+                return -1;
+            }
+        }
+        for (j = 0; j < BATCH; j++) {
+            if (! (*env)->IsSameObject(env, refs[j], obj)) {
+                if (verbose)
+                    fprintf(stderr, "IsSameObject failed on weak global ref %p\n", refs[j]);
+                return -1;
+            }
+            (*env)->DeleteWeakGlobalRef(env, refs[j]);
+        }
+    }
+    return 0;
+}
+
+JNIEXPORT void JNICALL
+Java_GlobalRefChurn_holdWeak(JNIEnv *env, jclass cls, jobject obj)
+{
+    heldWeak = (*env)->NewWeakGlobalRef(env, obj);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_GlobalRefChurn_heldWeakIs(JNIEnv *env, jclass cls, jobject obj)
+{
+    return (*env)->IsSameObject(env, heldWeak, obj);
+}
+
+JNIEXPORT void JNICALL
+Java_GlobalRefChurn_releaseWeak(JNIEnv *env, jclass cls)
+{
+    (*env)->DeleteWeakGlobalRef(env, heldWeak);
+    heldWeak = NULL;
+}
@@ -0,0 +1,116 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+
+/**
+ * Microbenchmark and stress test for JNI global and weak global
+ * references: several threads create and delete references in batches,
+ * then weak references are checked across collections.
+ */
+class GlobalRefChurn {
+  static boolean verbose = true;         // set to true to get messages for each test
+  static volatile boolean allTestPass = true;
+
+  static final int THREADS = 4;
+  static final int ITERATIONS = 200000;
+
+  public static native void setVerboseOff();
+
+  /** Create and delete global refs to obj in batches; 0 on success */
+  static native int churnGlobal(Object obj, int iterations);
+  /** Create and delete weak global refs to obj in batches; 0 on success */
+  static native int churnWeak(Object obj, int iterations);
+
+  /** Hold a weak global reference to obj in native code */
+  static native void holdWeak(Object obj);
+  /** Is the held weak global reference the same object as obj? */
+  static native boolean heldWeakIs(Object obj);
+  /** Release the held weak global reference */
+  static native void releaseWeak();
+
+  public static void main(String[] args) throws InterruptedException {
+    System.loadLibrary("GlobalRefChurn");
+
+    if (args.length != 0) {
+      if (args[0].equals("-quiet")) {
+        verbose = false;
+        setVerboseOff();
+      }
+    }
+
+    churn(false);
+    churn(true);
+
+    /* A weak ref to a live object follows it across collections */
+    Object live = new Object();
+    holdWeak(live);
+    allocateGarbage();
+    System.gc();
+    checkTest(0, heldWeakIs(live), "weak ref survives GC");
+    releaseWeak();
+
+    /* A weak ref to an unreachable object is cleared */
+    holdWeak(new Object());
+    allocateGarbage();
+    System.gc();
+    checkTest(0, heldWeakIs(null), "weak ref cleared by GC");
+    releaseWeak();
+
+    if (allTestPass)
+      System.out.println("PASS: GlobalRefChurn");
+    else
+      System.out.println("FAIL: GlobalRefChurn");
+  }
+
+  static void churn(final boolean weak) throws InterruptedException {
+    final String kind = weak ? "weak global" : "global";
+    Thread[] threads = new Thread[THREADS];
+    long start = System.nanoTime();
+    for (int t = 0; t < THREADS; t++) {
+      threads[t] = new Thread() {
+        public void run() {
+          Object obj = new Object();
+          int rc = weak ? churnWeak(obj, ITERATIONS) : churnGlobal(obj, ITERATIONS);
+          checkTest(rc, true, kind + " ref churn");
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsed = System.nanoTime() - start;
+    printVerbose(kind + " refs: " + (THREADS * ITERATIONS) + " create/delete pairs in " +
+        (elapsed / 1000000) + " ms, " + ((elapsed / THREADS) / ITERATIONS) + " ns/pair");
+  }
+
+  static void allocateGarbage() {
+    Object[] junk = new Object[1000];
+    for (int i = 0; i < 100000; i++) {
+      junk[i % junk.length] = new int[8];
+    }
+  }
+
+  static void printVerbose(String str) {
+    if (verbose)
+      System.out.println(str);
+  }
+
+  static synchronized void checkTest(int returnValue, boolean postCheck, String testName) {
+    if (returnValue == 0 && postCheck) {
+      printVerbose("PASS: " + testName);
+    } else {
+      allTestPass = false;
+      printVerbose("FAIL: " + testName);
+    }
+  }
+}
@@ -61,6 +61,7 @@ extern int lib_verbose;		// libvm.C
 extern const char *bootDataFilename;	/* Defined in libvm.C */
 extern const char *bootCodeFilename;	/* Defined in libvm.C */
 extern const char *bootRMapFilename;	/* Defined in libvm.C */
+extern int readOnlyBootCode;		/* Defined in libvm.C */
 // name of program that will load and run RVM
 extern char *Me;		// Defined in libvm.C
 
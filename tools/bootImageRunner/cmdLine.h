@@ -28,7 +28,8 @@ static const int SYSLOGFILE_INDEX              = MX_INDEX+1;
 static const int BOOTIMAGE_CODE_FILE_INDEX     = SYSLOGFILE_INDEX+1;
 static const int BOOTIMAGE_DATA_FILE_INDEX     = BOOTIMAGE_CODE_FILE_INDEX+1;
 static const int BOOTIMAGE_RMAP_FILE_INDEX     = BOOTIMAGE_DATA_FILE_INDEX+1;
-static const int INDEX                      = BOOTIMAGE_RMAP_FILE_INDEX+1;
+static const int READONLY_CODE_INDEX           = BOOTIMAGE_RMAP_FILE_INDEX+1;
+static const int INDEX                      = READONLY_CODE_INDEX+1;
 static const int GC_INDEX                      = INDEX+1;
 static const int AOS_INDEX                     = GC_INDEX+1;
 static const int IRC_INDEX                     = AOS_INDEX+1;
@@ -51,6 +52,7 @@ static const char* nonStandardArgs[numNonstandardArgs] = {
    "-X:ic=",
    "-X:id=",
    "-X:ir=",
+   "-X:readOnlyCode",
    "-X:vm",
    "-X:gc",
    "-X:aos",
@@ -74,6 +76,8 @@ static const char* nonStandardUsage[] = {
    "    -X:ic=<filename>         Read boot image code from <filename>",
    "    -X:id=<filename>         Read boot image data from <filename>",
    "    -X:ir=<filename>         Read boot image ref map from <filename>",
+   "    -X:readOnlyCode          Map boot image code and string data read-only,",
+   "                             so that its pages are shared between VM processes",
    "    -X:vm:<option>           Pass <option> to virtual machine",
    "          :help              Print usage choices for -X:vm",
    "    -X:gc:<option>           Pass <option> on to GC subsystem",
@@ -103,6 +103,9 @@ const char *bootDataFilename = 0;
 /* global; startup configuration option with default values */
 const char *bootRMapFilename = 0;
 
+/* global; map the boot image code read-only (-X:readOnlyCode)? */
+int readOnlyBootCode = 0;
+
 /* Emit trace information? */
 int lib_verbose = 0;
 
@@ -441,9 +444,50 @@ int handleAlignmentTrap(int signo, void* context) {
 
 #endif // RVM_WITH_ALIGNMENT_CHECKING
 
+/*
+ * Opt-compiled loop backedges poll for yieldpoints with "test [page], eax",
+ * where page is the yieldpoint polling page, which the VM protects to
+ * request a yieldpoint.  Divert a thread that faults on the poll into the
+ * backedge yieldpoint, making it look as if the poll had called it so that
+ * it returns to the instruction after the poll.
+ *
+ * Returns 1 if the fault was a poll, 0 otherwise.
+ */
+static int
+handleYieldpointPoll(siginfo_t *si, void *context)
+{
+    Address page = bootRecord->yieldpointPollingPage;
+    Address faultAddress = (Address) si->si_addr;
+    if (bootRecord->yieldpointFromPollOffset == 0
+        || faultAddress < page || faultAddress >= page + getpagesize())
+        return 0;
+
+    Address ip = IA32_EIP(context);
+    if (!isVmSignal(ip, IA32_ESI(context)))
+        return 0;
+
+    // test [disp32], eax; only 32-bit builds poll, so there is no x86-64 form
+    unsigned char *code = (unsigned char *) ip;
+    int length = 6;
+    if (code[0] != 0x85 || code[1] != 0x05)
+        return 0;
+
+    if (lib_verbose)
+        fprintf(SysTraceFile, "hardwareTrapHandler: yieldpoint poll at %p\n", (void *) ip);
+
+    IA32_ESP(context) = IA32_ESP(context) - __SIZEOF_POINTER__;
+    *(Address *) IA32_ESP(context) = ip + length;
+    IA32_EIP(context) = *(Address *) (VmToc + bootRecord->yieldpointFromPollOffset);
+    return 1;
+}
+
 extern "C" void
 hardwareTrapHandler(int signo, siginfo_t *si, void *context)
 {
+    // yieldpoint polls are not errors: divert into the yieldpoint
+    if (signo == SIGSEGV && handleYieldpointPoll(si, context))
+        return;
+
     // alignment checking: handle hardware alignment exceptions
 #ifdef RVM_WITH_ALIGNMENT_CHECKING
     if (signo == SIGBUS || alignCheckHandlerJumpLocation) {
@@ -911,7 +955,7 @@ softwareSignalHandler(int signo,
 
 static void*
 mapImageFile(const char *fileName, const void *targetAddress, int prot,
-             unsigned *roundedImageSize) {
+             int flags, unsigned *roundedImageSize) {
 
     /* open and mmap the image file.
      * create bootRegion
@@ -933,7 +977,7 @@ mapImageFile(const char *fileName, const void *targetAddress, int prot,
     void *bootRegion = 0;
     bootRegion = mmap((void*)targetAddress, *roundedImageSize,
 		      prot,
-		      MAP_FIXED | MAP_PRIVATE | MAP_NORESERVE,
+		      MAP_FIXED | MAP_NORESERVE | flags,
 		      fileno(fin), 0);
     if (bootRegion == (void *) MAP_FAILED) {
         fprintf(SysErrorFile, "%s: mmap failed (errno=%d): %s\n",
@@ -969,10 +1013,22 @@ createVM(void)
     setbuf (SysErrorFile, 0);
     setbuf (SysTraceFile, 0);
 
+    /* All three images are file mappings, so pages are only read in when
+     * first touched and clean pages are shared with other VM processes
+     * through the page cache.  The data image is written to and so is
+     * private.  The reference map is never written, so it is mapped shared
+     * and read-only.  The code image holds the code and the arrays that are
+     * never written, the characters of strings and bytes of atoms.  It is
+     * only written when the VM patches compiled code, which unprotects the
+     * affected pages first; with
+     * -X:readOnlyCode it is mapped without write permission so that no
+     * other write can give this process a private copy of a code page.
+     */
     unsigned roundedDataRegionSize;
     void *bootDataRegion = mapImageFile(bootDataFilename,
                                         bootImageDataAddress,
                                         PROT_READ | PROT_WRITE | PROT_EXEC,
+                                        MAP_PRIVATE,
                                         &roundedDataRegionSize);
     if (bootDataRegion != bootImageDataAddress)
         return 1;
@@ -980,7 +1036,10 @@ createVM(void)
     unsigned roundedCodeRegionSize;
     void *bootCodeRegion = mapImageFile(bootCodeFilename,
                                         bootImageCodeAddress,
-                                        PROT_READ | PROT_WRITE | PROT_EXEC,
+                                        readOnlyBootCode
+                                            ? PROT_READ | PROT_EXEC
+                                            : PROT_READ | PROT_WRITE | PROT_EXEC,
+                                        MAP_PRIVATE,
                                         &roundedCodeRegionSize);
     if (bootCodeRegion != bootImageCodeAddress)
         return 1;
@@ -989,6 +1048,7 @@ createVM(void)
     void *bootRMapRegion = mapImageFile(bootRMapFilename,
                                         bootImageRMapAddress,
                                         PROT_READ,
+                                        MAP_SHARED,
                                         &roundedRMapRegionSize);
     if (bootRMapRegion != bootImageRMapAddress)
         return 1;
@@ -1037,6 +1097,16 @@ createVM(void)
     /* remember jtoc location for later use by trap handler */
     VmToc = bootRecord->tocRegister;
 
+    /* map the yieldpoint polling page; the VM protects it to request
+       yieldpoints from opt-compiled loops */
+    void *pollingPage = mmap((void *) bootRecord->yieldpointPollingPage, getpagesize(),
+                             PROT_READ, MAP_PRIVATE | MAP_ANON | MAP_FIXED, -1, 0);
+    if (pollingPage == MAP_FAILED) {
+        fprintf(SysErrorFile, "%s: can't map the yieldpoint polling page at %p (errno=%d): %s\n",
+                Me, (void *) bootRecord->yieldpointPollingPage, errno, strerror(errno));
+        return 1;
+    }
+
     // remember JTOC offset of Scheduler.DebugRequested
     //
     DebugRequestedOffset = bootRecord->debugRequestedOffset;
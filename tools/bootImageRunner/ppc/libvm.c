@@ -1054,6 +1054,7 @@ static void *bootThreadCaller(void *);
 const char *bootDataFilename     = 0;
 const char *bootCodeFilename     = 0;
 const char *bootRMapFilename     = 0;
+int readOnlyBootCode             = 0;
 
 // The name of the program that will load and run the RVM.
 // Declared in bootImageRunner.h
@@ -1067,8 +1068,8 @@ pageRoundUp(size_t size)
 }
 
 static void*
-mapImageFile(const char *fileName, const void *targetAddress, bool isCode,
-             size_t *roundedImageSize) {
+mapImageFile(const char *fileName, const void *targetAddress, int prot,
+             int flags, size_t *roundedImageSize) {
     // open image file
     //
     FILE *fin = fopen(fileName, "r");
@@ -1091,8 +1092,8 @@ mapImageFile(const char *fileName, const void *targetAddress, bool isCode,
     //
     void    *bootRegion = 0;
     bootRegion = mmap((void *) targetAddress, *roundedImageSize,
-		      PROT_READ | PROT_WRITE | PROT_EXEC,
-              MAP_FIXED | MAP_PRIVATE,
+		      prot,
+		      MAP_FIXED | flags,
 		      fileno(fin), 0);
     if (bootRegion == (void *) MAP_FAILED) {
         fprintf(SysErrorFile, "%s: mmap failed (errno=%d): %e\n",
@@ -1127,7 +1128,8 @@ createVM(void)
 
     void *bootDataRegion = mapImageFile(bootDataFilename,
                                         bootImageDataAddress,
-                                        false,
+                                        PROT_READ | PROT_WRITE | PROT_EXEC,
+                                        MAP_PRIVATE,
                                         &roundedDataRegionSize);
     if (bootDataRegion != bootImageDataAddress)
         return 1;
@@ -1135,7 +1137,10 @@ createVM(void)
     size_t roundedCodeRegionSize;
     void *bootCodeRegion = mapImageFile(bootCodeFilename,
                                         bootImageCodeAddress,
-                                        true,
+                                        readOnlyBootCode
+                                            ? PROT_READ | PROT_EXEC
+                                            : PROT_READ | PROT_WRITE | PROT_EXEC,
+                                        MAP_PRIVATE,
                                         &roundedCodeRegionSize);
     if (bootCodeRegion != bootImageCodeAddress)
         return 1;
@@ -1143,7 +1148,8 @@ createVM(void)
     size_t roundedRMapRegionSize;
     void *bootRMapRegion = mapImageFile(bootRMapFilename,
                                         bootImageRMapAddress,
-                                        true,
+                                        PROT_READ,
+                                        MAP_SHARED,
                                         &roundedRMapRegionSize);
     if (bootRMapRegion != bootImageRMapAddress)
         return 1;
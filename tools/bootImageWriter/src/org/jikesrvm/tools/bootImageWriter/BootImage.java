@@ -18,11 +18,20 @@ import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jikesrvm.VM;
 import org.jikesrvm.SizeConstants;
 import org.jikesrvm.classloader.RVMArray;
 import org.jikesrvm.classloader.RVMClass;
+import org.jikesrvm.mm.mminterface.AlignmentEncoding;
 import org.jikesrvm.mm.mminterface.MemoryManager;
 import org.jikesrvm.mm.mmtk.ScanBootImage;
 import org.jikesrvm.objectmodel.BootImageInterface;
@@ -35,7 +44,23 @@ import org.vmmagic.unboxed.Word;
 
 /**
  * Memory image of virtual machine that will be written to disk file and later
- * "booted".
+ * "booted".<p>
+ *
+ * Objects may be allocated and filled in by several threads at once: the
+ * allocators are synchronized, and each thread writes only the words of the
+ * objects it is copying.<p>
+ *
+ * Space may be reserved for hot objects, those touched when the VM starts
+ * up, at the start of the data and code images, so that they share as few
+ * pages as possible.  Hot objects that don't fit are allocated with the
+ * others.<p>
+ *
+ * Arrays that are never written once built, the characters of strings and
+ * the bytes of atoms, are allocated in the code image rather than the data
+ * image, so that they are mapped with the code and, like it, can be mapped
+ * read-only and shared between VM processes.  The boot image is scanned
+ * for roots rather than traced, so the collector doesn't write their
+ * headers either.
  */
 public class BootImage extends BootImageWriterMessages
   implements BootImageWriterConstants, BootImageInterface, SizeConstants {
@@ -60,10 +85,30 @@ public class BootImage extends BootImageWriterMessages
    */
   private final byte[] referenceMap;
   private int referenceMapReferences = 0;
-  private int referenceMapLimit = 0;
   private byte[] bootImageRMap;
   private int rMapSize = 0;
 
+  /**
+   * Smallest number of reference map entries worth encoding on a thread
+   * of its own
+   */
+  private static final int MIN_RMAP_SEGMENT = 1 << 16;
+
+  /**
+   * Number of threads to encode the reference map with
+   */
+  private final int numThreads;
+
+  /**
+   * Lock for allocating data
+   */
+  private final Object dataLock = new Object();
+
+  /**
+   * Lock for allocating code
+   */
+  private final Object codeLock = new Object();
+
   /**
    * Offset of next free data word, in bytes
    */
@@ -74,21 +119,61 @@ public class BootImage extends BootImageWriterMessages
    */
   private Offset freeCodeOffset = Offset.zero();
 
+  /**
+   * Offset of next free hot data word and the end of the space reserved
+   * for hot data, in bytes; zero if none is reserved
+   */
+  private Offset freeHotDataOffset = Offset.zero();
+  private Offset hotDataLimit = Offset.zero();
+
+  /**
+   * Offset of next free hot code word and the end of the space reserved
+   * for hot code, in bytes; zero if none is reserved
+   */
+  private Offset freeHotCodeOffset = Offset.zero();
+  private Offset hotCodeLimit = Offset.zero();
+
+  /**
+   * Is a hot object being allocated? Only set while holding the lock of
+   * the allocator.
+   */
+  private boolean allocatingHotData;
+  private boolean allocatingHotCode;
+
+  /**
+   * Is a read-only array being allocated? Only set while holding the locks
+   * of both allocators.
+   */
+  private boolean allocatingReadOnly;
+
+  /**
+   * Number and bytes of read-only arrays allocated in the code image
+   */
+  private int numReadOnlyObjects;
+  private int readOnlyBytes;
+
+  /**
+   * Number of hot objects allocated in, and that didn't fit in, the space
+   * reserved for them
+   */
+  private int numHotObjects;
+  private int numColdHotObjects;
+
   /**
    * Number of objects appearing in bootimage
    */
-  private int numObjects;
+  private final AtomicInteger numObjects = new AtomicInteger();
 
   /**
    * Number of non-null object addresses appearing in bootimage
    */
-  private int numAddresses;
+  private final AtomicInteger numAddresses = new AtomicInteger();
 
   /**
    * Number of object addresses set to null because they referenced objects
    * that are not part of bootimage
    */
-  private int numNulledReferences;
+  private final AtomicInteger numNulledReferences = new AtomicInteger();
 
   /**
    * Data output file
@@ -126,8 +211,9 @@ public class BootImage extends BootImageWriterMessages
   /**
    * @param ltlEndian write words low-byte first?
    * @param t turn tracing on?
+   * @param numThreads number of threads to encode the reference map with
    */
-  BootImage(boolean ltlEndian, boolean t, String imageCodeFileName, String imageDataFileName, String imageRMapFileName) throws IOException {
+  BootImage(boolean ltlEndian, boolean t, int numThreads, String imageCodeFileName, String imageDataFileName, String imageRMapFileName) throws IOException {
     this.imageCodeFileName = imageCodeFileName;
     this.imageDataFileName = imageDataFileName;
     this.imageRMapFileName = imageRMapFileName;
@@ -145,20 +231,27 @@ public class BootImage extends BootImageWriterMessages
     bootImageCode.order(endian);
     referenceMap = new byte[BOOT_IMAGE_DATA_SIZE >> LOG_BYTES_IN_ADDRESS];
     trace = t;
+    this.numThreads = numThreads;
   }
 
   /**
    * Write boot image to disk.
    */
   public void write() throws IOException {
+    fillHotRegions();
     if (trace) {
-      say((numObjects / 1024)   + "k objects");
-      say((numAddresses / 1024) + "k non-null object references");
-      say(numNulledReferences + " references nulled because they are "+
+      say((numObjects.get() / 1024)   + "k objects");
+      say((numAddresses.get() / 1024) + "k non-null object references");
+      say(numNulledReferences.get() + " references nulled because they are "+
           "non-jdk fields or point to non-bootimage objects");
       say(((Statics.getNumberOfReferenceSlots()+ Statics.getNumberOfNumericSlots()) / 1024) + "k jtoc slots");
       say((getDataSize() / 1024) + "k data in image");
       say((getCodeSize() / 1024) + "k code in image");
+      if (hotDataLimit.sGT(Offset.zero()) || hotCodeLimit.sGT(Offset.zero())) {
+        say(numHotObjects + " hot objects in " + (freeHotDataOffset.toInt() / 1024) + "k data and " +
+            (freeHotCodeOffset.toInt() / 1024) + "k code, " + numColdHotObjects + " that didn't fit");
+      }
+      say(numReadOnlyObjects + " read-only arrays in " + (readOnlyBytes / 1024) + "k of code image");
       say("writing " + imageDataFileName);
     }
     if (!mapByteBuffers) {
@@ -182,11 +275,7 @@ public class BootImage extends BootImageWriterMessages
       say("writing " + imageRMapFileName);
     }
 
-    /* Now we generate a compressed reference map.  Typically we get 4 bits/address, but
-       we'll create the in-memory array assuming worst case 1:1 compression.  Only the
-       used portion of the array actually gets written into the image. */
-    bootImageRMap = new byte[referenceMapReferences<<LOG_BYTES_IN_WORD];
-    rMapSize = ScanBootImage.encodeRMap(bootImageRMap, referenceMap, referenceMapLimit);
+    encodeRMap();
     FileOutputStream rmapOut = new FileOutputStream(imageRMapFileName);
     rmapOut.write(bootImageRMap, 0, rMapSize);
     rmapOut.flush();
@@ -197,12 +286,94 @@ public class BootImage extends BootImageWriterMessages
     ScanBootImage.encodingStats();
   }
 
+  /**
+   * Generate the compressed reference map.  Large maps are split into
+   * segments that are encoded in parallel, each starting on a chunk
+   * boundary of the encoding.
+   */
+  private void encodeRMap() throws IOException {
+    int limit = getDataSize() >> LOG_BYTES_IN_ADDRESS;
+    int segments = Math.max(1, Math.min(numThreads, limit / MIN_RMAP_SEGMENT));
+    byte[][] codes = new byte[segments][];
+    if (segments == 1) {
+      codes[0] = encodeRMapSegment(0, limit - 1);
+    } else {
+      ExecutorService threadPool = Executors.newFixedThreadPool(segments);
+      List<Future<byte[]>> encodings = new ArrayList<Future<byte[]>>(segments);
+      for (int i = 0; i < segments; i++) {
+        final int from = (int) ((long) limit * i / segments);
+        final int to = (int) ((long) limit * (i + 1) / segments) - 1;
+        encodings.add(threadPool.submit(new Callable<byte[]>() {
+          public byte[] call() {
+            return encodeRMapSegment(from, to);
+          }
+        }));
+      }
+      threadPool.shutdown();
+      try {
+        for (int i = 0; i < segments; i++) {
+          codes[i] = encodings.get(i).get();
+        }
+      } catch (InterruptedException e) {
+        throw new IOException("interrupted encoding the reference map");
+      } catch (ExecutionException e) {
+        throw new Error("failed encoding the reference map", e.getCause());
+      }
+    }
+
+    // Concatenate the segments, leaving out any that are empty
+    int size = 0;
+    for (byte[] code : codes) {
+      if (code != null) size = ScanBootImage.chunkAlign(size) + code.length;
+    }
+    bootImageRMap = new byte[Math.max(size, 1)];
+    rMapSize = 0;
+    for (byte[] code : codes) {
+      if (code != null) {
+        rMapSize = ScanBootImage.chunkAlign(rMapSize);
+        System.arraycopy(code, 0, bootImageRMap, rMapSize, code.length);
+        rMapSize += code.length;
+      }
+    }
+    if (rMapSize == 0) rMapSize = 1;
+  }
+
+  /**
+   * Encode the references of one segment of the reference map.
+   *
+   * @param from the index of the first entry of the segment
+   * @param to the index of the last entry of the segment
+   * @return the encoding, or null if the segment has no references
+   */
+  private byte[] encodeRMapSegment(int from, int to) {
+    int references = 0;
+    for (int index = from; index <= to; index++) {
+      if (referenceMap[index] != 0) references++;
+    }
+    synchronized (this) {
+      referenceMapReferences += references;
+    }
+    if (references == 0) return null;
+
+    /* Typically we get 4 bits/address, but we'll create the in-memory array
+       assuming worst case 1:1 compression, plus the padding at the end of
+       each chunk.  Only the used portion of the array is kept. */
+    int worstCase = references << LOG_BYTES_IN_WORD;
+    byte[] code = new byte[worstCase + (worstCase >> 8) + LOG_BYTES_IN_WORD + 2];
+    int length = ScanBootImage.encodeRMap(code, referenceMap, from, to);
+    byte[] used = new byte[length];
+    System.arraycopy(code, 0, used, 0, length);
+    return used;
+  }
+
   /**
    * Get image data size, in bytes.
    * @return image size
    */
   public int getDataSize() {
-    return freeDataOffset.toInt();
+    synchronized (dataLock) {
+      return freeDataOffset.toInt();
+    }
   }
 
   /**
@@ -210,7 +381,9 @@ public class BootImage extends BootImageWriterMessages
    * @return image size
    */
   public int getCodeSize() {
-    return freeCodeOffset.toInt();
+    synchronized (codeLock) {
+      return freeCodeOffset.toInt();
+    }
   }
 
 
@@ -227,11 +400,22 @@ public class BootImage extends BootImageWriterMessages
    * @param klass RVMClass object of scalar being allocated
    * @param needsIdentityHash needs an identity hash value
    * @param identityHashValue the value for the identity hash
+   * @param hot allocate in the space reserved for hot objects?
    * @return address of object within bootimage
    */
-  public Address allocateScalar(RVMClass klass, boolean needsIdentityHash, int identityHashValue) {
-    numObjects++;
+  public Address allocateScalar(RVMClass klass, boolean needsIdentityHash, int identityHashValue, boolean hot) {
+    numObjects.incrementAndGet();
     BootImageWriter.logAllocation(klass, klass.getInstanceSize());
+    if (hot) {
+      synchronized (dataLock) {
+        allocatingHotData = true;
+        try {
+          return ObjectModel.allocateScalar(this, klass, needsIdentityHash, identityHashValue);
+        } finally {
+          allocatingHotData = false;
+        }
+      }
+    }
     return ObjectModel.allocateScalar(this, klass, needsIdentityHash, identityHashValue);
   }
 
@@ -244,11 +428,22 @@ public class BootImage extends BootImageWriterMessages
    * @param identityHashValue the value for the identity hash
    * @param alignment special alignment value
    * @param alignCode Alignment-encoded value (AlignmentEncoding.ALIGN_CODE_NONE for none)
+   * @param hot allocate in the space reserved for hot objects?
    * @return address of object within bootimage
    */
-  public Address allocateArray(RVMArray array, int numElements, boolean needsIdentityHash, int identityHashValue, int alignCode) {
-    numObjects++;
+  public Address allocateArray(RVMArray array, int numElements, boolean needsIdentityHash, int identityHashValue, int alignCode, boolean hot) {
+    numObjects.incrementAndGet();
     BootImageWriter.logAllocation(array, array.getInstanceSize(numElements));
+    if (hot) {
+      synchronized (dataLock) {
+        allocatingHotData = true;
+        try {
+          return ObjectModel.allocateArray(this, array, numElements, needsIdentityHash, identityHashValue, alignCode);
+        } finally {
+          allocatingHotData = false;
+        }
+      }
+    }
     return ObjectModel.allocateArray(this, array, numElements, needsIdentityHash, identityHashValue, alignCode);
   }
 
@@ -264,21 +459,64 @@ public class BootImage extends BootImageWriterMessages
    * @return address of object within bootimage
    */
   public Address allocateArray(RVMArray array, int numElements, boolean needsIdentityHash, int identityHashValue, int align, int alignCode) {
-    numObjects++;
+    numObjects.incrementAndGet();
     BootImageWriter.logAllocation(array, array.getInstanceSize(numElements));
     return ObjectModel.allocateArray(this, array, numElements, needsIdentityHash, identityHashValue, align, alignCode);
   }
 
+  /**
+   * Allocate an array that is never written, once copied, in the code
+   * image.
+   *
+   * @param array RVMArray object of array being allocated.
+   * @param numElements number of elements
+   * @param needsIdentityHash needs an identity hash value
+   * @param identityHashValue the value for the identity hash
+   * @param hot allocate in the space reserved for hot code?
+   * @return address of object within bootimage
+   */
+  public Address allocateReadOnlyArray(RVMArray array, int numElements, boolean needsIdentityHash,
+                                       int identityHashValue, boolean hot) {
+    numObjects.incrementAndGet();
+    BootImageWriter.logAllocation(array, array.getInstanceSize(numElements));
+    synchronized (dataLock) {
+      synchronized (codeLock) {
+        allocatingReadOnly = true;
+        allocatingHotCode = hot;
+        try {
+          numReadOnlyObjects++;
+          readOnlyBytes += array.getInstanceSize(numElements);
+          return ObjectModel.allocateArray(this, array, numElements, needsIdentityHash, identityHashValue,
+                                           AlignmentEncoding.ALIGN_CODE_NONE);
+        } finally {
+          allocatingReadOnly = false;
+          allocatingHotCode = false;
+        }
+      }
+    }
+  }
+
   /**
    * Allocate an array object.
    *
    * @param array RVMArray object of array being allocated.
    * @param numElements number of elements
+   * @param hot allocate in the space reserved for hot code?
    * @return address of object within bootimage
    */
-  public Address allocateCode(RVMArray array, int numElements) {
-    numObjects++;
+  public Address allocateCode(RVMArray array, int numElements, boolean hot) {
+    numObjects.incrementAndGet();
     BootImageWriter.logAllocation(array, array.getInstanceSize(numElements));
+    if (hot) {
+      synchronized (codeLock) {
+        allocatingHotCode = true;
+        try {
+          return ObjectModel.allocateCode(this, array, numElements);
+        } finally {
+          allocatingHotCode = false;
+        }
+      }
+    }
     return ObjectModel.allocateCode(this, array, numElements);
   }
 
@@ -291,21 +529,37 @@ public class BootImage extends BootImageWriterMessages
    * @param offset the offset at which the alignment is desired.
    */
   public Address allocateDataStorage(int size, int align, int offset) {
-    size = roundAllocationSize(size);
-    Offset unalignedOffset = freeDataOffset;
-    freeDataOffset = MemoryManager.alignAllocation(freeDataOffset, align, offset);
-    if (VM.ExtremeAssertions) {
-      VM._assert(freeDataOffset.plus(offset).toWord().and(Word.fromIntSignExtend(align -1)).isZero());
-      VM._assert(freeDataOffset.toWord().and(Word.fromIntSignExtend(3)).isZero());
+    synchronized (dataLock) {
+      if (allocatingReadOnly) {
+        return allocateCodeStorage(size, align, offset);
+      }
+      size = roundAllocationSize(size);
+      if (allocatingHotData && hotDataLimit.sGT(Offset.zero())) {
+        Offset hotOffset = MemoryManager.alignAllocation(freeHotDataOffset, align, offset);
+        if (hotOffset.plus(size).sLE(hotDataLimit)) {
+          ObjectModel.fillAlignmentGap(this, BOOT_IMAGE_DATA_START.plus(freeHotDataOffset),
+                                          hotOffset.minus(freeHotDataOffset).toWord().toExtent());
+          freeHotDataOffset = hotOffset.plus(size);
+          numHotObjects++;
+          return BOOT_IMAGE_DATA_START.plus(hotOffset);
+        }
+        numColdHotObjects++;
+      }
+      Offset unalignedOffset = freeDataOffset;
+      freeDataOffset = MemoryManager.alignAllocation(freeDataOffset, align, offset);
+      if (VM.ExtremeAssertions) {
+        VM._assert(freeDataOffset.plus(offset).toWord().and(Word.fromIntSignExtend(align -1)).isZero());
+        VM._assert(freeDataOffset.toWord().and(Word.fromIntSignExtend(3)).isZero());
+      }
+      Offset lowAddr = freeDataOffset;
+      freeDataOffset = freeDataOffset.plus(size);
+      if (freeDataOffset.sGT(Offset.fromIntZeroExtend(BOOT_IMAGE_DATA_SIZE)))
+        fail("bootimage full (need at least " + size + " more bytes for data)");
+
+      ObjectModel.fillAlignmentGap(this, BOOT_IMAGE_DATA_START.plus(unalignedOffset),
+                                      lowAddr.minus(unalignedOffset).toWord().toExtent());
+      return BOOT_IMAGE_DATA_START.plus(lowAddr);
     }
-    Offset lowAddr = freeDataOffset;
-    freeDataOffset = freeDataOffset.plus(size);
-    if (freeDataOffset.sGT(Offset.fromIntZeroExtend(BOOT_IMAGE_DATA_SIZE)))
-      fail("bootimage full (need at least " + size + " more bytes for data)");
-
-    ObjectModel.fillAlignmentGap(this, BOOT_IMAGE_DATA_START.plus(unalignedOffset),
-                                    lowAddr.minus(unalignedOffset).toWord().toExtent());
-    return BOOT_IMAGE_DATA_START.plus(lowAddr);
   }
 
   /**
@@ -325,21 +579,93 @@ public class BootImage extends BootImageWriterMessages
    */
   public Address allocateCodeStorage(int size, int align, int offset) {
     size = roundAllocationSize(size);
-    Offset unalignedOffset = freeCodeOffset;
-    freeCodeOffset = MemoryManager.alignAllocation(freeCodeOffset, align, offset);
-    if (VM.ExtremeAssertions) {
-      VM._assert(freeCodeOffset.plus(offset).toWord().and(Word.fromIntSignExtend(align -1)).isZero());
-      VM._assert(freeCodeOffset.toWord().and(Word.fromIntSignExtend(3)).isZero());
+    synchronized (codeLock) {
+      if (allocatingHotCode && hotCodeLimit.sGT(Offset.zero())) {
+        Offset hotOffset = MemoryManager.alignAllocation(freeHotCodeOffset, align, offset);
+        if (hotOffset.plus(size).sLE(hotCodeLimit)) {
+          ObjectModel.fillAlignmentGap(this, BOOT_IMAGE_CODE_START.plus(freeHotCodeOffset),
+                                          hotOffset.minus(freeHotCodeOffset).toWord().toExtent());
+          freeHotCodeOffset = hotOffset.plus(size);
+          numHotObjects++;
+          return BOOT_IMAGE_CODE_START.plus(hotOffset);
+        }
+        numColdHotObjects++;
+      }
+      Offset unalignedOffset = freeCodeOffset;
+      freeCodeOffset = MemoryManager.alignAllocation(freeCodeOffset, align, offset);
+      if (VM.ExtremeAssertions) {
+        VM._assert(freeCodeOffset.plus(offset).toWord().and(Word.fromIntSignExtend(align -1)).isZero());
+        VM._assert(freeCodeOffset.toWord().and(Word.fromIntSignExtend(3)).isZero());
+      }
+      Offset lowAddr = freeCodeOffset;
+      freeCodeOffset = freeCodeOffset.plus(size);
+      if (freeCodeOffset.sGT(Offset.fromIntZeroExtend(BOOT_IMAGE_CODE_SIZE)))
+        fail("bootimage full (need at least " + size + " more bytes for code)");
+
+      ObjectModel.fillAlignmentGap(this, BOOT_IMAGE_CODE_START.plus(unalignedOffset),
+                                      lowAddr.minus(unalignedOffset).toWord().toExtent());
+
+      return BOOT_IMAGE_CODE_START.plus(lowAddr);
+    }
+  }
+
+  /**
+   * Reserve space for hot objects at the current end of the data and code
+   * images.
+   *
+   * @param dataSize bytes of hot data
+   * @param codeSize bytes of hot code
+   */
+  public void reserveHotRegions(int dataSize, int codeSize) {
+    synchronized (dataLock) {
+      freeHotDataOffset = freeDataOffset;
+      freeDataOffset = freeDataOffset.plus(roundAllocationSize(dataSize));
+      if (freeDataOffset.sGT(Offset.fromIntZeroExtend(BOOT_IMAGE_DATA_SIZE)))
+        fail("bootimage full (need at least " + dataSize + " more bytes for hot data)");
+      hotDataLimit = freeDataOffset;
+    }
+    synchronized (codeLock) {
+      freeHotCodeOffset = freeCodeOffset;
+      freeCodeOffset = freeCodeOffset.plus(roundAllocationSize(codeSize));
+      if (freeCodeOffset.sGT(Offset.fromIntZeroExtend(BOOT_IMAGE_CODE_SIZE)))
+        fail("bootimage full (need at least " + codeSize + " more bytes for hot code)");
+      hotCodeLimit = freeCodeOffset;
+    }
+  }
+
+  /**
+   * Fill the unused ends of the space reserved for hot objects, as the
+   * allocators fill alignment gaps.
+   */
+  private void fillHotRegions() {
+    synchronized (dataLock) {
+      ObjectModel.fillAlignmentGap(this, BOOT_IMAGE_DATA_START.plus(freeHotDataOffset),
+                                      hotDataLimit.minus(freeHotDataOffset).toWord().toExtent());
+    }
+    synchronized (codeLock) {
+      ObjectModel.fillAlignmentGap(this, BOOT_IMAGE_CODE_START.plus(freeHotCodeOffset),
+                                      hotCodeLimit.minus(freeHotCodeOffset).toWord().toExtent());
     }
-    Offset lowAddr = freeCodeOffset;
-    freeCodeOffset = freeCodeOffset.plus(size);
-    if (freeCodeOffset.sGT(Offset.fromIntZeroExtend(BOOT_IMAGE_CODE_SIZE)))
-      fail("bootimage full (need at least " + size + " more bytes for code)");
+  }
 
-    ObjectModel.fillAlignmentGap(this, BOOT_IMAGE_CODE_START.plus(unalignedOffset),
-                                    lowAddr.minus(unalignedOffset).toWord().toExtent());
+  /**
+   * Get the offset of the end of the hot data, in bytes.
+   * @return the offset, zero if no space was reserved for hot data
+   */
+  public int getHotDataEnd() {
+    synchronized (dataLock) {
+      return freeHotDataOffset.toInt();
+    }
+  }
 
-    return BOOT_IMAGE_CODE_START.plus(lowAddr);
+  /**
+   * Get the offset of the end of the hot code, in bytes.
+   * @return the offset, zero if no space was reserved for hot code
+   */
+  public int getHotCodeEnd() {
+    synchronized (codeLock) {
+      return freeHotCodeOffset.toInt();
+    }
   }
 
   /**
@@ -349,8 +675,12 @@ public class BootImage extends BootImageWriterMessages
    * actual address can be computed early in the build process.
    */
   public void resetAllocator() {
-    freeDataOffset = Offset.zero();
-    freeCodeOffset = Offset.zero();
+    synchronized (dataLock) {
+      freeDataOffset = Offset.zero();
+    }
+    synchronized (codeLock) {
+      freeCodeOffset = Offset.zero();
+    }
   }
 
   /**
@@ -376,18 +706,16 @@ public class BootImage extends BootImageWriterMessages
   /**
    * Set a byte in the reference bytemap to indicate that there is an
    * address in the boot image at this offset.  This can be used for
-   * relocatability and for fast boot image scanning at GC time.
+   * relocatability and for fast boot image scanning at GC time.  The
+   * references are counted when the map is encoded, so that threads
+   * copying different objects need not synchronize here.
    *
    * @param address The offset into the boot image which contains an
    * address.
    */
   private void markReferenceMap(Address address) {
     int referenceIndex = address.diff(BOOT_IMAGE_DATA_START).toInt()>>LOG_BYTES_IN_ADDRESS;
-    if (referenceMap[referenceIndex] == 0) {
-      referenceMap[referenceIndex] = 1;
-      referenceMapReferences++;
-      if (referenceIndex > referenceMapLimit) referenceMapLimit = referenceIndex;
-    }
+    referenceMap[referenceIndex] = 1;
   }
 
   /**
@@ -437,7 +765,7 @@ public class BootImage extends BootImageWriterMessages
       setFullWord(address, value.toInt());
     else
       setDoubleWord(address, value.toLong());
-    numAddresses++;
+    numAddresses.incrementAndGet();
   }
 
   /**
@@ -453,7 +781,7 @@ public class BootImage extends BootImageWriterMessages
   public void setNullAddressWord(Address address, boolean objField, boolean root, boolean genuineNull) {
     setAddressWord(address, Word.zero(), objField, root);
     if (!genuineNull)
-      numNulledReferences += 1;
+      numNulledReferences.incrementAndGet();
   }
 
   /**
@@ -491,6 +819,6 @@ public class BootImage extends BootImageWriterMessages
    * non-bootimage objects.
    */
   public void countNulledReference() {
-    numNulledReferences += 1;
+    numNulledReferences.incrementAndGet();
   }
 }
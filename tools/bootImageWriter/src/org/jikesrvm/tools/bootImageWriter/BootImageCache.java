@@ -0,0 +1,360 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.bootImageWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.LineNumberReader;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A bootimage kept from an earlier build, for incremental builds. The
+ * cache directory holds the image files together with a manifest of digests
+ * of everything the image was built from: the class files of the bootimage
+ * types, the bootimage writer's own classes, its arguments, any layout
+ * profile and the host JVM. If none of these has changed the cached image
+ * is reused rather than written again.<p>
+ *
+ * The image is reused whole or not at all. Compiled code refers to jtoc
+ * slots, field offsets and TIB offsets that are assigned across all the
+ * classes, literals among them in the order methods are compiled, and the
+ * address of every object depends on the size of those copied before it,
+ * so the code and objects of an unchanged class are only valid in an image
+ * in which no class has changed. The classes that changed are reported.
+ */
+class BootImageCache extends BootImageWriterMessages {
+
+  /** Name of the manifest in the cache directory */
+  private static final String MANIFEST = "BootImageCache.manifest";
+
+  /** Key of the digest of the arguments in the manifest */
+  private static final String ARGUMENTS = "(arguments)";
+
+  /** Key of the digest of the bootimage writer in the manifest */
+  private static final String WRITER = "(writer)";
+
+  /** Prefix of the keys of the digests of other files in the manifest */
+  private static final String FILE = "(file) ";
+
+  /** Classes of the bootimage writer that decide the content of the image */
+  private static final Class<?>[] writerClasses = {
+    BootImageWriter.class, BootImage.class, BootImageMap.class,
+    BootImageObjectAddressRemapper.class, BootImageWorker.class,
+    BootImageLayout.class, BuildJNIFunctionTable.class
+  };
+
+  /** The cache directory */
+  private final File directory;
+
+  /** Report each class that changed? */
+  private final boolean verbose;
+
+  /** Digests of what the image is being built from, by key */
+  private final Map<String,String> digests = new TreeMap<String,String>();
+
+  /**
+   * @param directory the cache directory, created if need be
+   * @param verbose report each class that changed?
+   */
+  BootImageCache(String directory, boolean verbose) {
+    this.directory = new File(directory);
+    this.verbose = verbose;
+  }
+
+  /**
+   * Record the arguments of the bootimage writer, the properties files
+   * configuring the VM and MMTk, and the host JVM running the writer.
+   */
+  void addArguments(String[] args) throws IOException {
+    MessageDigest md = newDigest();
+    for (String arg : args) {
+      update(md, arg);
+    }
+    for (String property : new String[] {"rvm.properties", "mmtk.properties"}) {
+      String fileName = System.getProperty(property);
+      if (fileName != null && new File(fileName).isFile()) {
+        update(md, new FileInputStream(fileName));
+      }
+    }
+    update(md, System.getProperty("java.vendor"));
+    update(md, System.getProperty("java.version"));
+    update(md, System.getProperty("java.vm.version"));
+    digests.put(ARGUMENTS, toHex(md.digest()));
+  }
+
+  /**
+   * Record a file the image is built from.
+   *
+   * @param fileName the file, or null if there is none
+   */
+  void addFile(String fileName) throws IOException {
+    if (fileName != null) {
+      MessageDigest md = newDigest();
+      update(md, new FileInputStream(fileName));
+      digests.put(FILE + fileName, toHex(md.digest()));
+    }
+  }
+
+  /**
+   * Record the classes of the bootimage writer.
+   */
+  void addWriterClasses() throws IOException {
+    MessageDigest md = newDigest();
+    for (Class<?> klass : writerClasses) {
+      String name = klass.getName();
+      InputStream in = klass.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class");
+      if (in != null) {
+        update(md, in);
+      }
+    }
+    digests.put(WRITER, toHex(md.digest()));
+  }
+
+  /**
+   * Record the class files of the bootimage types.
+   *
+   * @param typeNames descriptors of the bootimage types
+   * @param classpath where to find their class files
+   */
+  void addClasses(Vector<String> typeNames, String classpath) throws IOException {
+    List<Object> repositories = new ArrayList<Object>();
+    for (StringTokenizer tok = new StringTokenizer(classpath, File.pathSeparator); tok.hasMoreTokens();) {
+      File repository = new File(tok.nextToken());
+      if (repository.isDirectory()) {
+        repositories.add(repository);
+      } else if (repository.isFile()) {
+        repositories.add(new ZipFile(repository));
+      }
+    }
+    try {
+      for (String typeName : typeNames) {
+        if (typeName.startsWith("L") && typeName.endsWith(";")) {
+          String classFile = typeName.substring(1, typeName.length() - 1) + ".class";
+          InputStream in = open(repositories, classFile);
+          if (in == null) {
+            digests.put(typeName, "none");
+          } else {
+            MessageDigest md = newDigest();
+            update(md, in);
+            digests.put(typeName, toHex(md.digest()));
+          }
+        }
+      }
+    } finally {
+      for (Object repository : repositories) {
+        if (repository instanceof ZipFile) {
+          ((ZipFile) repository).close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Find a class file on the class path.
+   *
+   * @return a stream of the class file, or null if it's not found
+   */
+  private static InputStream open(List<Object> repositories, String classFile) throws IOException {
+    for (Object repository : repositories) {
+      if (repository instanceof ZipFile) {
+        ZipFile zip = (ZipFile) repository;
+        ZipEntry entry = zip.getEntry(classFile);
+        if (entry != null) {
+          return zip.getInputStream(entry);
+        }
+      } else {
+        File file = new File((File) repository, classFile);
+        if (file.isFile()) {
+          return new FileInputStream(file);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Is the cached image built from what this one is being built from?
+   * Reports what has changed if not.
+   *
+   * @param files the image files, null for any that aren't written
+   */
+  boolean isUpToDate(String... files) throws IOException {
+    File manifest = new File(directory, MANIFEST);
+    if (!manifest.isFile()) {
+      say("no bootimage cached in ", directory.getPath());
+      return false;
+    }
+    for (String file : files) {
+      if (file != null && !new File(directory, new File(file).getName()).isFile()) {
+        say("bootimage cached in ", directory.getPath(), " is incomplete");
+        return false;
+      }
+    }
+
+    Map<String,String> cached = new TreeMap<String,String>();
+    LineNumberReader in = new LineNumberReader(new FileReader(manifest));
+    try {
+      String line;
+      while ((line = in.readLine()) != null) {
+        int space = line.lastIndexOf(' ');
+        if (space > 0) {
+          cached.put(line.substring(0, space), line.substring(space + 1));
+        }
+      }
+    } finally {
+      in.close();
+    }
+
+    boolean upToDate = true;
+    int changed = 0;
+    for (Map.Entry<String,String> entry : digests.entrySet()) {
+      String key = entry.getKey();
+      if (!entry.getValue().equals(cached.get(key))) {
+        upToDate = false;
+        if (key.equals(ARGUMENTS)) {
+          say("bootimage writer arguments or host JVM changed");
+        } else if (key.equals(WRITER)) {
+          say("bootimage writer changed");
+        } else if (key.startsWith(FILE)) {
+          say(key.substring(FILE.length()), " changed");
+        } else {
+          changed++;
+          if (verbose) say("changed: ", key);
+        }
+      }
+    }
+    int removed = 0;
+    for (String key : cached.keySet()) {
+      if (!digests.containsKey(key)) {
+        upToDate = false;
+        removed++;
+        if (verbose) say("removed: ", key);
+      }
+    }
+    if (!upToDate) {
+      say(changed + " classes changed and " + removed + " removed since the bootimage cached in " +
+          directory.getPath());
+    }
+    return upToDate;
+  }
+
+  /**
+   * Copy the cached image files to where this build writes them.
+   *
+   * @param files the image files, null for any that aren't written
+   */
+  void restore(String... files) throws IOException {
+    for (String file : files) {
+      if (file != null) {
+        copy(new File(directory, new File(file).getName()), new File(file));
+      }
+    }
+  }
+
+  /**
+   * Keep the image files written by this build for the next, with the
+   * manifest of what they were built from.
+   *
+   * @param files the image files, null for any that aren't written
+   */
+  void save(String... files) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("can't create " + directory.getPath());
+    }
+    // Remove the manifest first, so that an interrupted save leaves no cache
+    File manifest = new File(directory, MANIFEST);
+    if (manifest.exists() && !manifest.delete()) {
+      throw new IOException("can't replace " + manifest.getPath());
+    }
+    for (String file : files) {
+      if (file != null) {
+        copy(new File(file), new File(directory, new File(file).getName()));
+      }
+    }
+    PrintStream out = new PrintStream(new FileOutputStream(manifest));
+    for (Map.Entry<String,String> entry : digests.entrySet()) {
+      out.println(entry.getKey() + " " + entry.getValue());
+    }
+    out.close();
+    if (out.checkError()) {
+      throw new IOException("can't write " + manifest.getPath());
+    }
+  }
+
+  private static void copy(File from, File to) throws IOException {
+    FileChannel in = new FileInputStream(from).getChannel();
+    try {
+      FileChannel out = new FileOutputStream(to).getChannel();
+      try {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+          position += in.transferTo(position, size - position, out);
+        }
+      } finally {
+        out.close();
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new Error("no SHA-1 digests on the host JVM", e);
+    }
+  }
+
+  private static void update(MessageDigest md, String s) {
+    md.update(String.valueOf(s).getBytes());
+    md.update((byte) 0);
+  }
+
+  private static void update(MessageDigest md, InputStream in) throws IOException {
+    try {
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = in.read(buffer)) > 0) {
+        md.update(buffer, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+      sb.append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+}
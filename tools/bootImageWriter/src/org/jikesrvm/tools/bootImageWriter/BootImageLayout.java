@@ -0,0 +1,241 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.bootImageWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+import org.vmmagic.unboxed.Address;
+
+/**
+ * Layout of the bootimage by the pages a run of the VM touched as it
+ * started up, so that the objects and code it touches are together at the
+ * start of the data and code images rather than scattered across them.<p>
+ *
+ * Two files are involved.  The object map, written with each image, lists
+ * the objects of the image by the id the writer gave them:
+ * <pre>
+ * &lt;id&gt; &lt;data|code&gt; &lt;offset&gt; &lt;size&gt; &lt;class&gt;
+ * </pre>
+ * The profile, written by a run of the VM with
+ * <code>-X:vm:bootImageProfile=file</code>, lists the pages of that image
+ * the run touched, after a line giving the page size:
+ * <pre>
+ * pagesize &lt;bytes&gt;
+ * &lt;data|code&gt; &lt;offset&gt;
+ * </pre>
+ * An object is hot if the page holding its address was touched.  The next
+ * image is given the same ids in the same order as long as the classes in
+ * it, and the threads compiling and copying it, are the same, so hot
+ * objects are found in it by id.  An object whose class isn't the one
+ * recorded for its id is taken as cold, so a stale profile only makes the
+ * layout worse.
+ */
+class BootImageLayout extends BootImageWriterMessages implements BootImageWriterConstants {
+
+  /** Classes of the hot objects, by id */
+  private final Map<Integer,String> hotObjects = new HashMap<Integer,String>();
+
+  /** Bytes of hot data and code in the profiled image */
+  private int hotDataSize;
+  private int hotCodeSize;
+
+  /** Number of objects found hot, and found with a different class than recorded */
+  private int numHot;
+  private int numChanged;
+
+  /**
+   * Read the object map of a bootimage and the profile of the pages a run
+   * of it touched.
+   *
+   * @param objectMapName the object map of the profiled image
+   * @param profileName the profile
+   */
+  BootImageLayout(String objectMapName, String profileName) throws IOException {
+    Set<Integer> dataPages = new HashSet<Integer>();
+    Set<Integer> codePages = new HashSet<Integer>();
+    int pageSize = 0;
+    BufferedReader in = new BufferedReader(new FileReader(profileName));
+    try {
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        StringTokenizer tok = new StringTokenizer(line);
+        if (!tok.hasMoreTokens()) continue;
+        String space = tok.nextToken();
+        if (space.startsWith("#")) continue;
+        if (space.equals("pagesize")) {
+          pageSize = Integer.parseInt(tok.nextToken());
+          continue;
+        }
+        if (pageSize <= 0) {
+          throw new IOException(profileName + " gives no page size");
+        }
+        int offset = Integer.parseInt(tok.nextToken());
+        (space.equals("code") ? codePages : dataPages).add(offset / pageSize);
+      }
+    } finally {
+      in.close();
+    }
+    if (pageSize <= 0) {
+      throw new IOException(profileName + " gives no page size");
+    }
+
+    in = new BufferedReader(new FileReader(objectMapName));
+    try {
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        StringTokenizer tok = new StringTokenizer(line);
+        if (!tok.hasMoreTokens() || line.startsWith("#")) continue;
+        int id = Integer.parseInt(tok.nextToken());
+        boolean code = tok.nextToken().equals("code");
+        int offset = Integer.parseInt(tok.nextToken());
+        int size = Integer.parseInt(tok.nextToken());
+        String className = tok.nextToken();
+        if ((code ? codePages : dataPages).contains(offset / pageSize)) {
+          hotObjects.put(id, className);
+          if (code) {
+            hotCodeSize += size;
+          } else {
+            hotDataSize += size;
+          }
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * @return the bytes of data to reserve for hot objects
+   */
+  int getHotDataSize() {
+    return hotDataSize;
+  }
+
+  /**
+   * @return the bytes of code to reserve for hot objects
+   */
+  int getHotCodeSize() {
+    return hotCodeSize;
+  }
+
+  /**
+   * Is an object hot?
+   *
+   * @param mapEntry the entry of the object
+   */
+  boolean isHot(BootImageMap.Entry mapEntry) {
+    String className = hotObjects.get(mapEntry.objectId.toInt());
+    if (className == null) {
+      return false;
+    }
+    if (!className.equals(mapEntry.jdkObject.getClass().getName())) {
+      numChanged++;
+      return false;
+    }
+    numHot++;
+    return true;
+  }
+
+  /**
+   * Report how much of the profile was used.
+   */
+  void report() {
+    say(numHot + " of " + hotObjects.size() + " hot objects found in the bootimage, " +
+        numChanged + " with ids of objects of other classes");
+  }
+
+  /**
+   * Write the object map of a bootimage.  The size of each object is taken
+   * to run to the address of the next object, or to the end of the hot
+   * objects or of the image.  Objects that share an address, such as a TIB
+   * and its backing array, are given the size once.
+   *
+   * @param fileName the file to write the map to
+   * @param bootImage the bootimage
+   */
+  static void writeObjectMap(String fileName, BootImage bootImage) throws IOException {
+    int numEntries = BootImageMap.objectIdToEntry.size();
+    int dataSize = bootImage.getDataSize();
+    int codeSize = bootImage.getCodeSize();
+    int[] offsets = new int[numEntries];
+    boolean[] inCode = new boolean[numEntries];
+    int[] dataOffsets = new int[numEntries + 2];
+    int[] codeOffsets = new int[numEntries + 2];
+    int numData = 0;
+    int numCode = 0;
+    for (int i = 1; i < numEntries; i++) {
+      Address address = BootImageMap.objectIdToEntry.get(i).imageAddress;
+      offsets[i] = -1;
+      if (address.GE(BOOT_IMAGE_DATA_START) && address.LT(BOOT_IMAGE_DATA_START.plus(dataSize))) {
+        offsets[i] = dataOffsets[numData++] = address.diff(BOOT_IMAGE_DATA_START).toInt();
+      } else if (address.GE(BOOT_IMAGE_CODE_START) && address.LT(BOOT_IMAGE_CODE_START.plus(codeSize))) {
+        offsets[i] = codeOffsets[numCode++] = address.diff(BOOT_IMAGE_CODE_START).toInt();
+        inCode[i] = true;
+      }
+    }
+    dataOffsets[numData++] = bootImage.getHotDataEnd();
+    dataOffsets[numData++] = dataSize;
+    codeOffsets[numCode++] = bootImage.getHotCodeEnd();
+    codeOffsets[numCode++] = codeSize;
+    Arrays.sort(dataOffsets, 0, numData);
+    Arrays.sort(codeOffsets, 0, numCode);
+
+    Set<Long> sized = new HashSet<Long>();
+    PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+    out.println("# id space offset size class");
+    for (int i = 1; i < numEntries; i++) {
+      if (offsets[i] < 0) continue;
+      int size = 0;
+      if (sized.add(((long) offsets[i] << 1) | (inCode[i] ? 1 : 0))) {
+        size = inCode[i] ? next(codeOffsets, numCode, offsets[i]) - offsets[i]
+                         : next(dataOffsets, numData, offsets[i]) - offsets[i];
+      }
+      out.println(i + (inCode[i] ? " code " : " data ") + offsets[i] + " " + size + " " +
+                  BootImageMap.objectIdToEntry.get(i).jdkObject.getClass().getName());
+    }
+    out.close();
+    if (out.checkError()) {
+      throw new IOException("can't write " + fileName);
+    }
+  }
+
+  /**
+   * Find the first of the sorted offsets above the given one.
+   *
+   * @param sorted sorted offsets, the last of them above the given one
+   * @param n the number of offsets
+   * @param offset the given offset
+   */
+  private static int next(int[] sorted, int n, int offset) {
+    int low = 0;
+    int high = n - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] <= offset) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return sorted[low];
+  }
+}
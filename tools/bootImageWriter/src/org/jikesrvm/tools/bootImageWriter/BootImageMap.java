@@ -130,7 +130,7 @@ public class BootImageMap extends BootImageWriterMessages
      * Address of corresponding rvm object in bootimage
      * (OBJECT_NOT_ALLOCATED --> hasn't been written to image yet)
      */
-    Address imageAddress;
+    volatile Address imageAddress;
 
     public static class LinkInfo {
       final Address addressToFixup;
@@ -156,6 +156,11 @@ public class BootImageMap extends BootImageWriterMessages
 
     private boolean pendingEntry;
 
+    /**
+     * The thread that has taken on the copying of this entry into the image
+     */
+    private Thread owner;
+
     /**
      * Do we need space in the written object for an identity hash code
      */
@@ -178,18 +183,32 @@ public class BootImageMap extends BootImageWriterMessages
       this.imageAddress = OBJECT_NOT_ALLOCATED;
     }
 
-    boolean isPendingEntry() {
-      return pendingEntry;
-    }
-
-    void setPendingEntry() {
+    /**
+     * Mark the entry as waiting to be written into the image
+     * @return whether the entry was not already waiting
+     */
+    synchronized boolean setPendingEntry() {
+      boolean wasPending = pendingEntry;
       pendingEntry = true;
+      return !wasPending;
     }
 
-    void clearPendingEntry() {
+    synchronized void clearPendingEntry() {
       pendingEntry = false;
     }
 
+    /**
+     * Take on the copying of this entry into the image, so that when
+     * objects are copied by several threads at once only one copies it
+     * @return whether no other thread had already taken it on
+     */
+    synchronized boolean claim() {
+      if (owner == null) {
+        owner = Thread.currentThread();
+      }
+      return owner == Thread.currentThread();
+    }
+
     /**
      * Store linking information for an unresolved field
      * @param toBeLinked the address that needs filling in when the field is resolved
@@ -56,10 +56,12 @@ final class BootImageObjectAddressRemapper implements ObjectAddressRemapper {
       obj = (T)(((String)obj).intern());
     } else if (obj instanceof Integer) {
       Integer i = (Integer)obj;
-      if (uniqueIntegers.containsKey(i)) {
-        obj = (T)uniqueIntegers.get(i);
-      } else {
-        uniqueIntegers.put(i, i);
+      synchronized (uniqueIntegers) {
+        if (uniqueIntegers.containsKey(i)) {
+          obj = (T)uniqueIntegers.get(i);
+        } else {
+          uniqueIntegers.put(i, i);
+        }
       }
     }
     return obj;
@@ -23,6 +23,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Comparator;
@@ -30,16 +31,22 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.SortedSet;
 import java.util.Stack;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.jikesrvm.Callbacks;
@@ -99,6 +106,14 @@ import org.vmmagic.unboxed.Word;
  *    -profile                 time major phases of bootimage writing
  *    -xclasspath <path>       OBSOLETE compatibility aid
  *    -numThreads=N            number of parallel compilation threads we should create
+ *    -copyThreads=N           number of threads copying objects into the bootimage;
+ *                             more than one makes the layout vary from build to build
+ *    -incremental <dir>       reuse the bootimage cached in dir if nothing it
+ *                             was built from has changed, else cache the new one
+ *    -objectMap <filename>    place to put the id, offset and class of each object
+ *    -layoutProfile <filename> pages touched by a run of the bootimage described
+ *                             by the object map; the objects on them are placed
+ *                             together at the start of the new bootimage
  *
  * </pre>
  */
@@ -119,6 +134,19 @@ public class BootImageWriter extends BootImageWriterMessages
    */
   public static int numThreads = Runtime.getRuntime().availableProcessors()+1;
 
+  /**
+   * Number of threads we should use for copying objects into the boot
+   * image and encoding its reference map. Objects are allocated in the
+   * order the threads reach them, so the layout of the image is only
+   * reproducible with one thread, the default.
+   */
+  private static int copyThreads = 1;
+
+  /**
+   * Objects to place together as they are touched at startup, or null
+   */
+  private static BootImageLayout layout;
+
   /**
    * The boot thread
    */
@@ -433,9 +461,10 @@ public class BootImageWriter extends BootImageWriterMessages
   }
 
   /**
-   * Entries yet to be written into the boot image
+   * Entries yet to be written into the boot image. Replaced by a concurrent
+   * queue when objects are copied by several threads.
    */
-  private static final Queue<BootImageMap.Entry> pendingEntries;
+  private static Queue<BootImageMap.Entry> pendingEntries;
   static {
     if (true) // depth first traversal
       pendingEntries = new FIFOLinkedList<BootImageMap.Entry>();
@@ -640,6 +669,10 @@ public class BootImageWriter extends BootImageWriterMessages
     Vector<String>   bootImageTypeNames    = null;
     String   bootImageTypeNamesFile = null;
     String[] bootImageCompilerArgs = {};
+    String   incrementalDirectory  = null;
+    String   objectMapName         = null;
+    String   layoutProfileName     = null;
+    long     writerStartTime       = System.currentTimeMillis();
 
     //
     // This may look useless, but it is not: it is a kludge to prevent
@@ -690,6 +723,20 @@ public class BootImageWriter extends BootImageWriterMessages
         bootImageMapName = args[i];
         continue;
       }
+      // name of object map file
+      if (args[i].equals("-objectMap")) {
+        if (++i >= args.length)
+          fail("argument syntax error: Got an -objectMap flag without a following object map file name");
+        objectMapName = args[i];
+        continue;
+      }
+      // profile of the pages touched at startup
+      if (args[i].equals("-layoutProfile")) {
+        if (++i >= args.length)
+          fail("argument syntax error: Got a -layoutProfile flag without a following profile file name");
+        layoutProfileName = args[i];
+        continue;
+      }
       // image code start address
       if (args[i].equals("-ca")) {
         if (++i >= args.length)
@@ -767,6 +814,21 @@ public class BootImageWriter extends BootImageWriterMessages
         }
         continue;
       }
+      // copyThreads
+      if (args[i].startsWith("-copyThreads=")) {
+        copyThreads = Integer.parseInt(args[i].substring(13));
+        if (copyThreads < 1) {
+          fail("copyThreads must be a positive number, value supplied:  "+ copyThreads);
+        }
+        continue;
+      }
+      // directory caching the bootimage between builds
+      if (args[i].equals("-incremental")) {
+        if (++i >= args.length)
+          fail("argument syntax error: Got an -incremental flag without a following cache directory");
+        incrementalDirectory = args[i];
+        continue;
+      }
       // profile
       if (args[i].equals("-profile")) {
         profile = true;
@@ -795,6 +857,29 @@ public class BootImageWriter extends BootImageWriterMessages
     if (verbose >= 2)
       traversed = new Hashtable<Object,Integer>(500);
 
+    // Tracing the copy and the links of the GC trace header follow a single
+    // traversal of the objects
+    if (copyThreads > 1 && (verbose >= 2 || VM.BuildWithGCTrace)) {
+      say("copying objects with one thread, as the traversal is being traced");
+      copyThreads = 1;
+    }
+    // Objects are found in the profile by the ids the writer gives them,
+    // which are only the same from build to build on one thread
+    if (layoutProfileName != null) {
+      if (objectMapName == null)
+        fail("please specify \"-objectMap <object-map-filename>\" of the profiled bootimage");
+      if (copyThreads > 1) {
+        say("copying objects with one thread, as the layout is profiled");
+        copyThreads = 1;
+      }
+      if (numThreads > 1) {
+        say("warning: compiling with more than one thread gives objects different ids from build to build");
+      }
+    }
+    if (copyThreads > 1) {
+      pendingEntries = new ConcurrentLinkedQueue<BootImageMap.Entry>();
+    }
+
     //
     // Check command line directives for correctness.
     //
@@ -840,6 +925,55 @@ public class BootImageWriter extends BootImageWriterMessages
       }
     }
 
+    long startTime = 0;
+    long stopTime = 0;
+
+    //
+    // Reuse the bootimage of an earlier build if nothing it was built from
+    // has changed.
+    //
+    BootImageCache cache = null;
+    if (incrementalDirectory != null) {
+      if (profile) startTime = System.currentTimeMillis();
+      cache = new BootImageCache(incrementalDirectory, verbose >= 1);
+      boolean upToDate = false;
+      try {
+        cache.addArguments(args);
+        cache.addWriterClasses();
+        cache.addClasses(readTypeNames(bootImageTypeNamesFile), bootImageRepositoriesAtBuildTime);
+        cache.addFile(layoutProfileName);
+        upToDate = cache.isUpToDate(bootImageCodeName, bootImageDataName, bootImageRMapName, bootImageMapName, objectMapName);
+        if (upToDate) {
+          cache.restore(bootImageCodeName, bootImageDataName, bootImageRMapName, bootImageMapName, objectMapName);
+        }
+      } catch (IOException e) {
+        fail("unable to use the bootimage cache in " + incrementalDirectory + ": " + e);
+      }
+      if (profile) {
+        stopTime = System.currentTimeMillis();
+        System.out.println("PROF: checking bootimage cache "+(stopTime-startTime)+" ms");
+      }
+      if (upToDate) {
+        say("reused the bootimage cached in ", incrementalDirectory);
+        if (profile) {
+          System.out.println("PROF: total "+(System.currentTimeMillis()-writerStartTime)+" ms");
+        }
+        return;
+      }
+    }
+
+    //
+    // Read the profile of the objects touched at startup before the object
+    // map it refers to is overwritten.
+    //
+    if (layoutProfileName != null) {
+      try {
+        layout = new BootImageLayout(objectMapName, layoutProfileName);
+      } catch (IOException e) {
+        fail("unable to read the layout profile " + layoutProfileName + ": " + e);
+      }
+    }
+
     //
     // Initialize the bootimage.
     // Do this earlier than we logically need to because we need to
@@ -849,7 +983,7 @@ public class BootImageWriter extends BootImageWriterMessages
     // (need to get contiguous storage before it gets fragmented by pinned objects)
     //
     try {
-      bootImage = new BootImage(littleEndian, verbose >= 1, bootImageCodeName, bootImageDataName, bootImageRMapName);
+      bootImage = new BootImage(littleEndian, verbose >= 1, copyThreads, bootImageCodeName, bootImageDataName, bootImageRMapName);
     } catch (IOException e) {
       fail("unable to write bootImage: "+e);
     }
@@ -880,8 +1014,6 @@ public class BootImageWriter extends BootImageWriterMessages
     // needed at run time to execute enough of the virtual machine
     // to dynamically load and compile the remainder of itself.
     //
-    long startTime = 0;
-    long stopTime = 0;
     if (profile) startTime = System.currentTimeMillis();
     try {
       bootImageTypeNames = readTypeNames(bootImageTypeNamesFile);
@@ -970,12 +1102,20 @@ public class BootImageWriter extends BootImageWriterMessages
     if (jtocPtr.NE(bootRecord.tocRegister))
       fail("mismatch in JTOC placement "+VM.addressAsHexString(jtocPtr)+" != "+ VM.addressAsHexString(bootRecord.tocRegister));
 
+    //
+    // Reserve space for the objects touched at startup after the jtoc.
+    //
+    if (layout != null) {
+      bootImage.reserveHotRegions(layout.getHotDataSize(), layout.getHotCodeSize());
+    }
+
     //
     // Now, copy all objects reachable from jtoc, replacing each object id
     // that was generated by object address remapper with the actual
     // bootimage address of that object.
     //
     if (verbose >= 1) say("copying statics");
+    long staticsStartTime = System.currentTimeMillis();
     try {
       int refSlotSize = Statics.getReferenceSlotSize();
       for (int i = Statics.middleOfTable+refSlotSize, n = Statics.getHighestInUseSlot();
@@ -1020,6 +1160,7 @@ public class BootImageWriter extends BootImageWriterMessages
 
     if (profile) {
       stopTime = System.currentTimeMillis();
+      System.out.println("PROF: \tcopying statics with "+copyThreads+" threads "+(stopTime-staticsStartTime)+" ms");
       System.out.println("PROF: filling bootimage byte[] "+(stopTime-startTime)+" ms");
     }
     //
@@ -1113,13 +1254,56 @@ public class BootImageWriter extends BootImageWriterMessages
     //
     // Generate address map for debugging.
     //
+    if (profile) startTime = System.currentTimeMillis();
     try {
       if (bootImageMapName != null)
         writeAddressMap(bootImageMapName);
     } catch (IOException e) {
       fail("unable to write address map: "+e);
     }
+    if (profile) {
+      stopTime = System.currentTimeMillis();
+      System.out.println("PROF: writing address map "+(stopTime-startTime)+" ms");
+    }
 
+    //
+    // Generate object map for laying out a later bootimage.
+    //
+    if (layout != null) {
+      layout.report();
+    }
+    if (objectMapName != null) {
+      if (profile) startTime = System.currentTimeMillis();
+      try {
+        BootImageLayout.writeObjectMap(objectMapName, bootImage);
+      } catch (IOException e) {
+        fail("unable to write object map: "+e);
+      }
+      if (profile) {
+        stopTime = System.currentTimeMillis();
+        System.out.println("PROF: writing object map "+(stopTime-startTime)+" ms");
+      }
+    }
+
+    //
+    // Keep the bootimage for the next incremental build.
+    //
+    if (cache != null) {
+      if (profile) startTime = System.currentTimeMillis();
+      try {
+        cache.save(bootImageCodeName, bootImageDataName, bootImageRMapName, bootImageMapName, objectMapName);
+      } catch (IOException e) {
+        fail("unable to save the bootimage cache in " + incrementalDirectory + ": " + e);
+      }
+      if (profile) {
+        stopTime = System.currentTimeMillis();
+        System.out.println("PROF: saving bootimage cache "+(stopTime-startTime)+" ms");
+      }
+    }
+
+    if (profile) {
+      System.out.println("PROF: total "+(System.currentTimeMillis()-writerStartTime)+" ms");
+    }
     if (verbose >= 1) say("done");
   }
 
@@ -1170,15 +1354,17 @@ public class BootImageWriter extends BootImageWriterMessages
    */
   public static void logAllocation(RVMType type, int size) {
     if(demographics) {
-      DemographicInformation info = demographicData.get(type);
-      if(info != null) {
-        info.count++;
-        info.size += size;
-      } else {
-        info = new DemographicInformation();
-        info.count++;
-        info.size += size;
-        demographicData.put(type, info);
+      synchronized (demographicData) {
+        DemographicInformation info = demographicData.get(type);
+        if(info != null) {
+          info.count++;
+          info.size += size;
+        } else {
+          info = new DemographicInformation();
+          info.count++;
+          info.size += size;
+          demographicData.put(type, info);
+        }
       }
     }
   }
@@ -1833,8 +2019,7 @@ public class BootImageWriter extends BootImageWriterMessages
         if (true) {
           // Normal collection based traversal
           mapEntry.addLinkingAddress(fieldLocation, objField, root, rvmFieldName, rvmFieldType, parentObject);
-          if (!mapEntry.isPendingEntry()) {
-            mapEntry.setPendingEntry();
+          if (mapEntry.setPendingEntry()) {
             pendingEntries.add(mapEntry);
           }
           imageAddress = OBJECT_ALLOCATION_DEFERRED;
@@ -1865,13 +2050,144 @@ public class BootImageWriter extends BootImageWriterMessages
    * @throws IllegalAccessException
    */
   private static void processPendingEntries() throws IllegalAccessException {
+    if (copyThreads > 1) {
+      processPendingEntriesInParallel();
+      return;
+    }
     while (!pendingEntries.isEmpty()) {
-      BootImageMap.Entry mapEntry = pendingEntries.remove();
-      mapEntry.clearPendingEntry();
-      if (mapEntry.imageAddress.EQ(OBJECT_NOT_ALLOCATED)) {
-        mapEntry.imageAddress = copyToBootImage(mapEntry.jdkObject, false, Address.max(), null, false, AlignmentEncoding.ALIGN_CODE_NONE);
+      processPendingEntry(pendingEntries.remove());
+    }
+  }
+
+  /**
+   * Copy a deferred entry into the image, if no one has yet, and fix up
+   * the references to it
+   * @param mapEntry the entry
+   * @throws IllegalAccessException
+   */
+  private static void processPendingEntry(BootImageMap.Entry mapEntry) throws IllegalAccessException {
+    mapEntry.clearPendingEntry();
+    if (mapEntry.imageAddress.EQ(OBJECT_NOT_ALLOCATED)) {
+      mapEntry.imageAddress = copyToBootImage(mapEntry.jdkObject, false, Address.max(), null, false, AlignmentEncoding.ALIGN_CODE_NONE);
+    }
+    fixupLinkAddresses(mapEntry);
+  }
+
+  /**
+   * Have the TIBs been copied ahead of copying in parallel?
+   */
+  private static boolean copiedTIBs = false;
+
+  /**
+   * Has a thread copying in parallel failed?
+   */
+  private static volatile boolean copyFailed = false;
+
+  /**
+   * Is an object one to place with those touched at startup?
+   * @param mapEntry the entry of the object
+   */
+  private static boolean isHot(BootImageMap.Entry mapEntry) {
+    return layout != null && layout.isHot(mapEntry);
+  }
+
+  /**
+   * Is an array never written once it is copied, so that it can be placed
+   * in the code image and mapped read-only? The characters of strings and
+   * the bytes of atoms are, as nothing writes to them, nor locks or hashes
+   * them.  An array is placed by the object it is first found through, so
+   * one shared with a string buffer may not be.
+   * @param jdkObject the array
+   * @param parentObject the object it was found through
+   */
+  private static boolean isReadOnly(Object jdkObject, Object parentObject) {
+    if (parentObject instanceof String) {
+      return jdkObject instanceof char[] || jdkObject instanceof byte[];
+    }
+    return parentObject instanceof Atom && jdkObject instanceof byte[];
+  }
+
+  /**
+   * Wait for the thread that claimed an entry to allocate it in the image.
+   * The thread sets the address before copying the object's contents, so
+   * the wait is short.
+   * @param mapEntry the entry
+   * @return the address of the object in the image
+   */
+  private static Address awaitImageAddress(BootImageMap.Entry mapEntry) {
+    Address address = mapEntry.imageAddress;
+    while (address.EQ(OBJECT_NOT_ALLOCATED)) {
+      if (copyFailed) {
+        fail("another thread failed while copying " + mapEntry.jdkObject.getClass());
       }
-      fixupLinkAddresses(mapEntry);
+      Thread.yield();
+      address = mapEntry.imageAddress;
+    }
+    return address;
+  }
+
+  /**
+   * Process the deferred entries with copyThreads threads, each taking
+   * entries from the queue until it is empty. Copying an entry defers the
+   * objects it refers to, so threads are started again until no entries
+   * remain.<p>
+   *
+   * An object's TIB is copied as part of the object rather than being
+   * deferred, so the TIBs of all the types are copied first: that leaves
+   * threads little reason to wait for one another to allocate an object.
+   *
+   * @throws IllegalAccessException
+   */
+  private static void processPendingEntriesInParallel() throws IllegalAccessException {
+    if (!copiedTIBs) {
+      copiedTIBs = true;
+      for (RVMType type : bootImageTypes.values()) {
+        if (type.isInstantiated()) {
+          copyToBootImage(type.getTypeInformationBlock(), false, Address.max(), null, false, AlignmentEncoding.ALIGN_CODE_NONE);
+        }
+      }
+    }
+    ExecutorService threadPool = Executors.newFixedThreadPool(copyThreads);
+    try {
+      while (!pendingEntries.isEmpty()) {
+        List<Future<Object>> copies = new ArrayList<Future<Object>>(copyThreads);
+        for (int i = 0; i < copyThreads; i++) {
+          copies.add(threadPool.submit(new Callable<Object>() {
+            public Object call() throws IllegalAccessException {
+              try {
+                BootImageMap.Entry mapEntry;
+                while ((mapEntry = pendingEntries.poll()) != null) {
+                  processPendingEntry(mapEntry);
+                }
+                return null;
+              } catch (IllegalAccessException e) {
+                copyFailed = true;
+                throw e;
+              } catch (RuntimeException e) {
+                copyFailed = true;
+                throw e;
+              } catch (Error e) {
+                copyFailed = true;
+                throw e;
+              }
+            }
+          }));
+        }
+        for (Future<Object> copy : copies) {
+          try {
+            copy.get();
+          } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalAccessException) throw (IllegalAccessException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new Error("failure copying objects", cause);
+          } catch (InterruptedException e) {
+            throw new Error("Build interrupted", e);
+          }
+        }
+      }
+    } finally {
+      threadPool.shutdown();
     }
   }
 
@@ -1918,10 +2234,16 @@ public class BootImageWriter extends BootImageWriterMessages
       Address overwriteAddress, Object parentObject, boolean untraced, int alignCode) throws IllegalAccessException
   {
     try {
-      // Return object if it is already copied and not being overwritten
+      // Return object if it is already copied, or being copied by another
+      // thread, and not being overwritten
       BootImageMap.Entry mapEntry = BootImageMap.findOrCreateEntry(jdkObject);
-      if ((!mapEntry.imageAddress.EQ(OBJECT_NOT_ALLOCATED)) && overwriteAddress.isMax()) {
-        return mapEntry.imageAddress;
+      if (overwriteAddress.isMax()) {
+        if (!mapEntry.imageAddress.EQ(OBJECT_NOT_ALLOCATED)) {
+          return mapEntry.imageAddress;
+        }
+        if (!mapEntry.claim()) {
+          return awaitImageAddress(mapEntry);
+        }
       }
 
       if (verbose >= 2) depth++;
@@ -1932,6 +2254,7 @@ public class BootImageWriter extends BootImageWriterMessages
       if (rvmType == null) {
         if (verbose >= 2) traverseObject(jdkObject);
         if (verbose >= 2) depth--;
+        mapEntry.imageAddress = OBJECT_NOT_PRESENT;
         return OBJECT_NOT_PRESENT; // object not part of bootimage
       }
 
@@ -1942,7 +2265,14 @@ public class BootImageWriter extends BootImageWriterMessages
         RVMArray rvmArrayType = rvmType.asArray();
         boolean needsIdentityHash = mapEntry.requiresIdentityHashCode();
         int identityHashValue = mapEntry.getIdentityHashCode();
-        Address arrayImageAddress = (overwriteAddress.isMax()) ? bootImage.allocateArray(rvmArrayType, arrayCount, needsIdentityHash, identityHashValue, alignCode) : overwriteAddress;
+        Address arrayImageAddress;
+        if (!overwriteAddress.isMax()) {
+          arrayImageAddress = overwriteAddress;
+        } else if (isReadOnly(jdkObject, parentObject)) {
+          arrayImageAddress = bootImage.allocateReadOnlyArray(rvmArrayType, arrayCount, needsIdentityHash, identityHashValue, isHot(mapEntry));
+        } else {
+          arrayImageAddress = bootImage.allocateArray(rvmArrayType, arrayCount, needsIdentityHash, identityHashValue, alignCode, isHot(mapEntry));
+        }
         mapEntry.imageAddress = arrayImageAddress;
         mapEntry.imageAddress = copyArrayToBootImage(arrayCount, arrayImageAddress, jdkObject, jdkType,
             rvmArrayType, allocOnly, overwriteAddress, parentObject, untraced);
@@ -2000,7 +2330,7 @@ public class BootImageWriter extends BootImageWriterMessages
         RVMClass rvmScalarType = rvmType.asClass();
         boolean needsIdentityHash = mapEntry.requiresIdentityHashCode();
         int identityHashValue = mapEntry.getIdentityHashCode();
-        Address scalarImageAddress = (overwriteAddress.isMax()) ? bootImage.allocateScalar(rvmScalarType, needsIdentityHash, identityHashValue) : overwriteAddress;
+        Address scalarImageAddress = (overwriteAddress.isMax()) ? bootImage.allocateScalar(rvmScalarType, needsIdentityHash, identityHashValue, isHot(mapEntry)) : overwriteAddress;
         mapEntry.imageAddress = scalarImageAddress;
         mapEntry.imageAddress = copyClassToBootImage(scalarImageAddress, jdkObject, jdkType, rvmScalarType,
             allocOnly, overwriteAddress, parentObject, untraced);
@@ -2297,10 +2627,16 @@ public class BootImageWriter extends BootImageWriterMessages
                                                    Address overwriteAddress,
                                                    Object parentObject)
     throws IllegalAccessException {
-    // Return object if it is already copied and not being overwritten
+    // Return object if it is already copied, or being copied by another
+    // thread, and not being overwritten
     BootImageMap.Entry mapEntry = BootImageMap.findOrCreateEntry(jdkObject);
-    if ((!mapEntry.imageAddress.EQ(OBJECT_NOT_ALLOCATED)) && overwriteAddress.isMax()) {
-      return mapEntry.imageAddress;
+    if (overwriteAddress.isMax()) {
+      if (!mapEntry.imageAddress.EQ(OBJECT_NOT_ALLOCATED)) {
+        return mapEntry.imageAddress;
+      }
+      if (!mapEntry.claim()) {
+        return awaitImageAddress(mapEntry);
+      }
     }
 
     if (verbose >= 2) depth++;
@@ -2312,11 +2648,11 @@ public class BootImageWriter extends BootImageWriterMessages
     Address arrayImageAddress;
     if (overwriteAddress.isMax()) {
       if (rvmElementType.equals(RVMType.CodeType)) {
-        arrayImageAddress = bootImage.allocateCode(rvmArrayType, arrayCount);
+        arrayImageAddress = bootImage.allocateCode(rvmArrayType, arrayCount, isHot(mapEntry));
       } else {
         boolean needsIdentityHash = mapEntry.requiresIdentityHashCode();
         int identityHashValue = mapEntry.getIdentityHashCode();
-        arrayImageAddress = bootImage.allocateArray(rvmArrayType, arrayCount, needsIdentityHash, identityHashValue, AlignmentEncoding.ALIGN_CODE_NONE);
+        arrayImageAddress = bootImage.allocateArray(rvmArrayType, arrayCount, needsIdentityHash, identityHashValue, AlignmentEncoding.ALIGN_CODE_NONE, isHot(mapEntry));
       }
     } else {
       arrayImageAddress = overwriteAddress;
@@ -3200,6 +3536,11 @@ public class BootImageWriter extends BootImageWriterMessages
     }
   }
 
+  /**
+   * Static rvm fields indexed by jtoc offset, built when first needed
+   */
+  private static HashMap<Integer,RVMField> rvmStaticFields;
+
   /**
    * Figure out name of static rvm field whose value lives in specified jtoc
    * slot.
@@ -3208,30 +3549,42 @@ public class BootImageWriter extends BootImageWriterMessages
    * @return field name
    */
   private static RVMField getRvmStaticField(Offset jtocOff) {
-    for (int i = FIRST_TYPE_DICTIONARY_INDEX; i < RVMType.numTypes(); ++i) {
-      RVMType type = RVMType.getType(i);
-      if (type == null) continue;
-      if (type.isPrimitiveType() || type.isUnboxedType())
-        continue;
-      if (!type.isResolved())
-        continue;
-      for (RVMField rvmField : type.getStaticFields()) {
-        if (rvmField.getOffset().EQ(jtocOff))
-          return rvmField;
+    if (rvmStaticFields == null) {
+      rvmStaticFields = new HashMap<Integer,RVMField>();
+      for (int i = FIRST_TYPE_DICTIONARY_INDEX; i < RVMType.numTypes(); ++i) {
+        RVMType type = RVMType.getType(i);
+        if (type == null) continue;
+        if (type.isPrimitiveType() || type.isUnboxedType())
+          continue;
+        if (!type.isResolved())
+          continue;
+        for (RVMField rvmField : type.getStaticFields()) {
+          Integer offset = rvmField.getOffset().toInt();
+          if (!rvmStaticFields.containsKey(offset))
+            rvmStaticFields.put(offset, rvmField);
+        }
       }
     }
-    return null;
+    return rvmStaticFields.get(jtocOff.toInt());
   }
 
+  /**
+   * Compiled methods indexed by their code arrays, built when first needed
+   */
+  private static IdentityHashMap<Object,CompiledMethod> methodsOfCode;
+
   private static CompiledMethod findMethodOfCode(Object code) {
-    for (int i = 0; i < CompiledMethods.numCompiledMethods(); ++i) {
-      CompiledMethod compiledMethod = CompiledMethods.getCompiledMethodUnchecked(i);
-      if (compiledMethod != null &&
-          compiledMethod.isCompiled() &&
-          compiledMethod.getEntryCodeArray() == code)
-        return compiledMethod;
+    if (methodsOfCode == null) {
+      methodsOfCode = new IdentityHashMap<Object,CompiledMethod>();
+      for (int i = 0; i < CompiledMethods.numCompiledMethods(); ++i) {
+        CompiledMethod compiledMethod = CompiledMethods.getCompiledMethodUnchecked(i);
+        if (compiledMethod != null &&
+            compiledMethod.isCompiled() &&
+            !methodsOfCode.containsKey(compiledMethod.getEntryCodeArray()))
+          methodsOfCode.put(compiledMethod.getEntryCodeArray(), compiledMethod);
+      }
     }
-    return null;
+    return methodsOfCode.get(code);
   }
 
   /**